@@ -0,0 +1,69 @@
+package com.biblioteca.dto;
+
+import com.biblioteca.model.Ejemplar;
+import com.biblioteca.model.EstadoPrestamo;
+import com.biblioteca.model.Libro;
+import com.biblioteca.model.Prestamo;
+import com.biblioteca.model.Socio;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste del mapeo entidad -> DTO en los listados (catálogo y préstamos).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapeoDtoBenchmark {
+
+    private Libro libro;
+    private Prestamo prestamo;
+
+    @Setup
+    public void preparar() {
+        libro = new Libro();
+        libro.setIdLibro(1L);
+        libro.setIsbn("9788437604947");
+        libro.setTitulo("El Quijote");
+        libro.setAutor("Miguel de Cervantes");
+        libro.setCategoria("Clásicos");
+        libro.setAnio(1605);
+
+        Ejemplar ejemplar = new Ejemplar();
+        ejemplar.setIdEjemplar(10L);
+        ejemplar.setLibro(libro);
+
+        Socio socio = new Socio();
+        socio.setIdSocio(5L);
+        socio.setUsuario("lector");
+
+        Date ahora = new Date();
+        prestamo = new Prestamo(socio, ejemplar, EstadoPrestamo.ACTIVO, ahora,
+                new Date(ahora.getTime() + TimeUnit.DAYS.toMillis(2)));
+        prestamo.setIdPrestamo(100L);
+    }
+
+    @Benchmark
+    public LibroDTO libroFromEntity() {
+        return LibroDTO.fromEntity(libro);
+    }
+
+    @Benchmark
+    public PrestamoDTO prestamoFromEntity() {
+        return PrestamoDTO.fromEntity(prestamo);
+    }
+}
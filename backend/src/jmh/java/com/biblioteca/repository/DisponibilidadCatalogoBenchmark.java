@@ -0,0 +1,115 @@
+package com.biblioteca.repository;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listado de catálogo con el antiguo @Formula (subconsulta correlacionada por
+ * libro) frente a la columna desnormalizada LIBRO.DISPONIBLES, con JDBC directo
+ * sobre H2.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DisponibilidadCatalogoBenchmark {
+
+    private static final int COPIAS_POR_LIBRO = 3;
+
+    private static final String CONSULTA_FORMULA = "SELECT l.ID_LIBRO, l.TITULO, "
+            + "(SELECT COUNT(*) FROM EJEMPLAR e WHERE e.ID_LIBRO = l.ID_LIBRO AND e.ESTADO = 'DISPONIBLE') "
+            + "FROM LIBRO l";
+    private static final String CONSULTA_CONTADOR = "SELECT l.ID_LIBRO, l.TITULO, l.DISPONIBLES FROM LIBRO l";
+
+    @Param({ "10000", "100000" })
+    public int numLibros;
+
+    private Connection conexion;
+
+    @Setup(Level.Trial)
+    public void poblar() throws SQLException {
+        // OPTIMIZE_REUSE_RESULTS=0 evita que H2 reutilice el resultado de la consulta anterior
+        conexion = DriverManager.getConnection("jdbc:h2:mem:bench" + numLibros + ";OPTIMIZE_REUSE_RESULTS=0", "sa", "");
+        try (Statement st = conexion.createStatement()) {
+            st.execute("CREATE TABLE LIBRO (ID_LIBRO BIGINT PRIMARY KEY, TITULO VARCHAR(200), "
+                    + "DISPONIBLES BIGINT DEFAULT 0 NOT NULL)");
+            st.execute("CREATE TABLE EJEMPLAR (ID_EJEMPLAR BIGINT PRIMARY KEY, ID_LIBRO BIGINT, ESTADO VARCHAR(20))");
+            st.execute("CREATE INDEX IDX_EJEMPLAR_LIBRO_ESTADO ON EJEMPLAR (ID_LIBRO, ESTADO)");
+        }
+
+        conexion.setAutoCommit(false);
+        try (PreparedStatement libro = conexion.prepareStatement("INSERT INTO LIBRO VALUES (?, ?, 0)");
+                PreparedStatement ejemplar = conexion.prepareStatement("INSERT INTO EJEMPLAR VALUES (?, ?, ?)")) {
+            long idEjemplar = 1;
+            for (int i = 1; i <= numLibros; i++) {
+                libro.setLong(1, i);
+                libro.setString(2, "Libro " + i);
+                libro.addBatch();
+                for (int c = 0; c < COPIAS_POR_LIBRO; c++) {
+                    ejemplar.setLong(1, idEjemplar++);
+                    ejemplar.setLong(2, i);
+                    ejemplar.setString(3, (i + c) % 4 == 0 ? "PRESTADO" : "DISPONIBLE");
+                    ejemplar.addBatch();
+                }
+                if (i % 5_000 == 0) {
+                    libro.executeBatch();
+                    ejemplar.executeBatch();
+                }
+            }
+            libro.executeBatch();
+            ejemplar.executeBatch();
+        }
+        try (Statement st = conexion.createStatement()) {
+            // Misma reconstrucción que hace ConsistenciaRunner al arrancar
+            st.executeUpdate("UPDATE LIBRO l SET DISPONIBLES = (SELECT COUNT(*) FROM EJEMPLAR e "
+                    + "WHERE e.ID_LIBRO = l.ID_LIBRO AND e.ESTADO = 'DISPONIBLE')");
+        }
+        conexion.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws SQLException {
+        conexion.close();
+    }
+
+    @Benchmark
+    public long subconsultaCorrelacionada() throws SQLException {
+        return sumarDisponibles(CONSULTA_FORMULA);
+    }
+
+    @Benchmark
+    public long columnaDesnormalizada() throws SQLException {
+        return sumarDisponibles(CONSULTA_CONTADOR);
+    }
+
+    private long sumarDisponibles(String sql) throws SQLException {
+        long suma = 0;
+        try (PreparedStatement ps = conexion.prepareStatement(sql); ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                suma += rs.getLong(3);
+            }
+        }
+        return suma;
+    }
+}
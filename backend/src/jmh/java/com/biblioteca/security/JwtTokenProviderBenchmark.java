@@ -0,0 +1,59 @@
+package com.biblioteca.security;
+
+import com.biblioteca.config.JwtProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verificación de un JWT tal y como la hace JwtAuthenticationFilter en cada
+ * petición autenticada. Con {@code cacheMaxEntries=0} cada llamada verifica la
+ * firma HS512; con caché solo la primera.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtTokenProviderBenchmark {
+
+    @Param({ "0", "10000" })
+    public int cacheMaxEntries;
+
+    private JwtTokenProvider proveedor;
+    private String token;
+
+    @Setup
+    public void preparar() {
+        JwtProperties propiedades = new JwtProperties();
+        propiedades.setSecret("benchmarkSecretKeyForJmhOnlyDoNotUseInProduction1234567890abcdefghij");
+        propiedades.setExpirationMs(3_600_000);
+        propiedades.setCacheMaxEntries(cacheMaxEntries);
+        proveedor = new JwtTokenProvider(propiedades);
+
+        List<SimpleGrantedAuthority> roles = List.of(new SimpleGrantedAuthority("ROLE_SOCIO"));
+        User usuario = new User("lector", "", roles);
+        token = proveedor.generateToken(new UsernamePasswordAuthenticationToken(usuario, null, roles));
+    }
+
+    @Benchmark
+    public Optional<AuthenticatedToken> authenticate() {
+        return proveedor.authenticate(token);
+    }
+}
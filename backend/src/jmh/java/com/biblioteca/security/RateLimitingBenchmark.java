@@ -0,0 +1,64 @@
+package com.biblioteca.security;
+
+import com.biblioteca.config.RateLimitProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code RateLimitingFilter.checkRateLimit} con 8 hilos: todos sobre la misma IP
+ * (contención máxima sobre un contador) o repartidos entre muchas IPs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class RateLimitingBenchmark {
+
+    @Param({ "1", "1024" })
+    public int numIps;
+
+    private RateLimitingFilter filtro;
+    private String[] claves;
+
+    @Setup(Level.Iteration)
+    public void preparar() {
+        RateLimitProperties propiedades = new RateLimitProperties();
+        filtro = new RateLimitingFilter(propiedades, new LocalRateLimitStore(propiedades));
+        claves = new String[numIps];
+        for (int i = 0; i < numIps; i++) {
+            claves[i] = "*|10.0." + (i / 256) + "." + (i % 256);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cliente {
+        int siguiente;
+    }
+
+    @Benchmark
+    public RateLimitStore.Decision checkRateLimit(Cliente cliente) {
+        String clave = claves[cliente.siguiente++ & (numIps - 1)];
+        return filtro.checkRateLimit(clave, 100);
+    }
+
+    @Benchmark
+    public boolean validarIp(Cliente cliente) {
+        return RateLimitingFilter.isValidIpFormat(claves[cliente.siguiente++ & (numIps - 1)].substring(2));
+    }
+}
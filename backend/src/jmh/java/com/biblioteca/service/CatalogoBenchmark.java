@@ -0,0 +1,96 @@
+package com.biblioteca.service;
+
+import com.biblioteca.BibliotecaBackendApplication;
+import com.biblioteca.dto.LibroDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code LibroService.obtenerTodosLosLibros} sobre H2 con catálogos generados de
+ * 1k, 10k y 100k libros. Levanta el contexto completo con el perfil "test" para
+ * medir la misma ruta que sirve GET /api/libros.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xmx2g" })
+public class CatalogoBenchmark {
+
+    private static final String[] CATEGORIAS = { "Novela", "Clásicos", "Ciencia", "Historia", "Poesía", "Ensayo",
+            "Infantil", "Tecnología" };
+
+    @Param({ "1000", "10000", "100000" })
+    public int numLibros;
+
+    private ConfigurableApplicationContext contexto;
+    private LibroService servicioLibro;
+    private CatalogoEnMemoria catalogo;
+
+    @Setup(Level.Trial)
+    public void arrancar() {
+        contexto = new SpringApplicationBuilder(BibliotecaBackendApplication.class)
+                .profiles("test")
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:jmh" + numLibros + ";DB_CLOSE_DELAY=-1",
+                        "spring.sql.init.mode=never",
+                        "logging.level.root=WARN")
+                .run();
+
+        List<Object[]> filas = new ArrayList<>(numLibros);
+        for (int i = 0; i < numLibros; i++) {
+            filas.add(new Object[] { String.format("978%010d", i), "Libro " + i, "Autor " + (i % 5_000),
+                    CATEGORIAS[i % CATEGORIAS.length], 1900 + (i % 120), (long) (i % 4) });
+        }
+        contexto.getBean(JdbcTemplate.class).batchUpdate(
+                "INSERT INTO LIBRO (ISBN, TITULO, AUTOR, CATEGORIA, ANIO, DISPONIBLES) VALUES (?, ?, ?, ?, ?, ?)",
+                filas);
+
+        servicioLibro = contexto.getBean(LibroService.class);
+        catalogo = contexto.getBean(CatalogoEnMemoria.class);
+        catalogo.invalidar();
+    }
+
+    @TearDown(Level.Trial)
+    public void parar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public List<LibroDTO> obtenerTodosLosLibros() {
+        return servicioLibro.obtenerTodosLosLibros(null, null, null, null);
+    }
+
+    @Benchmark
+    public List<LibroDTO> obtenerTodosLosLibrosPorCategoria() {
+        return servicioLibro.obtenerTodosLosLibros("Novela", null, null, null);
+    }
+
+    /** Coste de reconstruir la instantánea completa (findAll + índices). */
+    @Benchmark
+    public Optional<LibroDTO> reconstruirCatalogo() {
+        catalogo.invalidar();
+        return catalogo.buscarPorId(1L);
+    }
+}
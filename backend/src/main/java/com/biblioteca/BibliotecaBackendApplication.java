@@ -8,11 +8,24 @@ import com.biblioteca.config.AppCookieProperties;
 import com.biblioteca.config.AiServiceProperties;
 import com.biblioteca.config.TelegramProperties;
 import com.biblioteca.config.LibraryPolicyProperties;
+import com.biblioteca.config.RateLimitProperties;
+import com.biblioteca.config.OutboxProperties;
+import com.biblioteca.config.ExpiracionBloqueosProperties;
+import com.biblioteca.config.ReplicaProperties;
+import com.biblioteca.config.PrestamosVencidosProperties;
+import com.biblioteca.config.CachesProperties;
+import com.biblioteca.config.MetricasPeticionProperties;
+import com.biblioteca.config.RecomendacionesProperties;
+import com.biblioteca.config.ExportacionProperties;
 
 @SpringBootApplication
 @org.springframework.scheduling.annotation.EnableAsync
+@org.springframework.scheduling.annotation.EnableScheduling
 @EnableConfigurationProperties({ AppCookieProperties.class, AiServiceProperties.class, TelegramProperties.class,
-		LibraryPolicyProperties.class })
+		LibraryPolicyProperties.class, RateLimitProperties.class, OutboxProperties.class,
+		ExpiracionBloqueosProperties.class, ReplicaProperties.class, PrestamosVencidosProperties.class,
+		CachesProperties.class, MetricasPeticionProperties.class, RecomendacionesProperties.class,
+		ExportacionProperties.class })
 public class BibliotecaBackendApplication {
 
 	public static void main(String[] args) {
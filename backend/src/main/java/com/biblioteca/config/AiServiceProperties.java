@@ -11,6 +11,27 @@ public class AiServiceProperties {
      */
     private String url = "http://ai-service:8000/api/recomendar";
 
+    /**
+     * Espera máxima para abrir la conexión con el servicio.
+     */
+    private long timeoutConexionMs = 2000;
+
+    /**
+     * Espera máxima de la respuesta completa; la IA puede tardar varios segundos.
+     */
+    private long timeoutLecturaMs = 8000;
+
+    /**
+     * Fallos seguidos (error de red, timeout o 5xx) que abren el disyuntor.
+     */
+    private int fallosParaAbrir = 5;
+
+    /**
+     * Tiempo que el disyuntor permanece abierto antes de dejar pasar una
+     * llamada de prueba.
+     */
+    private long pausaCircuitoMs = 30_000;
+
     public String getUrl() {
         return url;
     }
@@ -18,4 +39,36 @@ public class AiServiceProperties {
     public void setUrl(String url) {
         this.url = url;
     }
+
+    public long getTimeoutConexionMs() {
+        return timeoutConexionMs;
+    }
+
+    public void setTimeoutConexionMs(long timeoutConexionMs) {
+        this.timeoutConexionMs = timeoutConexionMs;
+    }
+
+    public long getTimeoutLecturaMs() {
+        return timeoutLecturaMs;
+    }
+
+    public void setTimeoutLecturaMs(long timeoutLecturaMs) {
+        this.timeoutLecturaMs = timeoutLecturaMs;
+    }
+
+    public int getFallosParaAbrir() {
+        return fallosParaAbrir;
+    }
+
+    public void setFallosParaAbrir(int fallosParaAbrir) {
+        this.fallosParaAbrir = fallosParaAbrir;
+    }
+
+    public long getPausaCircuitoMs() {
+        return pausaCircuitoMs;
+    }
+
+    public void setPausaCircuitoMs(long pausaCircuitoMs) {
+        this.pausaCircuitoMs = pausaCircuitoMs;
+    }
 }
@@ -1,26 +1,94 @@
 package com.biblioteca.config;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.CaffeineSpec;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Callable;
 
+/**
+ * Cachés de la aplicación, cada una con su tamaño y caducidad según
+ * {@link CachesProperties}.
+ * <p>
+ * El gestor es transaccional: un {@code evict} o {@code put} dentro de una
+ * transacción se aplica tras el commit, para que otra petición no vuelva a
+ * cachear los datos anteriores mientras la transacción sigue abierta. Todas
+ * registran estadísticas, que Actuator publica como {@code cache.gets},
+ * {@code cache.puts} y {@code cache.evictions} por nombre de caché; además
+ * cada acceso suma en los contadores de la petición ({@link MetricasPeticion}).
+ */
 @Configuration
 @EnableCaching
 public class CacheConfig {
 
-    @SuppressWarnings("null")
+    /** Ejemplares de un libro con su estado, por ID de libro (GET /api/ejemplares?idLibro=). */
+    public static final String EJEMPLARES = "ejemplares";
+    /** IDs de libros leídos por usuario (ver HistorialLecturas). */
+    public static final String LECTURAS = "lecturas";
+    /** Recomendaciones de la IA por usuario (ver AIGenerationService). */
+    public static final String RECOMENDACIONES = "recomendaciones";
+
     @Bean
-    public CacheManager cacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
-        cacheManager.setCaffeine(Caffeine.newBuilder()
-                .expireAfterWrite(10, TimeUnit.MINUTES) // Cache entries expire after 10 minutes
-                .maximumSize(100) // Maximum 100 entries in cache
-                .recordStats()); // Enable cache statistics
-        return cacheManager;
+    public CacheManager cacheManager(CachesProperties propiedades) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected org.springframework.cache.Cache adaptCaffeineCache(String nombre,
+                    com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                return new CaffeineCacheContada(nombre, cache, isAllowNullValues());
+            }
+        };
+        cacheManager.setCaffeine(Caffeine.from(propiedades.getPorDefecto()).recordStats());
+        propiedades.getEspecificaciones().forEach((nombre, especificacion) ->
+                cacheManager.registerCustomCache(nombre, construir(nombre, especificacion)));
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+
+    // ----- MÉTODOS PRIVADOS -----
+
+    private static com.github.benmanes.caffeine.cache.Cache<Object, Object> construir(String nombre,
+            String especificacion) {
+        CaffeineSpec spec = CaffeineSpec.parse(especificacion);
+        // Las cachés de @Cacheable no tienen CacheLoader con el que refrescar
+        if (especificacion.contains("refreshAfterWrite")) {
+            throw new IllegalStateException("La caché '" + nombre
+                    + "' no admite refreshAfterWrite: use expireAfterWrite o expireAfterAccess.");
+        }
+        return Caffeine.from(spec).recordStats().build();
+    }
+
+    /**
+     * Sigue siendo una CaffeineCache, así que Actuator le asocia sus
+     * estadísticas como a cualquier otra.
+     */
+    private static final class CaffeineCacheContada extends CaffeineCache {
+
+        CaffeineCacheContada(String nombre, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache,
+                boolean admiteNulos) {
+            super(nombre, cache, admiteNulos);
+        }
+
+        @Override
+        protected Object lookup(Object clave) {
+            Object valor = super.lookup(clave);
+            MetricasPeticion.accesoCache(valor != null);
+            return valor;
+        }
+
+        @Override
+        public <T> T get(Object clave, Callable<T> cargador) {
+            boolean[] cargado = new boolean[1];
+            T valor = super.get(clave, () -> {
+                cargado[0] = true;
+                return cargador.call();
+            });
+            MetricasPeticion.accesoCache(!cargado[0]);
+            return valor;
+        }
     }
 }
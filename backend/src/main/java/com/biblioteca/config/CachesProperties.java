@@ -0,0 +1,42 @@
+package com.biblioteca.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Especificación de Caffeine de cada caché de {@link CacheConfig}, con la
+ * sintaxis de {@code CaffeineSpec}: por ejemplo
+ * {@code maximumSize=2000,expireAfterWrite=5m}.
+ */
+@ConfigurationProperties(prefix = "app.cache")
+public class CachesProperties {
+
+    /**
+     * Especificación de las cachés sin entrada propia en {@link #especificaciones}.
+     */
+    private String porDefecto = "maximumSize=100,expireAfterWrite=10m";
+
+    /**
+     * Especificación por nombre de caché. Las cachés de esta lista se crean al
+     * arrancar, así que sus métricas aparecen desde el principio.
+     */
+    private Map<String, String> especificaciones = new LinkedHashMap<>();
+
+    public String getPorDefecto() {
+        return porDefecto;
+    }
+
+    public void setPorDefecto(String porDefecto) {
+        this.porDefecto = porDefecto;
+    }
+
+    public Map<String, String> getEspecificaciones() {
+        return especificaciones;
+    }
+
+    public void setEspecificaciones(Map<String, String> especificaciones) {
+        this.especificaciones = especificaciones;
+    }
+}
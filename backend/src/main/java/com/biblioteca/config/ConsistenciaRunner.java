@@ -1,6 +1,7 @@
 package com.biblioteca.config;
 
 import com.biblioteca.repository.EjemplarRepository;
+import com.biblioteca.repository.LibroRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
@@ -17,6 +18,9 @@ public class ConsistenciaRunner implements CommandLineRunner {
     @Autowired
     EjemplarRepository ejemplarRepository;
 
+    @Autowired
+    LibroRepository libroRepository;
+
     @Override
     @Transactional
     public void run(String... args) throws Exception {
@@ -24,6 +28,9 @@ public class ConsistenciaRunner implements CommandLineRunner {
         try {
             ejemplarRepository.fixOrphanedPrestamos();
             ejemplarRepository.fixOrphanedBloqueos();
+            // Reconstruye LIBRO.DISPONIBLES por si hubo cambios fuera de la aplicación
+            int libros = libroRepository.recalcularTodosLosDisponibles();
+            logger.info("Contadores de disponibilidad reconstruidos para {} libros", libros);
             logger.info("--- REPARACIÓN COMPLETADA CON ÉXITO ---");
         } catch (Exception e) {
             logger.error("--- ERROR EN REPARACIÓN ---", e);
@@ -0,0 +1,165 @@
+package com.biblioteca.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Envía las transacciones {@code readOnly} a la réplica y todo lo demás a la
+ * primaria.
+ * <p>
+ * El destino se decide al pedir la conexión, así que este DataSource debe
+ * usarse detrás de un {@code LazyConnectionDataSourceProxy}: el gestor de
+ * transacciones pide la conexión antes de marcar la transacción como de solo
+ * lectura, y el proxy retrasa la conexión real hasta la primera sentencia.
+ * <p>
+ * Cada {@link ReplicaProperties#getIntervaloComprobacionMs()} se mide el
+ * retraso de la réplica; si no responde o supera el máximo, las lecturas
+ * vuelven a la primaria hasta la siguiente comprobación correcta.
+ * <p>
+ * Las lecturas que se guardan justo después de una escritura (instantánea del
+ * catálogo, caché de ejemplares, matriz de recomendaciones) se hacen con
+ * {@link #enPrimaria}: la réplica podría devolver aún el valor anterior y dejarlo
+ * fijado hasta la siguiente recarga.
+ */
+public class EnrutamientoDataSource extends AbstractRoutingDataSource {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EnrutamientoDataSource.class);
+
+    public enum Destino {
+        PRIMARIA, REPLICA
+    }
+
+    private static final ThreadLocal<Boolean> PRIMARIA_FORZADA = new ThreadLocal<>();
+
+    private final DataSource replica;
+    private final ReplicaProperties propiedades;
+
+    private volatile boolean replicaDisponible;
+    private volatile double retrasoSegundos = Double.NaN;
+
+    private final Counter lecturasReplica;
+    private final Counter lecturasDesviadas;
+    private final Counter escrituras;
+
+    public EnrutamientoDataSource(DataSource primaria, DataSource replica, ReplicaProperties propiedades,
+            MeterRegistry meterRegistry) {
+        this.replica = replica;
+        this.propiedades = propiedades;
+        setTargetDataSources(Map.of(Destino.PRIMARIA, primaria, Destino.REPLICA, replica));
+        setDefaultTargetDataSource(primaria);
+
+        this.lecturasReplica = conexiones(meterRegistry, "replica", true);
+        this.lecturasDesviadas = conexiones(meterRegistry, "primaria", true);
+        this.escrituras = conexiones(meterRegistry, "primaria", false);
+        Gauge.builder("datasource.replica.disponible", this, e -> e.replicaDisponible ? 1 : 0)
+                .description("1 si las lecturas se envían a la réplica, 0 si vuelven a la primaria")
+                .register(meterRegistry);
+        Gauge.builder("datasource.replica.retraso", this, e -> e.retrasoSegundos)
+                .description("Último retraso medido de la réplica")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        // No se envía nada a la réplica hasta haberla comprobado una vez
+        comprobarReplica();
+    }
+
+    public boolean isReplicaDisponible() {
+        return replicaDisponible;
+    }
+
+    /**
+     * Ejecuta {@code lectura} enviando a la primaria también las transacciones de
+     * solo lectura. El destino se decide con la primera sentencia de la
+     * transacción, así que no tiene efecto si esta ya ha leído de la réplica
+     * antes de la llamada. Sin réplica configurada simplemente ejecuta la lectura.
+     */
+    public static <T> T enPrimaria(Supplier<T> lectura) {
+        Boolean anterior = PRIMARIA_FORZADA.get();
+        PRIMARIA_FORZADA.set(Boolean.TRUE);
+        try {
+            return lectura.get();
+        } finally {
+            if (anterior == null) {
+                PRIMARIA_FORZADA.remove();
+            }
+        }
+    }
+
+    /**
+     * Mide el retraso de la réplica y decide si recibe las lecturas.
+     */
+    @Scheduled(fixedDelayString = "${app.datasource.replica.intervalo-comprobacion-ms:10000}", initialDelayString = "${app.datasource.replica.intervalo-comprobacion-ms:10000}")
+    public void comprobarReplica() {
+        boolean disponible;
+        String consulta = propiedades.getConsultaRetraso();
+        try (Connection conexion = replica.getConnection()) {
+            if (consulta == null || consulta.isBlank()) {
+                disponible = conexion.isValid(5);
+            } else {
+                try (Statement sentencia = conexion.createStatement();
+                        ResultSet rs = sentencia.executeQuery(consulta)) {
+                    retrasoSegundos = rs.next() ? rs.getDouble(1) : Double.NaN;
+                }
+                disponible = !Double.isNaN(retrasoSegundos)
+                        && retrasoSegundos * 1000 <= propiedades.getMaxRetraso().toMillis();
+            }
+        } catch (SQLException e) {
+            LOG.warn("No se pudo comprobar la réplica de lectura: {}", e.getMessage());
+            retrasoSegundos = Double.NaN;
+            disponible = false;
+        }
+
+        if (disponible != replicaDisponible) {
+            if (disponible) {
+                LOG.info("Réplica de lectura disponible (retraso {} s). Las lecturas vuelven a la réplica.",
+                        retrasoSegundos);
+            } else {
+                LOG.warn("Réplica de lectura no disponible o retrasada (retraso {} s, máximo {}). Lecturas a la primaria.",
+                        retrasoSegundos, propiedades.getMaxRetraso());
+            }
+        }
+        replicaDisponible = disponible;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            escrituras.increment();
+            return Destino.PRIMARIA;
+        }
+        if (replicaDisponible && PRIMARIA_FORZADA.get() == null) {
+            lecturasReplica.increment();
+            return Destino.REPLICA;
+        }
+        lecturasDesviadas.increment();
+        return Destino.PRIMARIA;
+    }
+
+    // ----- MÉTODOS PRIVADOS -----
+
+    private static Counter conexiones(MeterRegistry meterRegistry, String destino, boolean soloLectura) {
+        return Counter.builder("datasource.enrutamiento")
+                .description("Conexiones entregadas por destino y tipo de transacción")
+                .tag("destino", destino)
+                .tag("solo_lectura", String.valueOf(soloLectura))
+                .register(meterRegistry);
+    }
+}
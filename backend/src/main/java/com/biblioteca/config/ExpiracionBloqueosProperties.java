@@ -0,0 +1,49 @@
+package com.biblioteca.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.bloqueos.expiracion")
+public class ExpiracionBloqueosProperties {
+
+    /**
+     * Cada cuánto se revisa la cola de vencimientos (la lee @Scheduled en
+     * ExpiracionBloqueos). Marca el retraso máximo con que se libera un ejemplar.
+     */
+    private long intervaloMs = 1000;
+
+    /**
+     * Reservas que se expiran por sentencia (por debajo del límite de 1000
+     * elementos de un IN en Oracle).
+     */
+    private int tamanioLote = 500;
+
+    /**
+     * Cada cuánto se vuelve a cargar la cola desde la base de datos, para
+     * recoger reservas creadas por otras instancias.
+     */
+    private long resincronizacionMs = 600000;
+
+    public long getIntervaloMs() {
+        return intervaloMs;
+    }
+
+    public void setIntervaloMs(long intervaloMs) {
+        this.intervaloMs = intervaloMs;
+    }
+
+    public int getTamanioLote() {
+        return tamanioLote;
+    }
+
+    public void setTamanioLote(int tamanioLote) {
+        this.tamanioLote = tamanioLote;
+    }
+
+    public long getResincronizacionMs() {
+        return resincronizacionMs;
+    }
+
+    public void setResincronizacionMs(long resincronizacionMs) {
+        this.resincronizacionMs = resincronizacionMs;
+    }
+}
@@ -0,0 +1,24 @@
+package com.biblioteca.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.exportaciones")
+public class ExportacionProperties {
+
+    /**
+     * Tiempo máximo de una descarga en streaming. Solo se aplica a las
+     * exportaciones; el resto de peticiones asíncronas mantiene el de
+     * spring.mvc.async.request-timeout.
+     */
+    private Duration timeout = Duration.ofMinutes(30);
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+}
@@ -9,6 +9,8 @@ public class JwtProperties {
 
     private String secret;
     private int expirationMs;
+    // Tokens ya verificados que se recuerdan para no repetir la firma HMAC
+    private int cacheMaxEntries = 10_000;
 
     public String getSecret() {
         return secret;
@@ -25,4 +27,12 @@ public class JwtProperties {
     public void setExpirationMs(int expirationMs) {
         this.expirationMs = expirationMs;
     }
+
+    public int getCacheMaxEntries() {
+        return cacheMaxEntries;
+    }
+
+    public void setCacheMaxEntries(int cacheMaxEntries) {
+        this.cacheMaxEntries = cacheMaxEntries;
+    }
 }
@@ -1,20 +1,28 @@
 package com.biblioteca.config;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
 
 import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
 import java.util.UUID;
 
 /**
@@ -26,6 +34,13 @@ import java.util.UUID;
  * - clientIP: IP del cliente (considerando proxies)
  * - userId: Username del usuario autenticado (si existe)
  * - path: URI del request
+ * - sql, entidades, cacheAciertos, cacheFallos: recuentos de la petición
+ * (ver {@link MetricasPeticion}), solo en la línea de cierre
+ * <p>
+ * Los recuentos se publican también como histogramas por ruta
+ * ({@code peticiones.sql}, {@code peticiones.entidades},
+ * {@code peticiones.cache.fallos}) y, si se activa
+ * {@code app.metricas.peticion.server-timing}, en la cabecera Server-Timing.
  */
 @Component
 @Order(Ordered.HIGHEST_PRECEDENCE)
@@ -34,12 +49,25 @@ public class LoggingFilter extends OncePerRequestFilter {
 
     private static final Logger logger = LoggerFactory.getLogger(LoggingFilter.class);
 
+    // Opcional: los tests de controlador (@WebMvcTest) no levantan Actuator
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final MetricasPeticionProperties propiedades;
+
+    public LoggingFilter(ObjectProvider<MeterRegistry> meterRegistry, MetricasPeticionProperties propiedades) {
+        this.meterRegistry = meterRegistry;
+        this.propiedades = propiedades;
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request,
             HttpServletResponse response,
             FilterChain filterChain) throws ServletException, IOException {
 
         long startTime = System.currentTimeMillis();
+        MetricasPeticion metricas = MetricasPeticion.abrir();
+        RespuestaConServerTiming conServerTiming = propiedades.isServerTiming()
+                ? new RespuestaConServerTiming(response, metricas)
+                : null;
 
         try {
             // Generate unique request ID
@@ -57,23 +85,69 @@ public class LoggingFilter extends OncePerRequestFilter {
             // Log request start
             logger.debug("Request started: {} {}", request.getMethod(), request.getRequestURI());
 
-            filterChain.doFilter(request, response);
+            filterChain.doFilter(request, conServerTiming != null ? conServerTiming : response);
 
         } finally {
             long duration = System.currentTimeMillis() - startTime;
+            if (conServerTiming != null) {
+                // Respuestas sin cuerpo: nadie pidió el stream de salida
+                conServerTiming.anadirCabecera();
+            }
+            registrarRecuentos(request, response, metricas);
+
+            MDC.put("sql", String.valueOf(metricas.getSentencias()));
+            MDC.put("entidades", String.valueOf(metricas.getEntidades()));
+            MDC.put("cacheAciertos", String.valueOf(metricas.getAciertosCache()));
+            MDC.put("cacheFallos", String.valueOf(metricas.getFallosCache()));
 
             // Log request completion
-            logger.info("Request completed: {} {} - Status: {} - Duration: {}ms",
+            logger.info("Request completed: {} {} - Status: {} - Duration: {}ms - SQL: {} - Entities: {} - Cache: {} hits, {} misses",
                     request.getMethod(),
                     request.getRequestURI(),
                     response.getStatus(),
-                    duration);
+                    duration,
+                    metricas.getSentencias(),
+                    metricas.getEntidades(),
+                    metricas.getAciertosCache(),
+                    metricas.getFallosCache());
 
+            MetricasPeticion.cerrar();
             // Clear MDC to avoid memory leaks
             MDC.clear();
         }
     }
 
+    /**
+     * Histogramas por ruta (el patrón del controlador, no la URI, para no
+     * disparar la cardinalidad de las etiquetas).
+     */
+    private void registrarRecuentos(HttpServletRequest request, HttpServletResponse response,
+            MetricasPeticion metricas) {
+        MeterRegistry registro = meterRegistry.getIfAvailable();
+        if (registro == null) {
+            return;
+        }
+        Object patron = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String ruta = patron != null ? patron.toString()
+                : response.getStatus() == HttpServletResponse.SC_NOT_FOUND ? "NOT_FOUND" : "UNKNOWN";
+        String metodo = request.getMethod().toUpperCase(Locale.ROOT);
+
+        recuento(registro, "peticiones.sql", "Sentencias SQL por petición", metodo, ruta).record(metricas.getSentencias());
+        recuento(registro, "peticiones.entidades", "Entidades cargadas por Hibernate por petición", metodo, ruta)
+                .record(metricas.getEntidades());
+        recuento(registro, "peticiones.cache.fallos", "Fallos de caché por petición", metodo, ruta)
+                .record(metricas.getFallosCache());
+    }
+
+    private static DistributionSummary recuento(MeterRegistry registro, String nombre, String descripcion, String metodo, String ruta) {
+        return DistributionSummary.builder(nombre)
+                .description(descripcion)
+                .tags("method", metodo, "uri", ruta)
+                .publishPercentileHistogram()
+                .maximumExpectedValue(1000.0)
+                .register(registro);
+    }
+
     /**
      * Obtiene la IP real del cliente, considerando headers de proxy.
      */
@@ -89,6 +163,70 @@ public class LoggingFilter extends OncePerRequestFilter {
         return request.getRemoteAddr();
     }
 
+    /**
+     * Añade Server-Timing justo antes de que se empiece a escribir el cuerpo,
+     * que es el último momento en que aún se pueden poner cabeceras. Lo que
+     * ocurra después (serialización perezosa) ya no entra en la cabecera, pero
+     * sí en el log y en los histogramas.
+     */
+    private static final class RespuestaConServerTiming extends HttpServletResponseWrapper {
+
+        private final MetricasPeticion metricas;
+        private boolean anadida;
+
+        RespuestaConServerTiming(HttpServletResponse response, MetricasPeticion metricas) {
+            super(response);
+            this.metricas = metricas;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            anadirCabecera();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            anadirCabecera();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            anadirCabecera();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            anadirCabecera();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            anadirCabecera();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            anadirCabecera();
+            super.sendRedirect(location);
+        }
+
+        void anadirCabecera() {
+            if (anadida || isCommitted()) {
+                return;
+            }
+            anadida = true;
+            setHeader("Server-Timing", String.format(Locale.ROOT,
+                    "app;dur=%.1f, sql;desc=\"%d sentencias\", entidades;desc=\"%d\", cache;desc=\"%d aciertos, %d fallos\"",
+                    metricas.getDuracionMs(), metricas.getSentencias(), metricas.getEntidades(),
+                    metricas.getAciertosCache(), metricas.getFallosCache()));
+        }
+    }
+
     /**
      * No aplicar logging a recursos estáticos para reducir ruido en logs.
      */
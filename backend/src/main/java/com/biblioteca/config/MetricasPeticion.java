@@ -0,0 +1,86 @@
+package com.biblioteca.config;
+
+/**
+ * Contadores de trabajo de una petición HTTP: sentencias SQL, entidades
+ * cargadas por Hibernate y aciertos y fallos de caché.
+ * <p>
+ * {@link LoggingFilter} los abre al empezar la petición y los cierra al
+ * terminar; entretanto los ganchos de Hibernate y de las cachés suman en los
+ * del hilo actual. Fuera de una petición (tareas programadas, arranque) no hay
+ * contadores abiertos y los incrementos se ignoran. El trabajo de los hilos
+ * asíncronos (exportaciones en streaming) no se cuenta.
+ */
+public final class MetricasPeticion {
+
+    private static final ThreadLocal<MetricasPeticion> ACTUAL = new ThreadLocal<>();
+
+    private final long inicio = System.nanoTime();
+    // Una petición se atiende en un solo hilo: no hace falta sincronizar
+    private int sentencias;
+    private int entidades;
+    private int aciertosCache;
+    private int fallosCache;
+
+    private MetricasPeticion() {
+    }
+
+    static MetricasPeticion abrir() {
+        MetricasPeticion metricas = new MetricasPeticion();
+        ACTUAL.set(metricas);
+        return metricas;
+    }
+
+    static void cerrar() {
+        ACTUAL.remove();
+    }
+
+    /** Contadores de la petición en curso en este hilo, o null. */
+    public static MetricasPeticion actual() {
+        return ACTUAL.get();
+    }
+
+    static void sentenciaPreparada() {
+        MetricasPeticion metricas = ACTUAL.get();
+        if (metricas != null) {
+            metricas.sentencias++;
+        }
+    }
+
+    static void entidadCargada() {
+        MetricasPeticion metricas = ACTUAL.get();
+        if (metricas != null) {
+            metricas.entidades++;
+        }
+    }
+
+    static void accesoCache(boolean acierto) {
+        MetricasPeticion metricas = ACTUAL.get();
+        if (metricas != null) {
+            if (acierto) {
+                metricas.aciertosCache++;
+            } else {
+                metricas.fallosCache++;
+            }
+        }
+    }
+
+    public int getSentencias() {
+        return sentencias;
+    }
+
+    public int getEntidades() {
+        return entidades;
+    }
+
+    public int getAciertosCache() {
+        return aciertosCache;
+    }
+
+    public int getFallosCache() {
+        return fallosCache;
+    }
+
+    public double getDuracionMs() {
+        return (System.nanoTime() - inicio) / 1_000_000.0;
+    }
+}
@@ -0,0 +1,38 @@
+package com.biblioteca.config;
+
+import org.hibernate.Interceptor;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.type.Type;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Engancha Hibernate a {@link MetricasPeticion}: un StatementInspector cuenta
+ * cada sentencia que se prepara (las de un batch JDBC cuentan una vez por
+ * fila) y un Interceptor cada entidad que se carga, de modo que un N+1 se ve
+ * en el recuento aunque las consultas sean rápidas.
+ */
+@Configuration
+public class MetricasPeticionConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer metricasPeticionHibernate() {
+        StatementInspector inspector = sql -> {
+            MetricasPeticion.sentenciaPreparada();
+            return sql;
+        };
+        Interceptor interceptor = new Interceptor() {
+            @Override
+            public boolean onLoad(Object entity, Object id, Object[] state, String[] propertyNames, Type[] types) {
+                MetricasPeticion.entidadCargada();
+                return false;
+            }
+        };
+        return propiedades -> {
+            propiedades.put(AvailableSettings.STATEMENT_INSPECTOR, inspector);
+            propiedades.put(AvailableSettings.INTERCEPTOR, interceptor);
+        };
+    }
+}
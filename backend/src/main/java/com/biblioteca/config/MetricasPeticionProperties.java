@@ -0,0 +1,21 @@
+package com.biblioteca.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.metricas.peticion")
+public class MetricasPeticionProperties {
+
+    /**
+     * Añade la cabecera Server-Timing con la duración y los recuentos de la
+     * petición. Desactivada por defecto: expone detalles internos al cliente.
+     */
+    private boolean serverTiming = false;
+
+    public boolean isServerTiming() {
+        return serverTiming;
+    }
+
+    public void setServerTiming(boolean serverTiming) {
+        this.serverTiming = serverTiming;
+    }
+}
@@ -0,0 +1,59 @@
+package com.biblioteca.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.outbox")
+public class OutboxProperties {
+
+    /**
+     * Pausa entre drenajes del outbox (la lee @Scheduled en OutboxRelay).
+     */
+    private long intervaloMs = 2000;
+
+    /**
+     * Eventos que se bloquean y entregan por transacción.
+     */
+    private int tamanioLote = 100;
+
+    /**
+     * Intentos de entrega antes de marcar un evento como FALLIDO.
+     */
+    private int maxIntentos = 10;
+
+    /**
+     * Días que se conservan los eventos ya procesados antes de purgarlos.
+     */
+    private int retencionDias = 7;
+
+    public long getIntervaloMs() {
+        return intervaloMs;
+    }
+
+    public void setIntervaloMs(long intervaloMs) {
+        this.intervaloMs = intervaloMs;
+    }
+
+    public int getTamanioLote() {
+        return tamanioLote;
+    }
+
+    public void setTamanioLote(int tamanioLote) {
+        this.tamanioLote = tamanioLote;
+    }
+
+    public int getMaxIntentos() {
+        return maxIntentos;
+    }
+
+    public void setMaxIntentos(int maxIntentos) {
+        this.maxIntentos = maxIntentos;
+    }
+
+    public int getRetencionDias() {
+        return retencionDias;
+    }
+
+    public void setRetencionDias(int retencionDias) {
+        this.retencionDias = retencionDias;
+    }
+}
@@ -0,0 +1,98 @@
+package com.biblioteca.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+
+/**
+ * Ajustes de los pools Hikari que Spring Boot no expone directamente.
+ * <p>
+ * A cada HikariDataSource (la primaria y, si está activa, la réplica) se le
+ * calcula el tamaño a partir de los núcleos cuando no se ha fijado a mano y,
+ * contra Oracle, se le activa la caché implícita de sentencias y el prefetch
+ * de filas. Las métricas hikaricp.* (conexiones activas, ociosas, pendientes,
+ * tiempo de adquisición) las registra Spring Boot por pool. Al arrancar se
+ * registra en el log la configuración efectiva.
+ */
+@Configuration
+public class PoolConexionesConfig {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PoolConexionesConfig.class);
+
+    static final String CACHE_SENTENCIAS = "oracle.jdbc.implicitStatementCacheSize";
+    static final String PREFETCH_FILAS = "defaultRowPrefetch";
+
+    // static: los BeanPostProcessor se crean antes que el resto de beans de la configuración
+    @Bean
+    public static BeanPostProcessor ajustesPoolConexiones(Environment entorno) {
+        return new AjustesPool(Binder.get(entorno), Runtime.getRuntime().availableProcessors());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void informarAjustes(ApplicationReadyEvent evento) {
+        Environment entorno = evento.getApplicationContext().getEnvironment();
+        ObjectProvider<HikariDataSource> pools = evento.getApplicationContext().getBeanProvider(HikariDataSource.class);
+        pools.orderedStream().forEach(pool -> LOG.info(
+                "Pool {}: url={}, maximumPoolSize={}, minimumIdle={}, connectionTimeout={} ms, maxLifetime={} ms, "
+                        + "cacheSentencias={}, prefetchFilas={}",
+                pool.getPoolName(), pool.getJdbcUrl(), pool.getMaximumPoolSize(), pool.getMinimumIdle(),
+                pool.getConnectionTimeout(), pool.getMaxLifetime(),
+                pool.getDataSourceProperties().getProperty(CACHE_SENTENCIAS, "-"),
+                pool.getDataSourceProperties().getProperty(PREFETCH_FILAS, "-")));
+        LOG.info("Hibernate: jdbc.batch_size={}, order_inserts={}, order_updates={}, show-sql={}",
+                entorno.getProperty("spring.jpa.properties.hibernate.jdbc.batch_size", "-"),
+                entorno.getProperty("spring.jpa.properties.hibernate.order_inserts", "false"),
+                entorno.getProperty("spring.jpa.properties.hibernate.order_updates", "false"),
+                entorno.getProperty("spring.jpa.show-sql", "false"));
+    }
+
+    /**
+     * Se aplica después del enlace de spring.datasource.hikari (o
+     * app.datasource.replica.hikari) y antes de que el pool abra conexiones.
+     */
+    static class AjustesPool implements BeanPostProcessor {
+
+        private final Binder binder;
+        private final PoolConexionesProperties propiedades;
+        private final int nucleos;
+
+        AjustesPool(Binder binder, int nucleos) {
+            this.binder = binder;
+            this.propiedades = binder.bindOrCreate("app.datasource.pool", PoolConexionesProperties.class);
+            this.nucleos = nucleos;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String nombre) {
+            if (bean instanceof HikariDataSource pool) {
+                ajustar(pool, "dataSourceReplica".equals(nombre)
+                        ? "app.datasource.replica.hikari"
+                        : "spring.datasource.hikari");
+            }
+            return bean;
+        }
+
+        void ajustar(HikariDataSource pool, String prefijo) {
+            if (!binder.bind(prefijo + ".maximum-pool-size", Integer.class).isBound()) {
+                pool.setMaximumPoolSize(propiedades.tamanioPara(nucleos));
+            }
+            String url = pool.getJdbcUrl();
+            if (url != null && url.startsWith("jdbc:oracle:")) {
+                if (!pool.getDataSourceProperties().containsKey(CACHE_SENTENCIAS)) {
+                    pool.addDataSourceProperty(CACHE_SENTENCIAS, String.valueOf(propiedades.getCacheSentencias()));
+                }
+                if (!pool.getDataSourceProperties().containsKey(PREFETCH_FILAS)) {
+                    pool.addDataSourceProperty(PREFETCH_FILAS, String.valueOf(propiedades.getPrefetchFilas()));
+                }
+            }
+        }
+    }
+}
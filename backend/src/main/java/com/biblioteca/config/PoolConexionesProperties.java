@@ -0,0 +1,81 @@
+package com.biblioteca.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.datasource.pool")
+public class PoolConexionesProperties {
+
+    /**
+     * Conexiones por núcleo cuando el tamaño del pool no se fija en
+     * spring.datasource.hikari.maximum-pool-size (núcleos * 2 + 1 es la
+     * referencia habitual de HikariCP).
+     */
+    private int conexionesPorNucleo = 2;
+
+    private int conexionesAdicionales = 1;
+
+    /**
+     * Tope del tamaño calculado, para no agotar los procesos de Oracle en
+     * máquinas con muchos núcleos.
+     */
+    private int maximoCalculado = 32;
+
+    /**
+     * Sentencias preparadas que Oracle guarda por conexión
+     * (oracle.jdbc.implicitStatementCacheSize). 0 la desactiva.
+     */
+    private int cacheSentencias = 100;
+
+    /**
+     * Filas que trae Oracle por viaje al leer un ResultSet (defaultRowPrefetch;
+     * el driver usa 10).
+     */
+    private int prefetchFilas = 100;
+
+    public int getConexionesPorNucleo() {
+        return conexionesPorNucleo;
+    }
+
+    public void setConexionesPorNucleo(int conexionesPorNucleo) {
+        this.conexionesPorNucleo = conexionesPorNucleo;
+    }
+
+    public int getConexionesAdicionales() {
+        return conexionesAdicionales;
+    }
+
+    public void setConexionesAdicionales(int conexionesAdicionales) {
+        this.conexionesAdicionales = conexionesAdicionales;
+    }
+
+    public int getMaximoCalculado() {
+        return maximoCalculado;
+    }
+
+    public void setMaximoCalculado(int maximoCalculado) {
+        this.maximoCalculado = maximoCalculado;
+    }
+
+    public int getCacheSentencias() {
+        return cacheSentencias;
+    }
+
+    public void setCacheSentencias(int cacheSentencias) {
+        this.cacheSentencias = cacheSentencias;
+    }
+
+    public int getPrefetchFilas() {
+        return prefetchFilas;
+    }
+
+    public void setPrefetchFilas(int prefetchFilas) {
+        this.prefetchFilas = prefetchFilas;
+    }
+
+    /**
+     * Tamaño de pool para el número de núcleos dado.
+     */
+    public int tamanioPara(int nucleos) {
+        return Math.max(1, Math.min(nucleos * conexionesPorNucleo + conexionesAdicionales, maximoCalculado));
+    }
+}
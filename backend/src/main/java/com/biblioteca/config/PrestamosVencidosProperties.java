@@ -0,0 +1,58 @@
+package com.biblioteca.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.prestamos.vencidos")
+public class PrestamosVencidosProperties {
+
+    /**
+     * Cada cuánto se pasan a vencidos los préstamos de la cabeza del montículo
+     * (la lee @Scheduled en IndicePrestamosVencidos). Las fechas previstas son
+     * días, así que basta con revisar cada minuto.
+     */
+    private long intervaloMs = 60000;
+
+    /**
+     * Cada cuánto se reconstruye el índice desde PRESTAMO, para recoger los
+     * préstamos y devoluciones de otras instancias.
+     */
+    private long resincronizacionMs = 600000;
+
+    /** Expresión cron del resumen diario de préstamos vencidos. */
+    private String cronResumen = "0 0 9 * * *";
+
+    /** Líneas de detalle del resumen; el resto solo se cuenta. */
+    private int maxDetalleResumen = 20;
+
+    public long getIntervaloMs() {
+        return intervaloMs;
+    }
+
+    public void setIntervaloMs(long intervaloMs) {
+        this.intervaloMs = intervaloMs;
+    }
+
+    public long getResincronizacionMs() {
+        return resincronizacionMs;
+    }
+
+    public void setResincronizacionMs(long resincronizacionMs) {
+        this.resincronizacionMs = resincronizacionMs;
+    }
+
+    public String getCronResumen() {
+        return cronResumen;
+    }
+
+    public void setCronResumen(String cronResumen) {
+        this.cronResumen = cronResumen;
+    }
+
+    public int getMaxDetalleResumen() {
+        return maxDetalleResumen;
+    }
+
+    public void setMaxDetalleResumen(int maxDetalleResumen) {
+        this.maxDetalleResumen = maxDetalleResumen;
+    }
+}
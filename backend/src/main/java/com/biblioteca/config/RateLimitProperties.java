@@ -0,0 +1,121 @@
+package com.biblioteca.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitProperties {
+
+    /**
+     * Permite desactivar el rate limiting (p. ej. en pruebas de carga).
+     */
+    private boolean enabled = true;
+
+    /**
+     * Almacén de contadores. "local" los guarda en memoria de esta instancia;
+     * "jdbc" los comparte entre réplicas en la tabla RATE_LIMIT_CONTADOR.
+     */
+    private String store = "local";
+
+    /**
+     * Longitud de la ventana deslizante.
+     */
+    private Duration window = Duration.ofMinutes(1);
+
+    /**
+     * Peticiones por ventana y cliente en las rutas sin regla específica.
+     */
+    private int defaultLimit = 100;
+
+    /**
+     * Máximo de contadores en memoria (clientes x reglas). Al superarlo se
+     * descartan los menos usados.
+     */
+    private long maxEntries = 100_000;
+
+    /**
+     * Límites por prefijo de ruta. Gana la primera regla cuyo prefijo coincida.
+     */
+    private List<Rule> rules = new ArrayList<>(List.of(new Rule("/api/auth/login", 10)));
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getStore() {
+        return store;
+    }
+
+    public void setStore(String store) {
+        this.store = store;
+    }
+
+    public Duration getWindow() {
+        return window;
+    }
+
+    public void setWindow(Duration window) {
+        this.window = window;
+    }
+
+    public int getDefaultLimit() {
+        return defaultLimit;
+    }
+
+    public void setDefaultLimit(int defaultLimit) {
+        this.defaultLimit = defaultLimit;
+    }
+
+    public long getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(long maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public List<Rule> getRules() {
+        return rules;
+    }
+
+    public void setRules(List<Rule> rules) {
+        this.rules = rules;
+    }
+
+    public static class Rule {
+
+        private String path;
+        private int limit;
+
+        public Rule() {
+        }
+
+        public Rule(String path, int limit) {
+            this.path = path;
+            this.limit = limit;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        public int getLimit() {
+            return limit;
+        }
+
+        public void setLimit(int limit) {
+            this.limit = limit;
+        }
+    }
+}
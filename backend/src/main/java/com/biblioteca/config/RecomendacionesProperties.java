@@ -0,0 +1,63 @@
+package com.biblioteca.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.recomendaciones")
+public class RecomendacionesProperties {
+
+    /**
+     * Cada cuánto se reconstruye la matriz de coocurrencia desde PRESTAMO (la
+     * lee @Scheduled en MotorRecomendaciones).
+     */
+    private long reconstruccionMs = 21_600_000;
+
+    /**
+     * Hilos que precalculan recomendaciones con la IA: es también el máximo de
+     * llamadas simultáneas al servicio.
+     */
+    private int hilosIa = 4;
+
+    /**
+     * Precálculos pendientes que admite la cola; el resto se descartan y se
+     * vuelven a pedir en la siguiente visita del socio.
+     */
+    private int capacidadCola = 1000;
+
+    /**
+     * Antigüedad a partir de la cual una recomendación guardada se sigue
+     * sirviendo pero se recalcula en segundo plano.
+     */
+    private long refrescoMs = 3_600_000;
+
+    public long getReconstruccionMs() {
+        return reconstruccionMs;
+    }
+
+    public void setReconstruccionMs(long reconstruccionMs) {
+        this.reconstruccionMs = reconstruccionMs;
+    }
+
+    public int getHilosIa() {
+        return hilosIa;
+    }
+
+    public void setHilosIa(int hilosIa) {
+        this.hilosIa = hilosIa;
+    }
+
+    public int getCapacidadCola() {
+        return capacidadCola;
+    }
+
+    public void setCapacidadCola(int capacidadCola) {
+        this.capacidadCola = capacidadCola;
+    }
+
+    public long getRefrescoMs() {
+        return refrescoMs;
+    }
+
+    public void setRefrescoMs(long refrescoMs) {
+        this.refrescoMs = refrescoMs;
+    }
+}
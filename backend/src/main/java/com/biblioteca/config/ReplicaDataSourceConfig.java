@@ -0,0 +1,62 @@
+package com.biblioteca.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * DataSources cuando hay réplica de lectura (app.datasource.replica.enabled).
+ * <p>
+ * La primaria se configura con spring.datasource y spring.datasource.hikari,
+ * como sin réplica; la réplica con app.datasource.replica y
+ * app.datasource.replica.hikari. Cada una es un pool Hikari con nombre propio,
+ * de modo que las métricas hikaricp.* salen separadas por la etiqueta pool.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.datasource.replica", name = "enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSourcePrimaria(DataSourceProperties propiedades) {
+        HikariDataSource primaria = propiedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primaria.setPoolName("primaria");
+        return primaria;
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.replica.hikari")
+    public HikariDataSource dataSourceReplica(ReplicaProperties propiedades) {
+        HikariDataSource replica = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(propiedades.getUrl())
+                .username(propiedades.getUsername())
+                .password(propiedades.getPassword())
+                .driverClassName(propiedades.getDriverClassName())
+                .build();
+        replica.setPoolName("replica");
+        replica.setReadOnly(true);
+        return replica;
+    }
+
+    @Bean
+    public EnrutamientoDataSource enrutamientoDataSource(HikariDataSource dataSourcePrimaria,
+            HikariDataSource dataSourceReplica, ReplicaProperties propiedades, MeterRegistry meterRegistry) {
+        return new EnrutamientoDataSource(dataSourcePrimaria, dataSourceReplica, propiedades, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(EnrutamientoDataSource enrutamientoDataSource) {
+        return new LazyConnectionDataSourceProxy(enrutamientoDataSource);
+    }
+}
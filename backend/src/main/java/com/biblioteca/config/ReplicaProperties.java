@@ -0,0 +1,101 @@
+package com.biblioteca.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.datasource.replica")
+public class ReplicaProperties {
+
+    /**
+     * Activa el enrutamiento de las transacciones de solo lectura a la réplica.
+     * Desactivado, toda la aplicación usa el DataSource de spring.datasource.
+     */
+    private boolean enabled = false;
+
+    private String url;
+    private String username;
+    private String password;
+    private String driverClassName;
+
+    /**
+     * Retraso de aplicación por encima del cual las lecturas vuelven a la
+     * primaria hasta que la réplica se ponga al día.
+     */
+    private Duration maxRetraso = Duration.ofSeconds(30);
+
+    /**
+     * Consulta que devuelve el retraso de la réplica en segundos (una fila, una
+     * columna). Sin ella solo se comprueba que la réplica responde.
+     */
+    private String consultaRetraso;
+
+    /**
+     * Cada cuánto se mide el retraso (la lee @Scheduled en EnrutamientoDataSource).
+     */
+    private long intervaloComprobacionMs = 10000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public String getDriverClassName() {
+        return driverClassName;
+    }
+
+    public void setDriverClassName(String driverClassName) {
+        this.driverClassName = driverClassName;
+    }
+
+    public Duration getMaxRetraso() {
+        return maxRetraso;
+    }
+
+    public void setMaxRetraso(Duration maxRetraso) {
+        this.maxRetraso = maxRetraso;
+    }
+
+    public String getConsultaRetraso() {
+        return consultaRetraso;
+    }
+
+    public void setConsultaRetraso(String consultaRetraso) {
+        this.consultaRetraso = consultaRetraso;
+    }
+
+    public long getIntervaloComprobacionMs() {
+        return intervaloComprobacionMs;
+    }
+
+    public void setIntervaloComprobacionMs(long intervaloComprobacionMs) {
+        this.intervaloComprobacionMs = intervaloComprobacionMs;
+    }
+}
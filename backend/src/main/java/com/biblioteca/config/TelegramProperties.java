@@ -10,6 +10,33 @@ public class TelegramProperties {
     private String botToken;
     private String adminChatId;
 
+    /**
+     * URL base del Bot API (sustituible por un servidor simulado en pruebas).
+     */
+    private String apiUrl = "https://api.telegram.org";
+
+    /**
+     * Mensajes pendientes que admite la cola de salida; el resto se descartan.
+     */
+    private int capacidadCola = 1000;
+
+    /**
+     * Espera tras el primer mensaje pendiente para agrupar los que lleguen en
+     * ráfaga en un único envío por chat.
+     */
+    private long agruparMs = 1000;
+
+    /**
+     * Reintentos ante 429 o fallo de red antes de descartar el envío.
+     */
+    private int maxReintentos = 5;
+
+    /**
+     * Espera del primer reintento; se duplica en cada intento si Telegram no
+     * indica retry_after.
+     */
+    private long esperaInicialMs = 1000;
+
     public String getBotToken() {
         return botToken;
     }
@@ -25,4 +52,44 @@ public class TelegramProperties {
     public void setAdminChatId(String adminChatId) {
         this.adminChatId = adminChatId;
     }
+
+    public String getApiUrl() {
+        return apiUrl;
+    }
+
+    public void setApiUrl(String apiUrl) {
+        this.apiUrl = apiUrl;
+    }
+
+    public int getCapacidadCola() {
+        return capacidadCola;
+    }
+
+    public void setCapacidadCola(int capacidadCola) {
+        this.capacidadCola = capacidadCola;
+    }
+
+    public long getAgruparMs() {
+        return agruparMs;
+    }
+
+    public void setAgruparMs(long agruparMs) {
+        this.agruparMs = agruparMs;
+    }
+
+    public int getMaxReintentos() {
+        return maxReintentos;
+    }
+
+    public void setMaxReintentos(int maxReintentos) {
+        this.maxReintentos = maxReintentos;
+    }
+
+    public long getEsperaInicialMs() {
+        return esperaInicialMs;
+    }
+
+    public void setEsperaInicialMs(long esperaInicialMs) {
+        this.esperaInicialMs = esperaInicialMs;
+    }
 }
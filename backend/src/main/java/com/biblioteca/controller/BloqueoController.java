@@ -1,17 +1,22 @@
 package com.biblioteca.controller;
 
 import com.biblioteca.dto.BloqueoRequest;
+import com.biblioteca.dto.FiltroListado;
+import com.biblioteca.dto.PageResponse;
 import com.biblioteca.model.Bloqueo;
 import com.biblioteca.model.Prestamo;
 import com.biblioteca.service.BloqueoService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Objects;
 
@@ -45,6 +50,20 @@ public class BloqueoController {
         }
     }
 
+    @PostMapping("/libro/{idLibro}")
+    @Operation(summary = "Reservar cualquier ejemplar", description = "Reserva por 24 horas el primer ejemplar libre del libro")
+    public ResponseEntity<?> crearBloqueoDeLibro(@PathVariable(required = true) Long idLibro) {
+        try {
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            String usuario = (auth != null) ? auth.getName() : "anonymous";
+            Bloqueo bloqueo = servicioBloqueo.crearBloqueoDeLibro(Objects.requireNonNull(usuario),
+                    Objects.requireNonNull(idLibro));
+            return ResponseEntity.ok(bloqueo);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping("/mios")
     @Operation(summary = "Mis reservas", description = "Obtiene las reservas activas del usuario autenticado")
     public List<Bloqueo> listarMisBloqueos() {
@@ -78,6 +97,22 @@ public class BloqueoController {
         return servicioBloqueo.obtenerBloqueosActivos();
     }
 
+    @GetMapping("/paginated")
+    @Operation(summary = "Listar reservas paginadas", description = "Reservas filtradas, ordenadas y paginadas en el servidor; por defecto las activas (solo bibliotecarios)")
+    public PageResponse<Bloqueo> listarBloqueosPaginados(
+            @Parameter(description = "Número de página (0-indexed)") @RequestParam(defaultValue = "0") int pagina,
+            @Parameter(description = "Tamaño de página (máx. 100)") @RequestParam(defaultValue = "20") int tamanio,
+            @Parameter(description = "Orden: id, fechaInicio, fechaFin o usuario, con ,asc o ,desc") @RequestParam(required = false) String orden,
+            @Parameter(description = "Estado (ACTIVO por defecto, CANCELADO, EXPIRADO, CONVERTIDO)") @RequestParam(required = false) String estado,
+            @Parameter(description = "ID del socio") @RequestParam(required = false) Long idSocio,
+            @Parameter(description = "ID del libro") @RequestParam(required = false) Long idLibro,
+            @Parameter(description = "Reservadas desde (yyyy-MM-dd, inclusive)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @Parameter(description = "Reservadas hasta (yyyy-MM-dd, inclusive)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @Parameter(description = "Solo activas ya vencidas pendientes de expirar") @RequestParam(defaultValue = "false") boolean soloVencidos) {
+        FiltroListado filtro = new FiltroListado(estado, idSocio, idLibro, desde, hasta, soloVencidos);
+        return PageResponse.from(servicioBloqueo.buscarBloqueos(filtro, pagina, tamanio, orden));
+    }
+
     @PostMapping("/{id}/formalizar")
     @Operation(summary = "Formalizar reserva", description = "Convierte una reserva en préstamo (bibliotecarios pueden formalizar cualquiera, socios solo las propias)")
     public ResponseEntity<?> formalizarBloqueo(@PathVariable(required = true) Long id) {
@@ -103,10 +138,10 @@ public class BloqueoController {
     }
 
     @PostMapping("/cleanup")
-    @Operation(summary = "Limpieza manual", description = "Ejecuta el job de limpieza de bloqueos expirados manualmente (Solo ADMIN)")
+    @Operation(summary = "Limpieza manual", description = "Expira ya las reservas vencidas sin esperar a la siguiente revisión (Solo ADMIN)")
     public ResponseEntity<?> ejecutarLimpiezaBloqueos() {
         // SEGURIDAD: La restricción a ROLE_ADMIN está configurada en SecurityConfig
-        servicioBloqueo.limpiarBloqueosExpirados();
-        return ResponseEntity.ok("Limpieza ejecutada");
+        int expirados = servicioBloqueo.limpiarBloqueosExpirados();
+        return ResponseEntity.ok("Limpieza ejecutada: " + expirados + " reservas expiradas");
     }
 }
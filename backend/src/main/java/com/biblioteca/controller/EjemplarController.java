@@ -1,8 +1,10 @@
 package com.biblioteca.controller;
 
+import com.biblioteca.dto.PageResponse;
 import com.biblioteca.model.Ejemplar;
 import com.biblioteca.service.EjemplarService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -27,6 +29,17 @@ public class EjemplarController {
         return servicioEjemplar.listarEjemplares(idLibro, estado);
     }
 
+    @GetMapping("/paginated")
+    @Operation(summary = "Listar ejemplares paginados", description = "Ejemplares por libro o estado, paginados en el servidor")
+    public PageResponse<Ejemplar> listarEjemplaresPaginados(
+            @Parameter(description = "Número de página (0-indexed)") @RequestParam(defaultValue = "0") int pagina,
+            @Parameter(description = "Tamaño de página (máx. 100)") @RequestParam(defaultValue = "20") int tamanio,
+            @Parameter(description = "Orden: id, codigoBarras o estado, con ,asc o ,desc") @RequestParam(required = false) String orden,
+            @RequestParam(required = false) Long idLibro,
+            @RequestParam(required = false) String estado) {
+        return PageResponse.from(servicioEjemplar.buscarEjemplares(idLibro, estado, pagina, tamanio, orden));
+    }
+
     @PostMapping("/fix-consistency")
     @Operation(summary = "Corregir consistencia", description = "Sincroniza estados de ejemplares con préstamos/bloqueos activos (solo ADMIN)")
     public ResponseEntity<?> corregirConsistencia() {
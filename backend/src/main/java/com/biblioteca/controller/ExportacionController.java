@@ -0,0 +1,94 @@
+package com.biblioteca.controller;
+
+import com.biblioteca.config.ExportacionProperties;
+import com.biblioteca.model.EstadoPrestamo;
+import com.biblioteca.service.ExportacionService;
+import com.biblioteca.service.ExportacionService.Formato;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Descargas en streaming: el cuerpo se escribe en un hilo de MVC asíncrono
+ * según se leen las filas, con su propio tiempo máximo
+ * ({@code app.exportaciones.timeout}). Los parámetros se validan antes de
+ * empezar, así que un formato o estado desconocido llega a
+ * GlobalExceptionHandler como 400.
+ */
+@RestController
+@RequestMapping("/api/exportaciones")
+@Tag(name = "Exportaciones", description = "Descarga completa de préstamos, catálogo y ejemplares en CSV o NDJSON")
+public class ExportacionController {
+
+    private final ExportacionService servicioExportacion;
+    private final ExportacionProperties propiedades;
+
+    public ExportacionController(ExportacionService servicioExportacion, ExportacionProperties propiedades) {
+        this.servicioExportacion = servicioExportacion;
+        this.propiedades = propiedades;
+    }
+
+    @GetMapping("/prestamos")
+    @Operation(summary = "Exportar préstamos", description = "Descarga todos los préstamos, opcionalmente filtrados por estado (solo bibliotecarios)")
+    public ResponseEntity<StreamingResponseBody> exportarPrestamos(@RequestParam(defaultValue = "csv") String formato,
+            @RequestParam(required = false) String estado, NativeWebRequest peticion) {
+        Formato tipo = Formato.de(formato);
+        EstadoPrestamo filtro = estado == null ? null : estadoPrestamo(estado);
+        return descarga(peticion, "prestamos", tipo,
+                salida -> servicioExportacion.exportarPrestamos(filtro, tipo, salida));
+    }
+
+    @GetMapping("/libros")
+    @Operation(summary = "Exportar catálogo", description = "Descarga todos los libros con sus ejemplares disponibles (solo bibliotecarios)")
+    public ResponseEntity<StreamingResponseBody> exportarLibros(@RequestParam(defaultValue = "csv") String formato,
+            NativeWebRequest peticion) {
+        Formato tipo = Formato.de(formato);
+        return descarga(peticion, "libros", tipo, salida -> servicioExportacion.exportarLibros(tipo, salida));
+    }
+
+    @GetMapping("/ejemplares")
+    @Operation(summary = "Exportar ejemplares", description = "Descarga todos los ejemplares con su libro (solo bibliotecarios)")
+    public ResponseEntity<StreamingResponseBody> exportarEjemplares(@RequestParam(defaultValue = "csv") String formato,
+            NativeWebRequest peticion) {
+        Formato tipo = Formato.de(formato);
+        return descarga(peticion, "ejemplares", tipo, salida -> servicioExportacion.exportarEjemplares(tipo, salida));
+    }
+
+    // ----- MÉTODOS PRIVADOS -----
+
+    private ResponseEntity<StreamingResponseBody> descarga(NativeWebRequest peticion, String nombre,
+            Formato formato, StreamingResponseBody cuerpo) {
+        // El procesamiento asíncrono empieza al devolver el cuerpo y toma este tiempo
+        // máximo en lugar del general
+        AsyncWebRequest asincrona = WebAsyncUtils.getAsyncManager(peticion).getAsyncWebRequest();
+        if (asincrona != null) {
+            asincrona.setTimeout(propiedades.getTimeout().toMillis());
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(formato.getTipoContenido() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(nombre + "." + formato.getExtension())
+                        .build()
+                        .toString())
+                .body(cuerpo);
+    }
+
+    private static EstadoPrestamo estadoPrestamo(String estado) {
+        try {
+            return EstadoPrestamo.valueOf(estado);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Estado de préstamo no válido: " + estado);
+        }
+    }
+}
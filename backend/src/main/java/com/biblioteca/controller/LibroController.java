@@ -5,7 +5,6 @@ import com.biblioteca.dto.PageResponse;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -24,7 +23,6 @@ public class LibroController {
 
     @GetMapping
     @Operation(summary = "Listar libros", description = "Obtiene el catálogo de libros con filtros opcionales")
-    @Cacheable(value = "libros", key = "#categoria ?: 'all'", condition = "#excluirLeidos == null && #soloLeidos == null")
     public List<com.biblioteca.dto.LibroDTO> listarLibros(
             @Parameter(description = "Filtrar por categoría") @RequestParam(required = false) String categoria,
             @Parameter(description = "Excluir libros ya leídos") @RequestParam(required = false) Boolean excluirLeidos,
@@ -47,17 +45,26 @@ public class LibroController {
     }
 
     @GetMapping("/paginated")
-    @Operation(summary = "Listar libros paginados", description = "Obtiene el catálogo de libros con paginación")
-    // @Cacheable removed for paginated results to ensure correct partial loading
+    @Operation(summary = "Listar libros paginados", description = "Obtiene el catálogo de libros con paginación. "
+            + "Si se envía el parámetro cursor (vacío para la primera página) se usa paginación por cursor: "
+            + "la respuesta incluye nextCursor y se ignora pagina")
     public PageResponse<com.biblioteca.dto.LibroDTO> listarLibrosPaginados(
             @Parameter(description = "Número de página (0-indexed)") @RequestParam(defaultValue = "0") int pagina,
             @Parameter(description = "Tamaño de página") @RequestParam(defaultValue = "10") int tamanio,
             @Parameter(description = "Filtrar por categoría") @RequestParam(required = false) String categoria,
             @Parameter(description = "Buscar por título o autor") @RequestParam(required = false) String busqueda,
             @Parameter(description = "Excluir libros ya leídos") @RequestParam(required = false) Boolean excluirLeidos,
-            @Parameter(description = "Username para filtros de lectura") @RequestParam(required = false) String usuario) {
+            @Parameter(description = "Mostrar solo libros leídos") @RequestParam(required = false) Boolean soloLeidos,
+            @Parameter(description = "Username para filtros de lectura") @RequestParam(required = false) String usuario,
+            @Parameter(description = "Token de continuación (modo cursor)") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Calcular totalElements (solo modo cursor)") @RequestParam(defaultValue = "true") boolean contarTotal) {
 
+        if (cursor != null) {
+            return servicioLibro.obtenerLibrosPorCursor(cursor, tamanio, categoria, busqueda, excluirLeidos,
+                    soloLeidos, usuario, contarTotal);
+        }
         return PageResponse.from(
-                servicioLibro.obtenerLibrosPaginados(pagina, tamanio, categoria, busqueda, excluirLeidos, usuario));
+                servicioLibro.obtenerLibrosPaginados(pagina, tamanio, categoria, busqueda, excluirLeidos, soloLeidos,
+                        usuario));
     }
 }
@@ -1,16 +1,25 @@
 package com.biblioteca.controller;
 
+import com.biblioteca.dto.DevolucionLoteRequest;
+import com.biblioteca.dto.FiltroListado;
+import com.biblioteca.dto.PageResponse;
+import com.biblioteca.dto.PrestamoLoteRequest;
 import com.biblioteca.dto.PrestamoRequest;
+import com.biblioteca.dto.PrestamoVencidoDTO;
 import com.biblioteca.model.Prestamo;
+import com.biblioteca.service.IndicePrestamosVencidos;
 import com.biblioteca.service.PrestamoService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Objects;
 
@@ -20,9 +29,11 @@ import java.util.Objects;
 public class PrestamoController {
 
     private final PrestamoService servicioPrestamo;
+    private final IndicePrestamosVencidos indiceVencidos;
 
-    public PrestamoController(PrestamoService servicioPrestamo) {
+    public PrestamoController(PrestamoService servicioPrestamo, IndicePrestamosVencidos indiceVencidos) {
         this.servicioPrestamo = servicioPrestamo;
+        this.indiceVencidos = indiceVencidos;
     }
 
     @PostMapping
@@ -70,6 +81,26 @@ public class PrestamoController {
         }
     }
 
+    @PostMapping("/lote")
+    @Operation(summary = "Crear préstamos en lote", description = "Registra varios préstamos en una transacción y devuelve el resultado de cada uno (solo bibliotecarios)")
+    public ResponseEntity<?> crearPrestamosEnLote(@Valid @RequestBody PrestamoLoteRequest solicitud) {
+        try {
+            return ResponseEntity.ok(servicioPrestamo.crearPrestamosEnLote(solicitud.getPrestamos()));
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/devoluciones/lote")
+    @Operation(summary = "Devolver préstamos en lote", description = "Marca varios préstamos como devueltos y devuelve el resultado de cada uno (solo bibliotecarios)")
+    public ResponseEntity<?> devolverPrestamosEnLote(@Valid @RequestBody DevolucionLoteRequest solicitud) {
+        try {
+            return ResponseEntity.ok(servicioPrestamo.devolverPrestamosEnLote(solicitud.getIdsPrestamo()));
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping
     @Operation(summary = "Listar préstamos", description = "Obtiene todos los préstamos, opcionalmente filtrados por estado")
     public List<com.biblioteca.dto.PrestamoDTO> listarPrestamos(@RequestParam(required = false) String estado) {
@@ -78,6 +109,32 @@ public class PrestamoController {
                 .toList();
     }
 
+    @GetMapping("/paginated")
+    @Operation(summary = "Listar préstamos paginados", description = "Préstamos filtrados, ordenados y paginados en el servidor (solo bibliotecarios)")
+    public PageResponse<com.biblioteca.dto.PrestamoDTO> listarPrestamosPaginados(
+            @Parameter(description = "Número de página (0-indexed)") @RequestParam(defaultValue = "0") int pagina,
+            @Parameter(description = "Tamaño de página (máx. 100)") @RequestParam(defaultValue = "20") int tamanio,
+            @Parameter(description = "Orden: id, fechaPrestamo, fechaPrevistaDevolucion, usuario o estado, con ,asc o ,desc") @RequestParam(required = false) String orden,
+            @Parameter(description = "Estado (ACTIVO, DEVUELTO)") @RequestParam(required = false) String estado,
+            @Parameter(description = "ID del socio") @RequestParam(required = false) Long idSocio,
+            @Parameter(description = "ID del libro") @RequestParam(required = false) Long idLibro,
+            @Parameter(description = "Prestados desde (yyyy-MM-dd, inclusive)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @Parameter(description = "Prestados hasta (yyyy-MM-dd, inclusive)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @Parameter(description = "Solo préstamos activos vencidos") @RequestParam(defaultValue = "false") boolean soloVencidos) {
+        FiltroListado filtro = new FiltroListado(estado, idSocio, idLibro, desde, hasta, soloVencidos);
+        return PageResponse.from(servicioPrestamo.buscarPrestamos(filtro, pagina, tamanio, orden)
+                .map(com.biblioteca.dto.PrestamoDTO::fromEntity));
+    }
+
+    @GetMapping("/vencidos")
+    @Operation(summary = "Listar préstamos vencidos", description = "Préstamos activos fuera de plazo, del más atrasado al más reciente, servidos desde el índice en memoria (solo bibliotecarios)")
+    public List<PrestamoVencidoDTO> listarPrestamosVencidos() {
+        LocalDate hoy = LocalDate.now();
+        return indiceVencidos.vencidos().stream()
+                .map(vencimiento -> PrestamoVencidoDTO.de(vencimiento, hoy))
+                .toList();
+    }
+
     @GetMapping("/mis-prestamos")
     @Operation(summary = "Mis préstamos", description = "Obtiene los préstamos del usuario autenticado")
     public List<com.biblioteca.dto.PrestamoDTO> listarMisPrestamos() {
@@ -2,6 +2,7 @@ package com.biblioteca.controller;
 
 import com.biblioteca.dto.RecomendacionDTO;
 import com.biblioteca.service.AIGenerationService;
+import com.biblioteca.service.RecomendacionesPrecalculadas;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.slf4j.Logger;
@@ -20,9 +21,12 @@ public class RecomendacionController {
 
     private static final Logger LOG = LoggerFactory.getLogger(RecomendacionController.class);
     private final AIGenerationService servicioIA;
+    private final RecomendacionesPrecalculadas recomendacionesPrecalculadas;
 
-    public RecomendacionController(AIGenerationService servicioIA) {
+    public RecomendacionController(AIGenerationService servicioIA,
+            RecomendacionesPrecalculadas recomendacionesPrecalculadas) {
         this.servicioIA = servicioIA;
+        this.recomendacionesPrecalculadas = recomendacionesPrecalculadas;
     }
 
     @GetMapping("/mias")
@@ -33,8 +37,8 @@ public class RecomendacionController {
 
         LOG.info("Solicitando recomendaciones para usuario: {}", usuario);
 
-        List<RecomendacionDTO> resultado = servicioIA.obtenerRecomendacionesPorUsuario(usuario);
-        return ResponseEntity.ok(resultado);
+        // Lo ya calculado en segundo plano; nunca se espera a la IA
+        return ResponseEntity.ok(recomendacionesPrecalculadas.obtener(usuario));
     }
 
     @PostMapping
@@ -0,0 +1,36 @@
+package com.biblioteca.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * DTO para devolver varios préstamos de una vez desde el mostrador de
+ * circulación.
+ */
+public class DevolucionLoteRequest {
+
+    @NotEmpty(message = "El lote debe incluir al menos un préstamo")
+    @Size(max = 100, message = "El lote no puede superar las 100 devoluciones")
+    private List<@NotNull(message = "El ID del préstamo es obligatorio") @Positive(message = "El ID del préstamo debe ser positivo") Long> idsPrestamo;
+
+    // Constructors
+    public DevolucionLoteRequest() {
+    }
+
+    public DevolucionLoteRequest(List<Long> idsPrestamo) {
+        this.idsPrestamo = idsPrestamo;
+    }
+
+    // Getters and Setters
+    public List<Long> getIdsPrestamo() {
+        return idsPrestamo;
+    }
+
+    public void setIdsPrestamo(List<Long> idsPrestamo) {
+        this.idsPrestamo = idsPrestamo;
+    }
+}
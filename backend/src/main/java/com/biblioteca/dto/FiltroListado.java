@@ -0,0 +1,20 @@
+package com.biblioteca.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Filtros de los listados paginados de administración (préstamos y reservas).
+ * Todos son opcionales; {@code desde} y {@code hasta} son inclusivos y se
+ * aplican a la fecha de préstamo o de inicio de la reserva.
+ *
+ * @param estado       Nombre del estado (ACTIVO, DEVUELTO...).
+ * @param soloVencidos Solo los activos cuya fecha límite ya pasó.
+ */
+public record FiltroListado(
+        String estado,
+        Long idSocio,
+        Long idLibro,
+        LocalDate desde,
+        LocalDate hasta,
+        boolean soloVencidos) {
+}
@@ -17,6 +17,8 @@ public class PageResponse<T> {
     private int totalPages;
     private boolean first;
     private boolean last;
+    // Token opaco para pedir la página siguiente en modo cursor; null si no hay más
+    private String nextCursor;
 
     // Constructors
     public PageResponse() {
@@ -45,6 +47,25 @@ public class PageResponse<T> {
         return response;
     }
 
+    /**
+     * Respuesta en modo cursor (keyset). {@code page} no aplica y se deja a 0.
+     *
+     * @param totalElements total de resultados, o -1 si el cliente pidió omitir el
+     *                      conteo (entonces {@code totalPages} también es -1)
+     */
+    public static <T> PageResponse<T> fromCursor(List<T> content, int size, boolean first, String nextCursor,
+            long totalElements) {
+        PageResponse<T> response = new PageResponse<>();
+        response.setContent(content);
+        response.setSize(size);
+        response.setTotalElements(totalElements);
+        response.setTotalPages(totalElements < 0 ? -1 : (size > 0 ? (int) Math.ceil((double) totalElements / size) : 0));
+        response.setFirst(first);
+        response.setLast(nextCursor == null);
+        response.setNextCursor(nextCursor);
+        return response;
+    }
+
     // Getters and Setters
     public List<T> getContent() {
         return content;
@@ -101,4 +122,12 @@ public class PageResponse<T> {
     public void setLast(boolean last) {
         this.last = last;
     }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
 }
@@ -0,0 +1,36 @@
+package com.biblioteca.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * DTO para registrar varios préstamos de una vez desde el mostrador de
+ * circulación. Cada elemento se valida como un {@link PrestamoRequest}.
+ */
+public class PrestamoLoteRequest {
+
+    @NotEmpty(message = "El lote debe incluir al menos un préstamo")
+    @Size(max = 100, message = "El lote no puede superar los 100 préstamos")
+    @Valid
+    private List<PrestamoRequest> prestamos;
+
+    // Constructors
+    public PrestamoLoteRequest() {
+    }
+
+    public PrestamoLoteRequest(List<PrestamoRequest> prestamos) {
+        this.prestamos = prestamos;
+    }
+
+    // Getters and Setters
+    public List<PrestamoRequest> getPrestamos() {
+        return prestamos;
+    }
+
+    public void setPrestamos(List<PrestamoRequest> prestamos) {
+        this.prestamos = prestamos;
+    }
+}
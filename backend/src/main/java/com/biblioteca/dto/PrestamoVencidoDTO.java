@@ -0,0 +1,26 @@
+package com.biblioteca.dto;
+
+import com.biblioteca.repository.VencimientoPrestamo;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Préstamo activo fuera de plazo, tal como lo guarda el índice de vencidos.
+ */
+public record PrestamoVencidoDTO(
+        Long idPrestamo,
+        String usuario,
+        String tituloLibro,
+        LocalDate fechaPrevistaDevolucion,
+        long diasRetraso) {
+
+    public static PrestamoVencidoDTO de(VencimientoPrestamo vencimiento, LocalDate hoy) {
+        return new PrestamoVencidoDTO(
+                vencimiento.idPrestamo(),
+                vencimiento.usuario(),
+                vencimiento.tituloLibro(),
+                vencimiento.fechaPrevista(),
+                ChronoUnit.DAYS.between(vencimiento.fechaPrevista(), hoy));
+    }
+}
@@ -0,0 +1,31 @@
+package com.biblioteca.dto;
+
+import java.util.List;
+
+/**
+ * Resultado de una operación en lote: un elemento por entrada de la
+ * solicitud, en el mismo orden. Los fallidos llevan el motivo y no impiden que
+ * se apliquen los correctos.
+ */
+public record ResultadoLoteDTO(
+        int total,
+        int correctos,
+        int fallidos,
+        List<Item> resultados) {
+
+    public record Item(int indice, Long idPrestamo, boolean correcto, String error) {
+
+        public static Item correcto(int indice, Long idPrestamo) {
+            return new Item(indice, idPrestamo, true, null);
+        }
+
+        public static Item fallido(int indice, Long idPrestamo, String error) {
+            return new Item(indice, idPrestamo, false, error);
+        }
+    }
+
+    public static ResultadoLoteDTO de(List<Item> resultados) {
+        int correctos = (int) resultados.stream().filter(Item::correcto).count();
+        return new ResultadoLoteDTO(resultados.size(), correctos, resultados.size() - correctos, resultados);
+    }
+}
@@ -0,0 +1,26 @@
+package com.biblioteca.events;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Se publica cuando cambia el contador de ejemplares disponibles de un libro
+ * (préstamo, reserva, devolución, cancelación...). Un {@code idLibro} nulo
+ * indica un recálculo masivo que afecta a todo el catálogo.
+ */
+public class DisponibilidadCambiadaEvent extends ApplicationEvent {
+
+    private final Long idLibro;
+
+    public DisponibilidadCambiadaEvent(Object source, Long idLibro) {
+        super(source);
+        this.idLibro = idLibro;
+    }
+
+    public Long getIdLibro() {
+        return idLibro;
+    }
+
+    public boolean esGlobal() {
+        return idLibro == null;
+    }
+}
@@ -0,0 +1,31 @@
+package com.biblioteca.events;
+
+import com.biblioteca.model.Libro;
+import com.biblioteca.service.CatalogoEnMemoria;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Listener JPA de {@link Libro}: cualquier alta, modificación o baja de un libro
+ * invalida la instantánea del catálogo en memoria.
+ * <p>
+ * Hibernate lo instancia a través del contenedor de Spring; se usa un
+ * {@link ObjectProvider} para no crear un ciclo con el EntityManagerFactory.
+ */
+public class LibroEntityListener {
+
+    private final ObjectProvider<CatalogoEnMemoria> catalogo;
+
+    public LibroEntityListener(ObjectProvider<CatalogoEnMemoria> catalogo) {
+        this.catalogo = catalogo;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void alCambiarLibro(Libro libro) {
+        catalogo.ifAvailable(CatalogoEnMemoria::invalidar);
+    }
+}
@@ -0,0 +1,97 @@
+package com.biblioteca.events;
+
+import com.biblioteca.model.TipoEventoOutbox;
+import com.biblioteca.service.NotificationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Traduce los eventos del outbox a avisos de {@link NotificationService}:
+ * préstamos y reservas nuevos y devoluciones fuera de plazo, sueltos o en un
+ * único aviso por lote.
+ */
+@Component
+public class NotificacionesSuscriptor implements SuscriptorOutbox {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NotificacionesSuscriptor.class);
+    private final NotificationService notificationService;
+
+    public NotificacionesSuscriptor(NotificationService notificationService) {
+        this.notificationService = notificationService;
+    }
+
+    @Override
+    public boolean acepta(TipoEventoOutbox tipo) {
+        return true;
+    }
+
+    @Override
+    public void procesar(TipoEventoOutbox tipo, Map<String, Object> datos) {
+        switch (tipo) {
+            case PRESTAMO_CREADO -> notificationService.notificarNuevoPrestamo(
+                    String.valueOf(datos.get("nombre_socio")), String.valueOf(datos.get("libro")));
+            case BLOQUEO_CREADO -> notificationService.notificarNuevaReserva(
+                    String.valueOf(datos.get("usuario")), String.valueOf(datos.get("libro")));
+            case PRESTAMO_DEVUELTO -> notificarSiTardia(datos);
+            case PRESTAMOS_CREADOS_LOTE -> notificationService.notificarPrestamosEnLote(
+                    ((Number) datos.get("total")).intValue(), detalle(datos, "prestamos"));
+            case PRESTAMOS_DEVUELTOS_LOTE -> notificarTardiasDeLote(datos);
+        }
+    }
+
+    // ----- MÉTODOS PRIVADOS -----
+
+    private void notificarTardiasDeLote(Map<String, Object> datos) {
+        int totalTardias = ((Number) datos.get("total_tardias")).intValue();
+        if (totalTardias == 0) {
+            return;
+        }
+        List<Map<String, Object>> tardias = new ArrayList<>();
+        for (Map<String, Object> devolucion : detalle(datos, "tardias")) {
+            Map<String, Object> linea = new HashMap<>(devolucion);
+            linea.put("dias_retraso", ChronoUnit.DAYS.between(
+                    LocalDate.parse(devolucion.get("fecha_prevista").toString()),
+                    LocalDate.parse(devolucion.get("fecha_devolucion").toString())));
+            tardias.add(linea);
+        }
+        LOG.info("Detectadas {} devoluciones tardías en un lote. Enviando notificación...", totalTardias);
+        notificationService.notificarDevolucionesTardiasEnLote(totalTardias, tardias);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> detalle(Map<String, Object> datos, String clave) {
+        Object lista = datos.get(clave);
+        return lista instanceof List<?> ? (List<Map<String, Object>>) lista : List.of();
+    }
+
+    private void notificarSiTardia(Map<String, Object> datos) {
+        Object prevista = datos.get("fecha_prevista");
+        Object devolucion = datos.get("fecha_devolucion");
+        if (prevista == null || devolucion == null) {
+            return;
+        }
+
+        // Fechas del momento de la devolución, no de la entrega del evento (que puede llegar tarde)
+        LocalDate fechaPrevista = LocalDate.parse(prevista.toString());
+        LocalDate fechaDevolucion = LocalDate.parse(devolucion.toString());
+        if (!fechaDevolucion.isAfter(fechaPrevista)) {
+            return;
+        }
+
+        long diasRetraso = ChronoUnit.DAYS.between(fechaPrevista, fechaDevolucion);
+        LOG.info("Detectada devolución tardía (ID: {}). Enviando notificación...", datos.get("id_prestamo"));
+        notificationService.notificarDevolucionTardia(Map.of(
+                "usuario", datos.getOrDefault("usuario", "N/A"),
+                "libro", datos.getOrDefault("libro", "N/A"),
+                "fecha_prevista", prevista,
+                "dias_retraso", diasRetraso));
+    }
+}
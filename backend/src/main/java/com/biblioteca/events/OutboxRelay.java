@@ -0,0 +1,114 @@
+package com.biblioteca.events;
+
+import com.biblioteca.config.OutboxProperties;
+import com.biblioteca.model.EstadoEventoOutbox;
+import com.biblioteca.model.EventoOutbox;
+import com.biblioteca.repository.EventoOutboxRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Entrega en segundo plano los eventos del outbox a los {@link SuscriptorOutbox}.
+ * <p>
+ * Cada lote se procesa en su propia transacción: se bloquean los eventos
+ * pendientes (SKIP LOCKED, así que varias réplicas no se pisan), se entregan y se
+ * marcan como procesados en el mismo commit. Si la aplicación cae a mitad de lote
+ * los eventos siguen pendientes y se vuelven a entregar (al menos una vez).
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OutboxRelay.class);
+    private static final TypeReference<Map<String, Object>> TIPO_DATOS = new TypeReference<>() {
+    };
+
+    private final EventoOutboxRepository repositorioOutbox;
+    private final List<SuscriptorOutbox> suscriptores;
+    private final OutboxProperties propiedades;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transaccion;
+
+    public OutboxRelay(EventoOutboxRepository repositorioOutbox, List<SuscriptorOutbox> suscriptores,
+            OutboxProperties propiedades, ObjectMapper objectMapper, PlatformTransactionManager gestorTransacciones) {
+        this.repositorioOutbox = repositorioOutbox;
+        this.suscriptores = suscriptores;
+        this.propiedades = propiedades;
+        this.objectMapper = objectMapper;
+        this.transaccion = new TransactionTemplate(gestorTransacciones);
+    }
+
+    /**
+     * Drena el outbox lote a lote mientras los lotes salgan completos y sin
+     * fallos; lo demás queda para la siguiente ejecución.
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.intervalo-ms:2000}", initialDelayString = "${app.outbox.intervalo-ms:2000}")
+    public void drenar() {
+        int entregados;
+        do {
+            Integer lote = transaccion.execute(estado -> procesarLote());
+            entregados = lote == null ? 0 : lote;
+        } while (entregados == propiedades.getTamanioLote());
+    }
+
+    /**
+     * Borra los eventos procesados más antiguos que la retención configurada.
+     */
+    @Scheduled(cron = "${app.outbox.purga-cron:0 30 3 * * *}")
+    public void purgar() {
+        Date limite = Date.from(Instant.now().minus(propiedades.getRetencionDias(), ChronoUnit.DAYS));
+        Integer borrados = transaccion.execute(estado -> repositorioOutbox
+                .deleteByEstadoAndFechaProcesadoBefore(EstadoEventoOutbox.PROCESADO, limite));
+        LOG.info("Outbox: {} eventos procesados purgados.", borrados);
+    }
+
+    // ----- MÉTODOS PRIVADOS -----
+
+    private int procesarLote() {
+        List<Long> ids = repositorioOutbox.findIdsByEstado(EstadoEventoOutbox.PENDIENTE,
+                PageRequest.of(0, propiedades.getTamanioLote()));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        // Puede devolver menos de los pedidos: los bloqueados por otra réplica se saltan
+        List<EventoOutbox> eventos = repositorioOutbox.lockByIdsAndEstado(ids, EstadoEventoOutbox.PENDIENTE);
+        int entregados = 0;
+        for (EventoOutbox evento : eventos) {
+            if (entregar(evento)) {
+                entregados++;
+            }
+        }
+        return entregados;
+    }
+
+    private boolean entregar(EventoOutbox evento) {
+        try {
+            Map<String, Object> datos = objectMapper.readValue(evento.getPayload(), TIPO_DATOS);
+            for (SuscriptorOutbox suscriptor : suscriptores) {
+                if (suscriptor.acepta(evento.getTipo())) {
+                    suscriptor.procesar(evento.getTipo(), datos);
+                }
+            }
+            evento.marcarProcesado();
+            return true;
+        } catch (Exception e) {
+            evento.registrarFallo(e.getMessage(), propiedades.getMaxIntentos());
+            LOG.warn("Fallo entregando evento {} ({}), intento {}: {}", evento.getIdEvento(), evento.getTipo(),
+                    evento.getIntentos(), e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.biblioteca.events;
+
+import com.biblioteca.model.Prestamo;
+import org.springframework.context.ApplicationEvent;
+
+public class PrestamoCreadoEvent extends ApplicationEvent {
+
+    private final Prestamo prestamo;
+    // Se copia al publicar: los listeners AFTER_COMMIT no deben inicializar proxies
+    private final String usuario;
+    private final Long idSocio;
+    private final Long idLibro;
+    private final String tituloLibro;
+
+    public PrestamoCreadoEvent(Object source, Prestamo prestamo) {
+        super(source);
+        this.prestamo = prestamo;
+        this.usuario = prestamo.getSocio().getUsuario();
+        this.idSocio = prestamo.getSocio().getIdSocio();
+        this.idLibro = prestamo.getEjemplar().getLibro().getIdLibro();
+        this.tituloLibro = prestamo.getEjemplar().getLibro().getTitulo();
+    }
+
+    public Prestamo getPrestamo() {
+        return prestamo;
+    }
+
+    public String getUsuario() {
+        return usuario;
+    }
+
+    public Long getIdSocio() {
+        return idSocio;
+    }
+
+    public Long getIdLibro() {
+        return idLibro;
+    }
+
+    public String getTituloLibro() {
+        return tituloLibro;
+    }
+}
@@ -0,0 +1,31 @@
+package com.biblioteca.events;
+
+import com.biblioteca.model.Prestamo;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.List;
+
+/**
+ * Préstamos devueltos en una misma transacción, uno o un lote del mostrador.
+ */
+public class PrestamosDevueltosEvent extends ApplicationEvent {
+
+    private final List<Long> idsPrestamo;
+    // Se copian al publicar, como en PrestamoCreadoEvent
+    private final List<String> usuarios;
+
+    public PrestamosDevueltosEvent(Object source, List<Prestamo> prestamos) {
+        super(source);
+        this.idsPrestamo = prestamos.stream().map(Prestamo::getIdPrestamo).toList();
+        this.usuarios = prestamos.stream().map(p -> p.getSocio().getUsuario()).distinct().toList();
+    }
+
+    public List<Long> getIdsPrestamo() {
+        return idsPrestamo;
+    }
+
+    /** Socios que han devuelto algo, sin repetir. */
+    public List<String> getUsuarios() {
+        return usuarios;
+    }
+}
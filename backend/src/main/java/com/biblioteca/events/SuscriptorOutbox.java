@@ -0,0 +1,18 @@
+package com.biblioteca.events;
+
+import com.biblioteca.model.TipoEventoOutbox;
+
+import java.util.Map;
+
+/**
+ * Destinatario de los eventos que entrega {@link OutboxRelay}.
+ * <p>
+ * La entrega es al menos una vez: si un suscriptor falla, el evento se reintenta
+ * para todos los suscriptores, así que {@link #procesar} debe tolerar duplicados.
+ */
+public interface SuscriptorOutbox {
+
+    boolean acepta(TipoEventoOutbox tipo);
+
+    void procesar(TipoEventoOutbox tipo, Map<String, Object> datos);
+}
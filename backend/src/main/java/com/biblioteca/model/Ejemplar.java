@@ -4,7 +4,7 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "EJEMPLAR")
+@Table(name = "EJEMPLAR", indexes = @Index(name = "IDX_EJEMPLAR_LIBRO_ESTADO", columnList = "ID_LIBRO, ESTADO"))
 @JsonIgnoreProperties({ "hibernateLazyInitializer", "handler" })
 public class Ejemplar {
 
@@ -0,0 +1,7 @@
+package com.biblioteca.model;
+
+public enum EstadoEventoOutbox {
+    PENDIENTE,
+    PROCESADO,
+    FALLIDO
+}
@@ -0,0 +1,140 @@
+package com.biblioteca.model;
+
+import jakarta.persistence.*;
+import java.util.Date;
+
+/**
+ * Evento de dominio pendiente de entregar a los suscriptores (notificaciones,
+ * etc.). Se inserta en la misma transacción que el cambio de PRESTAMO/BLOQUEO que
+ * lo origina y lo entrega después OutboxRelay, de modo que solo se notifican
+ * cambios confirmados.
+ */
+@Entity
+@Table(name = "EVENTO_OUTBOX", indexes = @Index(name = "IDX_OUTBOX_ESTADO", columnList = "ESTADO, ID_EVENTO"))
+public class EventoOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "ID_EVENTO")
+    private Long idEvento;
+
+    @Column(name = "TIPO", nullable = false, length = 40)
+    @Enumerated(EnumType.STRING)
+    private TipoEventoOutbox tipo;
+
+    // Datos del evento en JSON, ya resueltos (no requieren cargar entidades al entregarlo)
+    @Column(name = "PAYLOAD", nullable = false, length = 4000)
+    private String payload;
+
+    @Column(name = "ESTADO", nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    private EstadoEventoOutbox estado;
+
+    @Column(name = "FECHA_CREACION", nullable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date fechaCreacion;
+
+    @Column(name = "FECHA_PROCESADO")
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date fechaProcesado;
+
+    @Column(name = "INTENTOS", nullable = false)
+    private int intentos;
+
+    @Column(name = "ULTIMO_ERROR", length = 500)
+    private String ultimoError;
+
+    // Constructores
+    public EventoOutbox() {
+    }
+
+    public EventoOutbox(TipoEventoOutbox tipo, String payload) {
+        this.tipo = tipo;
+        this.payload = payload;
+        this.estado = EstadoEventoOutbox.PENDIENTE;
+        this.fechaCreacion = new Date();
+    }
+
+    public void marcarProcesado() {
+        this.estado = EstadoEventoOutbox.PROCESADO;
+        this.fechaProcesado = new Date();
+        this.ultimoError = null;
+    }
+
+    /**
+     * Anota un intento fallido; al alcanzar {@code maxIntentos} el evento deja de
+     * reintentarse y queda como FALLIDO para revisión manual.
+     */
+    public void registrarFallo(String error, int maxIntentos) {
+        this.intentos++;
+        this.ultimoError = error != null && error.length() > 500 ? error.substring(0, 500) : error;
+        if (this.intentos >= maxIntentos) {
+            this.estado = EstadoEventoOutbox.FALLIDO;
+        }
+    }
+
+    // Getters y Setters
+    public Long getIdEvento() {
+        return idEvento;
+    }
+
+    public void setIdEvento(Long idEvento) {
+        this.idEvento = idEvento;
+    }
+
+    public TipoEventoOutbox getTipo() {
+        return tipo;
+    }
+
+    public void setTipo(TipoEventoOutbox tipo) {
+        this.tipo = tipo;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public EstadoEventoOutbox getEstado() {
+        return estado;
+    }
+
+    public void setEstado(EstadoEventoOutbox estado) {
+        this.estado = estado;
+    }
+
+    public Date getFechaCreacion() {
+        return fechaCreacion;
+    }
+
+    public void setFechaCreacion(Date fechaCreacion) {
+        this.fechaCreacion = fechaCreacion;
+    }
+
+    public Date getFechaProcesado() {
+        return fechaProcesado;
+    }
+
+    public void setFechaProcesado(Date fechaProcesado) {
+        this.fechaProcesado = fechaProcesado;
+    }
+
+    public int getIntentos() {
+        return intentos;
+    }
+
+    public void setIntentos(int intentos) {
+        this.intentos = intentos;
+    }
+
+    public String getUltimoError() {
+        return ultimoError;
+    }
+
+    public void setUltimoError(String ultimoError) {
+        this.ultimoError = ultimoError;
+    }
+}
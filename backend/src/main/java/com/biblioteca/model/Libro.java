@@ -6,6 +6,7 @@ import jakarta.validation.constraints.*;
 
 @Entity
 @Table(name = "LIBRO")
+@EntityListeners(com.biblioteca.events.LibroEntityListener.class)
 @JsonIgnoreProperties({ "hibernateLazyInitializer", "handler" })
 public class Libro {
 
@@ -38,7 +39,14 @@ public class Libro {
     @Column(name = "ANIO")
     private Integer anio;
 
-    @org.hibernate.annotations.Formula("(SELECT COUNT(*) FROM EJEMPLAR e WHERE e.ID_LIBRO = ID_LIBRO AND e.ESTADO = 'DISPONIBLE')")
+    // Contador desnormalizado de ejemplares DISPONIBLES. Lo mantienen
+    // EjemplarService (recálculo por libro) y el trigger TRG_EJEMPLAR_DISPONIBLES
+    // en Oracle; nunca se escribe desde la entidad para no pisar valores con
+    // copias obsoletas del contexto de persistencia. Al no insertarse, el
+    // DEFAULT garantiza 0 y no NULL en los libros nuevos también con el
+    // esquema generado por Hibernate (pruebas, esquemas nuevos).
+    @Column(name = "DISPONIBLES", insertable = false, updatable = false,
+            columnDefinition = "NUMBER(10) DEFAULT 0 NOT NULL")
     private Long disponibles;
 
     // Constructores
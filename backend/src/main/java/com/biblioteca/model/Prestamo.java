@@ -5,7 +5,7 @@ import jakarta.persistence.*;
 import java.util.Date;
 
 @Entity
-@Table(name = "PRESTAMO")
+@Table(name = "PRESTAMO", indexes = @Index(name = "IDX_PRESTAMO_ESTADO_VENCIMIENTO", columnList = "ESTADO, FECHA_PREVISTA_DEVOLUCION"))
 @JsonIgnoreProperties({ "hibernateLazyInitializer", "handler" })
 public class Prestamo {
 
@@ -0,0 +1,9 @@
+package com.biblioteca.model;
+
+public enum TipoEventoOutbox {
+    PRESTAMO_CREADO,
+    PRESTAMO_DEVUELTO,
+    BLOQUEO_CREADO,
+    PRESTAMOS_CREADOS_LOTE,
+    PRESTAMOS_DEVUELTOS_LOTE
+}
@@ -2,9 +2,12 @@ package com.biblioteca.repository;
 
 import com.biblioteca.model.EstadoBloqueo;
 import com.biblioteca.model.Bloqueo;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import java.util.Collection;
 import java.util.List;
 
 public interface BloqueoRepository extends JpaRepository<Bloqueo, Long> {
@@ -24,15 +27,53 @@ public interface BloqueoRepository extends JpaRepository<Bloqueo, Long> {
         Long countActiveBloqueosBySocio(@Param("idSocio") Long idSocio, @Param("estado") EstadoBloqueo estado,
                         @Param("now") java.util.Date now);
 
+        long countByEstadoAndFechaFinAfter(EstadoBloqueo estado, java.util.Date now);
+
         @Query("SELECT b FROM Bloqueo b JOIN FETCH b.ejemplar e JOIN FETCH e.libro JOIN FETCH b.socio WHERE b.socio.idSocio = :idSocio AND b.estado = :estado AND b.fechaFin > :now")
         List<Bloqueo> findActiveBloqueosBySocioWithDetails(@Param("idSocio") Long idSocio,
                         @Param("estado") EstadoBloqueo estado,
                         @Param("now") java.util.Date now);
 
-        // SEGURIDAD: Recuperación ante fallos del Job de Oracle.
-        // Permite invocar la lógica de limpieza desde la aplicación si el Scheduler
-        // falla.
+        // Reservas vigentes que afectan a un lote de préstamos: las de sus socios (cuentan para el
+        // límite) y las de sus ejemplares (solo su titular puede llevárselos)
+        @Query("SELECT b FROM Bloqueo b JOIN FETCH b.socio JOIN FETCH b.ejemplar WHERE b.estado = :estado AND b.fechaFin > :now "
+                        + "AND (b.socio.idSocio IN :idsSocio OR b.ejemplar.idEjemplar IN :idsEjemplar)")
+        List<Bloqueo> findActivosBySociosOrEjemplares(@Param("idsSocio") Collection<Long> idsSocio,
+                        @Param("idsEjemplar") Collection<Long> idsEjemplar,
+                        @Param("estado") EstadoBloqueo estado,
+                        @Param("now") java.util.Date now);
+
+        // Listado de administración en dos fases (ids paginados y después el detalle)
+        @Query(value = "SELECT b.idBloqueo FROM Bloqueo b WHERE (:estado IS NULL OR b.estado = :estado) "
+                        + "AND (:idSocio IS NULL OR b.socio.idSocio = :idSocio) "
+                        + "AND (:idLibro IS NULL OR b.ejemplar.libro.idLibro = :idLibro) "
+                        + "AND (:desde IS NULL OR b.fechaInicio >= :desde) AND (:hasta IS NULL OR b.fechaInicio < :hasta) "
+                        + "AND (:vigentesDesde IS NULL OR b.fechaFin > :vigentesDesde) "
+                        + "AND (:vencidosAntes IS NULL OR (b.estado = com.biblioteca.model.EstadoBloqueo.ACTIVO "
+                        + "AND b.fechaFin <= :vencidosAntes))",
+                        countQuery = "SELECT COUNT(b) FROM Bloqueo b WHERE (:estado IS NULL OR b.estado = :estado) "
+                                        + "AND (:idSocio IS NULL OR b.socio.idSocio = :idSocio) "
+                                        + "AND (:idLibro IS NULL OR b.ejemplar.libro.idLibro = :idLibro) "
+                                        + "AND (:desde IS NULL OR b.fechaInicio >= :desde) AND (:hasta IS NULL OR b.fechaInicio < :hasta) "
+                                        + "AND (:vigentesDesde IS NULL OR b.fechaFin > :vigentesDesde) "
+                                        + "AND (:vencidosAntes IS NULL OR (b.estado = com.biblioteca.model.EstadoBloqueo.ACTIVO "
+                                        + "AND b.fechaFin <= :vencidosAntes))")
+        Page<Long> findIdsFiltrados(@Param("estado") EstadoBloqueo estado, @Param("idSocio") Long idSocio,
+                        @Param("idLibro") Long idLibro, @Param("desde") java.util.Date desde,
+                        @Param("hasta") java.util.Date hasta, @Param("vigentesDesde") java.util.Date vigentesDesde,
+                        @Param("vencidosAntes") java.util.Date vencidosAntes, Pageable pageable);
+
+        @Query("SELECT b FROM Bloqueo b JOIN FETCH b.ejemplar e JOIN FETCH e.libro JOIN FETCH b.socio WHERE b.idBloqueo IN :ids")
+        List<Bloqueo> findAllByIdWithDetails(@Param("ids") Collection<Long> ids);
+
+        @Query("SELECT new com.biblioteca.repository.VencimientoBloqueo(b.idBloqueo, e.idEjemplar, e.libro.idLibro, b.fechaFin) "
+                        + "FROM Bloqueo b JOIN b.ejemplar e WHERE b.estado = com.biblioteca.model.EstadoBloqueo.ACTIVO")
+        List<VencimientoBloqueo> findVencimientosActivos();
+
+        // Solo pasan a EXPIRADO las que siguen activas y vencidas: las formalizadas o
+        // canceladas entretanto se quedan como están
         @org.springframework.data.jpa.repository.Modifying
-        @Query(value = "BEGIN PROC_LIMPIEZA_BLOQUEOS; END;", nativeQuery = true)
-        void ejecutarLimpiezaBloqueos();
+        @Query("UPDATE Bloqueo b SET b.estado = com.biblioteca.model.EstadoBloqueo.EXPIRADO "
+                        + "WHERE b.idBloqueo IN :ids AND b.estado = com.biblioteca.model.EstadoBloqueo.ACTIVO AND b.fechaFin <= :now")
+        int expirarVencidos(@Param("ids") Collection<Long> ids, @Param("now") java.util.Date now);
 }
@@ -12,12 +12,36 @@ public interface EjemplarRepository extends JpaRepository<Ejemplar, Long> {
 
     List<Ejemplar> findByEstado(EstadoEjemplar estado);
 
+    @org.springframework.data.jpa.repository.Query("SELECT e FROM Ejemplar e JOIN FETCH e.libro WHERE e.idEjemplar = :id")
+    java.util.Optional<Ejemplar> findByIdWithLibro(@org.springframework.data.repository.query.Param("id") Long id);
+
+    @org.springframework.data.jpa.repository.Query("SELECT e FROM Ejemplar e JOIN FETCH e.libro WHERE e.idEjemplar IN :ids")
+    List<Ejemplar> findAllByIdWithLibro(@org.springframework.data.repository.query.Param("ids") java.util.Collection<Long> ids);
+
+    // Primera fase del listado paginado; el detalle se carga con findAllByIdWithLibro
+    @org.springframework.data.jpa.repository.Query(value = "SELECT e.idEjemplar FROM Ejemplar e "
+            + "WHERE (:idLibro IS NULL OR e.libro.idLibro = :idLibro) AND (:estado IS NULL OR e.estado = :estado)",
+            countQuery = "SELECT COUNT(e) FROM Ejemplar e "
+                    + "WHERE (:idLibro IS NULL OR e.libro.idLibro = :idLibro) AND (:estado IS NULL OR e.estado = :estado)")
+    org.springframework.data.domain.Page<Long> findIdsFiltrados(
+            @org.springframework.data.repository.query.Param("idLibro") Long idLibro,
+            @org.springframework.data.repository.query.Param("estado") EstadoEjemplar estado,
+            org.springframework.data.domain.Pageable pageable);
+
     @org.springframework.data.jpa.repository.Query("SELECT e FROM Ejemplar e JOIN FETCH e.libro WHERE e.estado = :estado")
     List<Ejemplar> findByEstadoWithLibro(
             @org.springframework.data.repository.query.Param("estado") EstadoEjemplar estado);
 
+    @org.springframework.data.jpa.repository.Query("SELECT e FROM Ejemplar e JOIN FETCH e.libro ORDER BY e.idEjemplar")
+    @org.springframework.data.jpa.repository.QueryHints({
+            @jakarta.persistence.QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @jakarta.persistence.QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_READ_ONLY, value = "true") })
+    java.util.stream.Stream<Ejemplar> streamAllWithLibro();
+
     long countByLibroIdLibroAndEstado(Long idLibro, EstadoEjemplar estado);
 
+    long countByEstado(EstadoEjemplar estado);
+
     @org.springframework.data.jpa.repository.Modifying
     @org.springframework.data.jpa.repository.Query(value = "UPDATE EJEMPLAR SET ESTADO = 'DISPONIBLE' WHERE ESTADO = 'PRESTADO' AND ID_EJEMPLAR NOT IN (SELECT ID_EJEMPLAR FROM PRESTAMO WHERE ESTADO = 'ACTIVO')", nativeQuery = true)
     void fixOrphanedPrestamos();
@@ -26,6 +50,26 @@ public interface EjemplarRepository extends JpaRepository<Ejemplar, Long> {
     @org.springframework.data.jpa.repository.Query(value = "UPDATE EJEMPLAR SET ESTADO = 'DISPONIBLE' WHERE ESTADO = 'BLOQUEADO' AND ID_EJEMPLAR NOT IN (SELECT ID_EJEMPLAR FROM BLOQUEO WHERE ESTADO = 'ACTIVO')", nativeQuery = true)
     void fixOrphanedBloqueos();
 
+    @org.springframework.data.jpa.repository.Query("SELECT e.idEjemplar FROM Ejemplar e WHERE e.libro.idLibro = :idLibro "
+            + "AND e.estado = com.biblioteca.model.EstadoEjemplar.DISPONIBLE")
+    List<Long> findIdsDisponiblesByLibro(@org.springframework.data.repository.query.Param("idLibro") Long idLibro,
+            org.springframework.data.domain.Pageable pageable);
+
+    // Compare-and-set del estado: 0 filas si otra transacción ya se llevó el ejemplar
+    @org.springframework.data.jpa.repository.Modifying
+    @org.springframework.data.jpa.repository.Query("UPDATE Ejemplar e SET e.estado = :nuevoEstado, e.version = COALESCE(e.version, 0) + 1 "
+            + "WHERE e.idEjemplar = :id AND e.estado = com.biblioteca.model.EstadoEjemplar.DISPONIBLE")
+    int reclamarDisponible(@org.springframework.data.repository.query.Param("id") Long id,
+            @org.springframework.data.repository.query.Param("nuevoEstado") EstadoEjemplar nuevoEstado);
+
+    // Libera los ejemplares bloqueados que ya no tienen ninguna reserva activa
+    @org.springframework.data.jpa.repository.Modifying
+    @org.springframework.data.jpa.repository.Query("UPDATE Ejemplar e SET e.estado = com.biblioteca.model.EstadoEjemplar.DISPONIBLE "
+            + "WHERE e.idEjemplar IN :ids AND e.estado = com.biblioteca.model.EstadoEjemplar.BLOQUEADO "
+            + "AND NOT EXISTS (SELECT b FROM Bloqueo b WHERE b.ejemplar.idEjemplar = e.idEjemplar "
+            + "AND b.estado = com.biblioteca.model.EstadoBloqueo.ACTIVO)")
+    int liberarBloqueados(@org.springframework.data.repository.query.Param("ids") java.util.Collection<Long> ids);
+
     @org.springframework.data.jpa.repository.Lock(jakarta.persistence.LockModeType.PESSIMISTIC_WRITE)
     @org.springframework.data.jpa.repository.Query("SELECT e FROM Ejemplar e WHERE e.idEjemplar = :id")
     java.util.Optional<Ejemplar> findByIdWithLock(@org.springframework.data.repository.query.Param("id") Long id);
@@ -0,0 +1,39 @@
+package com.biblioteca.repository;
+
+import com.biblioteca.model.EstadoEventoOutbox;
+import com.biblioteca.model.EventoOutbox;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+public interface EventoOutboxRepository extends JpaRepository<EventoOutbox, Long> {
+
+        @Query("SELECT e.idEvento FROM EventoOutbox e WHERE e.estado = :estado ORDER BY e.idEvento")
+        List<Long> findIdsByEstado(@Param("estado") EstadoEventoOutbox estado, Pageable pageable);
+
+        // Bloqueo en dos pasos (ids paginados, luego FOR UPDATE sin paginar) porque
+        // Oracle no admite FOR UPDATE junto a FETCH FIRST. Con SKIP LOCKED (timeout -2)
+        // varias réplicas del backend reparten el outbox sin esperarse entre sí.
+        @Lock(LockModeType.PESSIMISTIC_WRITE)
+        @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+        @Query("SELECT e FROM EventoOutbox e WHERE e.idEvento IN :ids AND e.estado = :estado ORDER BY e.idEvento")
+        List<EventoOutbox> lockByIdsAndEstado(@Param("ids") Collection<Long> ids,
+                        @Param("estado") EstadoEventoOutbox estado);
+
+        @Modifying
+        @Query("DELETE FROM EventoOutbox e WHERE e.estado = :estado AND e.fechaProcesado < :limite")
+        int deleteByEstadoAndFechaProcesadoBefore(@Param("estado") EstadoEventoOutbox estado,
+                        @Param("limite") Date limite);
+
+        long countByEstado(EstadoEventoOutbox estado);
+}
@@ -0,0 +1,7 @@
+package com.biblioteca.repository;
+
+/**
+ * Libro que un socio ha tenido prestado alguna vez.
+ */
+public record LecturaSocio(Long idSocio, Long idLibro) {
+}
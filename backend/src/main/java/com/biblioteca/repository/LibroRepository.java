@@ -16,22 +16,33 @@ public interface LibroRepository extends JpaRepository<Libro, Long> {
         // Paginated methods
         Page<Libro> findByCategoria(String categoria, Pageable pageable);
 
-        Page<Libro> findByTituloContainingIgnoreCaseOrAutorContainingIgnoreCase(
-                        String titulo, String autor, Pageable pageable);
-
-        // Filtered by ID exclusion (for 'excludeRead' feature)
-        Page<Libro> findByIdLibroNotIn(List<Long> ids, Pageable pageable);
-
-        List<Libro> findByIdLibroNotIn(List<Long> ids);
-
-        Page<Libro> findByCategoriaAndIdLibroNotIn(String categoria, List<Long> ids, Pageable pageable);
-
-        List<Libro> findByCategoriaAndIdLibroNotIn(String categoria, List<Long> ids);
-
-        @org.springframework.data.jpa.repository.Query("SELECT l FROM Libro l WHERE (LOWER(l.titulo) LIKE LOWER(CONCAT('%', :search, '%')) OR LOWER(l.autor) LIKE LOWER(CONCAT('%', :search, '%'))) AND l.idLibro NOT IN :ids")
-        Page<Libro> findBySearchAndIdLibroNotIn(
-                        @org.springframework.data.repository.query.Param("search") String search,
-                        @org.springframework.data.repository.query.Param("ids") List<Long> ids, Pageable pageable);
+        // Mantenimiento del contador desnormalizado LIBRO.DISPONIBLES.
+        // El recálculo es idempotente: coincide con el resultado del trigger
+        // TRG_EJEMPLAR_DISPONIBLES aunque ambos se apliquen en la misma transacción.
+
+        // Bloquea las filas antes del recálculo: el UPDATE posterior, ya con el bloqueo
+        // concedido, ve lo que confirmaron las transacciones por las que tuvo que esperar
+        @org.springframework.data.jpa.repository.Lock(jakarta.persistence.LockModeType.PESSIMISTIC_WRITE)
+        @org.springframework.data.jpa.repository.Query("SELECT l FROM Libro l WHERE l.idLibro IN :idsLibro ORDER BY l.idLibro")
+        List<Libro> bloquearParaRecuento(@org.springframework.data.repository.query.Param("idsLibro") java.util.Collection<Long> idsLibro);
+
+        @org.springframework.data.jpa.repository.Modifying
+        @org.springframework.data.jpa.repository.Query("UPDATE Libro l SET l.disponibles = (SELECT COUNT(e) FROM Ejemplar e WHERE e.libro.idLibro = l.idLibro AND e.estado = com.biblioteca.model.EstadoEjemplar.DISPONIBLE) WHERE l.idLibro IN :idsLibro")
+        int recalcularDisponiblesDe(@org.springframework.data.repository.query.Param("idsLibro") java.util.Collection<Long> idsLibro);
+
+        @org.springframework.data.jpa.repository.Modifying
+        @org.springframework.data.jpa.repository.Query("UPDATE Libro l SET l.disponibles = (SELECT COUNT(e) FROM Ejemplar e WHERE e.libro.idLibro = l.idLibro AND e.estado = com.biblioteca.model.EstadoEjemplar.DISPONIBLE)")
+        int recalcularTodosLosDisponibles();
+
+        @org.springframework.data.jpa.repository.Query("SELECT l.disponibles FROM Libro l WHERE l.idLibro = :idLibro")
+        java.util.Optional<Long> findDisponiblesByIdLibro(@org.springframework.data.repository.query.Param("idLibro") Long idLibro);
+
+        // Exportación del catálogo completo con cursor, sin cargarlo en memoria
+        @org.springframework.data.jpa.repository.Query("SELECT l FROM Libro l ORDER BY l.idLibro")
+        @org.springframework.data.jpa.repository.QueryHints({
+                        @jakarta.persistence.QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE, value = "500"),
+                        @jakarta.persistence.QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_READ_ONLY, value = "true") })
+        java.util.stream.Stream<Libro> streamAll();
 
         // SEGURIDAD: Prevención de DoS por carga masiva en memoria.
         // Usar muestreo nativo de Oracle en lugar de cargar todo y mezclar en Java.
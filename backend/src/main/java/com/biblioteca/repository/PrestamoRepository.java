@@ -2,18 +2,34 @@ package com.biblioteca.repository;
 
 import com.biblioteca.model.EstadoPrestamo;
 import com.biblioteca.model.Prestamo;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface PrestamoRepository extends JpaRepository<Prestamo, Long> {
     List<Prestamo> findBySocioIdSocio(Long idSocio);
 
     Long countBySocioIdSocioAndEstado(Long idSocio, EstadoPrestamo estado);
 
-    // Optimized validation queries
-    boolean existsBySocioIdSocioAndEjemplarLibroIdLibroAndEstado(Long idSocio, Long idLibro, EstadoPrestamo estado);
+    long countByEstado(EstadoPrestamo estado);
+
+    // Validación de un préstamo en un único viaje: socio, límite de lecturas y duplicado de libro
+    @Query("SELECT new com.biblioteca.repository.ValidacionPrestamo(s, "
+            + "(SELECT COUNT(p) FROM Prestamo p WHERE p.socio = s AND p.estado = com.biblioteca.model.EstadoPrestamo.ACTIVO), "
+            + "(SELECT COUNT(b) FROM Bloqueo b WHERE b.socio = s AND b.estado = com.biblioteca.model.EstadoBloqueo.ACTIVO AND b.fechaFin > :ahora), "
+            + "(SELECT COUNT(p2) FROM Prestamo p2 WHERE p2.socio = s AND p2.estado = com.biblioteca.model.EstadoPrestamo.ACTIVO "
+            + "AND p2.ejemplar.libro.idLibro = (SELECT e.libro.idLibro FROM Ejemplar e WHERE e.idEjemplar = :idEjemplar))) "
+            + "FROM Socio s WHERE s.idSocio = :idSocio")
+    java.util.Optional<ValidacionPrestamo> findValidacionPrestamo(@Param("idSocio") Long idSocio,
+            @Param("idEjemplar") Long idEjemplar, @Param("ahora") java.util.Date ahora);
 
     // Optimized query with JOIN FETCH to avoid N+1 problem
     @Query("SELECT p FROM Prestamo p JOIN FETCH p.ejemplar e JOIN FETCH e.libro JOIN FETCH p.socio WHERE p.socio.idSocio = :idSocio")
@@ -28,9 +44,54 @@ public interface PrestamoRepository extends JpaRepository<Prestamo, Long> {
     @Query("SELECT p FROM Prestamo p JOIN FETCH p.ejemplar e JOIN FETCH e.libro JOIN FETCH p.socio")
     List<Prestamo> findAllWithDetails();
 
-    @Query("SELECT DISTINCT p.ejemplar.libro.idLibro FROM Prestamo p WHERE p.socio.idSocio = :idSocio")
-    List<Long> findIdsLibrosLeidosBySocio(@Param("idSocio") Long idSocio);
+    // Listado de administración en dos fases: aquí se pagina y ordena sobre los ids,
+    // sin JOIN FETCH, y después findAllByIdWithDetails carga solo los de la página
+    @Query(value = "SELECT p.idPrestamo FROM Prestamo p WHERE (:estado IS NULL OR p.estado = :estado) "
+            + "AND (:idSocio IS NULL OR p.socio.idSocio = :idSocio) "
+            + "AND (:idLibro IS NULL OR p.ejemplar.libro.idLibro = :idLibro) "
+            + "AND (:desde IS NULL OR p.fechaPrestamo >= :desde) AND (:hasta IS NULL OR p.fechaPrestamo < :hasta) "
+            + "AND (:vencidosAntes IS NULL OR (p.estado = com.biblioteca.model.EstadoPrestamo.ACTIVO "
+            + "AND p.fechaPrevistaDevolucion < :vencidosAntes))",
+            countQuery = "SELECT COUNT(p) FROM Prestamo p WHERE (:estado IS NULL OR p.estado = :estado) "
+            + "AND (:idSocio IS NULL OR p.socio.idSocio = :idSocio) "
+            + "AND (:idLibro IS NULL OR p.ejemplar.libro.idLibro = :idLibro) "
+            + "AND (:desde IS NULL OR p.fechaPrestamo >= :desde) AND (:hasta IS NULL OR p.fechaPrestamo < :hasta) "
+            + "AND (:vencidosAntes IS NULL OR (p.estado = com.biblioteca.model.EstadoPrestamo.ACTIVO "
+            + "AND p.fechaPrevistaDevolucion < :vencidosAntes))")
+    Page<Long> findIdsFiltrados(@Param("estado") EstadoPrestamo estado, @Param("idSocio") Long idSocio,
+            @Param("idLibro") Long idLibro, @Param("desde") java.util.Date desde, @Param("hasta") java.util.Date hasta,
+            @Param("vencidosAntes") java.util.Date vencidosAntes, Pageable pageable);
+
+    // Exportación: se recorre con un cursor y sin guardar snapshots de las entidades
+    @Query("SELECT p FROM Prestamo p JOIN FETCH p.ejemplar e JOIN FETCH e.libro JOIN FETCH p.socio "
+            + "WHERE :estado IS NULL OR p.estado = :estado ORDER BY p.idPrestamo")
+    @QueryHints({ @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+    Stream<Prestamo> streamAllWithDetails(@Param("estado") EstadoPrestamo estado);
+
+    // Historial completo (socio, libro) sin repetir, agrupado por socio, para el motor de recomendaciones
+    @Query("SELECT DISTINCT new com.biblioteca.repository.LecturaSocio(s.idSocio, l.idLibro) "
+            + "FROM Prestamo p JOIN p.socio s JOIN p.ejemplar e JOIN e.libro l ORDER BY s.idSocio")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<LecturaSocio> streamLecturas();
+
+    @Query("SELECT DISTINCT p.ejemplar.libro.idLibro FROM Prestamo p WHERE p.socio.usuario = :usuario")
+    List<Long> findIdsLibrosLeidosByUsuario(@Param("usuario") String usuario);
+
+    // Recorre IDX_PRESTAMO_ESTADO_VENCIMIENTO: solo los activos, ya en orden de vencimiento
+    @Query("SELECT new com.biblioteca.repository.VencimientoPrestamo(p.idPrestamo, s.usuario, l.titulo, p.fechaPrevistaDevolucion) "
+            + "FROM Prestamo p JOIN p.socio s JOIN p.ejemplar e JOIN e.libro l "
+            + "WHERE p.estado = com.biblioteca.model.EstadoPrestamo.ACTIVO ORDER BY p.fechaPrevistaDevolucion, p.idPrestamo")
+    List<VencimientoPrestamo> findVencimientosActivos();
 
     @Query("SELECT p FROM Prestamo p JOIN FETCH p.ejemplar e JOIN FETCH e.libro JOIN FETCH p.socio WHERE p.idPrestamo = :id")
     java.util.Optional<Prestamo> findByIdWithDetails(@Param("id") Long id);
+
+    @Query("SELECT p FROM Prestamo p JOIN FETCH p.ejemplar e JOIN FETCH e.libro JOIN FETCH p.socio WHERE p.idPrestamo IN :ids")
+    List<Prestamo> findAllByIdWithDetails(@Param("ids") Collection<Long> ids);
+
+    // Préstamos activos de varios socios a la vez, para validar un lote sin una consulta por fila
+    @Query("SELECT p FROM Prestamo p JOIN FETCH p.ejemplar e JOIN FETCH e.libro JOIN FETCH p.socio "
+            + "WHERE p.socio.idSocio IN :idsSocio AND p.estado = com.biblioteca.model.EstadoPrestamo.ACTIVO")
+    List<Prestamo> findActivosBySocios(@Param("idsSocio") Collection<Long> idsSocio);
 }
@@ -0,0 +1,15 @@
+package com.biblioteca.repository;
+
+import com.biblioteca.model.Socio;
+
+/**
+ * Socio y recuentos necesarios para validar un préstamo, obtenidos en una sola
+ * consulta ({@link PrestamoRepository#findValidacionPrestamo}).
+ *
+ * @param prestamosActivos    préstamos ACTIVO del socio
+ * @param bloqueosActivos     reservas ACTIVO y no caducadas del socio
+ * @param prestamosMismoLibro préstamos ACTIVO del socio sobre el libro del ejemplar
+ */
+public record ValidacionPrestamo(Socio socio, Long prestamosActivos, Long bloqueosActivos,
+        Long prestamosMismoLibro) {
+}
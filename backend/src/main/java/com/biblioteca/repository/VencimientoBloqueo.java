@@ -0,0 +1,10 @@
+package com.biblioteca.repository;
+
+import java.util.Date;
+
+/**
+ * Fecha de fin de una reserva activa con lo necesario para liberar su
+ * ejemplar sin volver a leer el bloqueo.
+ */
+public record VencimientoBloqueo(Long idBloqueo, Long idEjemplar, Long idLibro, Date fechaFin) {
+}
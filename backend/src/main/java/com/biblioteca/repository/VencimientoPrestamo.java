@@ -0,0 +1,24 @@
+package com.biblioteca.repository;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+
+/**
+ * Fecha prevista de devolución de un préstamo activo, con el socio y el libro
+ * para listarlo y avisar sin volver a leer el préstamo.
+ */
+public record VencimientoPrestamo(Long idPrestamo, String usuario, String tituloLibro, LocalDate fechaPrevista) {
+
+    public VencimientoPrestamo(Long idPrestamo, String usuario, String tituloLibro, Date fechaPrevista) {
+        // java.sql.Date no admite toInstant(); se pasa por los milisegundos
+        this(idPrestamo, usuario, tituloLibro,
+                Instant.ofEpochMilli(fechaPrevista.getTime()).atZone(ZoneId.systemDefault()).toLocalDate());
+    }
+
+    /** Vencido si la fecha prevista es anterior al día indicado. */
+    public boolean vencidoEn(LocalDate dia) {
+        return fechaPrevista.isBefore(dia);
+    }
+}
@@ -0,0 +1,28 @@
+package com.biblioteca.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Resultado de verificar un JWT: usuario, roles y expiración. Es inmutable y se
+ * reutiliza entre peticiones con el mismo token (ver {@link JwtTokenProvider}).
+ */
+public record AuthenticatedToken(UserDetails principal, List<GrantedAuthority> authorities, Instant expiration) {
+
+    public AuthenticatedToken(String username, List<GrantedAuthority> authorities, Instant expiration) {
+        // Stateless: el UserDetails se reconstruye desde los claims, sin consultar la BD
+        this(new User(username, "", authorities), List.copyOf(authorities), expiration);
+    }
+
+    public String username() {
+        return principal.getUsername();
+    }
+
+    public boolean isExpired(Instant now) {
+        return !expiration.isAfter(now);
+    }
+}
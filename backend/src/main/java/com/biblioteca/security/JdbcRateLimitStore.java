@@ -0,0 +1,112 @@
+package com.biblioteca.security;
+
+import com.biblioteca.config.RateLimitProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link RateLimitStore} shared by every backend replica through the
+ * RATE_LIMIT_CONTADOR table of the primary database.
+ * <p>
+ * Each row holds the count of one key in one fixed window; the sliding estimate
+ * is computed from the current and previous rows exactly as
+ * {@link SlidingWindowCounter} does in memory. The request is counted first
+ * (conditional UPDATE, INSERT for the first request of the window) and undone
+ * if the estimate goes over the limit, so concurrent replicas never let more
+ * requests through than the limit. Every statement runs in auto-commit outside
+ * any transaction, which the routing DataSource always sends to the primary.
+ * <p>
+ * Each request costs two to four statements (increment, insert for the first
+ * request of a window, read, undo when rejected), all against the primary, so
+ * this store is only worth it when replicas must share their counts.
+ * <p>
+ * If the database fails the request is let through: the limiter must not take
+ * the API down with it.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.rate-limit", name = "store", havingValue = "jdbc")
+public class JdbcRateLimitStore implements RateLimitStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(JdbcRateLimitStore.class);
+
+    private static final String INCREMENT = "UPDATE RATE_LIMIT_CONTADOR SET CUENTA = CUENTA + 1 WHERE CLAVE = ? AND VENTANA = ?";
+    private static final String INSERT = "INSERT INTO RATE_LIMIT_CONTADOR (CLAVE, VENTANA, CUENTA) VALUES (?, ?, 1)";
+    private static final String UNDO = "UPDATE RATE_LIMIT_CONTADOR SET CUENTA = CUENTA - 1 WHERE CLAVE = ? AND VENTANA = ?";
+    private static final String READ = "SELECT VENTANA, CUENTA FROM RATE_LIMIT_CONTADOR WHERE CLAVE = ? AND VENTANA IN (?, ?)";
+    private static final String PURGE = "DELETE FROM RATE_LIMIT_CONTADOR WHERE VENTANA < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long windowMs;
+
+    public JdbcRateLimitStore(JdbcTemplate jdbcTemplate, RateLimitProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.windowMs = properties.getWindow().toMillis();
+    }
+
+    @Override
+    public Decision tryAcquire(String key, int limit, long nowMs) {
+        long index = nowMs / windowMs;
+        long elapsedMs = nowMs % windowMs;
+        long resetMs = windowMs - elapsedMs;
+        try {
+            increment(key, index);
+            long[] counts = readCounts(key, index);
+            long previousCount = counts[0];
+            long currentCount = counts[1];
+
+            // currentCount already includes this request
+            long estimated = (long) (previousCount * (1.0 - (double) elapsedMs / windowMs)) + currentCount;
+            if (estimated > limit) {
+                jdbcTemplate.update(UNDO, key, index);
+                return new Decision(false, 0, resetMs, SlidingWindowCounter.retryAfterMs(limit, windowMs,
+                        elapsedMs, previousCount, currentCount - 1));
+            }
+            return new Decision(true, (int) (limit - estimated), resetMs, 0);
+        } catch (DataAccessException e) {
+            logger.warn("Rate limit store unavailable, request allowed: {}", e.getMessage());
+            return new Decision(true, limit, resetMs, 0);
+        }
+    }
+
+    /**
+     * Deletes counters of windows that no longer take part in any estimate.
+     */
+    @Scheduled(fixedDelay = 60_000, initialDelay = 60_000)
+    public void purge() {
+        try {
+            int deleted = jdbcTemplate.update(PURGE, System.currentTimeMillis() / windowMs - 1);
+            logger.debug("Purged {} expired rate-limit counters", deleted);
+        } catch (DataAccessException e) {
+            logger.warn("Could not purge rate-limit counters: {}", e.getMessage());
+        }
+    }
+
+    private void increment(String key, long index) {
+        if (jdbcTemplate.update(INCREMENT, key, index) > 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.update(INSERT, key, index);
+        } catch (DuplicateKeyException e) {
+            // Another replica inserted this window's row at the same time
+            jdbcTemplate.update(INCREMENT, key, index);
+        }
+    }
+
+    /**
+     * @return counts of the previous and current windows, 0 when there is no row
+     */
+    private long[] readCounts(String key, long index) {
+        long[] counts = new long[2];
+        jdbcTemplate.query(READ, rs -> {
+            counts[rs.getLong(1) == index ? 1 : 0] = rs.getLong(2);
+        }, key, index - 1, index);
+        return counts;
+    }
+}
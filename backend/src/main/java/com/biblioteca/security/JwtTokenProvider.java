@@ -2,6 +2,9 @@ package com.biblioteca.security;
 
 import io.jsonwebtoken.*;
 import com.biblioteca.config.JwtProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.security.Keys;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,10 +14,17 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
-import java.security.Key;
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.Date;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Component
@@ -27,12 +37,22 @@ public class JwtTokenProvider {
     // Key to store authorities in the JWT claims
     private static final String AUTHORITIES_KEY = "roles";
 
+    // Key and parser are immutable and thread-safe: build them once
+    private final SecretKey key;
+    private final JwtParser parser;
+
+    // Recently verified tokens, keyed by SHA-256 of the token (never the raw token).
+    // Each entry expires together with its token.
+    private final Cache<String, AuthenticatedToken> verifiedTokens;
+
     public JwtTokenProvider(JwtProperties jwtProperties) {
         this.jwtProperties = jwtProperties;
-    }
-
-    private Key key() {
-        return Keys.hmacShaKeyFor(jwtProperties.getSecret().getBytes());
+        this.key = Keys.hmacShaKeyFor(jwtProperties.getSecret().getBytes());
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(jwtProperties.getCacheMaxEntries())
+                .expireAfter(new UntilTokenExpiry())
+                .build();
     }
 
     public String generateToken(Authentication authentication) {
@@ -48,47 +68,102 @@ public class JwtTokenProvider {
                 .claim(AUTHORITIES_KEY, authorities) // Embed roles
                 .setIssuedAt(new Date())
                 .setExpiration(new Date((new Date()).getTime() + jwtProperties.getExpirationMs()))
-                .signWith(key(), SignatureAlgorithm.HS512)
+                .signWith(key, SignatureAlgorithm.HS512)
                 .compact();
     }
 
-    public String getUserNameFromJwtToken(String token) {
-        return Jwts.parserBuilder().setSigningKey(key()).build()
-                .parseClaimsJws(token).getBody().getSubject();
-    }
-
     /**
-     * Extracts authorities from the JWT token.
-     * This enables stateless authentication without hitting the database.
+     * Parses and verifies the token once and returns the authenticated principal.
+     * A token already verified and not yet expired is served from the cache
+     * without checking the signature again.
+     *
+     * @return the principal, or empty if the token is invalid or expired
      */
-    public Collection<? extends GrantedAuthority> getAuthoritiesFromJwtToken(String token) {
-        Claims claims = Jwts.parserBuilder().setSigningKey(key()).build()
-                .parseClaimsJws(token).getBody();
-
-        String authoritiesString = claims.get(AUTHORITIES_KEY, String.class);
-
-        if (authoritiesString == null || authoritiesString.isEmpty()) {
-            return Arrays.asList();
+    public Optional<AuthenticatedToken> authenticate(String token) {
+        if (token == null || token.isEmpty()) {
+            return Optional.empty();
+        }
+        String cacheKey = sha256(token);
+        AuthenticatedToken cached = verifiedTokens.getIfPresent(cacheKey);
+        if (cached != null) {
+            if (!cached.isExpired(Instant.now())) {
+                return Optional.of(cached);
+            }
+            verifiedTokens.invalidate(cacheKey);
         }
 
-        return Arrays.stream(authoritiesString.split(","))
-                .map(SimpleGrantedAuthority::new)
-                .collect(Collectors.toList());
+        Optional<AuthenticatedToken> verified = verify(token);
+        verified.ifPresent(principal -> verifiedTokens.put(cacheKey, principal));
+        return verified;
     }
 
-    public boolean validateJwtToken(String authToken) {
+    // ----- PRIVATE METHODS -----
+
+    private Optional<AuthenticatedToken> verify(String token) {
         try {
-            Jwts.parserBuilder().setSigningKey(key()).build().parseClaimsJws(authToken);
-            return true;
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            if (claims.getExpiration() == null) {
+                logger.warn("JWT token without expiration rejected");
+                return Optional.empty();
+            }
+            return Optional.of(new AuthenticatedToken(claims.getSubject(), parseAuthorities(claims),
+                    claims.getExpiration().toInstant()));
         } catch (MalformedJwtException e) {
             logger.warn("Invalid JWT token: {}", e.getMessage());
         } catch (ExpiredJwtException e) {
             logger.warn("JWT token is expired: {}", e.getMessage());
         } catch (UnsupportedJwtException e) {
             logger.warn("JWT token is unsupported: {}", e.getMessage());
+        } catch (JwtException e) {
+            logger.warn("JWT signature verification failed: {}", e.getMessage());
         } catch (IllegalArgumentException e) {
             logger.warn("JWT claims string is empty: {}", e.getMessage());
         }
-        return false;
+        return Optional.empty();
+    }
+
+    private List<GrantedAuthority> parseAuthorities(Claims claims) {
+        String authoritiesString = claims.get(AUTHORITIES_KEY, String.class);
+
+        if (authoritiesString == null || authoritiesString.isEmpty()) {
+            return List.of();
+        }
+
+        return Arrays.stream(authoritiesString.split(","))
+                .map(SimpleGrantedAuthority::new)
+                .collect(Collectors.toList());
+    }
+
+    private static String sha256(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is mandatory on every Java platform
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Cache entries live exactly as long as the token they represent.
+     */
+    private static final class UntilTokenExpiry implements Expiry<String, AuthenticatedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, AuthenticatedToken value, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), value.expiration()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, AuthenticatedToken value, long currentTime,
+                long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, AuthenticatedToken value, long currentTime,
+                long currentDuration) {
+            return currentDuration;
+        }
     }
 }
@@ -0,0 +1,41 @@
+package com.biblioteca.security;
+
+import com.biblioteca.config.RateLimitProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory {@link RateLimitStore} for a single backend instance.
+ * <p>
+ * Counters live in a Caffeine cache bounded by {@code app.rate-limit.max-entries}
+ * and expire after two idle windows, when they no longer affect the estimate.
+ * Lookups of existing counters do not lock, and the counters themselves are
+ * updated with CAS.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.rate-limit", name = "store", havingValue = "local", matchIfMissing = true)
+public class LocalRateLimitStore implements RateLimitStore {
+
+    private final Cache<String, SlidingWindowCounter> counters;
+    private final long windowMs;
+
+    public LocalRateLimitStore(RateLimitProperties properties) {
+        this.windowMs = properties.getWindow().toMillis();
+        this.counters = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxEntries())
+                .expireAfterAccess(properties.getWindow().multipliedBy(2))
+                .build();
+    }
+
+    @Override
+    public Decision tryAcquire(String key, int limit, long nowMs) {
+        return counters.get(key, k -> new SlidingWindowCounter()).tryAcquire(limit, windowMs, nowMs);
+    }
+
+    long estimatedSize() {
+        counters.cleanUp();
+        return counters.estimatedSize();
+    }
+}
@@ -0,0 +1,31 @@
+package com.biblioteca.security;
+
+/**
+ * Storage for rate-limit counters. The window length is
+ * {@code app.rate-limit.window}, read by each implementation, so counting and
+ * expiring counters always use the same one.
+ * <p>
+ * {@link LocalRateLimitStore} keeps the counters in this JVM. When several
+ * backend replicas run behind nginx, {@code app.rate-limit.store=jdbc} selects
+ * {@link JdbcRateLimitStore} instead, so every replica sees the same counts.
+ */
+public interface RateLimitStore {
+
+    /**
+     * Counts one request against {@code key} if it fits in the sliding window.
+     *
+     * @param key   client + rule identifier
+     * @param limit requests allowed per window
+     * @param nowMs current time in epoch milliseconds
+     */
+    Decision tryAcquire(String key, int limit, long nowMs);
+
+    /**
+     * @param remaining    requests still allowed in the current window
+     * @param resetMs      milliseconds until the current window rolls over
+     * @param retryAfterMs when rejected, milliseconds until a request would fit
+     *                     again; 0 when allowed
+     */
+    record Decision(boolean allowed, int remaining, long resetMs, long retryAfterMs) {
+    }
+}
@@ -1,5 +1,6 @@
 package com.biblioteca.security;
 
+import com.biblioteca.config.RateLimitProperties;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -12,31 +13,33 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Filtro de Rate Limiting para proteger la API contra abuso.
- * Implementación simple usando sliding window con ConcurrentHashMap.
+ * Ventana deslizante por IP y regla de ruta; los contadores viven en un
+ * {@link RateLimitStore} acotado en memoria.
  * 
- * Límites:
+ * Límites (configurables en app.rate-limit):
  * - Endpoints de login: 10 requests/minuto por IP (protección brute-force)
  * - Otros endpoints: 100 requests/minuto por IP
+ * 
+ * Todas las respuestas limitadas llevan X-RateLimit-Limit, X-RateLimit-Remaining
+ * y X-RateLimit-Reset; las rechazadas, además, Retry-After.
  */
 @Component
 public class RateLimitingFilter extends OncePerRequestFilter {
 
     private static final Logger logger = LoggerFactory.getLogger(RateLimitingFilter.class);
 
-    // Configuración de límites
-    private static final int GENERAL_LIMIT = 100;
-    private static final int LOGIN_LIMIT = 10;
-    private static final long WINDOW_MS = 60_000; // 1 minuto
+    private static final String DEFAULT_RULE = "*";
+
+    private final RateLimitProperties properties;
+    private final RateLimitStore store;
 
-    // Caché de contadores por IP
-    private final Map<String, RateLimitEntry> generalLimits = new ConcurrentHashMap<>();
-    private final Map<String, RateLimitEntry> loginLimits = new ConcurrentHashMap<>();
+    public RateLimitingFilter(RateLimitProperties properties, RateLimitStore store) {
+        this.properties = properties;
+        this.store = store;
+    }
 
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request,
@@ -47,18 +50,28 @@ public class RateLimitingFilter extends OncePerRequestFilter {
         String path = request.getRequestURI();
 
         // Determinar límites según el endpoint
-        boolean allowed;
-        if (path.contains("/api/auth/login")) {
-            allowed = checkRateLimit(loginLimits, clientIP, LOGIN_LIMIT);
-        } else {
-            allowed = checkRateLimit(generalLimits, clientIP, GENERAL_LIMIT);
+        String rule = DEFAULT_RULE;
+        int limit = properties.getDefaultLimit();
+        for (RateLimitProperties.Rule candidate : properties.getRules()) {
+            if (path.startsWith(candidate.getPath())) {
+                rule = candidate.getPath();
+                limit = candidate.getLimit();
+                break;
+            }
         }
 
-        if (allowed) {
+        RateLimitStore.Decision decision = checkRateLimit(rule + '|' + clientIP, limit);
+
+        response.setHeader("X-RateLimit-Limit", Integer.toString(limit));
+        response.setHeader("X-RateLimit-Remaining", Integer.toString(decision.remaining()));
+        response.setHeader("X-RateLimit-Reset", Long.toString(toSeconds(decision.resetMs())));
+
+        if (decision.allowed()) {
             filterChain.doFilter(request, response);
         } else {
             logger.warn("Rate limit exceeded for IP: {} on path: {}", clientIP, path);
 
+            response.setHeader("Retry-After", Long.toString(toSeconds(decision.retryAfterMs())));
             response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
             response.setContentType("application/json");
             response.setCharacterEncoding("UTF-8");
@@ -73,24 +86,11 @@ public class RateLimitingFilter extends OncePerRequestFilter {
     }
 
     /**
-     * Verifica si el request está dentro del límite.
-     * Implementa sliding window logging algorithm.
+     * Cuenta la petición en la ventana deslizante de {@code key}.
+     * Visibilidad de paquete para el benchmark JMH (src/jmh).
      */
-    private boolean checkRateLimit(Map<String, RateLimitEntry> limits, String key, int maxRequests) {
-        long now = System.currentTimeMillis();
-
-        RateLimitEntry entry = limits.compute(key, (k, existing) -> {
-            if (existing == null || now - existing.windowStart > WINDOW_MS) {
-                // Nueva ventana
-                return new RateLimitEntry(now, 1);
-            } else {
-                // Misma ventana, incrementar contador
-                existing.count.incrementAndGet();
-                return existing;
-            }
-        });
-
-        return entry.count.get() <= maxRequests;
+    RateLimitStore.Decision checkRateLimit(String key, int maxRequests) {
+        return store.tryAcquire(key, maxRequests, System.currentTimeMillis());
     }
 
     /**
@@ -101,7 +101,8 @@ public class RateLimitingFilter extends OncePerRequestFilter {
     private String getClientIP(HttpServletRequest request) {
         String xForwardedFor = request.getHeader("X-Forwarded-For");
         if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
-            String candidateIp = xForwardedFor.split(",")[0].trim();
+            int coma = xForwardedFor.indexOf(',');
+            String candidateIp = (coma < 0 ? xForwardedFor : xForwardedFor.substring(0, coma)).trim();
             // SEGURIDAD: Validar que parece una IP real (IPv4 o IPv6 básico)
             if (isValidIpFormat(candidateIp)) {
                 return candidateIp;
@@ -115,36 +116,66 @@ public class RateLimitingFilter extends OncePerRequestFilter {
     /**
      * Valida que un string tiene formato de IP válida (IPv4 o IPv6).
      * No valida que la IP exista, solo que el formato es correcto.
+     * Recorre los caracteres una sola vez en lugar de aplicar expresiones regulares.
      */
-    private boolean isValidIpFormat(String ip) {
+    static boolean isValidIpFormat(String ip) {
         if (ip == null || ip.isEmpty()) {
             return false;
         }
-        // IPv4: 4 grupos de 1-3 dígitos separados por puntos
-        if (ip.matches("^([0-9]{1,3}\\.){3}[0-9]{1,3}$")) {
-            // Validar rangos 0-255
-            String[] parts = ip.split("\\.");
-            for (String part : parts) {
-                int value = Integer.parseInt(part);
-                if (value < 0 || value > 255) {
+        if (ip.indexOf(':') >= 0) {
+            // IPv6: Formato simplificado (contiene solo hex y colons)
+            for (int i = 0; i < ip.length(); i++) {
+                char c = ip.charAt(i);
+                if (c != ':' && Character.digit(c, 16) < 0) {
                     return false;
                 }
             }
             return true;
         }
-        // IPv6: Formato simplificado (contiene solo hex y colons)
-        if (ip.matches("^[0-9a-fA-F:]+$") && ip.contains(":")) {
+        if (isValidIpv4(ip)) {
             return true;
         }
         // Localhost especial
         return "localhost".equalsIgnoreCase(ip);
     }
 
+    /**
+     * IPv4: 4 grupos de 1-3 dígitos separados por puntos, cada uno en el rango 0-255.
+     */
+    private static boolean isValidIpv4(String ip) {
+        int groups = 0;
+        int digits = 0;
+        int value = 0;
+        for (int i = 0; i < ip.length(); i++) {
+            char c = ip.charAt(i);
+            if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                if (++digits > 3 || value > 255) {
+                    return false;
+                }
+            } else if (c == '.' && digits > 0 && groups < 3) {
+                groups++;
+                digits = 0;
+                value = 0;
+            } else {
+                return false;
+            }
+        }
+        return groups == 3 && digits > 0;
+    }
+
+    private static long toSeconds(long millis) {
+        return (millis + 999) / 1000;
+    }
+
     /**
      * No aplicar rate limiting a recursos estáticos y documentación
      */
     @Override
     protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        if (!properties.isEnabled()) {
+            return true;
+        }
         String path = request.getRequestURI();
         return path.startsWith("/swagger-ui") ||
                 path.startsWith("/v3/api-docs") ||
@@ -152,17 +183,4 @@ public class RateLimitingFilter extends OncePerRequestFilter {
                 path.endsWith(".js") ||
                 path.endsWith(".html");
     }
-
-    /**
-     * Estructura interna para tracking de rate limits
-     */
-    private static class RateLimitEntry {
-        final long windowStart;
-        final AtomicInteger count;
-
-        RateLimitEntry(long windowStart, int initialCount) {
-            this.windowStart = windowStart;
-            this.count = new AtomicInteger(initialCount);
-        }
-    }
 }
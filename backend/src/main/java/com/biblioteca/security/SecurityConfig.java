@@ -1,10 +1,15 @@
 package com.biblioteca.security;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.authorization.AuthorityAuthorizationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.AuthorizationManagers;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -12,12 +17,17 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
 import org.springframework.security.config.Customizer;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.http.HttpMethod;
+import jakarta.servlet.DispatcherType;
+
+import java.util.List;
 
 @Configuration
 @EnableWebSecurity
@@ -35,6 +45,10 @@ public class SecurityConfig {
     @Autowired
     private SecurityAuditLogFilter securityAuditLogFilter;
 
+    // Networks allowed to scrape /actuator/prometheus without a token
+    @Value("${app.metricas.prometheus.redes-permitidas:127.0.0.1/32,::1/128}")
+    private List<String> redesPrometheus;
+
     @Bean
     public DaoAuthenticationProvider authenticationProvider() {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider(userDetailsService);
@@ -57,7 +71,11 @@ public class SecurityConfig {
         http.cors(Customizer.withDefaults())
                 .csrf(csrf -> csrf.disable())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
-                .authorizeHttpRequests(auth -> auth.requestMatchers("/api/auth/**").permitAll()
+                .authorizeHttpRequests(auth -> auth
+                        // Las descargas en streaming terminan en un dispatch ASYNC: la petición
+                        // original ya se autorizó y el JWT no se vuelve a procesar
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                        .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/api/libros", "/api/libros/**").permitAll() // Catalog is public
                         // SEGURIDAD: Endpoint de usuarios para login - solo en desarrollo
                         // En producción, usar login con campo de texto
@@ -73,11 +91,13 @@ public class SecurityConfig {
                         .requestMatchers("/v3/api-docs/**").hasRole("ADMIN")
                         // SEGURIDAD: Actuator - solo health es público, resto requiere ADMIN
                         .requestMatchers("/actuator/health").permitAll()
+                        // Prometheus: scrape sin token desde las redes configuradas (por defecto, solo local)
+                        .requestMatchers("/actuator/prometheus").access(accesoPrometheus())
                         .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.GET, "/api/ejemplares/**").permitAll()
                         .requestMatchers("/api/ejemplares/**").authenticated()
                         // SEGURIDAD H-03: Lista de bloqueos activos solo para bibliotecarios
-                        .requestMatchers(HttpMethod.GET, "/api/bloqueos/activos").hasRole("BIBLIOTECARIO")
+                        .requestMatchers(HttpMethod.GET, "/api/bloqueos/activos", "/api/bloqueos/paginated").hasRole("BIBLIOTECARIO")
                         // SEGURIDAD: Endpoint de mantenimiento manual
                         .requestMatchers(HttpMethod.POST, "/api/bloqueos/cleanup").hasRole("ADMIN")
                         .requestMatchers("/api/bloqueos/**").hasAnyRole("SOCIO", "BIBLIOTECARIO")
@@ -85,6 +105,7 @@ public class SecurityConfig {
                         .requestMatchers("/api/prestamos/*/devolver").hasAnyRole("SOCIO", "BIBLIOTECARIO")
                         .requestMatchers("/api/prestamos/**").hasRole("BIBLIOTECARIO")
                         .requestMatchers("/api/recomendaciones/**").hasRole("SOCIO")
+                        .requestMatchers("/api/exportaciones/**").hasAnyRole("BIBLIOTECARIO", "ADMIN")
                         .anyRequest().authenticated());
 
         http.authenticationProvider(authenticationProvider());
@@ -125,10 +146,34 @@ public class SecurityConfig {
                 "Accept",
                 "Origin",
                 "X-Requested-With"));
+        // Cabeceras de rate limiting visibles para el frontend
+        configuration.setExposedHeaders(java.util.Arrays.asList(
+                "X-RateLimit-Limit",
+                "X-RateLimit-Remaining",
+                "X-RateLimit-Reset",
+                "Retry-After"));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L); // Cache preflight por 1 hora
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", configuration);
         return source;
     }
+
+    /**
+     * Scrapers from the configured networks, or any ADMIN. Uses the socket
+     * address, not X-Forwarded-For: requests relayed by the nginx proxy still
+     * need a token.
+     */
+    private AuthorizationManager<RequestAuthorizationContext> accesoPrometheus() {
+        List<IpAddressMatcher> redes = redesPrometheus.stream()
+                .map(String::trim)
+                .filter(red -> !red.isEmpty())
+                .map(IpAddressMatcher::new)
+                .toList();
+        AuthorizationManager<RequestAuthorizationContext> desdeRedPermitida = (autenticacion, contexto) -> {
+            String origen = contexto.getRequest().getRemoteAddr();
+            return new AuthorizationDecision(redes.stream().anyMatch(red -> red.matches(origen)));
+        };
+        return AuthorizationManagers.anyOf(desdeRedPermitida, AuthorityAuthorizationManager.hasRole("ADMIN"));
+    }
 }
@@ -0,0 +1,66 @@
+package com.biblioteca.security;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free sliding-window counter.
+ * <p>
+ * Keeps the count of the current fixed window and of the previous one and
+ * estimates the requests in the last {@code windowMs} as
+ * {@code previous * (1 - elapsedFraction) + current}. The three values are packed
+ * in a single {@code long} (window index 24 bits, previous 20 bits, current 20
+ * bits) and updated with a CAS, so no request ever blocks on another.
+ */
+final class SlidingWindowCounter {
+
+    private static final int COUNT_BITS = 20;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final long INDEX_MASK = (1L << 24) - 1;
+
+    private final AtomicLong state = new AtomicLong();
+
+    RateLimitStore.Decision tryAcquire(int limit, long windowMs, long nowMs) {
+        long index = (nowMs / windowMs) & INDEX_MASK;
+        long elapsedMs = nowMs % windowMs;
+        long resetMs = windowMs - elapsedMs;
+        double previousWeight = 1.0 - (double) elapsedMs / windowMs;
+
+        while (true) {
+            long current = state.get();
+            long currentIndex = current >>> (2 * COUNT_BITS);
+            long previousCount = (current >>> COUNT_BITS) & COUNT_MASK;
+            long currentCount = current & COUNT_MASK;
+
+            if (currentIndex != index) {
+                // The window rolled over: the old current window becomes the previous one
+                // only if it is the immediately preceding window
+                previousCount = ((currentIndex + 1) & INDEX_MASK) == index ? currentCount : 0;
+                currentCount = 0;
+            }
+
+            long estimated = (long) (previousCount * previousWeight) + currentCount;
+            if (estimated >= limit) {
+                return new RateLimitStore.Decision(false, 0, resetMs,
+                        retryAfterMs(limit, windowMs, elapsedMs, previousCount, currentCount));
+            }
+
+            long next = (index << (2 * COUNT_BITS))
+                    | (previousCount << COUNT_BITS)
+                    | Math.min(currentCount + 1, COUNT_MASK);
+            if (state.compareAndSet(current, next)) {
+                return new RateLimitStore.Decision(true, (int) (limit - estimated - 1), resetMs, 0);
+            }
+        }
+    }
+
+    static long retryAfterMs(int limit, long windowMs, long elapsedMs, long previousCount,
+            long currentCount) {
+        if (currentCount >= limit || previousCount == 0) {
+            // Only the next window can make room
+            return windowMs - elapsedMs;
+        }
+        // Point of the window where the weight of the previous window has dropped enough
+        double fraction = 1.0 - (double) (limit - currentCount) / previousCount;
+        return Math.max(1, (long) Math.ceil(fraction * windowMs) - elapsedMs + 1);
+    }
+}
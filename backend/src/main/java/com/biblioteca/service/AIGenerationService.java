@@ -1,125 +1,187 @@
 
 package com.biblioteca.service;
 
+import com.biblioteca.config.AiServiceProperties;
+import com.biblioteca.dto.LibroDTO;
 import com.biblioteca.dto.RecomendacionDTO;
 import com.biblioteca.model.Libro;
 import com.biblioteca.model.Prestamo;
 import com.biblioteca.model.Socio;
-import com.biblioteca.repository.LibroRepository;
 import com.biblioteca.repository.PrestamoRepository;
 import com.biblioteca.repository.SocioRepository;
+import com.biblioteca.service.CatalogoEnMemoria.FiltroLectura;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.util.*;
-import com.biblioteca.config.AiServiceProperties;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
+/**
+ * Cliente del servicio de IA de recomendaciones.
+ * <p>
+ * La llamada es asíncrona sobre un {@link HttpClient} compartido, que mantiene
+ * las conexiones abiertas entre peticiones. Un {@link Disyuntor} corta las
+ * llamadas mientras el servicio falla. Las peticiones de los socios no esperan a
+ * la IA: {@link RecomendacionesPrecalculadas} la consulta en segundo plano y
+ * sirve el último resultado guardado.
+ */
 @Service
 public class AIGenerationService {
 
     private static final Logger LOG = LoggerFactory.getLogger(AIGenerationService.class);
+    private static final int TAMANIO_MUESTRA_CATALOGO = 30;
+    private static final int NUM_RECOMENDACIONES_BOT = 3;
 
     private final PrestamoRepository repositorioPrestamo;
-    private final LibroRepository repositorioLibro;
     private final SocioRepository repositorioSocio;
-    private final RestTemplate restTemplate;
+    private final CatalogoEnMemoria catalogo;
+    private final MotorRecomendaciones motorLocal;
     private final ObjectMapper objectMapper;
     private final AiServiceProperties aiProperties;
+    private final MeterRegistry meterRegistry;
+    private final HttpClient httpClient;
+    private final Disyuntor disyuntor;
 
     public AIGenerationService(PrestamoRepository repositorioPrestamo,
-            LibroRepository repositorioLibro,
             SocioRepository repositorioSocio,
+            CatalogoEnMemoria catalogo,
+            MotorRecomendaciones motorLocal,
             ObjectMapper objectMapper,
-            AiServiceProperties aiProperties) {
+            AiServiceProperties aiProperties,
+            MeterRegistry meterRegistry) {
         this.repositorioPrestamo = repositorioPrestamo;
-        this.repositorioLibro = repositorioLibro;
         this.repositorioSocio = repositorioSocio;
+        this.catalogo = catalogo;
+        this.motorLocal = motorLocal;
         this.objectMapper = objectMapper;
         this.aiProperties = aiProperties;
-
-        SimpleClientHttpRequestFactory fabricaSolicitudes = new SimpleClientHttpRequestFactory();
-        fabricaSolicitudes.setConnectTimeout(2000); // 2 segundos
-        fabricaSolicitudes.setReadTimeout(8000); // 8 segundos (La IA puede tardar)
-        this.restTemplate = new RestTemplate(fabricaSolicitudes);
+        this.meterRegistry = meterRegistry;
+
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(aiProperties.getTimeoutConexionMs()))
+                .build();
+        this.disyuntor = new Disyuntor(aiProperties.getFallosParaAbrir(), aiProperties.getPausaCircuitoMs());
+        Gauge.builder("ia.circuito.abierto", disyuntor, d -> d.estado() == Disyuntor.Estado.CERRADO ? 0 : 1)
+                .description("1 mientras el disyuntor del servicio de IA está abierto o en prueba")
+                .register(meterRegistry);
     }
 
     /**
-     * Obtiene recomendaciones personalizadas para un usuario.
-     * Si el servicio de IA falla, retorna recomendaciones basadas en reglas
-     * locales.
+     * Pide al servicio de IA recomendaciones para el usuario a partir de su
+     * historial completo. Lee el socio y sus préstamos en el hilo que llama; la
+     * llamada HTTP es asíncrona.
+     *
+     * @return recomendaciones de la IA, o lista vacía si no hay que usarlas
+     *         (usuario desconocido, disyuntor abierto, error, timeout o respuesta
+     *         sin recomendaciones); el futuro nunca termina con error
      */
-    public List<RecomendacionDTO> obtenerRecomendacionesPorUsuario(String usuario) {
+    public CompletableFuture<List<RecomendacionDTO>> consultarIA(String usuario) {
+        Long idSocio;
+        List<Prestamo> prestamos;
         try {
             Socio socio = repositorioSocio.findByUsuario(usuario)
                     .orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado: " + usuario));
-            return obtenerRecomendaciones(socio.getIdSocio());
+            idSocio = socio.getIdSocio();
+            prestamos = repositorioPrestamo.findBySocioIdSocioWithDetails(idSocio);
         } catch (Exception e) {
-            LOG.error("Error crítico obteniendo recomendaciones para {}. Usando fallback.", usuario, e);
-            return obtenerRecomendacionesLocales(Collections.emptyList());
+            LOG.error("Error crítico obteniendo el historial de {} para la IA.", usuario, e);
+            return CompletableFuture.completedFuture(Collections.emptyList());
         }
+        return enviar(idSocio, prestamos);
     }
 
-    public List<RecomendacionDTO> obtenerRecomendaciones(Long idSocio) {
-        List<Prestamo> prestamos = repositorioPrestamo.findBySocioIdSocioWithDetails(idSocio);
+    // ----- MÉTODOS PRIVADOS -----
 
-        try {
-            List<Map<String, String>> historial = prestamos.stream()
-                    .map(p -> {
-                        Libro l = p.getEjemplar().getLibro();
-                        return Map.of(
-                                "titulo", l.getTitulo() != null ? l.getTitulo() : "Desconocido",
-                                "categoria", l.getCategoria() != null ? l.getCategoria() : "General",
-                                "autor", l.getAutor() != null ? l.getAutor() : "Anónimo");
-                    })
-                    .distinct()
-                    .collect(Collectors.toList());
-
-            List<Libro> librosAleatorios = repositorioLibro.findRandomBooks(30);
-            List<Map<String, String>> catalogo = librosAleatorios.stream()
-                    .map(l -> Map.of(
-                            "titulo", l.getTitulo() != null ? l.getTitulo() : "Desconocido",
-                            "categoria", l.getCategoria() != null ? l.getCategoria() : "General",
-                            "autor", l.getAutor() != null ? l.getAutor() : "Anónimo"))
-                    .collect(Collectors.toList());
-
-            HttpHeaders cabeceras = new HttpHeaders();
-            cabeceras.setContentType(MediaType.APPLICATION_JSON);
-
-            // Actualizado a claves en español para coincidir con el servicio Python
-            Map<String, Object> cuerpoPeticion = Map.of(
-                    "historial", historial,
-                    "catalogo", catalogo,
-                    "id_usuario", String.valueOf(idSocio));
-
-            String url = Objects.requireNonNull(aiProperties.getUrl(), "La URL del servicio de IA no está configurada");
-
-            ResponseEntity<String> respuesta = restTemplate.postForEntity(
-                    url,
-                    new HttpEntity<>(cuerpoPeticion, cabeceras),
-                    String.class);
-
-            if (respuesta.getStatusCode().is2xxSuccessful() && respuesta.getBody() != null) {
-                List<RecomendacionDTO> recomendacionesIA = procesarRespuestaIA(respuesta.getBody());
-                if (recomendacionesIA != null && !recomendacionesIA.isEmpty()) {
-                    return recomendacionesIA;
-                }
-            }
+    private CompletableFuture<List<RecomendacionDTO>> enviar(Long idSocio, List<Prestamo> prestamos) {
+        if (!disyuntor.permitirLlamada()) {
+            LOG.debug("Disyuntor del servicio de IA abierto. Se omite la llamada.");
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
 
+        HttpRequest peticion;
+        try {
+            peticion = construirPeticion(idSocio, prestamos);
         } catch (Exception e) {
-            LOG.warn("Servicio de IA no disponible ({}). Cambiando a algoritmo local.", e.getMessage());
+            // No es culpa del servicio, pero tampoco dice que se haya recuperado
+            disyuntor.liberarLlamada();
+            LOG.warn("No se pudo preparar la petición a la IA ({}).", e.getMessage());
+            return CompletableFuture.completedFuture(Collections.emptyList());
         }
 
-        return obtenerRecomendacionesLocales(prestamos);
+        Timer.Sample muestra = Timer.start(meterRegistry);
+        return httpClient.sendAsync(peticion, HttpResponse.BodyHandlers.ofString())
+                .handle((respuesta, error) -> {
+                    if (error != null || respuesta.statusCode() >= 500) {
+                        disyuntor.registrarFallo();
+                        muestra.stop(latenciaIA("error"));
+                        LOG.warn("Servicio de IA no disponible ({}).",
+                                error != null ? error.getMessage() : "HTTP " + respuesta.statusCode());
+                        return Collections.<RecomendacionDTO>emptyList();
+                    }
+                    disyuntor.registrarExito();
+                    List<RecomendacionDTO> recomendacionesIA = respuesta.statusCode() < 300
+                            ? procesarRespuestaIA(respuesta.body())
+                            : Collections.emptyList();
+                    muestra.stop(latenciaIA(recomendacionesIA.isEmpty() ? "vacia" : "ok"));
+                    return recomendacionesIA;
+                });
+    }
+
+    private HttpRequest construirPeticion(Long idSocio, List<Prestamo> prestamos) throws Exception {
+        List<Map<String, String>> historial = prestamos.stream()
+                .map(p -> {
+                    Libro l = p.getEjemplar().getLibro();
+                    return describir(l.getTitulo(), l.getCategoria(), l.getAutor());
+                })
+                .distinct()
+                .collect(Collectors.toList());
+
+        List<Map<String, String>> muestraCatalogo = catalogo
+                .muestraAleatoria(null, FiltroLectura.TODOS, HistorialLecturas.SIN_LECTURAS, TAMANIO_MUESTRA_CATALOGO).stream()
+                .map(l -> describir(l.titulo(), l.categoria(), l.autor()))
+                .collect(Collectors.toList());
+
+        // Actualizado a claves en español para coincidir con el servicio Python
+        Map<String, Object> cuerpoPeticion = Map.of(
+                "historial", historial,
+                "catalogo", muestraCatalogo,
+                "id_usuario", String.valueOf(idSocio));
+
+        String url = Objects.requireNonNull(aiProperties.getUrl(), "La URL del servicio de IA no está configurada");
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMillis(aiProperties.getTimeoutLecturaMs()))
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(cuerpoPeticion)))
+                .build();
+    }
+
+    private static Map<String, String> describir(String titulo, String categoria, String autor) {
+        return Map.of(
+                "titulo", titulo != null ? titulo : "Desconocido",
+                "categoria", categoria != null ? categoria : "General",
+                "autor", autor != null ? autor : "Anónimo");
+    }
+
+    private Timer latenciaIA(String resultado) {
+        return Timer.builder("ia.peticiones")
+                .description("Latencia de las llamadas al servicio de IA")
+                .tag("resultado", resultado)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 
     private List<RecomendacionDTO> procesarRespuestaIA(String json) {
@@ -135,43 +197,13 @@ public class AIGenerationService {
                             nodo.path("motivo").asText("Basado en tus preferencias.")));
                 }
             }
-            return resultado;
+            return List.copyOf(resultado);
         } catch (Exception e) {
             LOG.error("Error procesando respuesta JSON de la IA: {}", e.getMessage());
             return Collections.emptyList();
         }
     }
 
-    /**
-     * Algoritmo de respaldo (Safety Fallback) ejecutado localmente cuando la IA no
-     * responde.
-     */
-    private List<RecomendacionDTO> obtenerRecomendacionesLocales(List<Prestamo> prestamos) {
-        LOG.info("Generando recomendaciones locales (Fallback)");
-
-        Set<String> categoriasFavoritas = prestamos.stream()
-                .map(p -> p.getEjemplar().getLibro().getCategoria())
-                .collect(Collectors.toSet());
-
-        Set<Long> idsLeidos = prestamos.stream()
-                .map(p -> p.getEjemplar().getLibro().getIdLibro())
-                .collect(Collectors.toSet());
-
-        List<Libro> todosLosLibros = repositorioLibro.findAll();
-        Collections.shuffle(todosLosLibros);
-
-        return todosLosLibros.stream()
-                .filter(l -> !idsLeidos.contains(l.getIdLibro()))
-                .limit(3)
-                .map(l -> {
-                    String motivo = categoriasFavoritas.contains(l.getCategoria())
-                            ? "Te gustó " + l.getCategoria() + ", creemos que disfrutarás este título."
-                            : "Sugerencia destacada de nuestra colección.";
-                    return new RecomendacionDTO(l.getTitulo(), motivo);
-                })
-                .collect(Collectors.toList());
-    }
-
     /**
      * Genera un texto de recomendación basado en categorías proporcionadas.
      * Utilizado por el Bot de Telegram como alternativa directa/fallback.
@@ -179,22 +211,7 @@ public class AIGenerationService {
     public String obtenerRecomendacionTexto(List<String> categorias) {
         LOG.info("Generando recomendación textual para categorías: {}", categorias);
 
-        List<Libro> seleccionados = new ArrayList<>();
-
-        // Intentar buscar un libro por cada categoría
-        for (String cat : categorias) {
-            List<Libro> librosCat = repositorioLibro.findByCategoria(cat);
-            if (!librosCat.isEmpty()) {
-                Collections.shuffle(librosCat);
-                seleccionados.add(librosCat.get(0));
-            }
-        }
-
-        // Si no encontramos suficientes, rellenar con aleatorios
-        if (seleccionados.size() < 3) {
-            List<Libro> aleatorios = repositorioLibro.findRandomBooks(3 - seleccionados.size());
-            seleccionados.addAll(aleatorios);
-        }
+        List<LibroDTO> seleccionados = motorLocal.recomendarPorCategorias(categorias, NUM_RECOMENDACIONES_BOT);
 
         if (seleccionados.isEmpty()) {
             return "Lo siento, no he encontrado libros que coincidan con esos intereses en este momento.";
@@ -205,10 +222,10 @@ public class AIGenerationService {
         sb.append(String.join(", ", categorias));
         sb.append(", aquí tienes mis recomendaciones para hoy:\n\n");
 
-        for (Libro libro : seleccionados) {
-            sb.append("📖 **").append(libro.getTitulo()).append("**\n");
-            sb.append("   _de ").append(libro.getAutor()).append("_\n");
-            sb.append("   Categoría: ").append(libro.getCategoria()).append("\n\n");
+        for (LibroDTO libro : seleccionados) {
+            sb.append("📖 **").append(libro.titulo()).append("**\n");
+            sb.append("   _de ").append(libro.autor()).append("_\n");
+            sb.append("   Categoría: ").append(libro.categoria()).append("\n\n");
         }
 
         sb.append("💡 _Estas obras han sido seleccionadas de nuestro catálogo especialmente para ti._");
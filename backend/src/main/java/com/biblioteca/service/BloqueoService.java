@@ -1,6 +1,8 @@
 package com.biblioteca.service;
 
 import com.biblioteca.config.LibraryPolicyProperties;
+import com.biblioteca.dto.FiltroListado;
+import com.biblioteca.events.PrestamoCreadoEvent;
 import com.biblioteca.model.EstadoBloqueo;
 import com.biblioteca.model.EstadoEjemplar;
 import com.biblioteca.model.EstadoPrestamo;
@@ -8,12 +10,18 @@ import com.biblioteca.model.Bloqueo;
 import com.biblioteca.model.Ejemplar;
 import com.biblioteca.model.Prestamo;
 import com.biblioteca.model.Socio;
+import com.biblioteca.model.TipoEventoOutbox;
 import com.biblioteca.repository.BloqueoRepository;
 import com.biblioteca.repository.PrestamoRepository;
+import com.biblioteca.repository.VencimientoBloqueo;
+import com.biblioteca.service.MetricasNegocio.MotivoRechazo;
+import io.micrometer.core.annotation.Timed;
 
 import jakarta.persistence.EntityManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,6 +29,7 @@ import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 @Service
@@ -28,29 +37,45 @@ public class BloqueoService {
 
     private static final Logger LOG = LoggerFactory.getLogger(BloqueoService.class);
 
+    // Campos de orden del listado paginado y la propiedad JPA de cada uno
+    private static final Map<String, String> ORDEN_BLOQUEOS = Map.of(
+            "id", "idBloqueo",
+            "fechaInicio", "fechaInicio",
+            "fechaFin", "fechaFin",
+            "usuario", "socio.usuario");
+
     private final BloqueoRepository repositorioBloqueo;
     private final SocioService servicioSocio;
     private final EjemplarService servicioEjemplar;
     private final PrestamoRepository repositorioPrestamo;
-    private final NotificationService servicioNotificaciones;
+    private final OutboxService servicioOutbox;
     private final EntityManager gestorEntidades;
     private final LibraryPolicyProperties libraryPolicy;
+    private final ApplicationEventPublisher publicadorEventos;
+    private final ExpiracionBloqueos expiracionBloqueos;
+    private final MetricasNegocio metricasNegocio;
 
     public BloqueoService(
             BloqueoRepository repositorioBloqueo,
             SocioService servicioSocio,
             EjemplarService servicioEjemplar,
             PrestamoRepository repositorioPrestamo,
-            NotificationService servicioNotificaciones,
+            OutboxService servicioOutbox,
             EntityManager gestorEntidades,
-            LibraryPolicyProperties libraryPolicy) {
+            LibraryPolicyProperties libraryPolicy,
+            ApplicationEventPublisher publicadorEventos,
+            ExpiracionBloqueos expiracionBloqueos,
+            MetricasNegocio metricasNegocio) {
         this.repositorioBloqueo = repositorioBloqueo;
         this.servicioSocio = servicioSocio;
         this.servicioEjemplar = servicioEjemplar;
         this.repositorioPrestamo = repositorioPrestamo;
-        this.servicioNotificaciones = servicioNotificaciones;
+        this.servicioOutbox = servicioOutbox;
         this.gestorEntidades = gestorEntidades;
         this.libraryPolicy = libraryPolicy;
+        this.publicadorEventos = publicadorEventos;
+        this.expiracionBloqueos = expiracionBloqueos;
+        this.metricasNegocio = metricasNegocio;
     }
 
     /**
@@ -68,6 +93,7 @@ public class BloqueoService {
      * @throws IllegalStateException Si no cumple las reglas de negocio.
      */
     @Transactional
+    @Timed(value = "bloqueos.crear", description = "Creación de una reserva", histogram = true)
     public Bloqueo crearBloqueo(String usuario, Long idEjemplar) {
         validarEntrada(usuario, "El usuario no puede ser nulo o vacío.");
         Objects.requireNonNull(idEjemplar, "El ID del ejemplar es requerido.");
@@ -84,6 +110,39 @@ public class BloqueoService {
         return persistirYNotificarBloqueo(bloqueo, socio);
     }
 
+    /**
+     * Reserva cualquier ejemplar disponible de un libro.
+     * <p>
+     * Pensado para títulos muy demandados: en lugar de competir todos por el
+     * ejemplar que eligió el cliente, cada petición reclama uno libre con un
+     * UPDATE condicional (ver {@link EjemplarService#reclamarEjemplarDisponible}),
+     * así que las que llegan a la vez se reparten los ejemplares y las que se
+     * quedan sin ninguno fallan enseguida con un mensaje claro.
+     *
+     * @param usuario El nombre de usuario (username) del socio.
+     * @param idLibro El ID del libro.
+     * @return La reserva creada, con el ejemplar asignado.
+     * @throws IllegalStateException Si no quedan ejemplares o el socio está en su
+     *                               límite.
+     */
+    @Transactional
+    public Bloqueo crearBloqueoDeLibro(String usuario, Long idLibro) {
+        validarEntrada(usuario, "El usuario no puede ser nulo o vacío.");
+        Objects.requireNonNull(idLibro, "El ID del libro es requerido.");
+
+        LOG.info("Creando bloqueo de cualquier ejemplar - Usuario: {}, Libro ID: {}", usuario, idLibro);
+
+        Socio socio = buscarSocio(usuario);
+        // Antes de reclamar: un socio en su límite no debe retener un ejemplar ni un instante
+        validarLimiteReservas(socio);
+
+        Ejemplar ejemplar = servicioEjemplar.reclamarEjemplarDisponible(idLibro, EstadoEjemplar.BLOQUEADO)
+                .orElseThrow(() -> rechazo(MotivoRechazo.SIN_EJEMPLARES_LIBRES,
+                        "No quedan ejemplares disponibles de este libro."));
+
+        return persistirYNotificarBloqueo(construirBloqueoInicial(socio, ejemplar), socio);
+    }
+
     /**
      * Cancela una reserva activa, liberando el ejemplar para otros usuarios.
      *
@@ -121,6 +180,7 @@ public class BloqueoService {
      * @return El nuevo Préstamo creado.
      */
     @Transactional
+    @Timed(value = "bloqueos.formalizar", description = "Conversión de una reserva en préstamo", histogram = true)
     public Prestamo formalizarBloqueo(Long idBloqueo, String usuario, boolean esBibliotecario) {
         Objects.requireNonNull(idBloqueo, "El ID del bloqueo es requerido.");
         validarEntrada(usuario, "El usuario no puede ser nulo o vacío.");
@@ -137,10 +197,16 @@ public class BloqueoService {
         return convertirBloqueoAPrestamo(bloqueo);
     }
 
-    @Transactional
-    public void limpiarBloqueosExpirados() {
+    /**
+     * Expira ya todas las reservas vencidas, recargando antes la cola de
+     * vencimientos desde la base de datos. Cada lote va en su propia transacción.
+     *
+     * @return Reservas expiradas.
+     */
+    public int limpiarBloqueosExpirados() {
         LOG.info("Ejecutando limpieza manual de bloqueos expirados");
-        repositorioBloqueo.ejecutarLimpiezaBloqueos();
+        expiracionBloqueos.cargar();
+        return expiracionBloqueos.procesarVencidos();
     }
 
     @Transactional(readOnly = true)
@@ -156,15 +222,43 @@ public class BloqueoService {
         return repositorioBloqueo.findActiveBloqueosWithDetails(EstadoBloqueo.ACTIVO, new Date());
     }
 
+    /**
+     * Listado paginado de reservas para administración, en dos fases como el de
+     * préstamos. Sin estado se listan las activas; las activas solo incluyen las
+     * vigentes salvo que se pidan las vencidas pendientes de expirar.
+     */
+    @Transactional(readOnly = true)
+    public Page<Bloqueo> buscarBloqueos(FiltroListado filtro, int pagina, int tamanio, String orden) {
+        EstadoBloqueo estado = Paginacion.estado(EstadoBloqueo.class, filtro.estado());
+        if (estado == null) {
+            estado = EstadoBloqueo.ACTIVO;
+        }
+        Date ahora = new Date();
+        Page<Long> ids = repositorioBloqueo.findIdsFiltrados(
+                estado,
+                filtro.idSocio(),
+                filtro.idLibro(),
+                Paginacion.inicioDe(filtro.desde()),
+                Paginacion.finDe(filtro.hasta()),
+                estado == EstadoBloqueo.ACTIVO && !filtro.soloVencidos() ? ahora : null,
+                filtro.soloVencidos() ? ahora : null,
+                Paginacion.de(pagina, tamanio, orden, ORDEN_BLOQUEOS, "fechaFin,asc", "idBloqueo"));
+        return Paginacion.cargar(ids, repositorioBloqueo::findAllByIdWithDetails, Bloqueo::getIdBloqueo);
+    }
+
     // ------------------------------------------------------------------------------------------------
     // MÉTODOS PRIVADOS (Lógica de Negocio y Validación)
     // ------------------------------------------------------------------------------------------------
 
     private void validarRequisitosBloqueo(Socio socio, Ejemplar ejemplar) {
         if (ejemplar.getEstado() != EstadoEjemplar.DISPONIBLE) {
-            throw new IllegalStateException("El ejemplar no está disponible (Estado: " + ejemplar.getEstado() + ")");
+            throw rechazo(MotivoRechazo.EJEMPLAR_NO_DISPONIBLE,
+                    "El ejemplar no está disponible (Estado: " + ejemplar.getEstado() + ")");
         }
+        validarLimiteReservas(socio);
+    }
 
+    private void validarLimiteReservas(Socio socio) {
         Long reservasActivasObj = repositorioBloqueo.countActiveBloqueosBySocio(socio.getIdSocio(),
                 EstadoBloqueo.ACTIVO,
                 new Date());
@@ -185,7 +279,7 @@ public class BloqueoService {
                 socio.getUsuario(), maxPrestamos, prestamosActivos, reservasActivas);
 
         if ((reservasActivas + prestamosActivos) >= maxPrestamos) {
-            throw new IllegalStateException(
+            throw rechazo(MotivoRechazo.LIMITE_LECTURAS,
                     String.format("Límite de lecturas activas alcanzado (%d). Préstamos: %d, Reservas: %d",
                             maxPrestamos, prestamosActivos, reservasActivas));
         }
@@ -193,10 +287,15 @@ public class BloqueoService {
 
     private void validarEstadoActivo(Bloqueo bloqueo) {
         if (bloqueo.getEstado() != EstadoBloqueo.ACTIVO) {
-            throw new IllegalStateException("El bloqueo no está activo.");
+            throw rechazo(MotivoRechazo.BLOQUEO_NO_ACTIVO, "El bloqueo no está activo.");
         }
     }
 
+    private IllegalStateException rechazo(MotivoRechazo motivo, String mensaje) {
+        metricasNegocio.registrarRechazo(motivo);
+        return new IllegalStateException(mensaje);
+    }
+
     private Bloqueo construirBloqueoInicial(Socio socio, Ejemplar ejemplar) {
         return new Bloqueo(
                 socio,
@@ -218,16 +317,20 @@ public class BloqueoService {
             gestorEntidades.flush();
             gestorEntidades.refresh(bloqueoPersistido);
 
-            try {
-                servicioNotificaciones.notificarNuevaReserva(socio.getUsuario(),
-                        bloqueo.getEjemplar().getLibro().getTitulo());
-            } catch (Exception e) {
-                LOG.error("Fallo al enviar notificación de webhook, pero el bloqueo continúa: {}", e.getMessage());
-            }
+            expiracionBloqueos.programar(new VencimientoBloqueo(bloqueoPersistido.getIdBloqueo(),
+                    bloqueo.getEjemplar().getIdEjemplar(), bloqueo.getEjemplar().getLibro().getIdLibro(),
+                    bloqueoPersistido.getFechaFin()));
+
+            // Se notifica desde el outbox cuando la reserva esté confirmada
+            servicioOutbox.registrar(TipoEventoOutbox.BLOQUEO_CREADO, Map.of(
+                    "id_bloqueo", bloqueoPersistido.getIdBloqueo(),
+                    "usuario", socio.getUsuario(),
+                    "libro", bloqueo.getEjemplar().getLibro().getTitulo()));
             return bloqueoPersistido;
 
         } catch (org.springframework.dao.DataIntegrityViolationException e) {
             LOG.error("Error de integridad al crear bloqueo: {}", e.getMessage());
+            metricasNegocio.registrarRechazo(MotivoRechazo.CONFLICTO_DATOS);
             throw new IllegalStateException(
                     "El ejemplar ya no está disponible o se ha alcanzado el límite de reservas.", e);
         }
@@ -263,6 +366,7 @@ public class BloqueoService {
         gestorEntidades.flush();
         gestorEntidades.refresh(prestamoPersistido);
 
+        publicadorEventos.publishEvent(new PrestamoCreadoEvent(this, prestamoPersistido));
         return prestamoPersistido;
     }
 
@@ -322,7 +426,7 @@ public class BloqueoService {
         // Pero si (P + B) > Max, entonces bloqueamos.
 
         if ((prestamosActivos + bloqueosActivos) > socio.getMaxPrestamosActivos()) {
-            throw new IllegalStateException(
+            throw rechazo(MotivoRechazo.LIMITE_LECTURAS,
                     String.format(
                             "No se puede formalizar el préstamo: Límite de lecturas activas excedido (%d). Actuales: %d",
                             socio.getMaxPrestamosActivos(), (prestamosActivos + bloqueosActivos)));
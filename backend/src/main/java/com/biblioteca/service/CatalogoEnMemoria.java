@@ -0,0 +1,446 @@
+package com.biblioteca.service;
+
+import com.biblioteca.config.EnrutamientoDataSource;
+import com.biblioteca.dto.LibroDTO;
+import com.biblioteca.events.DisponibilidadCambiadaEvent;
+import com.biblioteca.model.Libro;
+import com.biblioteca.repository.LibroRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Instantánea en memoria del catálogo para las lecturas que no dependen del socio.
+ * <p>
+ * Los datos bibliográficos se guardan en arrays inmutables ordenados por
+ * (titulo, idLibro), con índice por ID, bitmaps por categoría y un índice invertido
+ * para la búsqueda de texto ({@link IndiceBusqueda}). La disponibilidad vive
+ * aparte en un array atómico que se actualiza tras el commit de cada cambio de
+ * estado de un ejemplar, así que préstamos, reservas y devoluciones se reflejan
+ * sin reconstruir el catálogo. Las altas, bajas y modificaciones de libros
+ * marcan la instantánea como obsoleta y se reconstruye en la siguiente lectura.
+ * <p>
+ * El refresco periódico cubre los cambios hechos directamente en Oracle
+ * (trigger TRG_EJEMPLAR_DISPONIBLES, job nocturno SP_LIMPIEZA_DIARIA).
+ */
+@Service
+public class CatalogoEnMemoria {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CatalogoEnMemoria.class);
+
+    private final LibroRepository repositorioLibro;
+    private final Object cerrojoReconstruccion = new Object();
+
+    private volatile Instantanea actual = Instantanea.VACIA;
+    private volatile boolean obsoleta = true;
+    private volatile boolean reconstruyendo = false;
+
+    public CatalogoEnMemoria(LibroRepository repositorioLibro) {
+        this.repositorioLibro = repositorioLibro;
+    }
+
+    /**
+     * Filtro sobre el historial de lecturas del socio. Se resuelve como operación
+     * de conjuntos entre el bitmap de la selección y el de los libros leídos.
+     */
+    public enum FiltroLectura {
+        TODOS, EXCLUIR_LEIDOS, SOLO_LEIDOS
+    }
+
+    /**
+     * Lista el catálogo ordenado por título.
+     *
+     * @param categoria categoría exacta o {@code null} para todo el catálogo
+     * @param idsLeidos IDs de libros leídos por el socio; solo se usan si el
+     *                  filtro no es {@link FiltroLectura#TODOS}
+     */
+    public List<LibroDTO> listar(String categoria, FiltroLectura filtro, long[] idsLeidos) {
+        Instantanea instantanea = instantanea();
+        BitSet seleccion = instantanea.seleccionar(categoria, filtro, idsLeidos);
+        List<LibroDTO> resultado = new ArrayList<>(seleccion.cardinality());
+        for (int pos = seleccion.nextSetBit(0); pos >= 0; pos = seleccion.nextSetBit(pos + 1)) {
+            resultado.add(instantanea.aDTO(pos));
+        }
+        return resultado;
+    }
+
+    /**
+     * Página del catálogo con el mismo orden que {@link #listar}. Ignora la
+     * ordenación de {@code paginacion}: el catálogo siempre va por (titulo, idLibro).
+     */
+    public Page<LibroDTO> paginar(String categoria, FiltroLectura filtro, long[] idsLeidos, Pageable paginacion) {
+        Instantanea instantanea = instantanea();
+        BitSet seleccion = instantanea.seleccionar(categoria, filtro, idsLeidos);
+
+        int pos = seleccion.nextSetBit(0);
+        for (long saltados = 0; saltados < paginacion.getOffset() && pos >= 0; saltados++) {
+            pos = seleccion.nextSetBit(pos + 1);
+        }
+        List<LibroDTO> contenido = new ArrayList<>(paginacion.getPageSize());
+        for (; pos >= 0 && contenido.size() < paginacion.getPageSize(); pos = seleccion.nextSetBit(pos + 1)) {
+            contenido.add(instantanea.aDTO(pos));
+        }
+        return new PageImpl<>(contenido, paginacion, seleccion.cardinality());
+    }
+
+    /**
+     * Búsqueda de texto sobre el índice invertido de la instantánea, ordenada por
+     * relevancia.
+     */
+    public Page<LibroDTO> buscar(String consulta, FiltroLectura filtro, long[] idsLeidos, Pageable paginacion) {
+        Instantanea instantanea = instantanea();
+        int[] posiciones = resultadosBusqueda(instantanea, consulta, filtro, idsLeidos);
+
+        int total = posiciones.length;
+        int desde = (int) Math.min(paginacion.getOffset(), total);
+        int hasta = Math.min(desde + paginacion.getPageSize(), total);
+        List<LibroDTO> contenido = new ArrayList<>(hasta - desde);
+        for (int i = desde; i < hasta; i++) {
+            contenido.add(instantanea.aDTO(posiciones[i]));
+        }
+        return new PageImpl<>(contenido, paginacion, total);
+    }
+
+    /**
+     * Tramo de resultados de la paginación por cursor.
+     *
+     * @param total número total de resultados, o -1 si no se pidió contarlos
+     */
+    public record Tramo(List<LibroDTO> contenido, boolean hayMas, long total) {
+    }
+
+    /**
+     * Paginación por cursor del catálogo: busca la posición siguiente al cursor con
+     * una búsqueda binaria sobre (titulo, idLibro), así que el coste no depende de
+     * la profundidad de la página.
+     *
+     * @param cursor último libro entregado, o {@code null} para empezar por el principio
+     */
+    public Tramo paginarDesde(String categoria, FiltroLectura filtro, long[] idsLeidos, CursorCatalogo cursor,
+            int tamanio, boolean contarTotal) {
+        Instantanea instantanea = instantanea();
+        BitSet seleccion = instantanea.seleccionar(categoria, filtro, idsLeidos);
+
+        int pos = seleccion.nextSetBit(cursor == null ? 0 : instantanea.posicionTras(cursor));
+        List<LibroDTO> contenido = new ArrayList<>(tamanio);
+        for (; pos >= 0 && contenido.size() < tamanio; pos = seleccion.nextSetBit(pos + 1)) {
+            contenido.add(instantanea.aDTO(pos));
+        }
+        return new Tramo(contenido, pos >= 0, contarTotal ? seleccion.cardinality() : -1);
+    }
+
+    /**
+     * Paginación por cursor de una búsqueda. El orden es por relevancia, así que
+     * el cursor se localiza por ID dentro del ranking; si ese libro ya no aparece
+     * (catálogo reconstruido entre páginas) no hay más resultados.
+     */
+    public Tramo buscarDesde(String consulta, FiltroLectura filtro, long[] idsLeidos, CursorCatalogo cursor,
+            int tamanio, boolean contarTotal) {
+        Instantanea instantanea = instantanea();
+        int[] posiciones = resultadosBusqueda(instantanea, consulta, filtro, idsLeidos);
+
+        int desde = 0;
+        if (cursor != null) {
+            desde = posiciones.length;
+            for (int i = 0; i < posiciones.length; i++) {
+                if (instantanea.ids[posiciones[i]] == cursor.idLibro()) {
+                    desde = i + 1;
+                    break;
+                }
+            }
+        }
+        int hasta = Math.min(desde + tamanio, posiciones.length);
+        List<LibroDTO> contenido = new ArrayList<>(hasta - desde);
+        for (int i = desde; i < hasta; i++) {
+            contenido.add(instantanea.aDTO(posiciones[i]));
+        }
+        return new Tramo(contenido, hasta < posiciones.length, contarTotal ? posiciones.length : -1);
+    }
+
+    public Optional<LibroDTO> buscarPorId(long idLibro) {
+        Instantanea instantanea = instantanea();
+        int pos = instantanea.posicion(idLibro);
+        return pos < 0 ? Optional.empty() : Optional.of(instantanea.aDTO(pos));
+    }
+
+    /**
+     * Hasta {@code tamanio} libros elegidos al azar, sin repetir, entre los que
+     * dejan pasar la categoría y el filtro de lectura. Sustituye a un ORDER BY
+     * DBMS_RANDOM.VALUE sobre toda la tabla LIBRO.
+     *
+     * @param categoria categoría exacta o {@code null} para todo el catálogo
+     */
+    public List<LibroDTO> muestraAleatoria(String categoria, FiltroLectura filtro, long[] idsLeidos, int tamanio) {
+        Instantanea instantanea = instantanea();
+        int[] posiciones = instantanea.seleccionar(categoria, filtro, idsLeidos).stream().toArray();
+
+        // Fisher-Yates parcial: solo se barajan las primeras posiciones
+        ThreadLocalRandom azar = ThreadLocalRandom.current();
+        int elegidos = Math.min(tamanio, posiciones.length);
+        List<LibroDTO> resultado = new ArrayList<>(elegidos);
+        for (int i = 0; i < elegidos; i++) {
+            int j = i + azar.nextInt(posiciones.length - i);
+            int pos = posiciones[j];
+            posiciones[j] = posiciones[i];
+            resultado.add(instantanea.aDTO(pos));
+        }
+        return resultado;
+    }
+
+    /**
+     * Marca la instantánea como obsoleta. Dentro de una transacción se aplaza al
+     * commit para no reconstruir con datos que aún no son visibles.
+     */
+    public void invalidar() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    obsoleta = true;
+                }
+            });
+        } else {
+            obsoleta = true;
+        }
+    }
+
+    /**
+     * Aplica el nuevo contador de un libro una vez confirmado el cambio. Se relee
+     * LIBRO.DISPONIBLES en lugar de aplicar un delta para que el resultado no
+     * dependa del orden en que lleguen los eventos.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void alCambiarDisponibilidad(DisponibilidadCambiadaEvent evento) {
+        if (evento.esGlobal() || reconstruyendo) {
+            // Una reconstrucción en curso podría haber leído el valor anterior
+            obsoleta = true;
+            if (evento.esGlobal()) {
+                return;
+            }
+        }
+
+        Instantanea instantanea = actual;
+        int pos = instantanea.posicion(evento.getIdLibro());
+        if (pos < 0) {
+            obsoleta = true;
+            return;
+        }
+        // De la primaria: la réplica podría no tener aún el cambio recién confirmado
+        EnrutamientoDataSource.enPrimaria(() -> repositorioLibro.findDisponiblesByIdLibro(evento.getIdLibro()))
+                .ifPresentOrElse(disponibles -> instantanea.disponibles.set(pos, disponibles.intValue()),
+                        () -> obsoleta = true);
+    }
+
+    @Scheduled(fixedDelayString = "${app.catalogo.refresco-ms:300000}", initialDelayString = "${app.catalogo.refresco-ms:300000}")
+    public void refrescoPeriodico() {
+        synchronized (cerrojoReconstruccion) {
+            reconstruir();
+        }
+    }
+
+    // ----- MÉTODOS PRIVADOS -----
+
+    private Instantanea instantanea() {
+        if (obsoleta) {
+            synchronized (cerrojoReconstruccion) {
+                if (obsoleta) {
+                    reconstruir();
+                }
+            }
+        }
+        return actual;
+    }
+
+    private int[] resultadosBusqueda(Instantanea instantanea, String consulta, FiltroLectura filtro,
+            long[] idsLeidos) {
+        int[] posiciones = instantanea.indice.buscar(consulta);
+        if (filtro == FiltroLectura.TODOS) {
+            return posiciones;
+        }
+        BitSet leidos = instantanea.posicionesDe(idsLeidos);
+        boolean conservarLeidos = filtro == FiltroLectura.SOLO_LEIDOS;
+        return Arrays.stream(posiciones)
+                .filter(pos -> leidos.get(pos) == conservarLeidos)
+                .toArray();
+    }
+
+    private void reconstruir() {
+        long inicio = System.nanoTime();
+        obsoleta = false;
+        reconstruyendo = true;
+        try {
+            // De la primaria: se reconstruye tras cambios recién confirmados
+            actual = new Instantanea(EnrutamientoDataSource.enPrimaria(repositorioLibro::findAll));
+        } catch (RuntimeException e) {
+            obsoleta = true;
+            throw e;
+        } finally {
+            reconstruyendo = false;
+        }
+        LOG.debug("Catálogo en memoria reconstruido: {} libros, {} términos indexados en {} ms", actual.tamanio(),
+                actual.indice.numTerminos(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    /**
+     * Copia inmutable del catálogo. Cada libro ocupa una posición en los arrays
+     * paralelos; solo {@code disponibles} cambia después de construirla.
+     */
+    static final class Instantanea {
+
+        private static final int SIN_ANIO = Integer.MIN_VALUE;
+        private static final BitSet VACIO = new BitSet(0);
+        private static final Comparator<String> ORDEN_TITULOS = Comparator.nullsLast(Comparator.naturalOrder());
+        private static final Comparator<Libro> ORDEN_CATALOGO = Comparator
+                .comparing(Libro::getTitulo, ORDEN_TITULOS)
+                .thenComparing(Libro::getIdLibro);
+
+        static final Instantanea VACIA = new Instantanea(Collections.emptyList());
+
+        final long[] ids;
+        private final String[] isbns;
+        private final String[] titulos;
+        private final String[] autores;
+        private final String[] categorias;
+        private final int[] anios;
+        final AtomicIntegerArray disponibles;
+
+        // Índice por ID: IDs ordenados y, en paralelo, su posición en el catálogo
+        private final long[] idsOrdenados;
+        private final int[] posicionPorId;
+        // Bitmaps sobre posiciones: al ser densas (0..n-1) un BitSet ocupa n/8 bytes
+        private final BitSet todas;
+        private final Map<String, BitSet> posicionesPorCategoria;
+        final IndiceBusqueda indice;
+
+        Instantanea(List<Libro> libros) {
+            List<Libro> ordenados = new ArrayList<>(libros);
+            ordenados.sort(ORDEN_CATALOGO);
+
+            int n = ordenados.size();
+            ids = new long[n];
+            isbns = new String[n];
+            titulos = new String[n];
+            autores = new String[n];
+            categorias = new String[n];
+            anios = new int[n];
+            disponibles = new AtomicIntegerArray(n);
+
+            Map<String, BitSet> porCategoria = new HashMap<>();
+            for (int pos = 0; pos < n; pos++) {
+                Libro libro = ordenados.get(pos);
+                ids[pos] = libro.getIdLibro();
+                isbns[pos] = libro.getIsbn();
+                titulos[pos] = libro.getTitulo();
+                autores[pos] = libro.getAutor();
+                categorias[pos] = libro.getCategoria();
+                anios[pos] = libro.getAnio() != null ? libro.getAnio() : SIN_ANIO;
+                disponibles.set(pos, libro.getDisponibles().intValue());
+                if (libro.getCategoria() != null) {
+                    porCategoria.computeIfAbsent(libro.getCategoria(), c -> new BitSet(n)).set(pos);
+                }
+            }
+
+            idsOrdenados = ids.clone();
+            Arrays.sort(idsOrdenados);
+            posicionPorId = new int[n];
+            for (int pos = 0; pos < n; pos++) {
+                posicionPorId[Arrays.binarySearch(idsOrdenados, ids[pos])] = pos;
+            }
+
+            todas = new BitSet(n);
+            todas.set(0, n);
+            posicionesPorCategoria = Collections.unmodifiableMap(porCategoria);
+            indice = new IndiceBusqueda(titulos, autores, categorias, isbns);
+        }
+
+        int tamanio() {
+            return ids.length;
+        }
+
+        int posicion(long idLibro) {
+            int i = Arrays.binarySearch(idsOrdenados, idLibro);
+            return i < 0 ? -1 : posicionPorId[i];
+        }
+
+        /**
+         * Primera posición estrictamente posterior a (titulo, idLibro) en orden de
+         * catálogo. El libro del cursor no tiene por qué seguir existiendo.
+         */
+        int posicionTras(CursorCatalogo cursor) {
+            int bajo = 0;
+            int alto = ids.length;
+            while (bajo < alto) {
+                int medio = (bajo + alto) >>> 1;
+                int comparacion = ORDEN_TITULOS.compare(titulos[medio], cursor.titulo());
+                if (comparacion == 0) {
+                    comparacion = Long.compare(ids[medio], cursor.idLibro());
+                }
+                if (comparacion <= 0) {
+                    bajo = medio + 1;
+                } else {
+                    alto = medio;
+                }
+            }
+            return bajo;
+        }
+
+        /**
+         * Posiciones seleccionadas por categoría y filtro de lectura. Si no hay que
+         * combinar nada devuelve el bitmap compartido de la instantánea: el llamante
+         * no debe modificarlo.
+         */
+        BitSet seleccionar(String categoria, FiltroLectura filtro, long[] idsLeidos) {
+            BitSet base = categoria == null ? todas : posicionesPorCategoria.getOrDefault(categoria, VACIO);
+            if (filtro == FiltroLectura.TODOS) {
+                return base;
+            }
+            BitSet resultado = (BitSet) base.clone();
+            if (filtro == FiltroLectura.EXCLUIR_LEIDOS) {
+                resultado.andNot(posicionesDe(idsLeidos));
+            } else {
+                resultado.and(posicionesDe(idsLeidos));
+            }
+            return resultado;
+        }
+
+        /** Bitmap de posiciones de los IDs dados; ignora los que no están en el catálogo. */
+        BitSet posicionesDe(long[] idsLibros) {
+            BitSet posiciones = new BitSet(ids.length);
+            for (long idLibro : idsLibros) {
+                int pos = posicion(idLibro);
+                if (pos >= 0) {
+                    posiciones.set(pos);
+                }
+            }
+            return posiciones;
+        }
+
+        LibroDTO aDTO(int pos) {
+            int copias = disponibles.get(pos);
+            return new LibroDTO(ids[pos], isbns[pos], titulos[pos], autores[pos], categorias[pos],
+                    anios[pos] == SIN_ANIO ? null : anios[pos], copias, copias > 0);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.biblioteca.service;
+
+import com.biblioteca.dto.LibroDTO;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Token de continuación para la paginación por cursor (keyset) del catálogo.
+ * <p>
+ * Codifica el último (titulo, idLibro) entregado; la página siguiente empieza en
+ * el primer libro posterior en orden de catálogo. Para el cliente es opaco.
+ */
+public record CursorCatalogo(String titulo, long idLibro) {
+
+    private static final char SEPARADOR = ':';
+
+    public static CursorCatalogo de(LibroDTO libro) {
+        return new CursorCatalogo(libro.titulo() != null ? libro.titulo() : "", libro.id());
+    }
+
+    public String codificar() {
+        String plano = idLibro + String.valueOf(SEPARADOR) + titulo;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plano.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return el cursor decodificado, o {@code null} si el token está vacío
+     *         (primera página)
+     * @throws IllegalArgumentException si el token no es válido
+     */
+    public static CursorCatalogo decodificar(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String plano = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separador = plano.indexOf(SEPARADOR);
+            return new CursorCatalogo(plano.substring(separador + 1), Long.parseLong(plano.substring(0, separador)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Cursor de paginación no válido");
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.biblioteca.service;
+
+/**
+ * Disyuntor de un servicio remoto. Tras {@code fallosParaAbrir} fallos seguidos
+ * se abre y rechaza las llamadas durante la pausa; pasada esta deja pasar una
+ * única llamada de prueba, que lo cierra si sale bien o lo vuelve a abrir si
+ * falla.
+ */
+final class Disyuntor {
+
+    enum Estado {
+        CERRADO, ABIERTO, SEMIABIERTO
+    }
+
+    private final int fallosParaAbrir;
+    private final long pausaNanos;
+
+    private Estado estado = Estado.CERRADO;
+    private int fallosSeguidos;
+    private long abiertoDesde;
+
+    Disyuntor(int fallosParaAbrir, long pausaMs) {
+        this.fallosParaAbrir = Math.max(1, fallosParaAbrir);
+        this.pausaNanos = pausaMs * 1_000_000;
+    }
+
+    /**
+     * @return {@code true} si la llamada puede hacerse; quien la hace debe
+     *         informar del resultado con {@link #registrarExito} o
+     *         {@link #registrarFallo}
+     */
+    synchronized boolean permitirLlamada() {
+        switch (estado) {
+            case CERRADO:
+                return true;
+            case ABIERTO:
+                if (System.nanoTime() - abiertoDesde < pausaNanos) {
+                    return false;
+                }
+                estado = Estado.SEMIABIERTO;
+                return true;
+            default:
+                // Ya hay una llamada de prueba en curso
+                return false;
+        }
+    }
+
+    synchronized void registrarExito() {
+        estado = Estado.CERRADO;
+        fallosSeguidos = 0;
+    }
+
+    /**
+     * Para llamadas que se permitieron pero no llegaron a hacerse: devuelve la
+     * llamada de prueba pendiente sin dar el servicio por recuperado, y no toca
+     * la cuenta de fallos seguidos.
+     */
+    synchronized void liberarLlamada() {
+        if (estado == Estado.SEMIABIERTO) {
+            // Conserva abiertoDesde: la pausa ya se cumplió y la próxima llamada será la prueba
+            estado = Estado.ABIERTO;
+        }
+    }
+
+    synchronized void registrarFallo() {
+        fallosSeguidos++;
+        if (estado == Estado.SEMIABIERTO || fallosSeguidos >= fallosParaAbrir) {
+            estado = Estado.ABIERTO;
+            abiertoDesde = System.nanoTime();
+        }
+    }
+
+    synchronized Estado estado() {
+        return estado;
+    }
+}
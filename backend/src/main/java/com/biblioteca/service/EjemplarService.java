@@ -1,30 +1,83 @@
 package com.biblioteca.service;
 
+import com.biblioteca.config.CacheConfig;
+import com.biblioteca.config.EnrutamientoDataSource;
+import com.biblioteca.events.DisponibilidadCambiadaEvent;
 import com.biblioteca.model.Ejemplar;
 import com.biblioteca.model.EstadoEjemplar;
 import com.biblioteca.repository.EjemplarRepository;
+import com.biblioteca.repository.LibroRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.Ordered;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class EjemplarService {
 
     private static final Logger LOG = LoggerFactory.getLogger(EjemplarService.class);
+
+    // Ejemplares libres que se leen por ronda de reclamo
+    private static final int CANDIDATOS_RECLAMO = 8;
+    private static final Map<String, String> ORDEN_EJEMPLARES = Map.of(
+            "id", "idEjemplar",
+            "codigoBarras", "codigoBarras",
+            "estado", "estado");
     private final EjemplarRepository repositorioEjemplar;
+    private final LibroRepository repositorioLibro;
+    private final ApplicationEventPublisher publicadorEventos;
+    private final Cache cacheEjemplares;
+    private final TransactionTemplate transaccionRecuento;
 
-    public EjemplarService(EjemplarRepository repositorioEjemplar) {
+    public EjemplarService(EjemplarRepository repositorioEjemplar, LibroRepository repositorioLibro,
+            ApplicationEventPublisher publicadorEventos, CacheManager cacheManager,
+            PlatformTransactionManager gestorTransacciones) {
         this.repositorioEjemplar = repositorioEjemplar;
+        this.repositorioLibro = repositorioLibro;
+        this.publicadorEventos = publicadorEventos;
+        this.cacheEjemplares = cacheManager.getCache(CacheConfig.EJEMPLARES);
+        this.transaccionRecuento = new TransactionTemplate(gestorTransacciones);
+        this.transaccionRecuento.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
     }
 
+    /**
+     * Los ejemplares de un libro se cachean (el catálogo los pide por cada
+     * tarjeta) y se invalidan con cada cambio de estado de este servicio:
+     * préstamo, devolución, reserva, cancelación y expiración pasan por aquí.
+     */
     @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.EJEMPLARES, key = "#idLibro", condition = "#idLibro != null")
     public List<Ejemplar> listarEjemplares(Long idLibro, String estado) {
         if (idLibro != null) {
-            return repositorioEjemplar.findByLibroIdLibroWithLibro(idLibro);
+            // Se cachea justo después de cada evicción: de la primaria, no de una réplica retrasada
+            return EnrutamientoDataSource.enPrimaria(() -> repositorioEjemplar.findByLibroIdLibroWithLibro(idLibro));
         }
         if (estado != null) {
             return repositorioEjemplar.findByEstadoWithLibro(EstadoEjemplar.valueOf(estado));
@@ -32,25 +85,223 @@ public class EjemplarService {
         return repositorioEjemplar.findAll();
     }
 
+    /**
+     * Listado paginado de ejemplares: ids filtrados y paginados primero, y
+     * después los de la página con su libro.
+     */
+    @Transactional(readOnly = true)
+    public Page<Ejemplar> buscarEjemplares(Long idLibro, String estado, int pagina, int tamanio, String orden) {
+        Page<Long> ids = repositorioEjemplar.findIdsFiltrados(idLibro, Paginacion.estado(EstadoEjemplar.class, estado),
+                Paginacion.de(pagina, tamanio, orden, ORDEN_EJEMPLARES, "id", "idEjemplar"));
+        return Paginacion.cargar(ids, repositorioEjemplar::findAllByIdWithLibro, Ejemplar::getIdEjemplar);
+    }
+
     @Transactional(readOnly = true)
     public Ejemplar buscarEjemplarPorId(@NonNull Long id) {
         return repositorioEjemplar.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Ejemplar no encontrado con ID: " + id));
     }
 
+    @Transactional(readOnly = true)
+    public Ejemplar buscarEjemplarConLibro(@NonNull Long id) {
+        return repositorioEjemplar.findByIdWithLibro(id)
+                .orElseThrow(() -> new IllegalArgumentException("Ejemplar no encontrado con ID: " + id));
+    }
+
+    /**
+     * Carga varios ejemplares con su libro en una consulta. Los identificadores
+     * inexistentes no aparecen en el resultado.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Ejemplar> buscarEjemplaresConLibro(@NonNull Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        return repositorioEjemplar.findAllByIdWithLibro(ids).stream()
+                .collect(Collectors.toMap(Ejemplar::getIdEjemplar, Function.identity()));
+    }
+
+    /**
+     * Reclama un ejemplar DISPONIBLE cualquiera del libro y lo deja en
+     * {@code nuevoEstado}.
+     * <p>
+     * El reclamo es un UPDATE condicional a que el ejemplar siga DISPONIBLE, que
+     * además incrementa su versión: si otra transacción se adelanta, afecta a 0
+     * filas y se prueba con el siguiente candidato, sin excepciones ni rollback.
+     * Los candidatos se recorren en orden aleatorio para que las peticiones
+     * simultáneas apunten a ejemplares distintos.
+     * <p>
+     * No hay límite de rondas: mientras la consulta devuelva candidatos queda
+     * algún ejemplar libre, y cada UPDATE perdido es un ejemplar que otra
+     * transacción ya se llevó, así que con ejemplares finitos el bucle termina.
+     * Con un límite, un título muy demandado dejaría sin ejemplar a peticiones
+     * que perdieron varias rondas aunque siguiera habiendo libres.
+     *
+     * @return El ejemplar reclamado (con su libro) o vacío si no queda ninguno.
+     */
+    @Transactional
+    public Optional<Ejemplar> reclamarEjemplarDisponible(@NonNull Long idLibro, @NonNull EstadoEjemplar nuevoEstado) {
+        for (int ronda = 1;; ronda++) {
+            List<Long> candidatos = new ArrayList<>(
+                    repositorioEjemplar.findIdsDisponiblesByLibro(idLibro, PageRequest.of(0, CANDIDATOS_RECLAMO)));
+            if (candidatos.isEmpty()) {
+                return Optional.empty();
+            }
+            Collections.shuffle(candidatos, ThreadLocalRandom.current());
+            for (Long idEjemplar : candidatos) {
+                if (repositorioEjemplar.reclamarDisponible(idEjemplar, nuevoEstado) == 1) {
+                    recalcularContadores(List.of(idLibro));
+                    invalidarEjemplares(List.of(idLibro));
+                    publicadorEventos.publishEvent(new DisponibilidadCambiadaEvent(this, idLibro));
+                    return repositorioEjemplar.findByIdWithLibro(idEjemplar);
+                }
+            }
+            LOG.debug("Candidatos del libro {} reclamados por otras peticiones (ronda {})", idLibro, ronda);
+        }
+    }
+
     @Transactional
     public void actualizarEstadoEjemplar(@NonNull Long idEjemplar, @NonNull EstadoEjemplar nuevoEstado) {
-        Ejemplar ejemplar = buscarEjemplarPorId(idEjemplar);
+        cambiarEstadoEjemplar(buscarEjemplarPorId(idEjemplar), nuevoEstado);
+    }
+
+    /**
+     * Igual que {@link #actualizarEstadoEjemplar} para un ejemplar ya cargado en la
+     * transacción en curso, sin volver a buscarlo.
+     */
+    @Transactional
+    public void cambiarEstadoEjemplar(@NonNull Ejemplar ejemplar, @NonNull EstadoEjemplar nuevoEstado) {
+        Long idEjemplar = ejemplar.getIdEjemplar();
+        EstadoEjemplar estadoAnterior = ejemplar.getEstado();
         ejemplar.setEstado(nuevoEstado);
         repositorioEjemplar.save(ejemplar);
+        invalidarEjemplares(List.of(ejemplar.getLibro().getIdLibro()));
+
+        // Solo las transiciones que entran o salen de DISPONIBLE alteran el contador
+        if ((estadoAnterior == EstadoEjemplar.DISPONIBLE) != (nuevoEstado == EstadoEjemplar.DISPONIBLE)) {
+            Long idLibro = ejemplar.getLibro().getIdLibro();
+            recalcularContadores(List.of(idLibro));
+            publicadorEventos.publishEvent(new DisponibilidadCambiadaEvent(this, idLibro));
+        }
         LOG.debug("Estado del ejemplar {} actualizado a {}", idEjemplar, nuevoEstado);
     }
 
+    /**
+     * Variante de {@link #cambiarEstadoEjemplar} para lotes: los UPDATE de los
+     * ejemplares salen agrupados en el flush y el contador de cada libro afectado
+     * se recalcula en una sola sentencia.
+     */
+    @Transactional
+    public void cambiarEstadoEjemplares(@NonNull Collection<Ejemplar> ejemplares, @NonNull EstadoEjemplar nuevoEstado) {
+        Set<Long> librosAfectados = new LinkedHashSet<>();
+        Set<Long> librosModificados = new LinkedHashSet<>();
+        for (Ejemplar ejemplar : ejemplares) {
+            librosModificados.add(ejemplar.getLibro().getIdLibro());
+            if ((ejemplar.getEstado() == EstadoEjemplar.DISPONIBLE) != (nuevoEstado == EstadoEjemplar.DISPONIBLE)) {
+                librosAfectados.add(ejemplar.getLibro().getIdLibro());
+            }
+            ejemplar.setEstado(nuevoEstado);
+        }
+        repositorioEjemplar.saveAll(ejemplares);
+        invalidarEjemplares(librosModificados);
+
+        if (!librosAfectados.isEmpty()) {
+            recalcularContadores(librosAfectados);
+            librosAfectados.forEach(idLibro -> publicadorEventos.publishEvent(new DisponibilidadCambiadaEvent(this, idLibro)));
+        }
+        LOG.debug("Estado de {} ejemplares actualizado a {}", ejemplares.size(), nuevoEstado);
+    }
+
+    /**
+     * Devuelve a DISPONIBLE, en una sentencia, los ejemplares bloqueados que ya no
+     * tienen reserva activa y recalcula el contador de sus libros.
+     *
+     * @return Ejemplares liberados.
+     */
+    @Transactional
+    public int liberarEjemplaresBloqueados(@NonNull Collection<Long> idsEjemplar, @NonNull Collection<Long> idsLibro) {
+        int liberados = repositorioEjemplar.liberarBloqueados(idsEjemplar);
+        if (liberados > 0) {
+            recalcularContadores(idsLibro);
+            invalidarEjemplares(idsLibro);
+            idsLibro.forEach(idLibro -> publicadorEventos.publishEvent(new DisponibilidadCambiadaEvent(this, idLibro)));
+        }
+        return liberados;
+    }
+
     @Transactional
     public void corregirConsistencia() {
         LOG.info("Iniciando corrección de consistencia de ejemplares...");
         repositorioEjemplar.fixOrphanedPrestamos();
         repositorioEjemplar.fixOrphanedBloqueos();
-        LOG.info("Corrección de consistencia finalizada.");
+        int librosRecalculados = repositorioLibro.recalcularTodosLosDisponibles();
+        cacheEjemplares.clear();
+        publicadorEventos.publishEvent(new DisponibilidadCambiadaEvent(this, null));
+        LOG.info("Corrección de consistencia finalizada. Contadores recalculados: {}", librosRecalculados);
+    }
+
+    // ----- MÉTODOS PRIVADOS -----
+
+    // Con el gestor transaccional el evict se aplica tras el commit
+    private void invalidarEjemplares(Collection<Long> idsLibro) {
+        idsLibro.forEach(cacheEjemplares::evict);
+    }
+
+    /**
+     * Apunta los libros cuyo LIBRO.DISPONIBLES hay que recalcular y lo hace tras el
+     * commit, en una transacción propia y corta. Recalcular dentro de la transacción
+     * del cambio retendría la fila del libro hasta su commit (la reserva aún inserta
+     * el bloqueo y el outbox después de reclamar), y todas las reservas de un título
+     * demandado harían cola en esa fila en lugar de competir solo por ejemplares.
+     * <p>
+     * Se ejecuta antes que los listeners de {@link DisponibilidadCambiadaEvent}, que
+     * releen el contador.
+     */
+    private void recalcularContadores(Collection<Long> idsLibro) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            recontar(idsLibro);
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Set<Long> pendientes = (Set<Long>) TransactionSynchronizationManager.getResource(this);
+        if (pendientes == null) {
+            Set<Long> libros = new TreeSet<>();
+            TransactionSynchronizationManager.bindResource(this, libros);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public int getOrder() {
+                    return Ordered.HIGHEST_PRECEDENCE;
+                }
+
+                @Override
+                public void afterCommit() {
+                    try {
+                        transaccionRecuento.executeWithoutResult(estado -> recontar(libros));
+                    } catch (DataAccessException e) {
+                        // El siguiente cambio del libro o corregirConsistencia lo reparan
+                        LOG.warn("No se pudo recalcular DISPONIBLES de los libros {}: {}", libros, e.getMessage());
+                    }
+                }
+
+                @Override
+                public void afterCompletion(int estado) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(EjemplarService.this);
+                }
+            });
+            pendientes = libros;
+        }
+        pendientes.addAll(idsLibro);
+    }
+
+    /**
+     * Recalcula LIBRO.DISPONIBLES tras bloquear las filas de los libros (en orden
+     * de ID, para no cruzarse con otra transacción). Sin el bloqueo, dos recuentos
+     * simultáneos del mismo libro cuentan cada uno sin ver el cambio del otro y el
+     * último en confirmar deja un valor viejo. Es idempotente con el trigger
+     * TRG_EJEMPLAR_DISPONIBLES.
+     */
+    private void recontar(Collection<Long> idsLibro) {
+        repositorioLibro.bloquearParaRecuento(idsLibro);
+        repositorioLibro.recalcularDisponiblesDe(idsLibro);
     }
 }
@@ -0,0 +1,167 @@
+package com.biblioteca.service;
+
+import com.biblioteca.config.ExpiracionBloqueosProperties;
+import com.biblioteca.repository.BloqueoRepository;
+import com.biblioteca.repository.VencimientoBloqueo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+
+/**
+ * Expiración de reservas desde la aplicación, a los pocos segundos de su
+ * fecha de fin, sin esperar a SP_LIMPIEZA_DIARIA.
+ * <p>
+ * Las fechas de fin de las reservas activas se guardan en una cola ordenada
+ * por vencimiento que se carga de la base de datos al arrancar (y
+ * periódicamente, para recoger las de otras instancias) y a la que
+ * {@link BloqueoService} añade cada reserva nueva. En cada revisión solo se
+ * mira la cabeza de la cola; las vencidas se expiran por lotes con un UPDATE
+ * por tabla. Las sentencias comprueban el estado en la base de datos, así que
+ * una reserva ya formalizada o cancelada que siga en la cola no se toca.
+ */
+@Component
+public class ExpiracionBloqueos {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ExpiracionBloqueos.class);
+
+    private final BloqueoRepository repositorioBloqueo;
+    private final EjemplarService servicioEjemplar;
+    private final ExpiracionBloqueosProperties propiedades;
+    private final TransactionTemplate transaccion;
+
+    private final PriorityBlockingQueue<VencimientoBloqueo> cola = new PriorityBlockingQueue<>(64,
+            Comparator.comparing(VencimientoBloqueo::fechaFin));
+    private final Set<Long> programados = ConcurrentHashMap.newKeySet();
+
+    private final Counter expirados;
+    private final Timer retraso;
+
+    public ExpiracionBloqueos(BloqueoRepository repositorioBloqueo, EjemplarService servicioEjemplar,
+            ExpiracionBloqueosProperties propiedades, PlatformTransactionManager gestorTransacciones,
+            MeterRegistry meterRegistry) {
+        this.repositorioBloqueo = repositorioBloqueo;
+        this.servicioEjemplar = servicioEjemplar;
+        this.propiedades = propiedades;
+        this.transaccion = new TransactionTemplate(gestorTransacciones);
+
+        this.expirados = Counter.builder("bloqueos.expirados")
+                .description("Reservas expiradas por la aplicación")
+                .register(meterRegistry);
+        this.retraso = Timer.builder("bloqueos.expiracion.retraso")
+                .description("Tiempo entre la fecha de fin de una reserva y su expiración")
+                .register(meterRegistry);
+        Gauge.builder("bloqueos.expiracion.pendientes", cola, PriorityBlockingQueue::size)
+                .description("Reservas activas a la espera de su vencimiento")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Añade una reserva a la cola. Si la transacción que la crea no llega a
+     * confirmarse, su vencimiento no encuentra nada que expirar.
+     */
+    public void programar(VencimientoBloqueo vencimiento) {
+        if (programados.add(vencimiento.idBloqueo())) {
+            cola.offer(vencimiento);
+        }
+    }
+
+    /**
+     * Carga en la cola las reservas activas que aún no estuvieran en ella.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.bloqueos.expiracion.resincronizacion-ms:600000}", initialDelayString = "${app.bloqueos.expiracion.resincronizacion-ms:600000}")
+    public void cargar() {
+        List<VencimientoBloqueo> activos = repositorioBloqueo.findVencimientosActivos();
+        activos.forEach(this::programar);
+        LOG.debug("Cola de vencimientos de reservas cargada: {} activas, {} en cola.", activos.size(), cola.size());
+    }
+
+    /**
+     * Expira las reservas vencidas de la cabeza de la cola, un lote por
+     * transacción. Si un lote falla se devuelve a la cola y se reintenta en la
+     * siguiente revisión.
+     *
+     * @return Reservas pasadas a EXPIRADO.
+     */
+    @Scheduled(fixedDelayString = "${app.bloqueos.expiracion.intervalo-ms:1000}", initialDelayString = "${app.bloqueos.expiracion.intervalo-ms:1000}")
+    public int procesarVencidos() {
+        int total = 0;
+        List<VencimientoBloqueo> lote;
+        while (!(lote = extraerVencidos(new Date())).isEmpty()) {
+            try {
+                total += expirarLote(lote);
+            } catch (RuntimeException e) {
+                LOG.error("Error expirando {} reservas; se reintentará", lote.size(), e);
+                lote.forEach(this::programar);
+                break;
+            }
+        }
+        return total;
+    }
+
+    // ----- MÉTODOS PRIVADOS -----
+
+    private List<VencimientoBloqueo> extraerVencidos(Date ahora) {
+        List<VencimientoBloqueo> lote = new ArrayList<>();
+        VencimientoBloqueo cabeza;
+        while (lote.size() < propiedades.getTamanioLote()
+                && (cabeza = cola.peek()) != null && !cabeza.fechaFin().after(ahora)) {
+            VencimientoBloqueo vencido = cola.poll();
+            // Otro hilo pudo adelantarse entre peek y poll con una entrada aún no vencida
+            if (vencido.fechaFin().after(ahora)) {
+                cola.offer(vencido);
+                break;
+            }
+            programados.remove(vencido.idBloqueo());
+            lote.add(vencido);
+        }
+        return lote;
+    }
+
+    private int expirarLote(List<VencimientoBloqueo> lote) {
+        Date ahora = new Date();
+        List<Long> idsBloqueo = new ArrayList<>(lote.size());
+        Set<Long> idsEjemplar = new LinkedHashSet<>();
+        Set<Long> idsLibro = new LinkedHashSet<>();
+        for (VencimientoBloqueo vencimiento : lote) {
+            idsBloqueo.add(vencimiento.idBloqueo());
+            idsEjemplar.add(vencimiento.idEjemplar());
+            idsLibro.add(vencimiento.idLibro());
+        }
+
+        Integer expiradas = transaccion.execute(estado -> {
+            int filas = repositorioBloqueo.expirarVencidos(idsBloqueo, ahora);
+            if (filas > 0) {
+                servicioEjemplar.liberarEjemplaresBloqueados(idsEjemplar, idsLibro);
+            }
+            return filas;
+        });
+        int filas = expiradas == null ? 0 : expiradas;
+
+        lote.forEach(v -> retraso.record(Duration.ofMillis(Math.max(0, ahora.getTime() - v.fechaFin().getTime()))));
+        expirados.increment(filas);
+        if (filas > 0) {
+            LOG.info("Expiradas {} reservas vencidas.", filas);
+        }
+        return filas;
+    }
+}
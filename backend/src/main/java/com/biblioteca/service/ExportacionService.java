@@ -0,0 +1,251 @@
+package com.biblioteca.service;
+
+import com.biblioteca.model.Ejemplar;
+import com.biblioteca.model.EstadoPrestamo;
+import com.biblioteca.model.Libro;
+import com.biblioteca.model.Prestamo;
+import com.biblioteca.repository.EjemplarRepository;
+import com.biblioteca.repository.LibroRepository;
+import com.biblioteca.repository.PrestamoRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Exportación completa de préstamos, catálogo y ejemplares en CSV o NDJSON.
+ * <p>
+ * Las filas se leen con un cursor (Stream de Spring Data con fetch size y
+ * entidades de solo lectura) y se escriben según llegan. Cada
+ * {@value #FILAS_POR_VACIADO} filas se vacía la salida y se limpia el contexto
+ * de persistencia, así que la memoria no crece con el número de filas.
+ */
+@Service
+public class ExportacionService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ExportacionService.class);
+
+    static final int FILAS_POR_VACIADO = 500;
+
+    public enum Formato {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String tipoContenido;
+        private final String extension;
+
+        Formato(String tipoContenido, String extension) {
+            this.tipoContenido = tipoContenido;
+            this.extension = extension;
+        }
+
+        public String getTipoContenido() {
+            return tipoContenido;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Formato de(String valor) {
+            for (Formato formato : values()) {
+                if (formato.extension.equalsIgnoreCase(valor)) {
+                    return formato;
+                }
+            }
+            throw new IllegalArgumentException("Formato no soportado: " + valor + ". Use csv o ndjson.");
+        }
+    }
+
+    private static final List<Columna<Prestamo>> COLUMNAS_PRESTAMO = List.of(
+            new Columna<>("id_prestamo", Prestamo::getIdPrestamo),
+            new Columna<>("id_socio", p -> p.getSocio().getIdSocio()),
+            new Columna<>("usuario", p -> p.getSocio().getUsuario()),
+            new Columna<>("id_ejemplar", p -> p.getEjemplar().getIdEjemplar()),
+            new Columna<>("codigo_barras", p -> p.getEjemplar().getCodigoBarras()),
+            new Columna<>("id_libro", p -> p.getEjemplar().getLibro().getIdLibro()),
+            new Columna<>("titulo", p -> p.getEjemplar().getLibro().getTitulo()),
+            new Columna<>("fecha_prestamo", p -> fecha(p.getFechaPrestamo())),
+            new Columna<>("fecha_prevista_devolucion", p -> fecha(p.getFechaPrevistaDevolucion())),
+            new Columna<>("fecha_devolucion_real", p -> fecha(p.getFechaDevolucionReal())),
+            new Columna<>("estado", p -> p.getEstado().name()));
+
+    private static final List<Columna<Libro>> COLUMNAS_LIBRO = List.of(
+            new Columna<>("id_libro", Libro::getIdLibro),
+            new Columna<>("isbn", Libro::getIsbn),
+            new Columna<>("titulo", Libro::getTitulo),
+            new Columna<>("autor", Libro::getAutor),
+            new Columna<>("categoria", Libro::getCategoria),
+            new Columna<>("anio", Libro::getAnio),
+            new Columna<>("disponibles", Libro::getDisponibles));
+
+    private static final List<Columna<Ejemplar>> COLUMNAS_EJEMPLAR = List.of(
+            new Columna<>("id_ejemplar", Ejemplar::getIdEjemplar),
+            new Columna<>("codigo_barras", Ejemplar::getCodigoBarras),
+            new Columna<>("estado", e -> e.getEstado().name()),
+            new Columna<>("ubicacion", Ejemplar::getUbicacion),
+            new Columna<>("id_libro", e -> e.getLibro().getIdLibro()),
+            new Columna<>("titulo", e -> e.getLibro().getTitulo()));
+
+    private final PrestamoRepository repositorioPrestamo;
+    private final LibroRepository repositorioLibro;
+    private final EjemplarRepository repositorioEjemplar;
+    private final EntityManager gestorEntidades;
+    private final ObjectMapper objectMapper;
+
+    public ExportacionService(PrestamoRepository repositorioPrestamo, LibroRepository repositorioLibro,
+            EjemplarRepository repositorioEjemplar, EntityManager gestorEntidades, ObjectMapper objectMapper) {
+        this.repositorioPrestamo = repositorioPrestamo;
+        this.repositorioLibro = repositorioLibro;
+        this.repositorioEjemplar = repositorioEjemplar;
+        this.gestorEntidades = gestorEntidades;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Escribe los préstamos, opcionalmente filtrados por estado.
+     *
+     * @return Filas escritas, sin contar la cabecera.
+     */
+    @Transactional(readOnly = true)
+    public long exportarPrestamos(EstadoPrestamo estado, Formato formato, OutputStream salida) throws IOException {
+        try (Stream<Prestamo> prestamos = repositorioPrestamo.streamAllWithDetails(estado)) {
+            return escribir("préstamos", prestamos, COLUMNAS_PRESTAMO, formato, salida);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public long exportarLibros(Formato formato, OutputStream salida) throws IOException {
+        try (Stream<Libro> libros = repositorioLibro.streamAll()) {
+            return escribir("libros", libros, COLUMNAS_LIBRO, formato, salida);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public long exportarEjemplares(Formato formato, OutputStream salida) throws IOException {
+        try (Stream<Ejemplar> ejemplares = repositorioEjemplar.streamAllWithLibro()) {
+            return escribir("ejemplares", ejemplares, COLUMNAS_EJEMPLAR, formato, salida);
+        }
+    }
+
+    /**
+     * Campo CSV según RFC 4180: entre comillas si contiene separador, comillas
+     * o saltos de línea. Los textos que empiezan por {@code = + - @}, tabulador o
+     * retorno de carro llevan delante {@code '} para que una hoja de cálculo no
+     * los evalúe como fórmula.
+     */
+    static String campoCsv(Object valor) {
+        if (valor == null) {
+            return "";
+        }
+        String texto = valor.toString();
+        if (valor instanceof CharSequence && !texto.isEmpty() && "=+-@\t\r".indexOf(texto.charAt(0)) >= 0) {
+            texto = "'" + texto;
+        }
+        if (texto.indexOf(',') < 0 && texto.indexOf('"') < 0 && texto.indexOf('\n') < 0 && texto.indexOf('\r') < 0) {
+            return texto;
+        }
+        return '"' + texto.replace("\"", "\"\"") + '"';
+    }
+
+    // ----- MÉTODOS PRIVADOS -----
+
+    private <T> long escribir(String nombre, Stream<T> filas, List<Columna<T>> columnas, Formato formato,
+            OutputStream salida) throws IOException {
+        long inicio = System.nanoTime();
+        // No se cierra: la salida es la respuesta HTTP y la cierra el contenedor
+        Writer escritor = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8), 64 * 1024);
+        JsonGenerator json = null;
+        if (formato == Formato.NDJSON) {
+            json = objectMapper.getFactory().createGenerator(escritor)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.setRootValueSeparator(null);
+        } else {
+            escribirCabecera(escritor, columnas);
+        }
+
+        long total = 0;
+        Iterator<T> iterador = filas.iterator();
+        while (iterador.hasNext()) {
+            T fila = iterador.next();
+            if (json != null) {
+                escribirJson(json, columnas, fila);
+            } else {
+                escribirCsv(escritor, columnas, fila);
+            }
+            if (++total % FILAS_POR_VACIADO == 0) {
+                if (json != null) {
+                    json.flush();
+                }
+                escritor.flush();
+                gestorEntidades.clear();
+            }
+        }
+        if (json != null) {
+            json.flush();
+        }
+        escritor.flush();
+
+        LOG.info("Exportación de {} en {}: {} filas en {} ms", nombre, formato.name().toLowerCase(Locale.ROOT), total,
+                (System.nanoTime() - inicio) / 1_000_000);
+        return total;
+    }
+
+    private static <T> void escribirCabecera(Writer escritor, List<Columna<T>> columnas) throws IOException {
+        for (int i = 0; i < columnas.size(); i++) {
+            if (i > 0) {
+                escritor.write(',');
+            }
+            escritor.write(columnas.get(i).nombre());
+        }
+        escritor.write("\r\n");
+    }
+
+    private static <T> void escribirCsv(Writer escritor, List<Columna<T>> columnas, T fila) throws IOException {
+        for (int i = 0; i < columnas.size(); i++) {
+            if (i > 0) {
+                escritor.write(',');
+            }
+            escritor.write(campoCsv(columnas.get(i).valor().apply(fila)));
+        }
+        escritor.write("\r\n");
+    }
+
+    private static <T> void escribirJson(JsonGenerator json, List<Columna<T>> columnas, T fila) throws IOException {
+        json.writeStartObject();
+        for (Columna<T> columna : columnas) {
+            json.writeObjectField(columna.nombre(), columna.valor().apply(fila));
+        }
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    /** Fecha sin hora (las de préstamo son TemporalType.DATE), en ISO-8601. */
+    private static String fecha(Date fecha) {
+        if (fecha == null) {
+            return null;
+        }
+        return Instant.ofEpochMilli(fecha.getTime()).atZone(ZoneId.systemDefault()).toLocalDate().toString();
+    }
+
+    private record Columna<T>(String nombre, Function<T, Object> valor) {
+    }
+}
@@ -0,0 +1,60 @@
+package com.biblioteca.service;
+
+import com.biblioteca.config.CacheConfig;
+import com.biblioteca.events.PrestamoCreadoEvent;
+import com.biblioteca.repository.PrestamoRepository;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Historial de lecturas por socio: IDs de los libros que ha tenido prestados
+ * alguna vez, como array ordenado de primitivos.
+ * <p>
+ * Se cachea por usuario en la caché {@value CacheConfig#LECTURAS} y se
+ * invalida tras el commit de cada préstamo nuevo.
+ * {@link CatalogoEnMemoria} lo convierte en un bitmap sobre sus posiciones para
+ * los filtros "excluir leídos" y "solo leídos".
+ */
+@Service
+public class HistorialLecturas {
+
+    public static final long[] SIN_LECTURAS = new long[0];
+
+    private final PrestamoRepository repositorioPrestamo;
+    private final Cache librosLeidosPorUsuario;
+
+    public HistorialLecturas(PrestamoRepository repositorioPrestamo, CacheManager cacheManager) {
+        this.repositorioPrestamo = repositorioPrestamo;
+        this.librosLeidosPorUsuario = cacheManager.getCache(CacheConfig.LECTURAS);
+    }
+
+    /**
+     * @return IDs de libros leídos, ordenados; vacío si el usuario no existe o no
+     *         ha leído nada
+     */
+    public long[] librosLeidos(String usuario) {
+        if (usuario == null || usuario.isBlank()) {
+            return SIN_LECTURAS;
+        }
+        return librosLeidosPorUsuario.get(usuario, () -> cargar(usuario));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCrearPrestamo(PrestamoCreadoEvent evento) {
+        // Inmediato: ya se está tras el commit y un evict normal se aplazaría a una
+        // sincronización que no llegaría a ejecutarse
+        librosLeidosPorUsuario.evictIfPresent(evento.getUsuario());
+    }
+
+    // ----- MÉTODOS PRIVADOS -----
+
+    private long[] cargar(String usuario) {
+        long[] ids = repositorioPrestamo.findIdsLibrosLeidosByUsuario(usuario).stream()
+                .mapToLong(Long::longValue)
+                .sorted()
+                .toArray();
+        return ids.length == 0 ? SIN_LECTURAS : ids;
+    }
+}
@@ -0,0 +1,174 @@
+package com.biblioteca.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido del catálogo sobre título, autor, categoría e ISBN.
+ * <p>
+ * Los términos se normalizan sin tildes ni mayúsculas ("Márquez" y "marquez" son
+ * el mismo término) y se guardan ordenados, de modo que cada palabra de la
+ * consulta se resuelve como prefijo con una búsqueda binaria. Todas las palabras
+ * de la consulta deben aparecer (semántica AND) y el resultado se ordena por
+ * relevancia: suma de los pesos de campo de los términos encontrados, con bonus
+ * si el término coincide completo.
+ * <p>
+ * Es inmutable: se construye junto con cada instantánea de {@link CatalogoEnMemoria}
+ * y trabaja con las posiciones de esa instantánea.
+ */
+final class IndiceBusqueda {
+
+    static final int PESO_TITULO = 4;
+    static final int PESO_AUTOR = 3;
+    static final int PESO_ISBN = 3;
+    static final int PESO_CATEGORIA = 1;
+
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final int numDocumentos;
+    private final String[] terminos;
+    // Por término: posiciones del catálogo (ascendentes) y peso del término en cada una
+    private final int[][] posiciones;
+    private final int[][] pesos;
+
+    IndiceBusqueda(String[] titulos, String[] autores, String[] categorias, String[] isbns) {
+        this.numDocumentos = titulos.length;
+
+        Map<String, Postings> porTermino = new HashMap<>();
+        Map<String, Integer> pesosDocumento = new HashMap<>();
+        for (int pos = 0; pos < numDocumentos; pos++) {
+            pesosDocumento.clear();
+            acumular(pesosDocumento, titulos[pos], PESO_TITULO);
+            acumular(pesosDocumento, autores[pos], PESO_AUTOR);
+            acumular(pesosDocumento, categorias[pos], PESO_CATEGORIA);
+            acumular(pesosDocumento, isbns[pos], PESO_ISBN);
+            final int posicion = pos;
+            pesosDocumento.forEach((termino, peso) -> porTermino
+                    .computeIfAbsent(termino, t -> new Postings()).anadir(posicion, peso));
+        }
+
+        terminos = porTermino.keySet().toArray(new String[0]);
+        Arrays.sort(terminos);
+        posiciones = new int[terminos.length][];
+        pesos = new int[terminos.length][];
+        for (int i = 0; i < terminos.length; i++) {
+            Postings postings = porTermino.get(terminos[i]);
+            posiciones[i] = Arrays.copyOf(postings.posiciones, postings.tamanio);
+            pesos[i] = Arrays.copyOf(postings.pesos, postings.tamanio);
+        }
+    }
+
+    /**
+     * Normaliza un texto a términos de búsqueda: descompone (NFD), elimina las
+     * marcas diacríticas, pasa a minúsculas y separa por cualquier carácter que no
+     * sea letra o dígito.
+     */
+    static List<String> tokenizar(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return List.of();
+        }
+        String sinTildes = MARCAS_DIACRITICAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD))
+                .replaceAll("");
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARADORES.split(sinTildes.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Busca los documentos que contienen todas las palabras de la consulta (cada
+     * una como prefijo de algún término).
+     *
+     * @return posiciones del catálogo ordenadas por relevancia descendente y, a
+     *         igualdad, por orden de catálogo
+     */
+    int[] buscar(String consulta) {
+        List<String> tokens = tokenizar(consulta);
+        if (tokens.isEmpty() || numDocumentos == 0) {
+            return new int[0];
+        }
+
+        int[] coincidencias = new int[numDocumentos];
+        int[] puntuacion = new int[numDocumentos];
+        int[] candidatos = new int[0];
+        int numCandidatos = 0;
+
+        for (int t = 0; t < tokens.size(); t++) {
+            String token = tokens.get(t);
+            for (int i = primerTerminoConPrefijo(token); i < terminos.length && terminos[i].startsWith(token); i++) {
+                int bonus = terminos[i].length() == token.length() ? 2 : 1;
+                int[] docs = posiciones[i];
+                int[] pesosTermino = pesos[i];
+                for (int d = 0; d < docs.length; d++) {
+                    int pos = docs[d];
+                    // Solo siguen en juego los documentos que casaron con todos los tokens anteriores
+                    if (coincidencias[pos] == t) {
+                        coincidencias[pos] = t + 1;
+                        if (t == 0) {
+                            if (numCandidatos == candidatos.length) {
+                                candidatos = Arrays.copyOf(candidatos, Math.max(16, numCandidatos * 2));
+                            }
+                            candidatos[numCandidatos++] = pos;
+                        }
+                    } else if (coincidencias[pos] != t + 1) {
+                        continue;
+                    }
+                    puntuacion[pos] += pesosTermino[d] * bonus;
+                }
+            }
+        }
+
+        int objetivo = tokens.size();
+        return Arrays.stream(candidatos, 0, numCandidatos)
+                .filter(pos -> coincidencias[pos] == objetivo)
+                .boxed()
+                .sorted((a, b) -> puntuacion[a] != puntuacion[b]
+                        ? Integer.compare(puntuacion[b], puntuacion[a])
+                        : Integer.compare(a, b))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    int numTerminos() {
+        return terminos.length;
+    }
+
+    // ----- MÉTODOS PRIVADOS -----
+
+    private static void acumular(Map<String, Integer> pesosDocumento, String campo, int peso) {
+        for (String termino : tokenizar(campo)) {
+            pesosDocumento.merge(termino, peso, Integer::sum);
+        }
+    }
+
+    private int primerTerminoConPrefijo(String prefijo) {
+        int i = Arrays.binarySearch(terminos, prefijo);
+        return i >= 0 ? i : -i - 1;
+    }
+
+    /** Lista creciente de (posición, peso) usada solo durante la construcción. */
+    private static final class Postings {
+        private int[] posiciones = new int[4];
+        private int[] pesos = new int[4];
+        private int tamanio;
+
+        void anadir(int posicion, int peso) {
+            if (tamanio == posiciones.length) {
+                posiciones = Arrays.copyOf(posiciones, tamanio * 2);
+                pesos = Arrays.copyOf(pesos, tamanio * 2);
+            }
+            posiciones[tamanio] = posicion;
+            pesos[tamanio++] = peso;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.biblioteca.service;
+
+import com.biblioteca.config.EnrutamientoDataSource;
+import com.biblioteca.config.PrestamosVencidosProperties;
+import com.biblioteca.events.PrestamoCreadoEvent;
+import com.biblioteca.events.PrestamosDevueltosEvent;
+import com.biblioteca.repository.PrestamoRepository;
+import com.biblioteca.repository.VencimientoPrestamo;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Índice en memoria de los préstamos activos según su fecha prevista de
+ * devolución.
+ * <p>
+ * Los que aún están en plazo esperan en un montículo ordenado por vencimiento;
+ * cada revisión solo mira la cabeza y pasa a la tabla de vencidos los que ya
+ * no lo están. El índice se reconstruye desde PRESTAMO al arrancar y
+ * periódicamente (por IDX_PRESTAMO_ESTADO_VENCIMIENTO) y entretanto se
+ * mantiene con los eventos de préstamo y devolución tras el commit; los que
+ * llegan mientras se reconstruye se aplican también sobre el índice nuevo. Así
+ * {@code GET /api/prestamos/vencidos} y el resumen diario no consultan la base
+ * de datos.
+ */
+@Component
+public class IndicePrestamosVencidos {
+
+    private static final Logger LOG = LoggerFactory.getLogger(IndicePrestamosVencidos.class);
+
+    private static final Comparator<VencimientoPrestamo> POR_VENCIMIENTO = Comparator
+            .comparing(VencimientoPrestamo::fechaPrevista)
+            .thenComparing(VencimientoPrestamo::idPrestamo);
+
+    private final PrestamoRepository repositorioPrestamo;
+    private final NotificationService notificationService;
+    private final PrestamosVencidosProperties propiedades;
+
+    // Protegidos por el monitor de this. Las devoluciones no se buscan en el
+    // montículo: se quitan de "activos" y su entrada se descarta al llegar a la cabeza
+    private PriorityQueue<VencimientoPrestamo> proximos = new PriorityQueue<>(POR_VENCIMIENTO);
+    private Map<Long, VencimientoPrestamo> vencidos = new HashMap<>();
+    private Set<Long> activos = new HashSet<>();
+    // Eventos recibidos durante una carga, para repetirlos sobre el índice nuevo;
+    // null si no hay ninguna en curso
+    private List<Cambio> pendientes;
+
+    private final Object cerrojoCarga = new Object();
+
+    public IndicePrestamosVencidos(PrestamoRepository repositorioPrestamo, NotificationService notificationService,
+            PrestamosVencidosProperties propiedades, MeterRegistry meterRegistry) {
+        this.repositorioPrestamo = repositorioPrestamo;
+        this.notificationService = notificationService;
+        this.propiedades = propiedades;
+
+        Gauge.builder("prestamos.vencidos", this, IndicePrestamosVencidos::totalVencidos)
+                .description("Préstamos activos fuera de plazo")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Reconstruye el índice con los préstamos activos de la base de datos. Se
+     * descartan así los devueltos desde otras instancias.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.prestamos.vencidos.resincronizacion-ms:600000}", initialDelayString = "${app.prestamos.vencidos.resincronizacion-ms:600000}")
+    public void cargar() {
+        synchronized (cerrojoCarga) {
+            synchronized (this) {
+                pendientes = new ArrayList<>();
+            }
+            try {
+                // De la primaria: solo los cambios confirmados desde aquí llegan por pendientes
+                List<VencimientoPrestamo> activosEnBd = EnrutamientoDataSource
+                        .enPrimaria(repositorioPrestamo::findVencimientosActivos);
+                LocalDate hoy = hoy();
+
+                PriorityQueue<VencimientoPrestamo> nuevosProximos = new PriorityQueue<>(POR_VENCIMIENTO);
+                Map<Long, VencimientoPrestamo> nuevosVencidos = new HashMap<>();
+                Set<Long> nuevosActivos = new HashSet<>();
+                for (VencimientoPrestamo vencimiento : activosEnBd) {
+                    nuevosActivos.add(vencimiento.idPrestamo());
+                    if (vencimiento.vencidoEn(hoy)) {
+                        nuevosVencidos.put(vencimiento.idPrestamo(), vencimiento);
+                    } else {
+                        nuevosProximos.offer(vencimiento);
+                    }
+                }
+
+                synchronized (this) {
+                    proximos = nuevosProximos;
+                    vencidos = nuevosVencidos;
+                    activos = nuevosActivos;
+                    // Ambas operaciones son idempotentes: da igual que la consulta ya los viera
+                    for (Cambio cambio : pendientes) {
+                        if (cambio.alta() != null) {
+                            programar(cambio.alta());
+                        } else {
+                            retirar(cambio.bajas());
+                        }
+                    }
+                    LOG.debug("Índice de préstamos vencidos cargado: {} activos, {} vencidos, {} cambios durante la carga.",
+                            activos.size(), vencidos.size(), pendientes.size());
+                }
+            } finally {
+                synchronized (this) {
+                    pendientes = null;
+                }
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void alCrearPrestamo(PrestamoCreadoEvent evento) {
+        VencimientoPrestamo vencimiento = new VencimientoPrestamo(evento.getPrestamo().getIdPrestamo(),
+                evento.getUsuario(), evento.getTituloLibro(), evento.getPrestamo().getFechaPrevistaDevolucion());
+        programar(vencimiento);
+        if (pendientes != null) {
+            pendientes.add(new Cambio(vencimiento, null));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void alDevolverPrestamos(PrestamosDevueltosEvent evento) {
+        retirar(evento.getIdsPrestamo());
+        if (pendientes != null) {
+            pendientes.add(new Cambio(null, evento.getIdsPrestamo()));
+        }
+    }
+
+    /**
+     * Pasa a vencidos los préstamos de la cabeza del montículo cuya fecha
+     * prevista ya pasó.
+     *
+     * @return Préstamos que han vencido en esta revisión.
+     */
+    @Scheduled(fixedDelayString = "${app.prestamos.vencidos.intervalo-ms:60000}", initialDelayString = "${app.prestamos.vencidos.intervalo-ms:60000}")
+    public synchronized int actualizar() {
+        LocalDate hoy = hoy();
+        int nuevos = 0;
+        VencimientoPrestamo cabeza;
+        while ((cabeza = proximos.peek()) != null && cabeza.vencidoEn(hoy)) {
+            proximos.poll();
+            if (activos.contains(cabeza.idPrestamo())) {
+                vencidos.put(cabeza.idPrestamo(), cabeza);
+                nuevos++;
+            }
+        }
+        return nuevos;
+    }
+
+    /**
+     * @return Préstamos vencidos, del más atrasado al más reciente.
+     */
+    public List<VencimientoPrestamo> vencidos() {
+        actualizar();
+        synchronized (this) {
+            return vencidos.values().stream().sorted(POR_VENCIMIENTO).toList();
+        }
+    }
+
+    /**
+     * Envía un único aviso con todos los préstamos vencidos.
+     *
+     * @return Préstamos incluidos en el resumen; 0 si no había ninguno y no se
+     *         envió nada.
+     */
+    @Scheduled(cron = "${app.prestamos.vencidos.cron-resumen:0 0 9 * * *}")
+    public int enviarResumen() {
+        List<VencimientoPrestamo> lista = vencidos();
+        if (lista.isEmpty()) {
+            return 0;
+        }
+
+        LocalDate hoy = hoy();
+        List<Map<String, Object>> detalle = lista.stream()
+                .limit(propiedades.getMaxDetalleResumen())
+                .map(v -> Map.<String, Object>of(
+                        "usuario", v.usuario(),
+                        "libro", v.tituloLibro(),
+                        "fecha_prevista", v.fechaPrevista().toString(),
+                        "dias_retraso", ChronoUnit.DAYS.between(v.fechaPrevista(), hoy)))
+                .toList();
+        LOG.info("Enviando resumen de {} préstamos vencidos.", lista.size());
+        notificationService.notificarResumenVencidos(lista.size(), detalle);
+        return lista.size();
+    }
+
+    // ----- MÉTODOS PRIVADOS -----
+
+    private synchronized void programar(VencimientoPrestamo vencimiento) {
+        if (!activos.add(vencimiento.idPrestamo())) {
+            return;
+        }
+        if (vencimiento.vencidoEn(hoy())) {
+            vencidos.put(vencimiento.idPrestamo(), vencimiento);
+        } else {
+            proximos.offer(vencimiento);
+        }
+    }
+
+    private synchronized void retirar(Collection<Long> idsPrestamo) {
+        for (Long idPrestamo : idsPrestamo) {
+            activos.remove(idPrestamo);
+            vencidos.remove(idPrestamo);
+        }
+    }
+
+    private synchronized int totalVencidos() {
+        return vencidos.size();
+    }
+
+    private static LocalDate hoy() {
+        return LocalDate.now(ZoneId.systemDefault());
+    }
+
+    /** Préstamo nuevo o devoluciones recibidos durante una carga. */
+    private record Cambio(VencimientoPrestamo alta, Collection<Long> bajas) {
+    }
+}
@@ -2,130 +2,113 @@
 package com.biblioteca.service;
 
 import com.biblioteca.dto.LibroDTO;
-import com.biblioteca.model.Libro;
+import com.biblioteca.dto.PageResponse;
 import com.biblioteca.repository.LibroRepository;
-import com.biblioteca.repository.PrestamoRepository;
-import com.biblioteca.repository.SocioRepository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 public class LibroService {
 
     private final LibroRepository repositorioLibro;
-    private final PrestamoRepository repositorioPrestamo;
-    private final SocioRepository repositorioSocio;
+    private final CatalogoEnMemoria catalogo;
+    private final HistorialLecturas historialLecturas;
 
     public LibroService(
             LibroRepository repositorioLibro,
-            PrestamoRepository repositorioPrestamo,
-            SocioRepository repositorioSocio) {
+            CatalogoEnMemoria catalogo,
+            HistorialLecturas historialLecturas) {
         this.repositorioLibro = repositorioLibro;
-        this.repositorioPrestamo = repositorioPrestamo;
-        this.repositorioSocio = repositorioSocio;
+        this.catalogo = catalogo;
+        this.historialLecturas = historialLecturas;
     }
 
-    @Transactional(readOnly = true)
-    @org.springframework.cache.annotation.Cacheable(value = "libros", key = "#categoria ?: 'all'", condition = "#usuario == null && (#excluirLeidos == null || !#excluirLeidos) && (#soloLeidos == null || !#soloLeidos)")
+    // Las lecturas se sirven desde CatalogoEnMemoria: sin @Transactional para no
+    // reservar una conexión que no se va a usar.
+
     public List<LibroDTO> obtenerTodosLosLibros(String categoria, Boolean excluirLeidos, Boolean soloLeidos,
             String usuario) {
-        List<Libro> libros;
-        List<Long> idsLibrosUsuario = (usuario != null) ? obtenerIdsLibrosLeidos(usuario) : Collections.emptyList();
-        boolean tieneFiltroCategoria = categoria != null && !categoria.isEmpty() && !categoria.equals("Todas");
-
-        // Lógica "Solo Leídos"
-        if (Boolean.TRUE.equals(soloLeidos) && !idsLibrosUsuario.isEmpty()) {
-            if (tieneFiltroCategoria) {
-                // Optimización: filtrar en memoria si la lista de leídos es pequeña
-                libros = repositorioLibro.findAllById(idsLibrosUsuario).stream()
-                        .filter(l -> l.getCategoria().equals(categoria))
-                        .collect(Collectors.toList());
-            } else {
-                libros = repositorioLibro.findAllById(idsLibrosUsuario);
-            }
-        }
-        // Lógica "Excluir Leídos"
-        else if (Boolean.TRUE.equals(excluirLeidos) && !idsLibrosUsuario.isEmpty()) {
-            if (tieneFiltroCategoria) {
-                libros = repositorioLibro.findByCategoriaAndIdLibroNotIn(categoria, idsLibrosUsuario);
-            } else {
-                libros = repositorioLibro.findByIdLibroNotIn(idsLibrosUsuario);
-            }
-        }
-        // Búsqueda estándar
-        else {
-            if (tieneFiltroCategoria) {
-                libros = repositorioLibro.findByCategoria(categoria);
-            } else {
-                libros = repositorioLibro.findAll();
-            }
-        }
-
-        return libros.stream()
-                .map(this::convertirADTO)
-                .collect(Collectors.toList());
+        long[] idsLeidos = (usuario != null) ? historialLecturas.librosLeidos(usuario) : HistorialLecturas.SIN_LECTURAS;
+        return catalogo.listar(filtroCategoria(categoria), filtroLectura(excluirLeidos, soloLeidos, idsLeidos),
+                idsLeidos);
     }
 
-    @Transactional(readOnly = true)
     public Page<LibroDTO> obtenerLibrosPaginados(int pagina, int tamanio, String categoria, String busqueda,
-            Boolean excluirLeidos, String usuario) {
-        Pageable paginacion = org.springframework.data.domain.PageRequest.of(pagina, tamanio,
-                org.springframework.data.domain.Sort.by("titulo").ascending()
-                        .and(org.springframework.data.domain.Sort.by("idLibro").ascending()));
+            Boolean excluirLeidos, Boolean soloLeidos, String usuario) {
+        Pageable paginacion = org.springframework.data.domain.PageRequest.of(pagina, tamanio);
 
-        List<Long> idsExcluidos = (Boolean.TRUE.equals(excluirLeidos) && usuario != null)
-                ? obtenerIdsLibrosLeidos(usuario)
-                : Collections.emptyList();
+        long[] idsLeidos = (usuario != null && (Boolean.TRUE.equals(excluirLeidos) || Boolean.TRUE.equals(soloLeidos)))
+                ? historialLecturas.librosLeidos(usuario)
+                : HistorialLecturas.SIN_LECTURAS;
+        CatalogoEnMemoria.FiltroLectura filtro = filtroLectura(excluirLeidos, soloLeidos, idsLeidos);
 
-        boolean hayExclusiones = !idsExcluidos.isEmpty();
-
-        Page<Libro> paginaLibros;
         if (busqueda != null && !busqueda.isEmpty()) {
-            paginaLibros = hayExclusiones
-                    ? repositorioLibro.findBySearchAndIdLibroNotIn(busqueda, idsExcluidos, paginacion)
-                    : repositorioLibro.findByTituloContainingIgnoreCaseOrAutorContainingIgnoreCase(busqueda, busqueda,
-                            paginacion);
-        } else if (categoria != null && !categoria.isEmpty() && !categoria.equals("Todas")) {
-            paginaLibros = hayExclusiones
-                    ? repositorioLibro.findByCategoriaAndIdLibroNotIn(categoria, idsExcluidos, paginacion)
-                    : repositorioLibro.findByCategoria(categoria, paginacion);
-        } else {
-            paginaLibros = hayExclusiones
-                    ? repositorioLibro.findByIdLibroNotIn(idsExcluidos, paginacion)
-                    : repositorioLibro.findAll(paginacion);
+            // Índice invertido en memoria: sin tildes, por prefijo y ordenado por relevancia
+            return catalogo.buscar(busqueda, filtro, idsLeidos, paginacion);
         }
+        return catalogo.paginar(filtroCategoria(categoria), filtro, idsLeidos, paginacion);
+    }
 
-        return paginaLibros.map(this::convertirADTO);
+    /**
+     * Paginación por cursor: coste constante por página y conteo opcional. El
+     * cursor vacío o nulo pide la primera página.
+     */
+    public PageResponse<LibroDTO> obtenerLibrosPorCursor(String cursor, int tamanio, String categoria,
+            String busqueda, Boolean excluirLeidos, Boolean soloLeidos, String usuario, boolean contarTotal) {
+        CursorCatalogo desde = CursorCatalogo.decodificar(cursor);
+
+        long[] idsLeidos = (usuario != null && (Boolean.TRUE.equals(excluirLeidos) || Boolean.TRUE.equals(soloLeidos)))
+                ? historialLecturas.librosLeidos(usuario)
+                : HistorialLecturas.SIN_LECTURAS;
+        CatalogoEnMemoria.FiltroLectura filtro = filtroLectura(excluirLeidos, soloLeidos, idsLeidos);
+
+        CatalogoEnMemoria.Tramo tramo = (busqueda != null && !busqueda.isEmpty())
+                ? catalogo.buscarDesde(busqueda, filtro, idsLeidos, desde, tamanio, contarTotal)
+                : catalogo.paginarDesde(filtroCategoria(categoria), filtro, idsLeidos, desde, tamanio, contarTotal);
+
+        List<LibroDTO> contenido = tramo.contenido();
+        String siguiente = tramo.hayMas() && !contenido.isEmpty()
+                ? CursorCatalogo.de(contenido.get(contenido.size() - 1)).codificar()
+                : null;
+        return PageResponse.fromCursor(contenido, tamanio, desde == null, siguiente, tramo.total());
     }
 
-    @Transactional(readOnly = true)
     public Optional<LibroDTO> obtenerLibroPorId(@NonNull Long id) {
         Objects.requireNonNull(id, "El ID del libro no puede ser nulo");
-        // Aseguramos que el cache funcione evitando lógica compleja aquí
-        return repositorioLibro.findById(id).map(this::convertirADTO);
+        // Los libros dados de alta directamente en Oracle no están en la instantánea
+        // hasta el siguiente refresco periódico
+        return catalogo.buscarPorId(id).or(() -> repositorioLibro.findById(id).map(LibroDTO::fromEntity));
     }
 
     // ------------------------------------------------------------------------------------------------
     // MÉTODOS PRIVADOS
     // ------------------------------------------------------------------------------------------------
 
-    private LibroDTO convertirADTO(Libro libro) {
-        // Optimizado: usa campos calculados con @Formula si aplica
-        return LibroDTO.fromEntity(libro);
+    private String filtroCategoria(String categoria) {
+        return (categoria != null && !categoria.isEmpty() && !categoria.equals("Todas")) ? categoria : null;
     }
 
-    private List<Long> obtenerIdsLibrosLeidos(String usuario) {
-        return repositorioSocio.findByUsuario(usuario)
-                .map(s -> repositorioPrestamo.findIdsLibrosLeidosBySocio(s.getIdSocio()))
-                .orElse(Collections.emptyList());
+    /**
+     * "Solo leídos" tiene prioridad sobre "excluir leídos". Sin historial ningún
+     * filtro aplica y se devuelve el catálogo completo.
+     */
+    private CatalogoEnMemoria.FiltroLectura filtroLectura(Boolean excluirLeidos, Boolean soloLeidos,
+            long[] idsLeidos) {
+        if (idsLeidos.length == 0) {
+            return CatalogoEnMemoria.FiltroLectura.TODOS;
+        }
+        if (Boolean.TRUE.equals(soloLeidos)) {
+            return CatalogoEnMemoria.FiltroLectura.SOLO_LEIDOS;
+        }
+        if (Boolean.TRUE.equals(excluirLeidos)) {
+            return CatalogoEnMemoria.FiltroLectura.EXCLUIR_LEIDOS;
+        }
+        return CatalogoEnMemoria.FiltroLectura.TODOS;
     }
 }
@@ -0,0 +1,184 @@
+package com.biblioteca.service;
+
+/**
+ * Mapa de {@code long} a {@code int} con direccionamiento abierto y sondeo
+ * lineal sobre dos arrays paralelos, sin un objeto por entrada.
+ * <p>
+ * Solo guarda valores positivos: una casilla con valor 0 está libre, así que no
+ * hace falta una clave centinela. No admite borrados; quien necesite vaciarlo
+ * crea uno nuevo. No es seguro entre hilos.
+ */
+final class MapaLongInt {
+
+    @FunctionalInterface
+    interface Consumidor {
+        void aceptar(long clave, int valor);
+    }
+
+    private static final int CAPACIDAD_MINIMA = 4;
+
+    private long[] claves;
+    private int[] valores;
+    private int tamanio;
+    private int mascara;
+    // Se crece al superar 3/4 de ocupación
+    private int umbral;
+
+    MapaLongInt() {
+        reservar(CAPACIDAD_MINIMA);
+    }
+
+    /** @return valor de la clave, o 0 si no está */
+    int get(long clave) {
+        return valores[posicion(clave)];
+    }
+
+    /**
+     * Fija el valor de la clave.
+     *
+     * @param valor mayor que 0
+     */
+    void poner(long clave, int valor) {
+        comprobarPositivo(valor);
+        int i = posicion(clave);
+        if (valores[i] == 0) {
+            insertar(i, clave, valor);
+        } else {
+            valores[i] = valor;
+        }
+    }
+
+    /**
+     * Suma {@code incremento} al valor de la clave, que empieza en 0.
+     *
+     * @param incremento mayor que 0
+     * @return valor resultante
+     */
+    int sumar(long clave, int incremento) {
+        comprobarPositivo(incremento);
+        int i = posicion(clave);
+        if (valores[i] == 0) {
+            insertar(i, clave, incremento);
+            return incremento;
+        }
+        return valores[i] += incremento;
+    }
+
+    int tamanio() {
+        return tamanio;
+    }
+
+    void recorrer(Consumidor consumidor) {
+        for (int i = 0; i < valores.length; i++) {
+            if (valores[i] != 0) {
+                consumidor.aceptar(claves[i], valores[i]);
+            }
+        }
+    }
+
+    /**
+     * Claves ordenadas de mayor a menor valor; a igual valor, por clave. Ordena
+     * por montículo sobre dos arrays paralelos, sin un objeto por entrada.
+     */
+    long[] clavesPorValorDescendente() {
+        long[] resultado = new long[tamanio];
+        int[] orden = new int[tamanio];
+        int n = 0;
+        for (int i = 0; i < valores.length; i++) {
+            if (valores[i] != 0) {
+                resultado[n] = claves[i];
+                orden[n++] = valores[i];
+            }
+        }
+        // Montículo con el último en orden en la raíz, que se lleva al final
+        for (int i = n / 2 - 1; i >= 0; i--) {
+            hundir(resultado, orden, i, n);
+        }
+        for (int fin = n - 1; fin > 0; fin--) {
+            intercambiar(resultado, orden, 0, fin);
+            hundir(resultado, orden, 0, fin);
+        }
+        return resultado;
+    }
+
+    /** {@code true} si la entrada (a, valorA) va antes que (b, valorB) en el orden descendente. */
+    static boolean antes(long a, int valorA, long b, int valorB) {
+        return valorA != valorB ? valorA > valorB : a < b;
+    }
+
+    // ----- MÉTODOS PRIVADOS -----
+
+    private static void hundir(long[] ids, int[] orden, int i, int n) {
+        while (true) {
+            int hijo = 2 * i + 1;
+            if (hijo >= n) {
+                return;
+            }
+            if (hijo + 1 < n && antes(ids[hijo], orden[hijo], ids[hijo + 1], orden[hijo + 1])) {
+                hijo++;
+            }
+            if (!antes(ids[i], orden[i], ids[hijo], orden[hijo])) {
+                return;
+            }
+            intercambiar(ids, orden, i, hijo);
+            i = hijo;
+        }
+    }
+
+    private static void intercambiar(long[] ids, int[] orden, int i, int j) {
+        long id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+        int valor = orden[i];
+        orden[i] = orden[j];
+        orden[j] = valor;
+    }
+
+    /** Casilla de la clave o, si no está, la casilla libre donde iría. */
+    private int posicion(long clave) {
+        int i = dispersar(clave) & mascara;
+        while (valores[i] != 0 && claves[i] != clave) {
+            i = (i + 1) & mascara;
+        }
+        return i;
+    }
+
+    private void insertar(int i, long clave, int valor) {
+        claves[i] = clave;
+        valores[i] = valor;
+        if (++tamanio > umbral) {
+            crecer();
+        }
+    }
+
+    private static void comprobarPositivo(int valor) {
+        if (valor <= 0) {
+            throw new IllegalArgumentException("Solo se admiten valores positivos: " + valor);
+        }
+    }
+
+    static int dispersar(long clave) {
+        long h = clave * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void reservar(int capacidad) {
+        claves = new long[capacidad];
+        valores = new int[capacidad];
+        mascara = capacidad - 1;
+        umbral = capacidad - (capacidad >>> 2);
+    }
+
+    private void crecer() {
+        long[] clavesAnteriores = claves;
+        int[] valoresAnteriores = valores;
+        reservar(claves.length << 1);
+        for (int i = 0; i < valoresAnteriores.length; i++) {
+            if (valoresAnteriores[i] != 0) {
+                int j = posicion(clavesAnteriores[i]);
+                claves[j] = clavesAnteriores[i];
+                valores[j] = valoresAnteriores[i];
+            }
+        }
+    }
+}
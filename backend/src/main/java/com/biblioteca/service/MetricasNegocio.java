@@ -0,0 +1,90 @@
+package com.biblioteca.service;
+
+import com.biblioteca.model.EstadoBloqueo;
+import com.biblioteca.model.EstadoEjemplar;
+import com.biblioteca.model.EstadoPrestamo;
+import com.biblioteca.repository.BloqueoRepository;
+import com.biblioteca.repository.EjemplarRepository;
+import com.biblioteca.repository.PrestamoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Métricas de negocio que la instrumentación de Spring no ve: rechazos por
+ * regla incumplida e inventario de préstamos, reservas y ejemplares.
+ * <p>
+ * El inventario se cuenta en la base de datos cada
+ * {@code app.metricas.inventario-intervalo-ms} y los gauges devuelven el último
+ * recuento, así que un scrape de Prometheus no lanza consultas.
+ */
+@Component
+public class MetricasNegocio {
+
+    /** Regla que impidió la operación; etiqueta {@code motivo} de {@code negocio.rechazos}. */
+    public enum MotivoRechazo {
+        EJEMPLAR_NO_DISPONIBLE,
+        SIN_EJEMPLARES_LIBRES,
+        EJEMPLAR_RESERVADO,
+        LIMITE_LECTURAS,
+        LIBRO_DUPLICADO,
+        SOCIO_PENALIZADO,
+        PRESTAMO_YA_DEVUELTO,
+        BLOQUEO_NO_ACTIVO,
+        CONFLICTO_DATOS
+    }
+
+    private final PrestamoRepository repositorioPrestamo;
+    private final BloqueoRepository repositorioBloqueo;
+    private final EjemplarRepository repositorioEjemplar;
+
+    private final Map<MotivoRechazo, Counter> rechazos = new EnumMap<>(MotivoRechazo.class);
+    private final AtomicLong prestamosActivos = new AtomicLong();
+    private final AtomicLong bloqueosActivos = new AtomicLong();
+    private final AtomicLong ejemplaresDisponibles = new AtomicLong();
+
+    public MetricasNegocio(PrestamoRepository repositorioPrestamo, BloqueoRepository repositorioBloqueo,
+            EjemplarRepository repositorioEjemplar, MeterRegistry meterRegistry) {
+        this.repositorioPrestamo = repositorioPrestamo;
+        this.repositorioBloqueo = repositorioBloqueo;
+        this.repositorioEjemplar = repositorioEjemplar;
+
+        for (MotivoRechazo motivo : MotivoRechazo.values()) {
+            rechazos.put(motivo, Counter.builder("negocio.rechazos")
+                    .description("Operaciones rechazadas por una regla de negocio")
+                    .tag("motivo", motivo.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+        Gauge.builder("prestamos.activos", prestamosActivos, AtomicLong::get)
+                .description("Préstamos en estado ACTIVO")
+                .register(meterRegistry);
+        Gauge.builder("bloqueos.activos", bloqueosActivos, AtomicLong::get)
+                .description("Reservas activas y aún en plazo")
+                .register(meterRegistry);
+        Gauge.builder("ejemplares.disponibles", ejemplaresDisponibles, AtomicLong::get)
+                .description("Ejemplares en estado DISPONIBLE")
+                .register(meterRegistry);
+    }
+
+    public void registrarRechazo(MotivoRechazo motivo) {
+        rechazos.get(motivo).increment();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.metricas.inventario-intervalo-ms:30000}", initialDelayString = "${app.metricas.inventario-intervalo-ms:30000}")
+    public void actualizarInventario() {
+        prestamosActivos.set(repositorioPrestamo.countByEstado(EstadoPrestamo.ACTIVO));
+        bloqueosActivos.set(repositorioBloqueo.countByEstadoAndFechaFinAfter(EstadoBloqueo.ACTIVO, new Date()));
+        ejemplaresDisponibles.set(repositorioEjemplar.countByEstado(EstadoEjemplar.DISPONIBLE));
+    }
+}
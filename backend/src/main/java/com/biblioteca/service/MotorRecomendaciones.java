@@ -0,0 +1,456 @@
+package com.biblioteca.service;
+
+import com.biblioteca.config.EnrutamientoDataSource;
+import com.biblioteca.dto.LibroDTO;
+import com.biblioteca.dto.RecomendacionDTO;
+import com.biblioteca.events.PrestamoCreadoEvent;
+import com.biblioteca.repository.LecturaSocio;
+import com.biblioteca.repository.PrestamoRepository;
+import com.biblioteca.service.CatalogoEnMemoria.FiltroLectura;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Recomendaciones locales por coocurrencia: dos libros están más relacionados
+ * cuantos más socios han tenido prestados ambos.
+ * <p>
+ * La matriz libro × libro se guarda dispersa, una fila {@link MapaLongInt} por
+ * libro, junto con los libros de cada socio y el número de lectores de cada
+ * libro. Se reconstruye desde PRESTAMO al arrancar y cada
+ * {@code app.recomendaciones.reconstruccion-ms}; entretanto cada préstamo
+ * confirmado suma sus pares. Una consulta solo recorre las filas de los libros
+ * del socio, sin ir a la base de datos, y los títulos se resuelven contra
+ * {@link CatalogoEnMemoria}, que además descarta los libros dados de baja.
+ */
+@Service
+public class MotorRecomendaciones {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MotorRecomendaciones.class);
+
+    static final String MOTIVO_COOCURRENCIA = "Otros lectores de tus libros también lo eligieron.";
+    static final String MOTIVO_POPULAR = "Uno de los títulos más leídos de la biblioteca.";
+    static final String MOTIVO_DESTACADO = "Sugerencia destacada de nuestra colección.";
+
+    private final PrestamoRepository repositorioPrestamo;
+    private final CatalogoEnMemoria catalogo;
+    private final Object cerrojoReconstruccion = new Object();
+
+    // Los préstamos modifican la matriz con el cerrojo de escritura; las consultas
+    // comparten el de lectura
+    private final ReentrantReadWriteLock cerrojo = new ReentrantReadWriteLock();
+    private Matriz actual = new Matriz();
+    // No nulo mientras se reconstruye: préstamos que la consulta pudo no ver
+    private List<LecturaSocio> pendientes;
+
+    public MotorRecomendaciones(PrestamoRepository repositorioPrestamo, CatalogoEnMemoria catalogo) {
+        this.repositorioPrestamo = repositorioPrestamo;
+        this.catalogo = catalogo;
+    }
+
+    /**
+     * Libros que no ha leído el socio, primero los que más comparten lectores con
+     * los suyos, después los más leídos y, si aún faltan, al azar.
+     *
+     * @param idSocio {@code null} si no se conoce al socio
+     */
+    public List<RecomendacionDTO> recomendarParaSocio(Long idSocio, int cuantas) {
+        long[] leidos;
+        Set<String> categoriasLeidas = new HashSet<>();
+        List<RecomendacionDTO> resultado = new ArrayList<>(cuantas);
+        Set<Long> elegidos = new HashSet<>();
+        // El ranking de más leídos se recorre en su sitio, sin copiarlo
+        cerrojo.readLock().lock();
+        try {
+            Matriz matriz = actual;
+            leidos = idSocio != null ? matriz.librosDe(idSocio) : HistorialLecturas.SIN_LECTURAS;
+            for (long idLibro : leidos) {
+                catalogo.buscarPorId(idLibro).map(LibroDTO::categoria).ifPresent(categoriasLeidas::add);
+            }
+
+            // Margen para los que ya no estén en el catálogo
+            for (long idLibro : matriz.relacionados(leidos, cuantas * 2)) {
+                if (resultado.size() == cuantas) {
+                    break;
+                }
+                catalogo.buscarPorId(idLibro).ifPresent(libro -> {
+                    elegidos.add(libro.id());
+                    resultado.add(new RecomendacionDTO(libro.titulo(), MOTIVO_COOCURRENCIA));
+                });
+            }
+            for (int i = 0; i < matriz.numLibros() && resultado.size() < cuantas; i++) {
+                long idLibro = matriz.masLeido(i);
+                if (Arrays.binarySearch(leidos, idLibro) < 0 && !elegidos.contains(idLibro)) {
+                    catalogo.buscarPorId(idLibro).ifPresent(libro -> {
+                        elegidos.add(libro.id());
+                        resultado.add(new RecomendacionDTO(libro.titulo(), motivo(libro, categoriasLeidas, MOTIVO_POPULAR)));
+                    });
+                }
+            }
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+        if (resultado.size() < cuantas) {
+            for (LibroDTO libro : catalogo.muestraAleatoria(null, FiltroLectura.EXCLUIR_LEIDOS, leidos, cuantas)) {
+                if (resultado.size() < cuantas && elegidos.add(libro.id())) {
+                    resultado.add(new RecomendacionDTO(libro.titulo(), motivo(libro, categoriasLeidas, MOTIVO_DESTACADO)));
+                }
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * El libro más leído de cada categoría pedida (uno al azar si la categoría
+     * no tiene préstamos), completado con los más leídos de la biblioteca.
+     */
+    public List<LibroDTO> recomendarPorCategorias(List<String> categorias, int cuantos) {
+        List<LibroDTO> resultado = new ArrayList<>(cuantos);
+        Set<Long> elegidos = new HashSet<>();
+        Set<String> sinElegir = new LinkedHashSet<>(categorias);
+        cerrojo.readLock().lock();
+        try {
+            Matriz matriz = actual;
+            for (int i = 0; i < matriz.numLibros() && resultado.size() < cuantos && !sinElegir.isEmpty(); i++) {
+                catalogo.buscarPorId(matriz.masLeido(i))
+                        .filter(libro -> sinElegir.remove(libro.categoria()))
+                        .ifPresent(libro -> agregar(libro, resultado, elegidos));
+            }
+            for (String categoria : sinElegir) {
+                if (resultado.size() == cuantos) {
+                    break;
+                }
+                catalogo.muestraAleatoria(categoria, FiltroLectura.TODOS, HistorialLecturas.SIN_LECTURAS, 1)
+                        .forEach(libro -> agregar(libro, resultado, elegidos));
+            }
+            for (int i = 0; i < matriz.numLibros() && resultado.size() < cuantos; i++) {
+                long idLibro = matriz.masLeido(i);
+                if (!elegidos.contains(idLibro)) {
+                    catalogo.buscarPorId(idLibro).ifPresent(libro -> agregar(libro, resultado, elegidos));
+                }
+            }
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+        if (resultado.size() < cuantos) {
+            for (LibroDTO libro : catalogo.muestraAleatoria(null, FiltroLectura.TODOS, HistorialLecturas.SIN_LECTURAS,
+                    cuantos)) {
+                if (resultado.size() < cuantos && !elegidos.contains(libro.id())) {
+                    agregar(libro, resultado, elegidos);
+                }
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Reconstruye la matriz con todo el historial de PRESTAMO. Los préstamos que
+     * se confirman mientras tanto se aplican también sobre la nueva.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.recomendaciones.reconstruccion-ms:21600000}", initialDelayString = "${app.recomendaciones.reconstruccion-ms:21600000}")
+    @Transactional(readOnly = true)
+    public void reconstruir() {
+        synchronized (cerrojoReconstruccion) {
+            long inicio = System.nanoTime();
+            cerrojo.writeLock().lock();
+            try {
+                pendientes = new ArrayList<>();
+            } finally {
+                cerrojo.writeLock().unlock();
+            }
+
+            Matriz nueva = new Matriz();
+            try {
+                // De la primaria: solo los préstamos confirmados desde aquí llegan por pendientes
+                try (Stream<LecturaSocio> lecturas = EnrutamientoDataSource.enPrimaria(repositorioPrestamo::streamLecturas)) {
+                    cargar(nueva, lecturas.iterator());
+                }
+                cerrojo.writeLock().lock();
+                try {
+                    for (LecturaSocio lectura : pendientes) {
+                        nueva.registrar(lectura.idSocio(), lectura.idLibro());
+                    }
+                    actual = nueva;
+                } finally {
+                    cerrojo.writeLock().unlock();
+                }
+            } finally {
+                cerrojo.writeLock().lock();
+                try {
+                    pendientes = null;
+                } finally {
+                    cerrojo.writeLock().unlock();
+                }
+            }
+            LOG.debug("Matriz de coocurrencia reconstruida: {} socios, {} libros en {} ms", nueva.numSocios(),
+                    nueva.numLibros(), (System.nanoTime() - inicio) / 1_000_000);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCrearPrestamo(PrestamoCreadoEvent evento) {
+        if (evento.getIdSocio() == null || evento.getIdLibro() == null) {
+            return;
+        }
+        cerrojo.writeLock().lock();
+        try {
+            actual.registrar(evento.getIdSocio(), evento.getIdLibro());
+            if (pendientes != null) {
+                pendientes.add(new LecturaSocio(evento.getIdSocio(), evento.getIdLibro()));
+            }
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    // ----- MÉTODOS PRIVADOS -----
+
+    /** Las lecturas llegan agrupadas por socio: se dan de alta socio a socio. */
+    private static void cargar(Matriz matriz, Iterator<LecturaSocio> lecturas) {
+        long[] libros = new long[16];
+        int numLibros = 0;
+        long idSocio = 0;
+        while (lecturas.hasNext()) {
+            LecturaSocio lectura = lecturas.next();
+            if (numLibros > 0 && lectura.idSocio() != idSocio) {
+                matriz.registrarSocio(idSocio, Arrays.copyOf(libros, numLibros));
+                numLibros = 0;
+            }
+            idSocio = lectura.idSocio();
+            if (numLibros == libros.length) {
+                libros = Arrays.copyOf(libros, numLibros * 2);
+            }
+            libros[numLibros++] = lectura.idLibro();
+        }
+        if (numLibros > 0) {
+            matriz.registrarSocio(idSocio, Arrays.copyOf(libros, numLibros));
+        }
+        matriz.ordenarMasLeidos();
+    }
+
+    private static String motivo(LibroDTO libro, Set<String> categoriasLeidas, String motivoPorDefecto) {
+        return categoriasLeidas.contains(libro.categoria())
+                ? "Te gustó " + libro.categoria() + ", creemos que disfrutarás este título."
+                : motivoPorDefecto;
+    }
+
+    private static void agregar(LibroDTO libro, List<LibroDTO> resultado, Set<Long> elegidos) {
+        if (elegidos.add(libro.id())) {
+            resultado.add(libro);
+        }
+    }
+
+    /**
+     * Coocurrencias, libros de cada socio y lectores por libro. No es segura
+     * entre hilos: la protege el cerrojo del motor.
+     */
+    static final class Matriz {
+
+        // Posición + 1 de la fila de cada libro en "filas"
+        private final MapaLongInt posicionFila = new MapaLongInt();
+        private final List<MapaLongInt> filas = new ArrayList<>();
+        private final MapaLongInt lectores = new MapaLongInt();
+        // IDs de libros ordenados, para buscar por bisección
+        private final Map<Long, long[]> librosPorSocio = new HashMap<>();
+        // IDs de libros con algún préstamo, del más leído al menos leído (a igual
+        // número de lectores, por ID), y posición + 1 de cada uno en el ranking.
+        // Se ordena entero tras la carga y cada préstamo sube su libro en su sitio
+        private long[] masLeidos = HistorialLecturas.SIN_LECTURAS;
+        private final MapaLongInt posicionMasLeidos = new MapaLongInt();
+        private boolean masLeidosOrdenados = true;
+
+        /**
+         * Suma un préstamo. Repetir un libro que el socio ya tuvo no cambia nada.
+         */
+        void registrar(long idSocio, long idLibro) {
+            long[] previos = librosPorSocio.getOrDefault(idSocio, HistorialLecturas.SIN_LECTURAS);
+            int i = Arrays.binarySearch(previos, idLibro);
+            if (i >= 0) {
+                return;
+            }
+            int hueco = -i - 1;
+            long[] libros = new long[previos.length + 1];
+            System.arraycopy(previos, 0, libros, 0, hueco);
+            libros[hueco] = idLibro;
+            System.arraycopy(previos, hueco, libros, hueco + 1, previos.length - hueco);
+            librosPorSocio.put(idSocio, libros);
+
+            MapaLongInt filaNuevo = fila(idLibro);
+            for (long otro : previos) {
+                fila(otro).sumar(idLibro, 1);
+                filaNuevo.sumar(otro, 1);
+            }
+            subirEnMasLeidos(idLibro, lectores.sumar(idLibro, 1));
+        }
+
+        /**
+         * Alta de todos los libros de un socio que aún no está en la matriz. Es para
+         * la carga inicial: no mantiene el ranking de más leídos, que se ordena
+         * después con {@link #ordenarMasLeidos}.
+         *
+         * @param libros IDs sin repetir
+         */
+        void registrarSocio(long idSocio, long[] libros) {
+            Arrays.sort(libros);
+            librosPorSocio.put(idSocio, libros);
+            for (int i = 0; i < libros.length; i++) {
+                MapaLongInt filaI = fila(libros[i]);
+                for (int j = i + 1; j < libros.length; j++) {
+                    filaI.sumar(libros[j], 1);
+                    fila(libros[j]).sumar(libros[i], 1);
+                }
+                lectores.sumar(libros[i], 1);
+            }
+            masLeidosOrdenados = false;
+        }
+
+        /** Ordena el ranking de más leídos desde cero, tras una carga. */
+        void ordenarMasLeidos() {
+            masLeidos = lectores.clavesPorValorDescendente();
+            for (int i = 0; i < masLeidos.length; i++) {
+                posicionMasLeidos.poner(masLeidos[i], i + 1);
+            }
+            masLeidosOrdenados = true;
+        }
+
+        long[] librosDe(long idSocio) {
+            return librosPorSocio.getOrDefault(idSocio, HistorialLecturas.SIN_LECTURAS);
+        }
+
+        /**
+         * Hasta {@code cuantos} libros fuera de {@code leidos}, ordenados por el
+         * número de coocurrencias con ellos y, a igualdad, por lectores.
+         *
+         * @param leidos IDs ordenados
+         */
+        long[] relacionados(long[] leidos, int cuantos) {
+            MapaLongInt puntuaciones = new MapaLongInt();
+            for (long leido : leidos) {
+                int pos = posicionFila.get(leido);
+                if (pos > 0) {
+                    filas.get(pos - 1).recorrer((otro, veces) -> {
+                        if (Arrays.binarySearch(leidos, otro) < 0) {
+                            puntuaciones.sumar(otro, veces);
+                        }
+                    });
+                }
+            }
+            return mejores(puntuaciones, cuantos);
+        }
+
+        /**
+         * Libro en la posición {@code i} del ranking de más leídos, de 0 a
+         * {@link #numLibros()} - 1.
+         */
+        long masLeido(int i) {
+            return masLeidos[i];
+        }
+
+        int numSocios() {
+            return librosPorSocio.size();
+        }
+
+        int numLibros() {
+            return lectores.tamanio();
+        }
+
+        /**
+         * Recoloca un libro que acaba de ganar un lector: solo puede subir, hasta
+         * delante del primero que ahora queda por detrás. Desplaza los libros que
+         * salta, normalmente pocos, en lugar de reordenar todo el ranking.
+         */
+        private void subirEnMasLeidos(long idLibro, int numLectores) {
+            if (!masLeidosOrdenados) {
+                ordenarMasLeidos();
+                return;
+            }
+            int pos = posicionMasLeidos.get(idLibro) - 1;
+            if (pos < 0) {
+                pos = lectores.tamanio() - 1;
+                if (pos == masLeidos.length) {
+                    masLeidos = Arrays.copyOf(masLeidos, Math.max(16, pos * 2));
+                }
+            }
+            // Búsqueda binaria del primero de [0, pos) que va detrás del libro
+            int desde = 0;
+            int hasta = pos;
+            while (desde < hasta) {
+                int medio = (desde + hasta) >>> 1;
+                long otro = masLeidos[medio];
+                if (MapaLongInt.antes(idLibro, numLectores, otro, lectores.get(otro))) {
+                    hasta = medio;
+                } else {
+                    desde = medio + 1;
+                }
+            }
+            System.arraycopy(masLeidos, desde, masLeidos, desde + 1, pos - desde);
+            masLeidos[desde] = idLibro;
+            for (int i = desde; i <= pos; i++) {
+                posicionMasLeidos.poner(masLeidos[i], i + 1);
+            }
+        }
+
+        private MapaLongInt fila(long idLibro) {
+            int pos = posicionFila.get(idLibro);
+            if (pos == 0) {
+                filas.add(new MapaLongInt());
+                pos = filas.size();
+                posicionFila.poner(idLibro, pos);
+            }
+            return filas.get(pos - 1);
+        }
+
+        /** Selección de los k mayores por inserción: k es pequeño. */
+        private long[] mejores(MapaLongInt puntuaciones, int k) {
+            long[] ids = new long[k];
+            int[] valores = new int[k];
+            int[] n = { 0 };
+            puntuaciones.recorrer((idLibro, puntuacion) -> {
+                int i = n[0];
+                while (i > 0 && mejorQue(idLibro, puntuacion, ids[i - 1], valores[i - 1])) {
+                    i--;
+                }
+                if (i == k) {
+                    return;
+                }
+                int ultimo = Math.min(n[0], k - 1);
+                System.arraycopy(ids, i, ids, i + 1, ultimo - i);
+                System.arraycopy(valores, i, valores, i + 1, ultimo - i);
+                ids[i] = idLibro;
+                valores[i] = puntuacion;
+                if (n[0] < k) {
+                    n[0]++;
+                }
+            });
+            return Arrays.copyOf(ids, n[0]);
+        }
+
+        private boolean mejorQue(long idLibro, int puntuacion, long otroId, int otraPuntuacion) {
+            if (puntuacion != otraPuntuacion) {
+                return puntuacion > otraPuntuacion;
+            }
+            int lectoresLibro = lectores.get(idLibro);
+            int lectoresOtro = lectores.get(otroId);
+            return lectoresLibro != lectoresOtro ? lectoresLibro > lectoresOtro : idLibro < otroId;
+        }
+    }
+}
@@ -2,8 +2,15 @@ package com.biblioteca.service;
 
 import org.springframework.stereotype.Service;
 
+import java.util.List;
 import java.util.Map;
 
+/**
+ * Compone los avisos del chat de administración en Markdown de Telegram. Los
+ * valores interpolados (títulos, nombres) se escapan con {@link #escaparMarkdown(Object)}:
+ * un {@code *} o {@code _} suelto invalidaría el envío entero, que agrupa varios
+ * avisos.
+ */
 @Service
 public class NotificationService {
 
@@ -20,10 +27,10 @@ public class NotificationService {
                                                 "📘 *Libro:* %s\n" +
                                                 "📅 *Prevista:* %s\n" +
                                                 "🛑 *Retraso:* %s días",
-                                datos.getOrDefault("usuario", "N/A"),
-                                datos.getOrDefault("libro", "N/A"),
-                                datos.getOrDefault("fecha_prevista", "N/A"),
-                                datos.getOrDefault("dias_retraso", "0"));
+                                escaparMarkdown(datos.getOrDefault("usuario", "N/A")),
+                                escaparMarkdown(datos.getOrDefault("libro", "N/A")),
+                                escaparMarkdown(datos.getOrDefault("fecha_prevista", "N/A")),
+                                escaparMarkdown(datos.getOrDefault("dias_retraso", "0")));
                 telegramService.enviarMensaje(mensaje);
         }
 
@@ -33,7 +40,7 @@ public class NotificationService {
                                                 "👤 *Usuario:* %s\n" +
                                                 "📖 *Libro:* %s\n" +
                                                 "⏰ *Expira:* 24h",
-                                usuario, tituloLibro);
+                                escaparMarkdown(usuario), escaparMarkdown(tituloLibro));
                 telegramService.enviarMensaje(mensaje);
         }
 
@@ -42,7 +49,95 @@ public class NotificationService {
                                 "📖 *Nuevo Préstamo*\n\n" +
                                                 "👤 *Usuario:* %s\n" +
                                                 "📘 *Libro:* %s",
-                                usuario, tituloLibro);
+                                escaparMarkdown(usuario), escaparMarkdown(tituloLibro));
                 telegramService.enviarMensaje(mensaje);
         }
+
+        /**
+         * Un único aviso para un lote de préstamos del mostrador, en lugar de uno
+         * por préstamo.
+         *
+         * @param total   Préstamos creados en el lote.
+         * @param detalle Socio y libro de los primeros préstamos.
+         */
+        public void notificarPrestamosEnLote(int total, List<Map<String, Object>> detalle) {
+                StringBuilder mensaje = new StringBuilder(String.format("📚 *Préstamos en Lote* (%d)%n", total));
+                for (Map<String, Object> prestamo : detalle) {
+                        mensaje.append(String.format("%n👤 %s — 📘 %s",
+                                        escaparMarkdown(prestamo.getOrDefault("nombre_socio", "N/A")),
+                                        escaparMarkdown(prestamo.getOrDefault("libro", "N/A"))));
+                }
+                anadirRestantes(mensaje, total - detalle.size());
+                telegramService.enviarMensaje(mensaje.toString());
+        }
+
+        /**
+         * Un único aviso con las devoluciones tardías de un lote.
+         *
+         * @param total   Devoluciones tardías del lote.
+         * @param detalle Usuario, libro, fecha prevista y días de retraso de las
+         *                primeras.
+         */
+        public void notificarDevolucionesTardiasEnLote(int total, List<Map<String, Object>> detalle) {
+                StringBuilder mensaje = new StringBuilder(String.format("⚠️ *Devoluciones Tardías* (%d)%n", total));
+                for (Map<String, Object> devolucion : detalle) {
+                        mensaje.append(String.format("%n👤 %s — 📘 %s — 📅 %s (🛑 %s días)",
+                                        escaparMarkdown(devolucion.getOrDefault("usuario", "N/A")),
+                                        escaparMarkdown(devolucion.getOrDefault("libro", "N/A")),
+                                        escaparMarkdown(devolucion.getOrDefault("fecha_prevista", "N/A")),
+                                        escaparMarkdown(devolucion.getOrDefault("dias_retraso", "0"))));
+                }
+                anadirRestantes(mensaje, total - detalle.size());
+                telegramService.enviarMensaje(mensaje.toString());
+        }
+
+        /**
+         * Resumen diario de los préstamos activos fuera de plazo.
+         *
+         * @param total   Préstamos vencidos.
+         * @param detalle Usuario, libro, fecha prevista y días de retraso de los
+         *                más atrasados.
+         */
+        public void notificarResumenVencidos(int total, List<Map<String, Object>> detalle) {
+                StringBuilder mensaje = new StringBuilder(String.format("⏰ *Préstamos Vencidos* (%d)%n", total));
+                for (Map<String, Object> prestamo : detalle) {
+                        mensaje.append(String.format("%n👤 %s — 📘 %s — 📅 %s (🛑 %s días)",
+                                        escaparMarkdown(prestamo.getOrDefault("usuario", "N/A")),
+                                        escaparMarkdown(prestamo.getOrDefault("libro", "N/A")),
+                                        escaparMarkdown(prestamo.getOrDefault("fecha_prevista", "N/A")),
+                                        escaparMarkdown(prestamo.getOrDefault("dias_retraso", "0"))));
+                }
+                anadirRestantes(mensaje, total - detalle.size());
+                telegramService.enviarMensaje(mensaje.toString());
+        }
+
+        /**
+         * Escapa los caracteres con significado en el Markdown de Telegram
+         * ({@code _ * ` [}) para que el valor se muestre tal cual.
+         */
+        static String escaparMarkdown(Object valor) {
+                String texto = String.valueOf(valor);
+                StringBuilder escapado = null;
+                for (int i = 0; i < texto.length(); i++) {
+                        char c = texto.charAt(i);
+                        if (c == '_' || c == '*' || c == '`' || c == '[') {
+                                if (escapado == null) {
+                                        escapado = new StringBuilder(texto.length() + 8).append(texto, 0, i);
+                                }
+                                escapado.append('\\');
+                        }
+                        if (escapado != null) {
+                                escapado.append(c);
+                        }
+                }
+                return escapado == null ? texto : escapado.toString();
+        }
+
+        // ----- MÉTODOS PRIVADOS -----
+
+        private static void anadirRestantes(StringBuilder mensaje, int restantes) {
+                if (restantes > 0) {
+                        mensaje.append(String.format("%n%n… y %d más", restantes));
+                }
+        }
 }
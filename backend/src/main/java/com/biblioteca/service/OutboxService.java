@@ -0,0 +1,39 @@
+package com.biblioteca.service;
+
+import com.biblioteca.model.EventoOutbox;
+import com.biblioteca.model.TipoEventoOutbox;
+import com.biblioteca.repository.EventoOutboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+
+/**
+ * Registro de eventos en el outbox transaccional.
+ * <p>
+ * Exige una transacción en curso: el evento se confirma o se descarta junto con
+ * el cambio de negocio que lo origina, y OutboxRelay lo entrega tras el commit.
+ */
+@Service
+public class OutboxService {
+
+    private final EventoOutboxRepository repositorioOutbox;
+    private final ObjectMapper objectMapper;
+
+    public OutboxService(EventoOutboxRepository repositorioOutbox, ObjectMapper objectMapper) {
+        this.repositorioOutbox = repositorioOutbox;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(TipoEventoOutbox tipo, Map<String, Object> datos) {
+        try {
+            repositorioOutbox.save(new EventoOutbox(tipo, objectMapper.writeValueAsString(datos)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el evento " + tipo, e);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.biblioteca.service;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Construcción de la paginación de los listados de administración a partir de
+ * los parámetros de la petición.
+ * <p>
+ * El orden llega como {@code campo[,asc|desc]} y solo se aceptan los campos de
+ * la lista blanca de cada listado, que los traduce a la propiedad JPA. Siempre
+ * se desempata por el identificador para que las páginas sean estables.
+ */
+final class Paginacion {
+
+    static final int TAMANIO_MAXIMO = 100;
+
+    private Paginacion() {
+    }
+
+    static Pageable de(int pagina, int tamanio, String orden, Map<String, String> camposOrden, String campoPorDefecto,
+            String propiedadId) {
+        if (pagina < 0) {
+            throw new IllegalArgumentException("La página no puede ser negativa.");
+        }
+        if (tamanio < 1 || tamanio > TAMANIO_MAXIMO) {
+            throw new IllegalArgumentException("El tamaño de página debe estar entre 1 y " + TAMANIO_MAXIMO + ".");
+        }
+
+        String[] partes = (orden == null || orden.isBlank() ? campoPorDefecto : orden).split(",");
+        String propiedad = camposOrden.get(partes[0].trim());
+        if (propiedad == null) {
+            throw new IllegalArgumentException("Campo de orden no válido: " + partes[0].trim()
+                    + ". Valores permitidos: " + String.join(", ", new TreeSet<>(camposOrden.keySet())));
+        }
+        Sort.Direction direccion = partes.length > 1
+                ? Sort.Direction.fromOptionalString(partes[1].trim()).orElseThrow(
+                        () -> new IllegalArgumentException("Dirección de orden no válida: " + partes[1].trim()))
+                : Sort.Direction.ASC;
+
+        Sort sort = Sort.by(direccion, propiedad);
+        if (!propiedad.equals(propiedadId)) {
+            sort = sort.and(Sort.by(direccion, propiedadId));
+        }
+        return PageRequest.of(pagina, tamanio, sort);
+    }
+
+    /**
+     * Segunda fase: carga con sus relaciones las entidades de una página de ids
+     * y las devuelve en el orden de la página. Las que se borraran entre las dos
+     * consultas se omiten.
+     */
+    static <T> Page<T> cargar(Page<Long> ids, Function<Collection<Long>, List<T>> cargador, Function<T, Long> id) {
+        if (ids.isEmpty()) {
+            return new PageImpl<>(List.of(), ids.getPageable(), ids.getTotalElements());
+        }
+        Map<Long, T> porId = cargador.apply(ids.getContent()).stream()
+                .collect(Collectors.toMap(id, Function.identity()));
+        List<T> contenido = ids.getContent().stream().map(porId::get).filter(Objects::nonNull).toList();
+        return new PageImpl<>(contenido, ids.getPageable(), ids.getTotalElements());
+    }
+
+    /** Inicio del día indicado, o null. */
+    static Date inicioDe(LocalDate dia) {
+        return dia == null ? null : Date.from(dia.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    /** Inicio del día siguiente, para usar {@code hasta} como límite inclusivo. */
+    static Date finDe(LocalDate dia) {
+        return dia == null ? null : inicioDe(dia.plusDays(1));
+    }
+
+    static <E extends Enum<E>> E estado(Class<E> tipo, String valor) {
+        if (valor == null || valor.isBlank()) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(tipo, valor.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Estado no válido: " + valor);
+        }
+    }
+}
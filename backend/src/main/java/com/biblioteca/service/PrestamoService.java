@@ -1,43 +1,75 @@
 package com.biblioteca.service;
 
-import com.biblioteca.events.PrestamoDevueltoEvent;
-import com.biblioteca.model.EstadoBloqueo;
+import com.biblioteca.dto.FiltroListado;
+import com.biblioteca.dto.PrestamoRequest;
+import com.biblioteca.dto.ResultadoLoteDTO;
+import com.biblioteca.events.PrestamoCreadoEvent;
+import com.biblioteca.events.PrestamosDevueltosEvent;
+import com.biblioteca.model.Bloqueo;
 import com.biblioteca.model.Ejemplar;
+import com.biblioteca.model.EstadoBloqueo;
 import com.biblioteca.model.EstadoEjemplar;
 import com.biblioteca.model.EstadoPrestamo;
 import com.biblioteca.model.Prestamo;
 import com.biblioteca.model.Socio;
+import com.biblioteca.model.TipoEventoOutbox;
 import com.biblioteca.config.LibraryPolicyProperties;
 import com.biblioteca.repository.BloqueoRepository;
 import com.biblioteca.repository.PrestamoRepository;
+import com.biblioteca.repository.ValidacionPrestamo;
+import com.biblioteca.service.MetricasNegocio.MotivoRechazo;
 
+import io.micrometer.core.annotation.Timed;
 import jakarta.persistence.EntityManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 @Service
 public class PrestamoService {
 
     private static final Logger LOG = LoggerFactory.getLogger(PrestamoService.class);
 
+    /** Máximo de elementos de un préstamo o devolución en lote. */
+    public static final int MAX_LOTE = 100;
+    // Líneas de detalle que viajan en la notificación agregada de un lote
+    private static final int MAX_DETALLE_NOTIFICACION = 20;
+    // Campos de orden del listado paginado y la propiedad JPA de cada uno
+    private static final Map<String, String> ORDEN_PRESTAMOS = Map.of(
+            "id", "idPrestamo",
+            "fechaPrestamo", "fechaPrestamo",
+            "fechaPrevistaDevolucion", "fechaPrevistaDevolucion",
+            "usuario", "socio.usuario",
+            "estado", "estado");
+
     private final PrestamoRepository repositorioPrestamo;
     private final BloqueoRepository repositorioBloqueo;
     private final SocioService servicioSocio;
     private final EjemplarService servicioEjemplar;
     private final ApplicationEventPublisher publicadorEventos;
-    private final NotificationService servicioNotificaciones;
+    private final OutboxService servicioOutbox;
     private final EntityManager gestorEntidades;
     private final LibraryPolicyProperties libraryPolicy;
+    private final MetricasNegocio metricasNegocio;
 
     public PrestamoService(
             PrestamoRepository repositorioPrestamo,
@@ -45,17 +77,19 @@ public class PrestamoService {
             SocioService servicioSocio,
             EjemplarService servicioEjemplar,
             ApplicationEventPublisher publicadorEventos,
-            NotificationService servicioNotificaciones,
+            OutboxService servicioOutbox,
             EntityManager gestorEntidades,
-            LibraryPolicyProperties libraryPolicy) {
+            LibraryPolicyProperties libraryPolicy,
+            MetricasNegocio metricasNegocio) {
         this.repositorioPrestamo = repositorioPrestamo;
         this.repositorioBloqueo = repositorioBloqueo;
         this.servicioSocio = servicioSocio;
         this.servicioEjemplar = servicioEjemplar;
         this.publicadorEventos = publicadorEventos;
-        this.servicioNotificaciones = servicioNotificaciones;
+        this.servicioOutbox = servicioOutbox;
         this.gestorEntidades = gestorEntidades;
         this.libraryPolicy = libraryPolicy;
+        this.metricasNegocio = metricasNegocio;
     }
 
     /**
@@ -73,18 +107,21 @@ public class PrestamoService {
      * @throws IllegalStateException Si alguna regla de negocio impide el préstamo.
      */
     @Transactional
+    @Timed(value = "prestamos.crear", description = "Creación de un préstamo", histogram = true)
     public Prestamo crearPrestamo(Long idSocio, Long idEjemplar) {
         Objects.requireNonNull(idSocio, "El ID del socio es requerido.");
         Objects.requireNonNull(idEjemplar, "El ID del ejemplar es requerido.");
 
         LOG.info("Iniciando préstamo - Socio ID: {}, Ejemplar ID: {}", idSocio, idEjemplar);
 
-        Socio socio = buscarSocio(idSocio);
-        Ejemplar ejemplar = buscarEjemplar(idEjemplar);
+        // Socio y recuentos de validación en una consulta; ejemplar y libro en otra
+        ValidacionPrestamo validacion = repositorioPrestamo.findValidacionPrestamo(idSocio, idEjemplar, new Date())
+                .orElseThrow(() -> new IllegalArgumentException("Socio no encontrado con ID: " + idSocio));
+        Ejemplar ejemplar = servicioEjemplar.buscarEjemplarConLibro(idEjemplar);
 
-        validarRequisitosPrestamo(socio, ejemplar);
+        validarRequisitosPrestamo(validacion, ejemplar);
 
-        Prestamo prestamo = construirPrestamoInicial(socio, ejemplar);
+        Prestamo prestamo = construirPrestamoInicial(validacion.socio(), ejemplar);
 
         return persistirYNotificarPrestamo(prestamo);
     }
@@ -100,6 +137,7 @@ public class PrestamoService {
      *                           sus propios libros).
      */
     @Transactional
+    @Timed(value = "prestamos.devolver", description = "Devolución de un préstamo", histogram = true)
     public void devolverPrestamo(Long idPrestamo, String usuarioSolicitante, boolean esAutoridad) {
         Objects.requireNonNull(idPrestamo, "El ID del préstamo es requerido.");
         if (usuarioSolicitante == null || usuarioSolicitante.trim().isEmpty()) {
@@ -115,6 +153,143 @@ public class PrestamoService {
         procesarDevolucionInterna(prestamo);
     }
 
+    /**
+     * Registra un lote de préstamos del mostrador de circulación en una sola
+     * transacción.
+     * <p>
+     * Socios, ejemplares, préstamos activos y reservas de todo el lote se cargan
+     * con una consulta por tipo y las reglas de {@link #crearPrestamo} se aplican en
+     * memoria, contando los préstamos que el propio lote ya ha concedido. Un
+     * elemento que no las cumple queda como fallido sin afectar al resto. Los
+     * cambios de ejemplares se envían agrupados y se registra una única
+     * notificación para todo el lote.
+     *
+     * @param solicitudes Pares socio/ejemplar, en el orden en que se procesan.
+     * @return Resultado de cada elemento en el orden de la solicitud.
+     * @throws IllegalStateException Si la base de datos rechaza el lote.
+     */
+    @Transactional
+    public ResultadoLoteDTO crearPrestamosEnLote(List<PrestamoRequest> solicitudes) {
+        validarTamanioLote(solicitudes);
+        LOG.info("Iniciando lote de {} préstamos", solicitudes.size());
+
+        Date ahora = new Date();
+        Set<Long> idsSocio = new LinkedHashSet<>();
+        Set<Long> idsEjemplar = new LinkedHashSet<>();
+        for (PrestamoRequest solicitud : solicitudes) {
+            idsSocio.add(Objects.requireNonNull(solicitud.getIdSocio(), "El ID del socio es requerido."));
+            idsEjemplar.add(Objects.requireNonNull(solicitud.getIdEjemplar(), "El ID del ejemplar es requerido."));
+        }
+
+        Map<Long, Socio> socios = servicioSocio.buscarPorIds(idsSocio);
+        Map<Long, Ejemplar> ejemplares = servicioEjemplar.buscarEjemplaresConLibro(idsEjemplar);
+        Map<Long, CupoSocio> cupos = new HashMap<>();
+        for (Prestamo activo : repositorioPrestamo.findActivosBySocios(idsSocio)) {
+            CupoSocio cupo = cupos.computeIfAbsent(activo.getSocio().getIdSocio(), id -> new CupoSocio());
+            cupo.prestamos++;
+            cupo.libros.add(activo.getEjemplar().getLibro().getIdLibro());
+        }
+        Map<Long, Long> titularesReserva = new HashMap<>();
+        for (Bloqueo bloqueo : repositorioBloqueo.findActivosBySociosOrEjemplares(idsSocio, idsEjemplar,
+                EstadoBloqueo.ACTIVO, ahora)) {
+            Long idSocio = bloqueo.getSocio().getIdSocio();
+            if (idsSocio.contains(idSocio)) {
+                cupos.computeIfAbsent(idSocio, id -> new CupoSocio()).reservas++;
+            }
+            titularesReserva.put(bloqueo.getEjemplar().getIdEjemplar(), idSocio);
+        }
+
+        ResultadoLoteDTO.Item[] resultados = new ResultadoLoteDTO.Item[solicitudes.size()];
+        List<Integer> indicesNuevos = new ArrayList<>();
+        List<Prestamo> nuevos = new ArrayList<>();
+        Set<Long> ejemplaresConcedidos = new HashSet<>();
+        for (int i = 0; i < solicitudes.size(); i++) {
+            PrestamoRequest solicitud = solicitudes.get(i);
+            try {
+                Socio socio = socios.get(solicitud.getIdSocio());
+                if (socio == null) {
+                    throw new IllegalArgumentException("Socio no encontrado con ID: " + solicitud.getIdSocio());
+                }
+                Ejemplar ejemplar = ejemplares.get(solicitud.getIdEjemplar());
+                if (ejemplar == null) {
+                    throw new IllegalArgumentException("Ejemplar no encontrado con ID: " + solicitud.getIdEjemplar());
+                }
+                CupoSocio cupo = cupos.computeIfAbsent(socio.getIdSocio(), id -> new CupoSocio());
+                validarElementoLote(socio, ejemplar, cupo, titularesReserva, ejemplaresConcedidos, ahora);
+
+                cupo.prestamos++;
+                cupo.libros.add(ejemplar.getLibro().getIdLibro());
+                ejemplaresConcedidos.add(ejemplar.getIdEjemplar());
+                nuevos.add(construirPrestamoInicial(socio, ejemplar));
+                indicesNuevos.add(i);
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                resultados[i] = ResultadoLoteDTO.Item.fallido(i, null, e.getMessage());
+            }
+        }
+
+        if (!nuevos.isEmpty()) {
+            persistirLote(nuevos);
+            for (int j = 0; j < nuevos.size(); j++) {
+                resultados[indicesNuevos.get(j)] = ResultadoLoteDTO.Item.correcto(indicesNuevos.get(j),
+                        nuevos.get(j).getIdPrestamo());
+            }
+        }
+
+        ResultadoLoteDTO resultado = ResultadoLoteDTO.de(Arrays.asList(resultados));
+        LOG.info("Lote de préstamos procesado - Correctos: {}, Fallidos: {}", resultado.correctos(), resultado.fallidos());
+        return resultado;
+    }
+
+    /**
+     * Devuelve un lote de préstamos en una sola transacción (solo personal de la
+     * biblioteca). Los préstamos inexistentes o ya devueltos quedan como fallidos
+     * sin afectar al resto, y las devoluciones tardías se notifican en un único
+     * aviso.
+     *
+     * @param idsPrestamo IDs de los préstamos, en el orden en que se procesan.
+     * @return Resultado de cada elemento en el orden de la solicitud.
+     */
+    @Transactional
+    public ResultadoLoteDTO devolverPrestamosEnLote(List<Long> idsPrestamo) {
+        validarTamanioLote(idsPrestamo);
+        LOG.info("Procesando lote de {} devoluciones", idsPrestamo.size());
+
+        Map<Long, Prestamo> prestamos = new HashMap<>();
+        repositorioPrestamo.findAllByIdWithDetails(new HashSet<>(idsPrestamo))
+                .forEach(prestamo -> prestamos.put(prestamo.getIdPrestamo(), prestamo));
+
+        Date ahora = new Date();
+        List<ResultadoLoteDTO.Item> resultados = new ArrayList<>(idsPrestamo.size());
+        List<Prestamo> devueltos = new ArrayList<>();
+        for (int i = 0; i < idsPrestamo.size(); i++) {
+            Long idPrestamo = idsPrestamo.get(i);
+            Prestamo prestamo = prestamos.get(idPrestamo);
+            if (prestamo == null) {
+                resultados.add(ResultadoLoteDTO.Item.fallido(i, idPrestamo, "Préstamo no encontrado."));
+            } else if (prestamo.getEstado() == EstadoPrestamo.DEVUELTO) {
+                // También cubre un ID repetido dentro del lote
+                resultados.add(ResultadoLoteDTO.Item.fallido(i, idPrestamo, "El préstamo ya ha sido devuelto."));
+            } else {
+                prestamo.setEstado(EstadoPrestamo.DEVUELTO);
+                prestamo.setFechaDevolucionReal(ahora);
+                devueltos.add(prestamo);
+                resultados.add(ResultadoLoteDTO.Item.correcto(i, idPrestamo));
+            }
+        }
+
+        if (!devueltos.isEmpty()) {
+            repositorioPrestamo.saveAll(devueltos);
+            servicioEjemplar.cambiarEstadoEjemplares(devueltos.stream().map(Prestamo::getEjemplar).toList(),
+                    EstadoEjemplar.DISPONIBLE);
+            servicioOutbox.registrar(TipoEventoOutbox.PRESTAMOS_DEVUELTOS_LOTE, datosDevolucionesLote(devueltos));
+            publicadorEventos.publishEvent(new PrestamosDevueltosEvent(this, devueltos));
+        }
+
+        ResultadoLoteDTO resultado = ResultadoLoteDTO.de(resultados);
+        LOG.info("Lote de devoluciones procesado - Correctas: {}, Fallidas: {}", resultado.correctos(), resultado.fallidos());
+        return resultado;
+    }
+
     /**
      * Obtiene todos los préstamos del sistema, opcionalmente filtrados por estado.
      *
@@ -129,6 +304,30 @@ public class PrestamoService {
         return repositorioPrestamo.findAllWithDetails();
     }
 
+    /**
+     * Listado paginado de préstamos para administración. Se pagina primero sobre
+     * los ids y después se cargan con sus relaciones solo los de la página: con
+     * JOIN FETCH en la consulta paginada Hibernate traería todas las filas y
+     * paginaría en memoria.
+     *
+     * @param orden Campo de {@link #ORDEN_PRESTAMOS} y dirección opcional
+     *              ({@code fechaPrevistaDevolucion,asc}). Por defecto, los más
+     *              recientes primero.
+     */
+    @Transactional(readOnly = true)
+    public Page<Prestamo> buscarPrestamos(FiltroListado filtro, int pagina, int tamanio, String orden) {
+        Page<Long> ids = repositorioPrestamo.findIdsFiltrados(
+                Paginacion.estado(EstadoPrestamo.class, filtro.estado()),
+                filtro.idSocio(),
+                filtro.idLibro(),
+                Paginacion.inicioDe(filtro.desde()),
+                Paginacion.finDe(filtro.hasta()),
+                // Vencido: la fecha prevista es anterior a hoy, como en PrestamoDTO
+                filtro.soloVencidos() ? Paginacion.inicioDe(LocalDate.now()) : null,
+                Paginacion.de(pagina, tamanio, orden, ORDEN_PRESTAMOS, "fechaPrestamo,desc", "idPrestamo"));
+        return Paginacion.cargar(ids, repositorioPrestamo::findAllByIdWithDetails, Prestamo::getIdPrestamo);
+    }
+
     /**
      * Obtiene el historial de préstamos de un usuario específico.
      *
@@ -164,26 +363,41 @@ public class PrestamoService {
             Prestamo prestamoPersistido = repositorioPrestamo.save(prestamo);
             Objects.requireNonNull(prestamoPersistido);
 
-            // Usar servicio para lógica centralizada (SRP)
-            servicioEjemplar.actualizarEstadoEjemplar(Objects.requireNonNull(prestamo.getEjemplar().getIdEjemplar()),
-                    EstadoEjemplar.PRESTADO);
-
-            // Asegurar que la persistencia se complete antes de eventos externos
-            gestorEntidades.flush();
-            gestorEntidades.refresh(prestamoPersistido);
+            // El ejemplar ya está cargado: se cambia su estado sin volver a leerlo.
+            // No hace falta flush/refresh: el INSERT (IDENTITY) ya se ha ejecutado y el
+            // evento del outbox se arma con datos en memoria.
+            servicioEjemplar.cambiarEstadoEjemplar(prestamo.getEjemplar(), EstadoEjemplar.PRESTADO);
 
-            servicioNotificaciones.notificarNuevoPrestamo(
-                    prestamo.getSocio().getNombre(),
-                    prestamo.getEjemplar().getLibro().getTitulo());
+            // Se notifica desde el outbox cuando el préstamo esté confirmado
+            servicioOutbox.registrar(TipoEventoOutbox.PRESTAMO_CREADO, datosEvento(prestamoPersistido));
 
+            publicadorEventos.publishEvent(new PrestamoCreadoEvent(this, prestamoPersistido));
             return prestamoPersistido;
 
         } catch (DataIntegrityViolationException e) {
             LOG.error("Error de integridad al crear préstamo: {}", e.getMessage());
+            metricasNegocio.registrarRechazo(MotivoRechazo.CONFLICTO_DATOS);
             throw new IllegalStateException("Conflicto de datos al procesar el préstamo (posible duplicado).", e);
         }
     }
 
+    private void persistirLote(List<Prestamo> nuevos) {
+        try {
+            // Con IDENTITY cada INSERT sale al guardar y antes de que cambie su ejemplar,
+            // que es lo que espera TRG_VALIDAR_PRESTAMO; los UPDATE de ejemplares sí van en batch
+            repositorioPrestamo.saveAll(nuevos);
+            servicioEjemplar.cambiarEstadoEjemplares(nuevos.stream().map(Prestamo::getEjemplar).toList(),
+                    EstadoEjemplar.PRESTADO);
+        } catch (DataIntegrityViolationException e) {
+            LOG.error("Error de integridad al crear el lote de préstamos: {}", e.getMessage());
+            metricasNegocio.registrarRechazo(MotivoRechazo.CONFLICTO_DATOS);
+            throw new IllegalStateException("Conflicto de datos al procesar el lote de préstamos.", e);
+        }
+
+        servicioOutbox.registrar(TipoEventoOutbox.PRESTAMOS_CREADOS_LOTE, datosPrestamosLote(nuevos));
+        nuevos.forEach(prestamo -> publicadorEventos.publishEvent(new PrestamoCreadoEvent(this, prestamo)));
+    }
+
     private void procesarDevolucionInterna(Prestamo prestamo) {
         finalizarPrestamo(prestamo);
 
@@ -194,45 +408,133 @@ public class PrestamoService {
         gestorEntidades.flush();
         gestorEntidades.refresh(prestamo);
 
-        publicadorEventos.publishEvent(new PrestamoDevueltoEvent(this, prestamo));
+        Map<String, Object> datos = datosEvento(prestamo);
+        datos.put("fecha_prevista", aFechaLocal(prestamo.getFechaPrevistaDevolucion()));
+        datos.put("fecha_devolucion", aFechaLocal(prestamo.getFechaDevolucionReal()));
+        servicioOutbox.registrar(TipoEventoOutbox.PRESTAMO_DEVUELTO, datos);
+        publicadorEventos.publishEvent(new PrestamosDevueltosEvent(this, List.of(prestamo)));
+    }
+
+    private Map<String, Object> datosEvento(Prestamo prestamo) {
+        Map<String, Object> datos = new HashMap<>();
+        datos.put("id_prestamo", prestamo.getIdPrestamo());
+        datos.put("usuario", prestamo.getSocio().getUsuario());
+        datos.put("nombre_socio", prestamo.getSocio().getNombre());
+        datos.put("libro", prestamo.getEjemplar().getLibro().getTitulo());
+        return datos;
+    }
+
+    // La notificación de un lote lleva el recuento y como mucho MAX_DETALLE_NOTIFICACION líneas
+    private Map<String, Object> datosPrestamosLote(List<Prestamo> prestamos) {
+        List<Map<String, Object>> detalle = prestamos.stream()
+                .limit(MAX_DETALLE_NOTIFICACION)
+                .map(prestamo -> Map.<String, Object>of(
+                        "nombre_socio", prestamo.getSocio().getNombre(),
+                        "libro", prestamo.getEjemplar().getLibro().getTitulo()))
+                .toList();
+        Map<String, Object> datos = new HashMap<>();
+        datos.put("total", prestamos.size());
+        datos.put("prestamos", detalle);
+        return datos;
     }
 
-    private void validarRequisitosPrestamo(Socio socio, Ejemplar ejemplar) {
+    private Map<String, Object> datosDevolucionesLote(List<Prestamo> devueltos) {
+        List<Prestamo> tardios = devueltos.stream()
+                .filter(prestamo -> aFechaLocal(prestamo.getFechaDevolucionReal())
+                        .compareTo(aFechaLocal(prestamo.getFechaPrevistaDevolucion())) > 0)
+                .toList();
+        List<Map<String, Object>> detalle = tardios.stream()
+                .limit(MAX_DETALLE_NOTIFICACION)
+                .map(prestamo -> Map.<String, Object>of(
+                        "usuario", prestamo.getSocio().getUsuario(),
+                        "libro", prestamo.getEjemplar().getLibro().getTitulo(),
+                        "fecha_prevista", aFechaLocal(prestamo.getFechaPrevistaDevolucion()),
+                        "fecha_devolucion", aFechaLocal(prestamo.getFechaDevolucionReal())))
+                .toList();
+        Map<String, Object> datos = new HashMap<>();
+        datos.put("total", devueltos.size());
+        datos.put("total_tardias", tardios.size());
+        datos.put("tardias", detalle);
+        return datos;
+    }
+
+    // java.sql.Date (lo que devuelve refresh) no admite toInstant()
+    private static String aFechaLocal(Date fecha) {
+        return fecha == null ? null
+                : Instant.ofEpochMilli(fecha.getTime()).atZone(ZoneId.systemDefault()).toLocalDate().toString();
+    }
+
+    private void validarRequisitosPrestamo(ValidacionPrestamo validacion, Ejemplar ejemplar) {
         if (!esEjemplarDisponible(ejemplar)) {
-            throw new IllegalStateException("El ejemplar no está disponible (Estado: " + ejemplar.getEstado() + ")");
+            throw rechazo(MotivoRechazo.EJEMPLAR_NO_DISPONIBLE,
+                    "El ejemplar no está disponible (Estado: " + ejemplar.getEstado() + ")");
         }
-        validarLimitePrestamos(socio);
-        validarLibroDuplicado(socio, ejemplar);
+        validarLimitePrestamos(validacion);
+        validarLibroDuplicado(validacion, ejemplar);
+    }
+
+    private void validarTamanioLote(List<?> lote) {
+        if (lote == null || lote.isEmpty()) {
+            throw new IllegalArgumentException("El lote debe incluir al menos un elemento.");
+        }
+        if (lote.size() > MAX_LOTE) {
+            throw new IllegalArgumentException("El lote no puede superar los " + MAX_LOTE + " elementos.");
+        }
+    }
+
+    /**
+     * Reglas de {@link #crearPrestamo} para un elemento del lote, más las que en
+     * Oracle comprueba TRG_VALIDAR_PRESTAMO: aquí se adelantan para que un único
+     * elemento inválido no haga fallar el lote entero.
+     */
+    private void validarElementoLote(Socio socio, Ejemplar ejemplar, CupoSocio cupo,
+            Map<Long, Long> titularesReserva, Set<Long> ejemplaresConcedidos, Date ahora) {
+        if (ejemplaresConcedidos.contains(ejemplar.getIdEjemplar())) {
+            throw rechazo(MotivoRechazo.EJEMPLAR_NO_DISPONIBLE,
+                    "El ejemplar no está disponible (Estado: " + EstadoEjemplar.PRESTADO + ")");
+        }
+        if (socio.getPenalizacionHasta() != null && socio.getPenalizacionHasta().after(ahora)) {
+            throw rechazo(MotivoRechazo.SOCIO_PENALIZADO,
+                    "El socio está penalizado hasta " + aFechaLocal(socio.getPenalizacionHasta()) + ".");
+        }
+        Long titular = titularesReserva.get(ejemplar.getIdEjemplar());
+        if (ejemplar.getEstado() == EstadoEjemplar.BLOQUEADO && titular != null && !titular.equals(socio.getIdSocio())) {
+            throw rechazo(MotivoRechazo.EJEMPLAR_RESERVADO, "El ejemplar está reservado por otro socio.");
+        }
+
+        Long idLibro = ejemplar.getLibro().getIdLibro();
+        validarRequisitosPrestamo(
+                new ValidacionPrestamo(socio, cupo.prestamos, cupo.reservas, cupo.libros.contains(idLibro) ? 1L : 0L),
+                ejemplar);
     }
 
     private boolean esEjemplarDisponible(Ejemplar ejemplar) {
         return ejemplar.getEstado() == EstadoEjemplar.DISPONIBLE || ejemplar.getEstado() == EstadoEjemplar.BLOQUEADO;
     }
 
-    private void validarLimitePrestamos(Socio socio) {
-        long prestamosActivos = repositorioPrestamo.countBySocioIdSocioAndEstado(socio.getIdSocio(),
-                EstadoPrestamo.ACTIVO);
+    private void validarLimitePrestamos(ValidacionPrestamo validacion) {
+        long prestamosActivos = validacion.prestamosActivos();
+        long bloqueosActivos = validacion.bloqueosActivos();
 
-        long bloqueosActivos = repositorioBloqueo.countActiveBloqueosBySocio(socio.getIdSocio(),
-                EstadoBloqueo.ACTIVO, new Date());
-
-        if ((prestamosActivos + bloqueosActivos) >= socio.getMaxPrestamosActivos()) {
-            throw new IllegalStateException(
+        if ((prestamosActivos + bloqueosActivos) >= validacion.socio().getMaxPrestamosActivos()) {
+            throw rechazo(MotivoRechazo.LIMITE_LECTURAS,
                     String.format("Límite de lecturas activas alcanzado (%d). Préstamos: %d, Reservas: %d",
-                            socio.getMaxPrestamosActivos(), prestamosActivos, bloqueosActivos));
+                            validacion.socio().getMaxPrestamosActivos(), prestamosActivos, bloqueosActivos));
         }
     }
 
-    private void validarLibroDuplicado(Socio socio, Ejemplar ejemplar) {
-        boolean tieneLibroDuplicado = repositorioPrestamo.existsBySocioIdSocioAndEjemplarLibroIdLibroAndEstado(
-                socio.getIdSocio(), ejemplar.getLibro().getIdLibro(), EstadoPrestamo.ACTIVO);
-
-        if (tieneLibroDuplicado) {
-            throw new IllegalStateException(
+    private void validarLibroDuplicado(ValidacionPrestamo validacion, Ejemplar ejemplar) {
+        if (validacion.prestamosMismoLibro() > 0) {
+            throw rechazo(MotivoRechazo.LIBRO_DUPLICADO,
                     String.format("El socio ya tiene prestado el libro '%s'.", ejemplar.getLibro().getTitulo()));
         }
     }
 
+    private IllegalStateException rechazo(MotivoRechazo motivo, String mensaje) {
+        metricasNegocio.registrarRechazo(motivo);
+        return new IllegalStateException(mensaje);
+    }
+
     private void validarPermisosDevolucion(Prestamo prestamo, String usuario, boolean esAutoridad) {
         if (esAutoridad)
             return;
@@ -255,28 +557,20 @@ public class PrestamoService {
         repositorioPrestamo.save(prestamo);
     }
 
-    private Socio buscarSocio(Long id) {
-        Objects.requireNonNull(id, "El ID del socio es requerido.");
-        return servicioSocio.buscarPorId(id)
-                .orElseThrow(() -> new IllegalArgumentException("Socio no encontrado con ID: " + id));
-    }
-
-    private Ejemplar buscarEjemplar(Long id) {
-        Objects.requireNonNull(id, "El ID del ejemplar es requerido.");
-        Ejemplar ejemplar = servicioEjemplar.buscarEjemplarPorId(id);
-        if (ejemplar == null) {
-            throw new IllegalArgumentException("Ejemplar no encontrado con ID: " + id);
-        }
-        return ejemplar;
-    }
-
     private Prestamo buscarPrestamoActivo(Long id) {
         Prestamo prestamo = repositorioPrestamo.findByIdWithDetails(id)
                 .orElseThrow(() -> new IllegalArgumentException("Préstamo no encontrado."));
 
         if (prestamo.getEstado() == EstadoPrestamo.DEVUELTO) {
-            throw new IllegalStateException("El préstamo ya ha sido devuelto.");
+            throw rechazo(MotivoRechazo.PRESTAMO_YA_DEVUELTO, "El préstamo ya ha sido devuelto.");
         }
         return prestamo;
     }
+
+    /** Préstamos, reservas y libros de un socio según avanza la validación de un lote. */
+    private static final class CupoSocio {
+        private long prestamos;
+        private long reservas;
+        private final Set<Long> libros = new HashSet<>();
+    }
 }
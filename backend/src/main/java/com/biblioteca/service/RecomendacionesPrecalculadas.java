@@ -0,0 +1,210 @@
+package com.biblioteca.service;
+
+import com.biblioteca.config.CacheConfig;
+import com.biblioteca.config.RecomendacionesProperties;
+import com.biblioteca.dto.RecomendacionDTO;
+import com.biblioteca.events.PrestamoCreadoEvent;
+import com.biblioteca.events.PrestamosDevueltosEvent;
+import com.biblioteca.model.Socio;
+import com.biblioteca.repository.SocioRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Recomendaciones de la IA calculadas antes de que el socio las pida.
+ * <p>
+ * Cada préstamo o devolución confirmados sube la versión del socio y encola un
+ * precálculo. Un grupo fijo de {@code app.recomendaciones.hilos-ia} hilos los
+ * atiende, así que nunca hay más llamadas simultáneas a la IA que hilos. El
+ * resultado se guarda en {@value CacheConfig#RECOMENDACIONES} con la versión
+ * del historial que se leyó.
+ * <p>
+ * {@code GET /api/recomendaciones/mias} responde siempre al momento: con lo
+ * guardado, aunque sea de una versión anterior o tenga más de
+ * {@code app.recomendaciones.refresco-ms} (en ese caso se recalcula en segundo
+ * plano), o con {@link MotorRecomendaciones} si aún no hay nada guardado.
+ */
+@Service
+public class RecomendacionesPrecalculadas {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RecomendacionesPrecalculadas.class);
+    private static final int NUM_RECOMENDACIONES = 3;
+
+    /** Recomendaciones de la IA y versión del historial con que se calcularon. */
+    record Guardadas(List<RecomendacionDTO> recomendaciones, long version, long calculadasEnMs) {
+    }
+
+    private final AIGenerationService servicioIA;
+    private final MotorRecomendaciones motorLocal;
+    private final SocioRepository repositorioSocio;
+    private final RecomendacionesProperties propiedades;
+    private final Cache guardadas;
+
+    // Versión del historial de los socios con cambios aún no reflejados en lo
+    // guardado. Sin entrada, lo guardado está al día: la entrada se quita al
+    // guardar un resultado de esa versión, o si no hay nada guardado con que
+    // compararla, para que el mapa no crezca con cada socio que pide prestado
+    private final AtomicLong reloj = new AtomicLong();
+    private final Map<String, Long> versiones = new ConcurrentHashMap<>();
+    // Socios con un precálculo en cola o en curso, para no lanzar dos a la vez
+    private final Set<String> encolados = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor trabajadores;
+
+    // La tasa de fallback es local / (ia + local) sobre estos dos contadores
+    private final Counter servidasPorIA;
+    private final Counter servidasEnLocal;
+    private final Counter descartados;
+
+    public RecomendacionesPrecalculadas(AIGenerationService servicioIA, MotorRecomendaciones motorLocal,
+            SocioRepository repositorioSocio, RecomendacionesProperties propiedades, CacheManager cacheManager,
+            MeterRegistry meterRegistry) {
+        this.servicioIA = servicioIA;
+        this.motorLocal = motorLocal;
+        this.repositorioSocio = repositorioSocio;
+        this.propiedades = propiedades;
+        this.guardadas = cacheManager.getCache(CacheConfig.RECOMENDACIONES);
+
+        AtomicInteger numHilo = new AtomicInteger();
+        BlockingQueue<Runnable> cola = new ArrayBlockingQueue<>(propiedades.getCapacidadCola());
+        this.trabajadores = new ThreadPoolExecutor(propiedades.getHilosIa(), propiedades.getHilosIa(),
+                0, TimeUnit.MILLISECONDS, cola, r -> {
+                    Thread hilo = new Thread(r, "recomendaciones-ia-" + numHilo.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                });
+
+        this.servidasPorIA = servidas(meterRegistry, "ia");
+        this.servidasEnLocal = servidas(meterRegistry, "local");
+        this.descartados = Counter.builder("recomendaciones.precalculo.descartados")
+                .description("Precálculos descartados con la cola llena")
+                .register(meterRegistry);
+        Gauge.builder("recomendaciones.precalculo.pendientes", cola, BlockingQueue::size)
+                .description("Precálculos de recomendaciones a la espera de un hilo")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void detener() {
+        trabajadores.shutdownNow();
+    }
+
+    /**
+     * Recomendaciones para el usuario sin esperar a la IA.
+     */
+    public List<RecomendacionDTO> obtener(String usuario) {
+        Guardadas guardado = guardadas(usuario);
+        if (guardado != null) {
+            if (obsoletas(usuario, guardado)) {
+                programar(usuario);
+            }
+            servidasPorIA.increment();
+            return guardado.recomendaciones();
+        }
+
+        Optional<Long> idSocio = repositorioSocio.findByUsuario(usuario).map(Socio::getIdSocio);
+        idSocio.ifPresent(id -> programar(usuario));
+        LOG.info("Generando recomendaciones locales (Fallback)");
+        servidasEnLocal.increment();
+        return motorLocal.recomendarParaSocio(idSocio.orElse(null), NUM_RECOMENDACIONES);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCrearPrestamo(PrestamoCreadoEvent evento) {
+        historialCambiado(evento.getUsuario());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alDevolverPrestamos(PrestamosDevueltosEvent evento) {
+        evento.getUsuarios().forEach(this::historialCambiado);
+    }
+
+    // ----- MÉTODOS PRIVADOS -----
+
+    private void historialCambiado(String usuario) {
+        versiones.put(usuario, reloj.incrementAndGet());
+        programar(usuario);
+    }
+
+    private boolean obsoletas(String usuario, Guardadas guardado) {
+        return guardado.version() < versiones.getOrDefault(usuario, guardado.version())
+                || System.currentTimeMillis() - guardado.calculadasEnMs() > propiedades.getRefrescoMs();
+    }
+
+    private void programar(String usuario) {
+        if (!encolados.add(usuario)) {
+            return;
+        }
+        try {
+            trabajadores.execute(() -> precalcular(usuario));
+        } catch (RejectedExecutionException e) {
+            // Se volverá a pedir en la siguiente visita o cambio del historial
+            encolados.remove(usuario);
+            descartados.increment();
+        }
+    }
+
+    private void precalcular(String usuario) {
+        Guardadas previas = guardadas(usuario);
+        long version = versiones.getOrDefault(usuario, previas != null ? previas.version() : 0L);
+        try {
+            List<RecomendacionDTO> recomendaciones = servicioIA.consultarIA(usuario).join();
+            if (!recomendaciones.isEmpty()) {
+                guardar(usuario, new Guardadas(recomendaciones, version, System.currentTimeMillis()));
+            }
+        } catch (RuntimeException e) {
+            LOG.warn("Error precalculando recomendaciones de {}: {}", usuario, e.getMessage());
+        } finally {
+            encolados.remove(usuario);
+            // Un cambio del historial durante la llamada a la IA pide otra vuelta
+            if (versiones.getOrDefault(usuario, 0L) > version) {
+                programar(usuario);
+            } else if (guardadas(usuario) == null) {
+                versiones.remove(usuario, version);
+            }
+        }
+    }
+
+    /**
+     * No sustituye un resultado calculado con una versión posterior. Si el
+     * resultado alcanza la última versión del socio, deja de seguirla.
+     */
+    private synchronized void guardar(String usuario, Guardadas nuevas) {
+        Guardadas actuales = guardadas(usuario);
+        if (actuales == null || actuales.version() <= nuevas.version()) {
+            guardadas.put(usuario, nuevas);
+            versiones.remove(usuario, nuevas.version());
+        }
+    }
+
+    private Guardadas guardadas(String usuario) {
+        return guardadas.get(usuario, Guardadas.class);
+    }
+
+    private static Counter servidas(MeterRegistry meterRegistry, String origen) {
+        return Counter.builder("ia.recomendaciones")
+                .description("Recomendaciones servidas según su origen")
+                .tag("origen", origen)
+                .register(meterRegistry);
+    }
+}
@@ -10,10 +10,14 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class SocioService {
@@ -70,6 +74,18 @@ public class SocioService {
         return repositorioSocio.findById(id);
     }
 
+    /**
+     * Busca varios socios en una sola consulta.
+     *
+     * @param ids IDs de los socios.
+     * @return Mapa ID → Socio con los que existen.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Socio> buscarPorIds(@NonNull Collection<Long> ids) {
+        return repositorioSocio.findAllById(ids).stream()
+                .collect(Collectors.toMap(Socio::getIdSocio, Function.identity()));
+    }
+
     /**
      * Aplica una penalización temporal a un socio, impidiéndole realizar nuevos
      * préstamos/reservas.
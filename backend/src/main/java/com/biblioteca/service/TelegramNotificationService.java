@@ -1,35 +1,109 @@
 package com.biblioteca.service;
 
 import com.biblioteca.config.TelegramProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.net.URI;
-import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import java.nio.charset.StandardCharsets;
 import java.time.Duration;
-import java.util.concurrent.CompletableFuture;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Envío de notificaciones al chat de administración por el Bot API de Telegram.
+ * <p>
+ * {@link #enviarMensaje(String)} solo encola: un único hilo emisor vacía la cola,
+ * agrupa los mensajes de cada chat en envíos de hasta {@value #MAX_LONGITUD_MENSAJE}
+ * caracteres y los publica por POST. Ante un 429 se respeta el retry_after de
+ * Telegram (o se espera con backoff exponencial). Si Telegram rechaza un envío
+ * agrupado (400, normalmente Markdown mal formado) se reenvían sus mensajes uno
+ * a uno, y el que vuelva a fallar se manda como texto plano, para que un título
+ * problemático no arrastre a los demás. Si la cola está llena o se agotan los
+ * reintentos el mensaje se descarta y se cuenta en
+ * {@code telegram.mensajes.descartados}.
+ */
 @Service
 public class TelegramNotificationService {
 
     private static final Logger LOG = LoggerFactory.getLogger(TelegramNotificationService.class);
 
+    // Límite de longitud de texto de sendMessage
+    static final int MAX_LONGITUD_MENSAJE = 4096;
+    static final String SEPARADOR = "\n\n――――――\n\n";
+    private static final long ESPERA_MAXIMA_MS = 60_000;
+
     private final TelegramProperties telegramProperties;
+    private final ObjectMapper objectMapper;
     private final HttpClient httpClient = HttpClient.newBuilder()
             .connectTimeout(Duration.ofSeconds(10))
             .build();
 
-    public TelegramNotificationService(TelegramProperties telegramProperties) {
+    private final BlockingQueue<Mensaje> cola;
+    private final ExecutorService emisor = Executors.newSingleThreadExecutor(r -> {
+        Thread hilo = new Thread(r, "telegram-emisor");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+    private volatile boolean activo;
+
+    private final Counter enviados;
+    private final Counter descartadosColaLlena;
+    private final Counter descartadosReintentos;
+    private final Counter descartadosRechazo;
+
+    public TelegramNotificationService(TelegramProperties telegramProperties, ObjectMapper objectMapper,
+            MeterRegistry meterRegistry) {
         this.telegramProperties = telegramProperties;
+        this.objectMapper = objectMapper;
+        this.cola = new ArrayBlockingQueue<>(telegramProperties.getCapacidadCola());
+
+        this.enviados = Counter.builder("telegram.mensajes.enviados")
+                .description("Notificaciones entregadas a Telegram")
+                .register(meterRegistry);
+        this.descartadosColaLlena = descartados(meterRegistry, "cola_llena");
+        this.descartadosReintentos = descartados(meterRegistry, "reintentos_agotados");
+        this.descartadosRechazo = descartados(meterRegistry, "rechazado");
+        Gauge.builder("telegram.cola.pendientes", cola, BlockingQueue::size)
+                .description("Notificaciones a la espera de envío")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        activo = true;
+        emisor.execute(this::procesarCola);
+    }
+
+    @PreDestroy
+    public void detener() {
+        activo = false;
+        emisor.shutdownNow();
+        if (!cola.isEmpty()) {
+            LOG.warn("Se descartan {} notificaciones de Telegram pendientes al detener la aplicación.", cola.size());
+        }
     }
 
     /**
-     * Envía un mensaje directamente a Telegram usando el Bot API.
+     * Encola un mensaje para el chat de administración. No bloquea: si la cola
+     * está llena el mensaje se descarta.
      */
     public void enviarMensaje(String texto) {
         String token = telegramProperties.getBotToken();
@@ -40,36 +114,190 @@ public class TelegramNotificationService {
             return;
         }
 
-        CompletableFuture.runAsync(() -> {
+        if (!cola.offer(new Mensaje(chatId, texto))) {
+            descartadosColaLlena.increment();
+            LOG.warn("Cola de Telegram llena ({} pendientes). Mensaje descartado.", cola.size());
+        }
+    }
+
+    /**
+     * Une los textos con {@link #SEPARADOR} en bloques que no superan
+     * {@link #MAX_LONGITUD_MENSAJE}. Un texto que ya excede el límite va solo.
+     */
+    static List<Bloque> agrupar(List<String> textos) {
+        List<Bloque> bloques = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        List<String> incluidos = new ArrayList<>();
+        for (String texto : textos) {
+            if (!incluidos.isEmpty()
+                    && actual.length() + SEPARADOR.length() + texto.length() > MAX_LONGITUD_MENSAJE) {
+                bloques.add(new Bloque(actual.toString(), List.copyOf(incluidos)));
+                actual.setLength(0);
+                incluidos.clear();
+            }
+            if (!incluidos.isEmpty()) {
+                actual.append(SEPARADOR);
+            }
+            actual.append(texto);
+            incluidos.add(texto);
+        }
+        if (!incluidos.isEmpty()) {
+            bloques.add(new Bloque(actual.toString(), List.copyOf(incluidos)));
+        }
+        return bloques;
+    }
+
+    // ----- MÉTODOS PRIVADOS -----
+
+    private static Counter descartados(MeterRegistry meterRegistry, String motivo) {
+        return Counter.builder("telegram.mensajes.descartados")
+                .description("Notificaciones de Telegram descartadas")
+                .tag("motivo", motivo)
+                .register(meterRegistry);
+    }
+
+    private void procesarCola() {
+        List<Mensaje> lote = new ArrayList<>();
+        while (activo) {
             try {
-                String urlEnviada = String.format(
-                        "https://api.telegram.org/bot%s/sendMessage?chat_id=%s&text=%s&parse_mode=Markdown",
-                        token,
-                        chatId,
-                        URLEncoder.encode(texto, StandardCharsets.UTF_8));
-
-                HttpRequest request = HttpRequest.newBuilder()
-                        .uri(URI.create(urlEnviada))
-                        .GET()
-                        .build();
-
-                httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
-                        .thenAccept(res -> {
-                            if (res.statusCode() == 200) {
-                                LOG.info("Mensaje enviado a Telegram correctamente.");
-                            } else {
-                                LOG.warn("Error enviando a Telegram: Status {} - Res: {}", res.statusCode(),
-                                        res.body());
-                            }
-                        })
-                        .exceptionally(ex -> {
-                            LOG.error("Fallo al conectar con la API de Telegram: {}", ex.getMessage());
-                            return null;
-                        });
-
-            } catch (Exception e) {
-                LOG.error("Error al preparar mensaje para Telegram", e);
+                Mensaje primero = cola.poll(1, TimeUnit.SECONDS);
+                if (primero == null) {
+                    continue;
+                }
+                // Dar margen a que llegue el resto de la ráfaga
+                if (telegramProperties.getAgruparMs() > 0) {
+                    Thread.sleep(telegramProperties.getAgruparMs());
+                }
+                lote.add(primero);
+                cola.drainTo(lote);
+                enviarLote(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                LOG.error("Error inesperado en el envío a Telegram", e);
+            } finally {
+                lote.clear();
             }
-        });
+        }
+    }
+
+    private void enviarLote(List<Mensaje> lote) throws InterruptedException {
+        Map<String, List<String>> porChat = new LinkedHashMap<>();
+        for (Mensaje mensaje : lote) {
+            porChat.computeIfAbsent(mensaje.chatId(), c -> new ArrayList<>()).add(mensaje.texto());
+        }
+        for (Map.Entry<String, List<String>> chat : porChat.entrySet()) {
+            for (Bloque bloque : agrupar(chat.getValue())) {
+                enviarBloque(chat.getKey(), bloque);
+            }
+        }
+    }
+
+    private void enviarBloque(String chatId, Bloque bloque) throws InterruptedException {
+        if (enviarConReintentos(chatId, bloque.texto(), bloque.mensajes(), true) != Resultado.RECHAZADO) {
+            return;
+        }
+        if (bloque.mensajes() > 1) {
+            LOG.warn("Telegram rechazó un envío agrupado de {} mensajes. Se reenvían por separado.",
+                    bloque.mensajes());
+        }
+        for (String texto : bloque.textos()) {
+            if (bloque.mensajes() > 1
+                    && enviarConReintentos(chatId, texto, 1, true) != Resultado.RECHAZADO) {
+                continue;
+            }
+            // Último recurso: sin parse_mode Telegram no interpreta nada del texto
+            if (enviarConReintentos(chatId, texto, 1, false) == Resultado.RECHAZADO) {
+                descartadosRechazo.increment();
+            }
+        }
+    }
+
+    /**
+     * Envía un texto reintentando ante 429 y fallos de conexión. Un 400 no se
+     * reintenta ni se cuenta como descarte: lo decide {@link #enviarBloque}.
+     */
+    private Resultado enviarConReintentos(String chatId, String texto, int mensajes, boolean markdown)
+            throws InterruptedException {
+        Map<String, String> cuerpo = markdown
+                ? Map.of("chat_id", chatId, "text", texto, "parse_mode", "Markdown")
+                : Map.of("chat_id", chatId, "text", texto);
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder()
+                    .uri(URI.create(telegramProperties.getApiUrl() + "/bot" + telegramProperties.getBotToken()
+                            + "/sendMessage"))
+                    .timeout(Duration.ofSeconds(15))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(cuerpo)))
+                    .build();
+        } catch (IOException | IllegalArgumentException e) {
+            LOG.error("Error al preparar mensaje para Telegram", e);
+            descartadosRechazo.increment(mensajes);
+            return Resultado.DESCARTADO;
+        }
+
+        for (int intento = 0;; intento++) {
+            long esperaMs = Math.min(telegramProperties.getEsperaInicialMs() << Math.min(intento, 20),
+                    ESPERA_MAXIMA_MS);
+            try {
+                HttpResponse<String> res = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                if (res.statusCode() == 200) {
+                    enviados.increment(mensajes);
+                    LOG.info("Enviados {} mensajes a Telegram correctamente.", mensajes);
+                    return Resultado.ENVIADO;
+                }
+                if (res.statusCode() == 400) {
+                    LOG.warn("Telegram rechazó el mensaje: {}", res.body());
+                    return Resultado.RECHAZADO;
+                }
+                if (res.statusCode() != 429) {
+                    descartadosRechazo.increment(mensajes);
+                    LOG.warn("Error enviando a Telegram: Status {} - Res: {}", res.statusCode(), res.body());
+                    return Resultado.DESCARTADO;
+                }
+                long retryAfterMs = retryAfterMs(res.body());
+                if (retryAfterMs > 0) {
+                    esperaMs = retryAfterMs;
+                }
+                LOG.warn("Telegram limita los envíos (429). Reintento {} en {} ms.", intento + 1, esperaMs);
+            } catch (IOException e) {
+                LOG.warn("Fallo al conectar con la API de Telegram: {}", e.getMessage());
+            }
+
+            if (intento >= telegramProperties.getMaxReintentos()) {
+                descartadosReintentos.increment(mensajes);
+                LOG.error("Reintentos agotados enviando a Telegram. Se descartan {} mensajes.", mensajes);
+                return Resultado.DESCARTADO;
+            }
+            Thread.sleep(esperaMs);
+        }
+    }
+
+    /**
+     * Lee parameters.retry_after (segundos) de la respuesta 429 de Telegram.
+     */
+    private long retryAfterMs(String cuerpo) {
+        try {
+            return objectMapper.readTree(cuerpo).path("parameters").path("retry_after").asLong(0) * 1000;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private enum Resultado {
+        ENVIADO, RECHAZADO, DESCARTADO
+    }
+
+    private record Mensaje(String chatId, String texto) {
+    }
+
+    /** Texto de un envío y mensajes originales que agrupa. */
+    record Bloque(String texto, List<String> textos) {
+
+        int mensajes() {
+            return textos.size();
+        }
     }
 }
@@ -0,0 +1,20 @@
+package com.biblioteca.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Resultado de una llamada y los contadores de {@link MetricasPeticion} que
+ * acumuló. Solo cuenta el trabajo del hilo de la prueba, sin el de las tareas
+ * programadas que corren a la vez en el mismo contexto.
+ */
+public record MetricasLlamada<T>(T resultado, MetricasPeticion metricas) {
+
+    public static <T> MetricasLlamada<T> medir(Supplier<T> llamada) {
+        MetricasPeticion metricas = MetricasPeticion.abrir();
+        try {
+            return new MetricasLlamada<>(llamada.get(), metricas);
+        } finally {
+            MetricasPeticion.cerrar();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.biblioteca.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("PoolConexionesConfig Unit Tests")
+class PoolConexionesConfigTest {
+
+    private final HikariDataSource pool = new HikariDataSource();
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    @DisplayName("Should size the pool from cores and enable Oracle statement cache and prefetch")
+    void ajustar_OracleSinTamanioFijado() {
+        pool.setJdbcUrl("jdbc:oracle:thin:@localhost:1521/XEPDB1");
+
+        ajustes(Map.of("app.datasource.pool.prefetch-filas", "250"), 4).postProcessAfterInitialization(pool, "dataSource");
+
+        assertEquals(9, pool.getMaximumPoolSize());
+        assertEquals("100", pool.getDataSourceProperties().getProperty(PoolConexionesConfig.CACHE_SENTENCIAS));
+        assertEquals("250", pool.getDataSourceProperties().getProperty(PoolConexionesConfig.PREFETCH_FILAS));
+    }
+
+    @Test
+    @DisplayName("Should keep an explicit pool size and cap the derived one")
+    void ajustar_RespetaTamanioExplicitoYTope() {
+        pool.setJdbcUrl("jdbc:h2:mem:pool");
+        pool.setMaximumPoolSize(16);
+        ajustes(Map.of("spring.datasource.hikari.maximum-pool-size", "16"), 64)
+                .postProcessAfterInitialization(pool, "dataSource");
+        assertEquals(16, pool.getMaximumPoolSize());
+        assertTrue(pool.getDataSourceProperties().isEmpty());
+
+        // La réplica tiene su propio prefijo: el tamaño de la primaria no le afecta
+        try (HikariDataSource replica = new HikariDataSource()) {
+            replica.setJdbcUrl("jdbc:h2:mem:pool");
+            ajustes(Map.of("spring.datasource.hikari.maximum-pool-size", "16"), 64)
+                    .postProcessAfterInitialization(replica, "dataSourceReplica");
+            assertEquals(32, replica.getMaximumPoolSize());
+        }
+    }
+
+    private static PoolConexionesConfig.AjustesPool ajustes(Map<String, String> propiedades, int nucleos) {
+        return new PoolConexionesConfig.AjustesPool(new Binder(new MapConfigurationPropertySource(propiedades)), nucleos);
+    }
+}
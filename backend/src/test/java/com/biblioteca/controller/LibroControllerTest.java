@@ -46,6 +46,9 @@ class LibroControllerTest {
     @MockitoBean
     private com.biblioteca.config.JwtProperties jwtProperties;
 
+    @MockitoBean
+    private com.biblioteca.security.RateLimitingFilter rateLimitingFilter;
+
     private List<LibroDTO> testLibros;
 
     @BeforeEach
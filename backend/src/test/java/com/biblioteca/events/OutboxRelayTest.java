@@ -0,0 +1,102 @@
+package com.biblioteca.events;
+
+import com.biblioteca.config.OutboxProperties;
+import com.biblioteca.model.EstadoEventoOutbox;
+import com.biblioteca.model.EventoOutbox;
+import com.biblioteca.model.TipoEventoOutbox;
+import com.biblioteca.repository.EventoOutboxRepository;
+import com.biblioteca.service.NotificationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("OutboxRelay Unit Tests")
+@SuppressWarnings("null")
+class OutboxRelayTest {
+
+    @Mock
+    private EventoOutboxRepository repositorioOutbox;
+    @Mock
+    private NotificationService notificationService;
+    @Mock
+    private PlatformTransactionManager gestorTransacciones;
+
+    private final OutboxProperties propiedades = new OutboxProperties();
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        propiedades.setMaxIntentos(2);
+        relay = new OutboxRelay(repositorioOutbox, List.of(new NotificacionesSuscriptor(notificationService)),
+                propiedades, new ObjectMapper(), gestorTransacciones);
+    }
+
+    @Test
+    @DisplayName("Should deliver locked events and mark them processed")
+    void drenar_EntregaYMarcaProcesados() {
+        EventoOutbox prestamo = evento(1L, TipoEventoOutbox.PRESTAMO_CREADO,
+                "{\"nombre_socio\":\"Ana\",\"libro\":\"Dune\"}");
+        EventoOutbox devolucionEnPlazo = evento(2L, TipoEventoOutbox.PRESTAMO_DEVUELTO,
+                "{\"libro\":\"Dune\",\"fecha_prevista\":\"2026-03-10\",\"fecha_devolucion\":\"2026-03-10\"}");
+        when(repositorioOutbox.findIdsByEstado(eq(EstadoEventoOutbox.PENDIENTE), any())).thenReturn(List.of(1L, 2L));
+        when(repositorioOutbox.lockByIdsAndEstado(List.of(1L, 2L), EstadoEventoOutbox.PENDIENTE))
+                .thenReturn(List.of(prestamo, devolucionEnPlazo));
+
+        relay.drenar();
+
+        verify(notificationService).notificarNuevoPrestamo("Ana", "Dune");
+        verify(notificationService, never()).notificarDevolucionTardia(any());
+        assertEquals(EstadoEventoOutbox.PROCESADO, prestamo.getEstado());
+        assertEquals(EstadoEventoOutbox.PROCESADO, devolucionEnPlazo.getEstado());
+        verify(gestorTransacciones).commit(any());
+    }
+
+    @Test
+    @DisplayName("Should notify late returns using the dates recorded at return time")
+    void drenar_NotificaDevolucionTardia() {
+        EventoOutbox devolucion = evento(3L, TipoEventoOutbox.PRESTAMO_DEVUELTO,
+                "{\"usuario\":\"ana\",\"libro\":\"Dune\",\"fecha_prevista\":\"2026-03-10\",\"fecha_devolucion\":\"2026-03-13\"}");
+        when(repositorioOutbox.findIdsByEstado(eq(EstadoEventoOutbox.PENDIENTE), any())).thenReturn(List.of(3L));
+        when(repositorioOutbox.lockByIdsAndEstado(any(), eq(EstadoEventoOutbox.PENDIENTE))).thenReturn(List.of(devolucion));
+
+        relay.drenar();
+
+        verify(notificationService).notificarDevolucionTardia(Map.of(
+                "usuario", "ana", "libro", "Dune", "fecha_prevista", "2026-03-10", "dias_retraso", 3L));
+    }
+
+    @Test
+    @DisplayName("Should keep failed events pending until max attempts")
+    void drenar_ReintentaYMarcaFallido() {
+        EventoOutbox reserva = evento(4L, TipoEventoOutbox.BLOQUEO_CREADO, "{\"usuario\":\"ana\",\"libro\":\"Dune\"}");
+        when(repositorioOutbox.findIdsByEstado(eq(EstadoEventoOutbox.PENDIENTE), any())).thenReturn(List.of(4L));
+        when(repositorioOutbox.lockByIdsAndEstado(any(), eq(EstadoEventoOutbox.PENDIENTE))).thenReturn(List.of(reserva));
+        doThrow(new IllegalStateException("caído")).when(notificationService).notificarNuevaReserva("ana", "Dune");
+
+        relay.drenar();
+        assertEquals(EstadoEventoOutbox.PENDIENTE, reserva.getEstado());
+        assertEquals(1, reserva.getIntentos());
+        assertEquals("caído", reserva.getUltimoError());
+
+        relay.drenar();
+        assertEquals(EstadoEventoOutbox.FALLIDO, reserva.getEstado());
+    }
+
+    private EventoOutbox evento(Long id, TipoEventoOutbox tipo, String payload) {
+        EventoOutbox evento = new EventoOutbox(tipo, payload);
+        evento.setIdEvento(id);
+        return evento;
+    }
+}
@@ -0,0 +1,161 @@
+package com.biblioteca.integration;
+
+import com.biblioteca.model.Bloqueo;
+import com.biblioteca.model.Ejemplar;
+import com.biblioteca.model.EstadoBloqueo;
+import com.biblioteca.model.EstadoEjemplar;
+import com.biblioteca.model.Libro;
+import com.biblioteca.model.Socio;
+import com.biblioteca.repository.BloqueoRepository;
+import com.biblioteca.repository.EjemplarRepository;
+import com.biblioteca.repository.LibroRepository;
+import com.biblioteca.repository.PrestamoRepository;
+import com.biblioteca.repository.SocioRepository;
+import com.biblioteca.repository.VencimientoBloqueo;
+import com.biblioteca.service.BloqueoService;
+import com.biblioteca.service.ExpiracionBloqueos;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Expiración de reservas desde la aplicación contra H2. Los planificadores se
+ * espacian para que sea el test quien dispare cada revisión.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:bloqueos;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "app.bloqueos.expiracion.intervalo-ms=3600000",
+        "app.bloqueos.expiracion.resincronizacion-ms=3600000",
+        "app.bloqueos.expiracion.tamanio-lote=2",
+        "app.outbox.intervalo-ms=3600000" })
+@ActiveProfiles("test")
+@DisplayName("Bloqueo Expiration Integration Tests")
+class BloqueoExpiracionIntegrationTest {
+
+    @Autowired
+    private ExpiracionBloqueos expiracionBloqueos;
+    @Autowired
+    private BloqueoService bloqueoService;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private SocioRepository socioRepository;
+    @Autowired
+    private LibroRepository libroRepository;
+    @Autowired
+    private EjemplarRepository ejemplarRepository;
+    @Autowired
+    private BloqueoRepository bloqueoRepository;
+    @Autowired
+    private PrestamoRepository prestamoRepository;
+
+    private Libro libro;
+    private int siguiente;
+
+    @BeforeEach
+    void setUp() {
+        prestamoRepository.deleteAllInBatch();
+        bloqueoRepository.deleteAllInBatch();
+        ejemplarRepository.deleteAllInBatch();
+        libroRepository.deleteAllInBatch();
+        socioRepository.deleteAllInBatch();
+
+        libro = new Libro();
+        libro.setTitulo("Ficciones");
+        libro.setAutor("Jorge Luis Borges");
+        libro.setIsbn("9788420633121");
+        libro.setCategoria("Cuento");
+        libro = libroRepository.save(libro);
+    }
+
+    @Test
+    @DisplayName("Should expire overdue reservations in batches and release their copies")
+    void procesarVencidos_ExpiraPorLotesYLiberaEjemplares() {
+        Bloqueo vencido1 = bloqueo(EstadoBloqueo.ACTIVO, EstadoEjemplar.BLOQUEADO, -2);
+        Bloqueo vencido2 = bloqueo(EstadoBloqueo.ACTIVO, EstadoEjemplar.BLOQUEADO, -1);
+        Bloqueo vencido3 = bloqueo(EstadoBloqueo.ACTIVO, EstadoEjemplar.BLOQUEADO, -1);
+        Bloqueo vigente = bloqueo(EstadoBloqueo.ACTIVO, EstadoEjemplar.BLOQUEADO, 60);
+        double antes = meterRegistry.counter("bloqueos.expirados").count();
+
+        expiracionBloqueos.cargar();
+        // Tres vencidas con lotes de dos: dos sentencias, la vigente sigue en cola
+        assertEquals(3, expiracionBloqueos.procesarVencidos());
+
+        for (Bloqueo bloqueo : new Bloqueo[] { vencido1, vencido2, vencido3 }) {
+            assertEquals(EstadoBloqueo.EXPIRADO, bloqueoRepository.findById(bloqueo.getIdBloqueo()).orElseThrow().getEstado());
+            assertEquals(EstadoEjemplar.DISPONIBLE, estadoEjemplar(bloqueo));
+        }
+        assertEquals(EstadoBloqueo.ACTIVO, bloqueoRepository.findById(vigente.getIdBloqueo()).orElseThrow().getEstado());
+        assertEquals(EstadoEjemplar.BLOQUEADO, estadoEjemplar(vigente));
+        assertEquals(3L, libroRepository.findById(libro.getIdLibro()).orElseThrow().getDisponibles());
+
+        assertEquals(3, meterRegistry.counter("bloqueos.expirados").count() - antes);
+        assertTrue(meterRegistry.get("bloqueos.expiracion.retraso").timer().count() >= 3);
+        assertEquals(0, expiracionBloqueos.procesarVencidos());
+    }
+
+    @Test
+    @DisplayName("Should leave reservations converted or cancelled after being queued")
+    void procesarVencidos_RespetaCambiosPosteriores() {
+        Bloqueo convertido = bloqueo(EstadoBloqueo.ACTIVO, EstadoEjemplar.BLOQUEADO, -1);
+        expiracionBloqueos.programar(vencimiento(convertido));
+
+        // Se formaliza después de entrar en la cola
+        convertido.setEstado(EstadoBloqueo.CONVERTIDO);
+        bloqueoRepository.save(convertido);
+        Ejemplar ejemplar = ejemplarRepository.findById(convertido.getEjemplar().getIdEjemplar()).orElseThrow();
+        ejemplar.setEstado(EstadoEjemplar.PRESTADO);
+        ejemplarRepository.save(ejemplar);
+
+        assertEquals(0, expiracionBloqueos.procesarVencidos());
+        assertEquals(EstadoBloqueo.CONVERTIDO, bloqueoRepository.findById(convertido.getIdBloqueo()).orElseThrow().getEstado());
+        assertEquals(EstadoEjemplar.PRESTADO, estadoEjemplar(convertido));
+    }
+
+    @Test
+    @DisplayName("Should reload deadlines from the database on manual cleanup")
+    void limpiarBloqueosExpirados_RecargaDesdeBaseDeDatos() {
+        Bloqueo vencido = bloqueo(EstadoBloqueo.ACTIVO, EstadoEjemplar.BLOQUEADO, -5);
+
+        assertEquals(1, bloqueoService.limpiarBloqueosExpirados());
+        assertEquals(EstadoEjemplar.DISPONIBLE, estadoEjemplar(vencido));
+    }
+
+    private Bloqueo bloqueo(EstadoBloqueo estado, EstadoEjemplar estadoEjemplar, long minutosHastaFin) {
+        siguiente++;
+        Socio socio = new Socio();
+        socio.setUsuario("socio" + siguiente);
+        socio.setPasswordHash("$2a$10$hash");
+        socio.setRol("SOCIO");
+        socio = socioRepository.save(socio);
+
+        Ejemplar ejemplar = new Ejemplar();
+        ejemplar.setLibro(libro);
+        ejemplar.setEstado(estadoEjemplar);
+        ejemplar.setCodigoBarras("RES-" + siguiente);
+        ejemplar = ejemplarRepository.save(ejemplar);
+
+        Instant fin = Instant.now().plus(minutosHastaFin, ChronoUnit.MINUTES);
+        return bloqueoRepository.save(new Bloqueo(socio, ejemplar, Date.from(fin.minus(1, ChronoUnit.DAYS)),
+                Date.from(fin), estado));
+    }
+
+    private VencimientoBloqueo vencimiento(Bloqueo bloqueo) {
+        return new VencimientoBloqueo(bloqueo.getIdBloqueo(), bloqueo.getEjemplar().getIdEjemplar(),
+                libro.getIdLibro(), bloqueo.getFechaFin());
+    }
+
+    private EstadoEjemplar estadoEjemplar(Bloqueo bloqueo) {
+        return ejemplarRepository.findById(bloqueo.getEjemplar().getIdEjemplar()).orElseThrow().getEstado();
+    }
+}
@@ -0,0 +1,129 @@
+package com.biblioteca.integration;
+
+import com.biblioteca.config.CacheConfig;
+import com.biblioteca.config.CachesProperties;
+import com.biblioteca.model.Ejemplar;
+import com.biblioteca.model.EstadoEjemplar;
+import com.biblioteca.model.Libro;
+import com.biblioteca.repository.BloqueoRepository;
+import com.biblioteca.repository.EjemplarRepository;
+import com.biblioteca.repository.LibroRepository;
+import com.biblioteca.repository.PrestamoRepository;
+import com.biblioteca.service.EjemplarService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Caché de ejemplares por libro: aciertos visibles en Actuator e invalidación
+ * tras el commit de cada cambio de estado.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:caches;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "app.outbox.intervalo-ms=3600000" })
+@ActiveProfiles("test")
+@DisplayName("Copy Cache Integration Tests")
+class CacheEjemplaresIntegrationTest {
+
+    @Autowired
+    private EjemplarService ejemplarService;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private PlatformTransactionManager gestorTransacciones;
+    @Autowired
+    private LibroRepository libroRepository;
+    @Autowired
+    private EjemplarRepository ejemplarRepository;
+    @Autowired
+    private PrestamoRepository prestamoRepository;
+    @Autowired
+    private BloqueoRepository bloqueoRepository;
+
+    private Libro libro;
+    private Ejemplar ejemplar;
+
+    @BeforeEach
+    void setUp() {
+        prestamoRepository.deleteAllInBatch();
+        bloqueoRepository.deleteAllInBatch();
+        ejemplarRepository.deleteAllInBatch();
+        libroRepository.deleteAllInBatch();
+        cacheManager.getCache(CacheConfig.EJEMPLARES).clear();
+
+        libro = new Libro();
+        libro.setTitulo("La invención de Morel");
+        libro.setAutor("Adolfo Bioy Casares");
+        libro.setIsbn("9788420674278");
+        libro.setCategoria("Novela");
+        libro = libroRepository.save(libro);
+
+        ejemplar = new Ejemplar();
+        ejemplar.setLibro(libro);
+        ejemplar.setEstado(EstadoEjemplar.DISPONIBLE);
+        ejemplar.setCodigoBarras("MOR-1");
+        ejemplar = ejemplarRepository.save(ejemplar);
+    }
+
+    @Test
+    @DisplayName("Should serve repeated lookups from the cache and report hits")
+    void listarEjemplares_CacheaYPublicaAciertos() {
+        double aciertosAntes = aciertos();
+
+        ejemplarService.listarEjemplares(libro.getIdLibro(), null);
+        ejemplarService.listarEjemplares(libro.getIdLibro(), null);
+
+        assertEquals(aciertosAntes + 1, aciertos());
+        assertNotNull(cacheManager.getCache(CacheConfig.EJEMPLARES).get(libro.getIdLibro()));
+    }
+
+    @Test
+    @DisplayName("Should evict the book's copies only after the state change commits")
+    void cambiarEstado_InvalidaTrasElCommit() {
+        ejemplarService.listarEjemplares(libro.getIdLibro(), null);
+
+        new TransactionTemplate(gestorTransacciones).executeWithoutResult(estado -> {
+            ejemplarService.actualizarEstadoEjemplar(ejemplar.getIdEjemplar(), EstadoEjemplar.PRESTADO);
+            // Dentro de la transacción otros lectores siguen viendo la entrada confirmada
+            assertNotNull(cacheManager.getCache(CacheConfig.EJEMPLARES).get(libro.getIdLibro()));
+        });
+
+        assertNull(cacheManager.getCache(CacheConfig.EJEMPLARES).get(libro.getIdLibro()));
+        List<Ejemplar> ejemplares = ejemplarService.listarEjemplares(libro.getIdLibro(), null);
+        assertEquals(EstadoEjemplar.PRESTADO, ejemplares.get(0).getEstado());
+    }
+
+    @Test
+    @DisplayName("Should reject refreshAfterWrite for caches without a loader")
+    void especificacion_RechazaRefreshAfterWrite() {
+        CachesProperties propiedades = new CachesProperties();
+        propiedades.setEspecificaciones(Map.of("ejemplares", "maximumSize=10,refreshAfterWrite=1m"));
+
+        IllegalStateException error = assertThrows(IllegalStateException.class,
+                () -> new CacheConfig().cacheManager(propiedades));
+        assertTrue(error.getMessage().contains("'ejemplares'"));
+    }
+
+    private double aciertos() {
+        FunctionCounter contador = meterRegistry.find("cache.gets")
+                .tags("cache", CacheConfig.EJEMPLARES, "result", "hit")
+                .functionCounter();
+        assertNotNull(contador, "Las estadísticas de la caché deben publicarse en Actuator");
+        return contador.count();
+    }
+}
@@ -0,0 +1,193 @@
+package com.biblioteca.integration;
+
+import com.biblioteca.model.Ejemplar;
+import com.biblioteca.model.EstadoEjemplar;
+import com.biblioteca.model.EstadoPrestamo;
+import com.biblioteca.model.Libro;
+import com.biblioteca.model.Prestamo;
+import com.biblioteca.model.Socio;
+import com.biblioteca.repository.BloqueoRepository;
+import com.biblioteca.repository.EjemplarRepository;
+import com.biblioteca.repository.LibroRepository;
+import com.biblioteca.repository.PrestamoRepository;
+import com.biblioteca.repository.SocioRepository;
+import com.biblioteca.security.JwtTokenProvider;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Exportaciones en streaming por HTTP, con más filas de las que se escriben
+ * entre dos limpiezas del contexto de persistencia.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:exportaciones;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        // HS512 exige al menos 64 bytes de clave para firmar los tokens del test
+        "app.jwt.secret=exportacionesSecretKeyForTestingPurposesOnlyDoNotUseInProduction0123456789",
+        "app.outbox.intervalo-ms=3600000" })
+@ActiveProfiles("test")
+@DisplayName("Export Integration Tests")
+class ExportacionIntegrationTest {
+
+    private static final int PRESTAMOS = 1200;
+    private static final int DEVUELTOS = 450;
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private SocioRepository socioRepository;
+    @Autowired
+    private LibroRepository libroRepository;
+    @Autowired
+    private EjemplarRepository ejemplarRepository;
+    @Autowired
+    private PrestamoRepository prestamoRepository;
+    @Autowired
+    private BloqueoRepository bloqueoRepository;
+
+    private String baseUrl;
+
+    @BeforeEach
+    void setUp() {
+        baseUrl = "http://localhost:" + port + "/api/exportaciones";
+
+        prestamoRepository.deleteAllInBatch();
+        bloqueoRepository.deleteAllInBatch();
+        ejemplarRepository.deleteAllInBatch();
+        libroRepository.deleteAllInBatch();
+        socioRepository.deleteAllInBatch();
+
+        Socio socio = new Socio();
+        socio.setUsuario("lectora");
+        socio.setPasswordHash("$2a$10$hash");
+        socio.setRol("SOCIO");
+        socio = socioRepository.save(socio);
+
+        Libro libro = new Libro();
+        libro.setTitulo("Historias de cronopios y de famas, \"edición\" anotada");
+        libro.setAutor("Julio Cortázar");
+        libro.setIsbn("9788466331906");
+        libro.setCategoria("Cuento");
+        libro = libroRepository.save(libro);
+
+        List<Ejemplar> ejemplares = new ArrayList<>();
+        for (int i = 0; i < PRESTAMOS; i++) {
+            Ejemplar ejemplar = new Ejemplar();
+            ejemplar.setLibro(libro);
+            ejemplar.setEstado(i < DEVUELTOS ? EstadoEjemplar.DISPONIBLE : EstadoEjemplar.PRESTADO);
+            ejemplar.setCodigoBarras("HCF-" + i);
+            ejemplares.add(ejemplar);
+        }
+        ejemplares = ejemplarRepository.saveAll(ejemplares);
+
+        Date hoy = new Date();
+        List<Prestamo> prestamos = new ArrayList<>();
+        for (int i = 0; i < PRESTAMOS; i++) {
+            Prestamo prestamo = new Prestamo(socio, ejemplares.get(i),
+                    i < DEVUELTOS ? EstadoPrestamo.DEVUELTO : EstadoPrestamo.ACTIVO, hoy, hoy);
+            if (i < DEVUELTOS) {
+                prestamo.setFechaDevolucionReal(hoy);
+            }
+            prestamos.add(prestamo);
+        }
+        prestamoRepository.saveAll(prestamos);
+    }
+
+    @Test
+    @DisplayName("Should stream every loan as CSV with a header and quoted fields")
+    void exportarPrestamos_Csv() {
+        ResponseEntity<String> respuesta = descargar("/prestamos", "BIBLIOTECARIO");
+
+        assertEquals(HttpStatus.OK, respuesta.getStatusCode());
+        assertTrue(Objects.requireNonNull(respuesta.getHeaders().getContentType()).toString().startsWith("text/csv"));
+        assertTrue(Objects.requireNonNull(respuesta.getHeaders().getContentDisposition().getFilename())
+                .equals("prestamos.csv"));
+
+        String[] lineas = Objects.requireNonNull(respuesta.getBody()).split("\r\n");
+        assertEquals(PRESTAMOS + 1, lineas.length);
+        assertTrue(lineas[0].startsWith("id_prestamo,id_socio,usuario,"));
+        assertTrue(lineas[1].contains(",\"Historias de cronopios y de famas, \"\"edición\"\" anotada\","));
+        assertTrue(lineas[PRESTAMOS].endsWith(",ACTIVO"));
+    }
+
+    @Test
+    @DisplayName("Should stream filtered loans and copies as NDJSON")
+    void exportarPrestamosYEjemplares_Ndjson() throws Exception {
+        ResponseEntity<String> respuesta = descargar("/prestamos?formato=ndjson&estado=DEVUELTO", "ADMIN");
+
+        assertEquals(HttpStatus.OK, respuesta.getStatusCode());
+        String[] lineas = Objects.requireNonNull(respuesta.getBody()).split("\n");
+        assertEquals(DEVUELTOS, lineas.length);
+        for (String linea : lineas) {
+            JsonNode fila = objectMapper.readTree(linea);
+            assertEquals("DEVUELTO", fila.get("estado").asText());
+            assertEquals("lectora", fila.get("usuario").asText());
+            assertFalse(fila.get("fecha_devolucion_real").isNull());
+        }
+
+        respuesta = descargar("/ejemplares?formato=ndjson", "BIBLIOTECARIO");
+        assertEquals(PRESTAMOS, Objects.requireNonNull(respuesta.getBody()).split("\n").length);
+    }
+
+    @Test
+    @DisplayName("Should neutralise CSV cells that a spreadsheet would run as formulas")
+    void exportarLibros_NeutralizaFormulas() {
+        Libro libro = new Libro();
+        libro.setTitulo("=HIPERVINCULO(\"http://ejemplo.invalid\")");
+        libro.setAutor("@Anónimo");
+        libro.setIsbn("9788437604947");
+        libro.setCategoria("-Ensayo");
+        libroRepository.save(libro);
+
+        String csv = Objects.requireNonNull(descargar("/libros", "BIBLIOTECARIO").getBody());
+
+        assertTrue(csv.contains(",\"'=HIPERVINCULO(\"\"http://ejemplo.invalid\"\")\",'@Anónimo,'-Ensayo,"), csv);
+    }
+
+    @Test
+    @DisplayName("Should reject members and unknown formats")
+    void exportar_RechazaSociosYFormatosDesconocidos() {
+        assertEquals(HttpStatus.FORBIDDEN, descargar("/libros", "SOCIO").getStatusCode());
+
+        ResponseEntity<String> respuesta = descargar("/libros?formato=xlsx", "BIBLIOTECARIO");
+        assertEquals(HttpStatus.BAD_REQUEST, respuesta.getStatusCode());
+        assertTrue(Objects.requireNonNull(respuesta.getBody()).contains("Formato no soportado: xlsx. Use csv o ndjson."));
+    }
+
+    private ResponseEntity<String> descargar(String ruta, String rol) {
+        UserDetails usuario = User.withUsername("personal").password("x").roles(rol).build();
+        String token = jwtTokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(usuario, null, usuario.getAuthorities()));
+        HttpHeaders cabeceras = new HttpHeaders();
+        cabeceras.setBearerAuth(token);
+        return restTemplate.exchange(baseUrl + ruta, HttpMethod.GET, new HttpEntity<>(cabeceras), String.class);
+    }
+}
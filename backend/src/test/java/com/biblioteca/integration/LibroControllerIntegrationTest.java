@@ -153,6 +153,29 @@ class LibroControllerIntegrationTest {
         assertEquals(2, content.size()); // Both books by Cervantes
     }
 
+    @Test
+    @DisplayName("Should walk the catalog with keyset cursors")
+    void getLibrosPaginated_CursorMode() {
+        ParameterizedTypeReference<Map<String, Object>> tipo = new ParameterizedTypeReference<>() {
+        };
+
+        Map<String, Object> primera = Objects.requireNonNull(restTemplate.exchange(
+                baseUrl + "/paginated?tamanio=2&cursor=", HttpMethod.GET, null, tipo).getBody());
+        assertEquals(2, ((List<?>) primera.get("content")).size());
+        assertEquals(3, ((Number) Objects.requireNonNull(primera.get("totalElements"))).intValue());
+        assertTrue((Boolean) Objects.requireNonNull(primera.get("first")));
+        String siguiente = (String) primera.get("nextCursor");
+        assertNotNull(siguiente);
+
+        Map<String, Object> segunda = Objects.requireNonNull(restTemplate.exchange(
+                baseUrl + "/paginated?tamanio=2&contarTotal=false&cursor=" + siguiente, HttpMethod.GET, null, tipo)
+                .getBody());
+        assertEquals(1, ((List<?>) segunda.get("content")).size());
+        assertEquals(-1, ((Number) Objects.requireNonNull(segunda.get("totalElements"))).intValue());
+        assertTrue((Boolean) Objects.requireNonNull(segunda.get("last")));
+        assertNull(segunda.get("nextCursor"));
+    }
+
     @Test
     @DisplayName("Should get book by ID")
     void getLibroById_Success() {
@@ -167,6 +190,14 @@ class LibroControllerIntegrationTest {
         assertEquals(libro.getTitulo(), responseBody.titulo());
     }
 
+    @Test
+    @DisplayName("Should store new books with zero available copies, not NULL")
+    void nuevoLibro_DisponiblesPorDefectoCero() {
+        Long idLibro = libroRepository.findAll().get(0).getIdLibro();
+        // DISPONIBLES no se inserta desde la entidad: lo pone el DEFAULT de la columna
+        assertEquals(java.util.Optional.of(0L), libroRepository.findDisponiblesByIdLibro(idLibro));
+    }
+
     @Test
     @DisplayName("Should return 404 for non-existent book")
     void getLibroById_NotFound() {
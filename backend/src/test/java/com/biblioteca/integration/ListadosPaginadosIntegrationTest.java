@@ -0,0 +1,217 @@
+package com.biblioteca.integration;
+
+import com.biblioteca.dto.FiltroListado;
+import com.biblioteca.model.Bloqueo;
+import com.biblioteca.model.Ejemplar;
+import com.biblioteca.model.EstadoBloqueo;
+import com.biblioteca.model.EstadoEjemplar;
+import com.biblioteca.model.EstadoPrestamo;
+import com.biblioteca.model.Libro;
+import com.biblioteca.model.Prestamo;
+import com.biblioteca.model.Socio;
+import com.biblioteca.repository.BloqueoRepository;
+import com.biblioteca.repository.EjemplarRepository;
+import com.biblioteca.repository.LibroRepository;
+import com.biblioteca.repository.PrestamoRepository;
+import com.biblioteca.repository.SocioRepository;
+import com.biblioteca.service.BloqueoService;
+import com.biblioteca.service.EjemplarService;
+import com.biblioteca.service.PrestamoService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Listados paginados de administración contra H2: filtros, totales y orden
+ * estable entre páginas.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:listados;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "app.outbox.intervalo-ms=3600000" })
+@ActiveProfiles("test")
+@DisplayName("Paginated Admin Lists Integration Tests")
+class ListadosPaginadosIntegrationTest {
+
+    @Autowired
+    private PrestamoService prestamoService;
+    @Autowired
+    private BloqueoService bloqueoService;
+    @Autowired
+    private EjemplarService ejemplarService;
+    @Autowired
+    private SocioRepository socioRepository;
+    @Autowired
+    private LibroRepository libroRepository;
+    @Autowired
+    private EjemplarRepository ejemplarRepository;
+    @Autowired
+    private PrestamoRepository prestamoRepository;
+    @Autowired
+    private BloqueoRepository bloqueoRepository;
+
+    private Socio ana;
+    private Socio bruno;
+    private Libro libro;
+    private int siguiente;
+
+    @BeforeEach
+    void setUp() {
+        prestamoRepository.deleteAllInBatch();
+        bloqueoRepository.deleteAllInBatch();
+        ejemplarRepository.deleteAllInBatch();
+        libroRepository.deleteAllInBatch();
+        socioRepository.deleteAllInBatch();
+
+        ana = socio("ana");
+        bruno = socio("bruno");
+
+        libro = new Libro();
+        libro.setTitulo("Rayuela");
+        libro.setAutor("Julio Cortázar");
+        libro.setIsbn("9788437624723");
+        libro.setCategoria("Novela");
+        libro = libroRepository.save(libro);
+    }
+
+    @Test
+    @DisplayName("Should filter loans by state, member and dates and count the whole result")
+    void buscarPrestamos_FiltraYCuentaElTotal() {
+        List<Prestamo> activos = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            activos.add(prestamo(ana, EstadoPrestamo.ACTIVO, -i, 14 - i));
+        }
+        prestamo(bruno, EstadoPrestamo.ACTIVO, -30, -16);
+        prestamo(ana, EstadoPrestamo.DEVUELTO, -40, -26);
+
+        Page<Prestamo> primera = prestamoService.buscarPrestamos(
+                new FiltroListado("ACTIVO", ana.getIdSocio(), null, null, null, false), 0, 10, null);
+        assertEquals(25, primera.getTotalElements());
+        assertEquals(3, primera.getTotalPages());
+        assertEquals(10, primera.getContent().size());
+        // Orden por defecto: los más recientes primero, con socio y libro ya cargados
+        assertEquals(activos.get(0).getIdPrestamo(), primera.getContent().get(0).getIdPrestamo());
+        assertEquals("Rayuela", primera.getContent().get(0).getEjemplar().getLibro().getTitulo());
+
+        Page<Prestamo> ultima = prestamoService.buscarPrestamos(
+                new FiltroListado("ACTIVO", ana.getIdSocio(), null, null, null, false), 2, 10, null);
+        assertEquals(5, ultima.getContent().size());
+        assertEquals(activos.get(24).getIdPrestamo(), ultima.getContent().get(4).getIdPrestamo());
+
+        LocalDate hoy = LocalDate.now();
+        Page<Prestamo> semana = prestamoService.buscarPrestamos(
+                new FiltroListado(null, null, libro.getIdLibro(), hoy.minusDays(6), hoy, false), 0, 100, null);
+        assertEquals(7, semana.getTotalElements());
+
+        Page<Prestamo> todos = prestamoService.buscarPrestamos(
+                new FiltroListado(null, null, null, null, null, false), 0, 100, null);
+        assertEquals(27, todos.getTotalElements());
+    }
+
+    @Test
+    @DisplayName("Should list only overdue active loans ordered by due date")
+    void buscarPrestamos_SoloVencidos() {
+        prestamo(ana, EstadoPrestamo.ACTIVO, -20, -6);
+        Prestamo masAntiguo = prestamo(bruno, EstadoPrestamo.ACTIVO, -30, -16);
+        prestamo(ana, EstadoPrestamo.ACTIVO, -1, 13);
+        prestamo(ana, EstadoPrestamo.DEVUELTO, -40, -26);
+
+        Page<Prestamo> vencidos = prestamoService.buscarPrestamos(
+                new FiltroListado("ACTIVO", null, null, null, null, true), 0, 20, "fechaPrevistaDevolucion,asc");
+
+        assertEquals(2, vencidos.getTotalElements());
+        assertEquals(masAntiguo.getIdPrestamo(), vencidos.getContent().get(0).getIdPrestamo());
+        Date hoy = dia(0);
+        assertTrue(vencidos.getContent().stream().allMatch(p -> p.getFechaPrevistaDevolucion().before(hoy)));
+    }
+
+    @Test
+    @DisplayName("Should list pending reservations soonest to expire first and copies by book")
+    void buscarBloqueosYEjemplares() {
+        Bloqueo tarde = bloqueo(ana, EstadoBloqueo.ACTIVO, 48);
+        Bloqueo pronto = bloqueo(bruno, EstadoBloqueo.ACTIVO, 2);
+        bloqueo(ana, EstadoBloqueo.ACTIVO, -1);
+        bloqueo(bruno, EstadoBloqueo.CANCELADO, 24);
+
+        Page<Bloqueo> pendientes = bloqueoService.buscarBloqueos(
+                new FiltroListado(null, null, null, null, null, false), 0, 20, null);
+        assertEquals(List.of(pronto.getIdBloqueo(), tarde.getIdBloqueo()),
+                pendientes.getContent().stream().map(Bloqueo::getIdBloqueo).toList());
+        assertEquals("bruno", pendientes.getContent().get(0).getSocio().getUsuario());
+
+        Page<Bloqueo> porVencer = bloqueoService.buscarBloqueos(
+                new FiltroListado(null, null, null, null, null, true), 0, 20, null);
+        assertEquals(1, porVencer.getTotalElements());
+
+        Page<Ejemplar> bloqueados = ejemplarService.buscarEjemplares(libro.getIdLibro(), "BLOQUEADO", 0, 2,
+                "codigoBarras,desc");
+        assertEquals(4, bloqueados.getTotalElements());
+        assertEquals("RAY-3", bloqueados.getContent().get(0).getCodigoBarras());
+    }
+
+    @Test
+    @DisplayName("Should reject unknown sort fields, states and oversized pages")
+    void buscar_RechazaParametrosNoValidos() {
+        FiltroListado sinFiltros = new FiltroListado(null, null, null, null, null, false);
+
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> prestamoService.buscarPrestamos(sinFiltros, 0, 20, "passwordHash,asc"));
+        assertTrue(error.getMessage().startsWith("Campo de orden no válido: passwordHash"));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> prestamoService.buscarPrestamos(new FiltroListado("PERDIDO", null, null, null, null, false),
+                        0, 20, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> bloqueoService.buscarBloqueos(sinFiltros, 0, 101, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> ejemplarService.buscarEjemplares(null, null, -1, 20, null));
+    }
+
+    private Socio socio(String usuario) {
+        Socio socio = new Socio();
+        socio.setUsuario(usuario);
+        socio.setPasswordHash("$2a$10$hash");
+        socio.setRol("SOCIO");
+        return socioRepository.save(socio);
+    }
+
+    private Ejemplar ejemplar(EstadoEjemplar estado) {
+        Ejemplar ejemplar = new Ejemplar();
+        ejemplar.setLibro(libro);
+        ejemplar.setEstado(estado);
+        ejemplar.setCodigoBarras("RAY-" + siguiente++);
+        return ejemplarRepository.save(ejemplar);
+    }
+
+    private Prestamo prestamo(Socio socio, EstadoPrestamo estado, int diasPrestamo, int diasVencimiento) {
+        Prestamo prestamo = new Prestamo(socio,
+                ejemplar(estado == EstadoPrestamo.ACTIVO ? EstadoEjemplar.PRESTADO : EstadoEjemplar.DISPONIBLE),
+                estado, dia(diasPrestamo), dia(diasVencimiento));
+        if (estado == EstadoPrestamo.DEVUELTO) {
+            prestamo.setFechaDevolucionReal(dia(diasVencimiento));
+        }
+        return prestamoRepository.save(prestamo);
+    }
+
+    private Bloqueo bloqueo(Socio socio, EstadoBloqueo estado, int horasRestantes) {
+        Date fin = Date.from(new Date().toInstant().plus(horasRestantes, ChronoUnit.HOURS));
+        Date inicio = Date.from(fin.toInstant().minus(48, ChronoUnit.HOURS));
+        return bloqueoRepository.save(new Bloqueo(socio, ejemplar(EstadoEjemplar.BLOQUEADO), inicio, fin, estado));
+    }
+
+    private static Date dia(int desplazamiento) {
+        return Date.from(LocalDate.now().plusDays(desplazamiento).atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+}
@@ -0,0 +1,119 @@
+package com.biblioteca.integration;
+
+import com.biblioteca.config.CacheConfig;
+import com.biblioteca.model.Ejemplar;
+import com.biblioteca.model.EstadoEjemplar;
+import com.biblioteca.model.Libro;
+import com.biblioteca.repository.BloqueoRepository;
+import com.biblioteca.repository.EjemplarRepository;
+import com.biblioteca.repository.LibroRepository;
+import com.biblioteca.repository.PrestamoRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Recuentos por petición: cabecera Server-Timing e histogramas etiquetados con
+ * la ruta del controlador.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:metricaspeticion;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "app.metricas.peticion.server-timing=true",
+        "app.outbox.intervalo-ms=3600000" })
+@ActiveProfiles("test")
+@DisplayName("Per-Request Metrics Integration Tests")
+class MetricasPeticionIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private LibroRepository libroRepository;
+    @Autowired
+    private EjemplarRepository ejemplarRepository;
+    @Autowired
+    private PrestamoRepository prestamoRepository;
+    @Autowired
+    private BloqueoRepository bloqueoRepository;
+
+    private Libro libro;
+
+    @BeforeEach
+    void setUp() {
+        prestamoRepository.deleteAllInBatch();
+        bloqueoRepository.deleteAllInBatch();
+        ejemplarRepository.deleteAllInBatch();
+        libroRepository.deleteAllInBatch();
+        cacheManager.getCache(CacheConfig.EJEMPLARES).clear();
+
+        libro = new Libro();
+        libro.setTitulo("Ficciones");
+        libro.setAutor("Jorge Luis Borges");
+        libro.setIsbn("9788420633121");
+        libro.setCategoria("Cuento");
+        libro = libroRepository.save(libro);
+
+        for (int i = 0; i < 3; i++) {
+            Ejemplar ejemplar = new Ejemplar();
+            ejemplar.setLibro(libro);
+            ejemplar.setEstado(EstadoEjemplar.DISPONIBLE);
+            ejemplar.setCodigoBarras("FIC-" + i);
+            ejemplarRepository.save(ejemplar);
+        }
+    }
+
+    @Test
+    @DisplayName("Should report SQL, entity and cache counts in Server-Timing")
+    void serverTiming_RecuentosDeLaPeticion() {
+        ResponseEntity<String> primera = listar();
+        assertEquals(HttpStatus.OK, primera.getStatusCode());
+        String cabecera = primera.getHeaders().getFirst("Server-Timing");
+        assertNotNull(cabecera);
+        assertTrue(cabecera.startsWith("app;dur="), cabecera);
+        assertFalse(cabecera.contains("sql;desc=\"0 sentencias\""), cabecera);
+        assertTrue(cabecera.contains("0 aciertos, 1 fallos"), cabecera);
+
+        // La segunda vez la lista sale de la caché sin tocar la base de datos
+        String segunda = listar().getHeaders().getFirst("Server-Timing");
+        assertTrue(segunda.contains("sql;desc=\"0 sentencias\""), segunda);
+        assertTrue(segunda.contains("entidades;desc=\"0\""), segunda);
+        assertTrue(segunda.contains("1 aciertos, 0 fallos"), segunda);
+    }
+
+    @Test
+    @DisplayName("Should record per-route histograms tagged with the handler pattern")
+    void histogramas_EtiquetadosPorRuta() {
+        listar();
+
+        DistributionSummary sentencias = meterRegistry.find("peticiones.sql")
+                .tags("method", "GET", "uri", "/api/ejemplares")
+                .summary();
+        assertNotNull(sentencias);
+        assertTrue(sentencias.count() >= 1);
+        assertTrue(sentencias.max() >= 1);
+        assertNotNull(meterRegistry.find("peticiones.entidades").tags("uri", "/api/ejemplares").summary());
+        assertNotNull(meterRegistry.find("peticiones.cache.fallos").tags("uri", "/api/ejemplares").summary());
+    }
+
+    private ResponseEntity<String> listar() {
+        return restTemplate.getForEntity(
+                "http://localhost:" + port + "/api/ejemplares?idLibro=" + libro.getIdLibro(), String.class);
+    }
+}
@@ -0,0 +1,132 @@
+package com.biblioteca.integration;
+
+import com.biblioteca.model.Ejemplar;
+import com.biblioteca.model.EstadoEjemplar;
+import com.biblioteca.model.Libro;
+import com.biblioteca.model.Socio;
+import com.biblioteca.repository.BloqueoRepository;
+import com.biblioteca.repository.EjemplarRepository;
+import com.biblioteca.repository.EventoOutboxRepository;
+import com.biblioteca.repository.LibroRepository;
+import com.biblioteca.repository.PrestamoRepository;
+import com.biblioteca.repository.SocioRepository;
+import com.biblioteca.service.MetricasNegocio;
+import com.biblioteca.service.PrestamoService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Métricas de negocio leídas como lo haría Prometheus: sin token, desde la
+ * máquina local y en formato de texto. Los tests desactivan los registros de
+ * exportación salvo que se pidan con {@link AutoConfigureObservability}.
+ */
+@AutoConfigureObservability(tracing = false)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:prometheus;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "management.endpoints.web.exposure.include=health,metrics,prometheus",
+        "app.metricas.inventario-intervalo-ms=3600000",
+        "app.outbox.intervalo-ms=3600000" })
+@ActiveProfiles("test")
+@DisplayName("Prometheus Metrics Integration Tests")
+class MetricasPrometheusIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private PrestamoService prestamoService;
+    @Autowired
+    private MetricasNegocio metricasNegocio;
+    @Autowired
+    private SocioRepository socioRepository;
+    @Autowired
+    private LibroRepository libroRepository;
+    @Autowired
+    private EjemplarRepository ejemplarRepository;
+    @Autowired
+    private PrestamoRepository prestamoRepository;
+    @Autowired
+    private BloqueoRepository bloqueoRepository;
+    @Autowired
+    private EventoOutboxRepository eventoOutboxRepository;
+
+    private Socio socio;
+    private Libro libro;
+
+    @BeforeEach
+    void setUp() {
+        eventoOutboxRepository.deleteAllInBatch();
+        prestamoRepository.deleteAllInBatch();
+        bloqueoRepository.deleteAllInBatch();
+        ejemplarRepository.deleteAllInBatch();
+        libroRepository.deleteAllInBatch();
+        socioRepository.deleteAllInBatch();
+
+        socio = new Socio();
+        socio.setUsuario("lector");
+        socio.setPasswordHash("$2a$10$hash");
+        socio.setRol("SOCIO");
+        socio.setMaxPrestamosActivos(2);
+        socio = socioRepository.save(socio);
+
+        libro = new Libro();
+        libro.setTitulo("Cien años de soledad");
+        libro.setAutor("Gabriel García Márquez");
+        libro.setIsbn("9788497592208");
+        libro.setCategoria("Novela");
+        libro = libroRepository.save(libro);
+    }
+
+    @Test
+    @DisplayName("Should expose loan timers, rejections and inventory gauges without a token")
+    void prometheus_ExponeMetricasDeNegocio() {
+        Ejemplar prestado = ejemplar("CAS-1");
+        ejemplar("CAS-2");
+        prestamoService.crearPrestamo(socio.getIdSocio(), prestado.getIdEjemplar());
+        assertThrows(IllegalStateException.class,
+                () -> prestamoService.crearPrestamo(socio.getIdSocio(), prestado.getIdEjemplar()));
+        metricasNegocio.actualizarInventario();
+
+        ResponseEntity<String> respuesta = restTemplate.getForEntity(
+                "http://localhost:" + port + "/actuator/prometheus", String.class);
+
+        assertEquals(HttpStatus.OK, respuesta.getStatusCode());
+        String cuerpo = respuesta.getBody();
+        assertNotNull(cuerpo);
+        assertTrue(cuerpo.contains("prestamos_crear_seconds_bucket{"), "Falta el histograma de préstamos");
+        assertTrue(cuerpo.contains("negocio_rechazos_total{motivo=\"ejemplar_no_disponible\"} 1.0"),
+                "Falta el rechazo por ejemplar no disponible");
+        assertTrue(cuerpo.contains("prestamos_activos 1.0"), "Falta el gauge de préstamos activos");
+        assertTrue(cuerpo.contains("ejemplares_disponibles 1.0"), "Falta el gauge de ejemplares disponibles");
+        assertTrue(cuerpo.contains("telegram_cola_pendientes"), "Falta la cola de Telegram");
+    }
+
+    @Test
+    @DisplayName("Should keep the rest of Actuator behind authentication")
+    void actuator_RestoRequiereToken() {
+        ResponseEntity<String> respuesta = restTemplate.getForEntity(
+                "http://localhost:" + port + "/actuator/metrics", String.class);
+
+        assertTrue(respuesta.getStatusCode().is4xxClientError(), "Estado: " + respuesta.getStatusCode());
+    }
+
+    private Ejemplar ejemplar(String codigo) {
+        Ejemplar ejemplar = new Ejemplar();
+        ejemplar.setLibro(libro);
+        ejemplar.setEstado(EstadoEjemplar.DISPONIBLE);
+        ejemplar.setCodigoBarras(codigo);
+        return ejemplarRepository.save(ejemplar);
+    }
+}
@@ -0,0 +1,208 @@
+package com.biblioteca.integration;
+
+import com.biblioteca.config.MetricasLlamada;
+import com.biblioteca.dto.PrestamoRequest;
+import com.biblioteca.dto.ResultadoLoteDTO;
+import com.biblioteca.model.Ejemplar;
+import com.biblioteca.model.EstadoEjemplar;
+import com.biblioteca.model.EstadoEventoOutbox;
+import com.biblioteca.model.EstadoPrestamo;
+import com.biblioteca.model.Libro;
+import com.biblioteca.model.Prestamo;
+import com.biblioteca.model.Socio;
+import com.biblioteca.repository.BloqueoRepository;
+import com.biblioteca.repository.EjemplarRepository;
+import com.biblioteca.repository.EventoOutboxRepository;
+import com.biblioteca.repository.LibroRepository;
+import com.biblioteca.repository.PrestamoRepository;
+import com.biblioteca.repository.SocioRepository;
+import com.biblioteca.service.PrestamoService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Creación de préstamos contra H2 midiendo las sentencias con
+ * {@link MetricasLlamada}, que solo cuenta las del hilo de la prueba: las
+ * tareas programadas del contexto (outbox, expiración de reservas) no suman.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:prestamos;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+        "spring.jpa.properties.hibernate.order_updates=true",
+        "app.outbox.intervalo-ms=3600000" })
+@ActiveProfiles("test")
+@DisplayName("Prestamo Creation Integration Tests")
+class PrestamoCreacionIntegrationTest {
+
+    @Autowired
+    private PrestamoService prestamoService;
+    @Autowired
+    private SocioRepository socioRepository;
+    @Autowired
+    private LibroRepository libroRepository;
+    @Autowired
+    private EjemplarRepository ejemplarRepository;
+    @Autowired
+    private PrestamoRepository prestamoRepository;
+    @Autowired
+    private BloqueoRepository bloqueoRepository;
+    @Autowired
+    private EventoOutboxRepository eventoOutboxRepository;
+
+    private Socio socio;
+    private Libro libro;
+    private int siguienteCodigo;
+
+    @BeforeEach
+    void setUp() {
+        eventoOutboxRepository.deleteAllInBatch();
+        prestamoRepository.deleteAllInBatch();
+        bloqueoRepository.deleteAllInBatch();
+        ejemplarRepository.deleteAllInBatch();
+        libroRepository.deleteAllInBatch();
+        socioRepository.deleteAllInBatch();
+
+        socio = new Socio();
+        socio.setUsuario("lector");
+        socio.setPasswordHash("$2a$10$hash");
+        socio.setRol("SOCIO");
+        socio.setNombre("Lector Habitual");
+        socio.setMaxPrestamosActivos(2);
+        socio = socioRepository.save(socio);
+
+        libro = new Libro();
+        libro.setTitulo("Rayuela");
+        libro.setAutor("Julio Cortázar");
+        libro.setIsbn("9788437604572");
+        libro.setCategoria("Novela");
+        libro = libroRepository.save(libro);
+    }
+
+    @Test
+    @DisplayName("Should create a loan with a bounded number of SQL statements")
+    void crearPrestamo_SentenciasAcotadas() {
+        Ejemplar ejemplar = ejemplar(EstadoEjemplar.DISPONIBLE);
+
+        MetricasLlamada<Prestamo> llamada = MetricasLlamada.medir(
+                () -> prestamoService.crearPrestamo(socio.getIdSocio(), ejemplar.getIdEjemplar()));
+        Prestamo prestamo = llamada.resultado();
+
+        int sentencias = llamada.metricas().getSentencias();
+        // SELECT socio+recuentos, SELECT ejemplar+libro, INSERT préstamo, UPDATE ejemplar,
+        // SELECT FOR UPDATE y UPDATE del contador del libro, INSERT outbox
+        assertTrue(sentencias <= 7, "Sentencias preparadas: " + sentencias);
+
+        assertNotNull(prestamo.getIdPrestamo());
+        assertEquals(EstadoEjemplar.PRESTADO,
+                ejemplarRepository.findById(ejemplar.getIdEjemplar()).orElseThrow().getEstado());
+        assertEquals(0L, libroRepository.findById(libro.getIdLibro()).orElseThrow().getDisponibles());
+        assertEquals(1, eventoOutboxRepository.countByEstado(EstadoEventoOutbox.PENDIENTE));
+    }
+
+    @Test
+    @DisplayName("Should keep the business rules and their messages")
+    void crearPrestamo_MantieneReglas() {
+        Ejemplar primero = ejemplar(EstadoEjemplar.DISPONIBLE);
+        Ejemplar segundo = ejemplar(EstadoEjemplar.DISPONIBLE);
+        Ejemplar prestado = ejemplar(EstadoEjemplar.PRESTADO);
+
+        prestamoService.crearPrestamo(socio.getIdSocio(), primero.getIdEjemplar());
+
+        IllegalStateException duplicado = assertThrows(IllegalStateException.class,
+                () -> prestamoService.crearPrestamo(socio.getIdSocio(), segundo.getIdEjemplar()));
+        assertEquals("El socio ya tiene prestado el libro 'Rayuela'.", duplicado.getMessage());
+
+        IllegalStateException noDisponible = assertThrows(IllegalStateException.class,
+                () -> prestamoService.crearPrestamo(socio.getIdSocio(), prestado.getIdEjemplar()));
+        assertEquals("El ejemplar no está disponible (Estado: PRESTADO)", noDisponible.getMessage());
+
+        socio.setMaxPrestamosActivos(1);
+        socioRepository.save(socio);
+        IllegalStateException limite = assertThrows(IllegalStateException.class,
+                () -> prestamoService.crearPrestamo(socio.getIdSocio(), segundo.getIdEjemplar()));
+        assertEquals("Límite de lecturas activas alcanzado (1). Préstamos: 1, Reservas: 0", limite.getMessage());
+
+        IllegalArgumentException sinSocio = assertThrows(IllegalArgumentException.class,
+                () -> prestamoService.crearPrestamo(-1L, segundo.getIdEjemplar()));
+        assertEquals("Socio no encontrado con ID: -1", sinSocio.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should create a batch of loans reporting each failed item")
+    void crearPrestamosEnLote_ResultadoPorElemento() {
+        Socio otro = socio("otro", 1);
+        Ejemplar primero = ejemplar(EstadoEjemplar.DISPONIBLE);
+        Ejemplar segundo = ejemplar(EstadoEjemplar.DISPONIBLE);
+        Ejemplar tercero = ejemplar(EstadoEjemplar.DISPONIBLE);
+
+        MetricasLlamada<ResultadoLoteDTO> llamada = MetricasLlamada.medir(() -> prestamoService.crearPrestamosEnLote(List.of(
+                new PrestamoRequest(socio.getIdSocio(), primero.getIdEjemplar()),
+                new PrestamoRequest(socio.getIdSocio(), segundo.getIdEjemplar()),
+                new PrestamoRequest(otro.getIdSocio(), primero.getIdEjemplar()),
+                new PrestamoRequest(otro.getIdSocio(), tercero.getIdEjemplar()),
+                new PrestamoRequest(-1L, tercero.getIdEjemplar()))));
+        ResultadoLoteDTO resultado = llamada.resultado();
+
+        assertEquals(2, resultado.correctos());
+        assertEquals(List.of(true, false, false, true, false),
+                resultado.resultados().stream().map(ResultadoLoteDTO.Item::correcto).toList());
+        assertEquals("El socio ya tiene prestado el libro 'Rayuela'.", resultado.resultados().get(1).error());
+        assertEquals("El ejemplar no está disponible (Estado: PRESTADO)", resultado.resultados().get(2).error());
+        assertEquals("Socio no encontrado con ID: -1", resultado.resultados().get(4).error());
+
+        // 4 SELECT de carga, 2 INSERT de préstamo, UPDATE de ejemplares en batch,
+        // SELECT FOR UPDATE y UPDATE del contador, INSERT del único evento de outbox
+        int sentencias = llamada.metricas().getSentencias();
+        assertTrue(sentencias <= 10, "Sentencias preparadas: " + sentencias);
+
+        assertEquals(1L, libroRepository.findById(libro.getIdLibro()).orElseThrow().getDisponibles());
+        assertEquals(EstadoEjemplar.PRESTADO,
+                ejemplarRepository.findById(tercero.getIdEjemplar()).orElseThrow().getEstado());
+        assertEquals(1, eventoOutboxRepository.countByEstado(EstadoEventoOutbox.PENDIENTE));
+    }
+
+    @Test
+    @DisplayName("Should return a batch of loans skipping unknown and repeated ids")
+    void devolverPrestamosEnLote_ResultadoPorElemento() {
+        Socio otro = socio("otro", 1);
+        Prestamo uno = prestamoService.crearPrestamo(socio.getIdSocio(), ejemplar(EstadoEjemplar.DISPONIBLE).getIdEjemplar());
+        Prestamo dos = prestamoService.crearPrestamo(otro.getIdSocio(), ejemplar(EstadoEjemplar.DISPONIBLE).getIdEjemplar());
+        eventoOutboxRepository.deleteAllInBatch();
+
+        ResultadoLoteDTO resultado = prestamoService.devolverPrestamosEnLote(
+                List.of(uno.getIdPrestamo(), -5L, dos.getIdPrestamo(), uno.getIdPrestamo()));
+
+        assertEquals(2, resultado.correctos());
+        assertEquals("Préstamo no encontrado.", resultado.resultados().get(1).error());
+        assertEquals("El préstamo ya ha sido devuelto.", resultado.resultados().get(3).error());
+        assertEquals(EstadoPrestamo.DEVUELTO, prestamoRepository.findById(dos.getIdPrestamo()).orElseThrow().getEstado());
+        assertEquals(2L, libroRepository.findById(libro.getIdLibro()).orElseThrow().getDisponibles());
+        assertEquals(1, eventoOutboxRepository.countByEstado(EstadoEventoOutbox.PENDIENTE));
+    }
+
+    private Socio socio(String usuario, int maxPrestamos) {
+        Socio nuevo = new Socio();
+        nuevo.setUsuario(usuario);
+        nuevo.setPasswordHash("$2a$10$hash");
+        nuevo.setRol("SOCIO");
+        nuevo.setNombre("Socio " + usuario);
+        nuevo.setMaxPrestamosActivos(maxPrestamos);
+        return socioRepository.save(nuevo);
+    }
+
+    private Ejemplar ejemplar(EstadoEjemplar estado) {
+        Ejemplar ejemplar = new Ejemplar();
+        ejemplar.setLibro(libro);
+        ejemplar.setEstado(estado);
+        ejemplar.setCodigoBarras("EJ-" + (++siguienteCodigo));
+        return ejemplarRepository.save(ejemplar);
+    }
+}
@@ -0,0 +1,146 @@
+package com.biblioteca.integration;
+
+import com.biblioteca.model.Ejemplar;
+import com.biblioteca.model.EstadoEjemplar;
+import com.biblioteca.model.EstadoPrestamo;
+import com.biblioteca.model.Libro;
+import com.biblioteca.model.Prestamo;
+import com.biblioteca.model.Socio;
+import com.biblioteca.repository.BloqueoRepository;
+import com.biblioteca.repository.EjemplarRepository;
+import com.biblioteca.repository.LibroRepository;
+import com.biblioteca.repository.PrestamoRepository;
+import com.biblioteca.repository.SocioRepository;
+import com.biblioteca.repository.VencimientoPrestamo;
+import com.biblioteca.service.IndicePrestamosVencidos;
+import com.biblioteca.service.NotificationService;
+import com.biblioteca.service.PrestamoService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Índice de préstamos vencidos y resumen diario contra H2. Los planificadores
+ * se espacian para que sea el test quien cargue el índice y envíe el resumen.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:vencidos;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "app.prestamos.vencidos.intervalo-ms=3600000",
+        "app.prestamos.vencidos.resincronizacion-ms=3600000",
+        "app.prestamos.vencidos.max-detalle-resumen=1",
+        "app.outbox.intervalo-ms=3600000" })
+@ActiveProfiles("test")
+@DisplayName("Overdue Loan Index Integration Tests")
+class PrestamosVencidosIntegrationTest {
+
+    @Autowired
+    private IndicePrestamosVencidos indiceVencidos;
+    @Autowired
+    private PrestamoService prestamoService;
+    @MockitoBean
+    private NotificationService notificationService;
+    @Autowired
+    private SocioRepository socioRepository;
+    @Autowired
+    private LibroRepository libroRepository;
+    @Autowired
+    private EjemplarRepository ejemplarRepository;
+    @Autowired
+    private PrestamoRepository prestamoRepository;
+    @Autowired
+    private BloqueoRepository bloqueoRepository;
+
+    private Socio socio;
+    private Libro libro;
+    private int siguiente;
+
+    @BeforeEach
+    void setUp() {
+        prestamoRepository.deleteAllInBatch();
+        bloqueoRepository.deleteAllInBatch();
+        ejemplarRepository.deleteAllInBatch();
+        libroRepository.deleteAllInBatch();
+        socioRepository.deleteAllInBatch();
+
+        socio = new Socio();
+        socio.setUsuario("lector");
+        socio.setPasswordHash("$2a$10$hash");
+        socio.setRol("SOCIO");
+        socio = socioRepository.save(socio);
+
+        libro = new Libro();
+        libro.setTitulo("Pedro Páramo");
+        libro.setAutor("Juan Rulfo");
+        libro.setIsbn("9788437604183");
+        libro.setCategoria("Novela");
+        libro = libroRepository.save(libro);
+    }
+
+    @Test
+    @DisplayName("Should index overdue loans from the database and send a single digest")
+    void cargar_IndexaVencidosYEnviaUnResumen() {
+        Prestamo masAtrasado = prestamo(EstadoPrestamo.ACTIVO, -5);
+        Prestamo atrasado = prestamo(EstadoPrestamo.ACTIVO, -1);
+        prestamo(EstadoPrestamo.ACTIVO, 0);
+        prestamo(EstadoPrestamo.ACTIVO, 3);
+        prestamo(EstadoPrestamo.DEVUELTO, -10);
+
+        indiceVencidos.cargar();
+
+        List<VencimientoPrestamo> vencidos = indiceVencidos.vencidos();
+        assertEquals(List.of(masAtrasado.getIdPrestamo(), atrasado.getIdPrestamo()),
+                vencidos.stream().map(VencimientoPrestamo::idPrestamo).toList());
+        assertEquals("Pedro Páramo", vencidos.get(0).tituloLibro());
+
+        assertEquals(2, indiceVencidos.enviarResumen());
+        verify(notificationService).notificarResumenVencidos(eq(2), argThat(detalle -> detalle.size() == 1
+                && Long.valueOf(5).equals(detalle.get(0).get("dias_retraso"))
+                && "lector".equals(detalle.get(0).get("usuario"))));
+    }
+
+    @Test
+    @DisplayName("Should drop returned loans after commit and skip the digest when nothing is overdue")
+    void devolver_RetiraDelIndice() {
+        Prestamo vencido = prestamo(EstadoPrestamo.ACTIVO, -2);
+        indiceVencidos.cargar();
+        assertEquals(1, indiceVencidos.vencidos().size());
+
+        prestamoService.devolverPrestamosEnLote(List.of(vencido.getIdPrestamo()));
+
+        assertTrue(indiceVencidos.vencidos().isEmpty());
+        assertEquals(0, indiceVencidos.enviarResumen());
+        verify(notificationService, never()).notificarResumenVencidos(anyInt(), anyList());
+    }
+
+    private Prestamo prestamo(EstadoPrestamo estado, int diasVencimiento) {
+        Ejemplar ejemplar = new Ejemplar();
+        ejemplar.setLibro(libro);
+        ejemplar.setEstado(estado == EstadoPrestamo.ACTIVO ? EstadoEjemplar.PRESTADO : EstadoEjemplar.DISPONIBLE);
+        ejemplar.setCodigoBarras("PP-" + siguiente++);
+        ejemplar = ejemplarRepository.save(ejemplar);
+
+        Date prevista = dia(diasVencimiento);
+        Prestamo prestamo = new Prestamo(socio, ejemplar, estado, dia(diasVencimiento - 15), prevista);
+        if (estado == EstadoPrestamo.DEVUELTO) {
+            prestamo.setFechaDevolucionReal(prevista);
+        }
+        return prestamoRepository.save(prestamo);
+    }
+
+    private static Date dia(int desplazamiento) {
+        return Date.from(LocalDate.now().plusDays(desplazamiento).atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+}
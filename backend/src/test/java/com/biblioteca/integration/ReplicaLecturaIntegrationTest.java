@@ -0,0 +1,220 @@
+package com.biblioteca.integration;
+
+import com.biblioteca.config.EnrutamientoDataSource;
+import com.biblioteca.model.Ejemplar;
+import com.biblioteca.model.EstadoEjemplar;
+import com.biblioteca.model.Libro;
+import com.biblioteca.model.Socio;
+import com.biblioteca.repository.EjemplarRepository;
+import com.biblioteca.repository.EventoOutboxRepository;
+import com.biblioteca.repository.LibroRepository;
+import com.biblioteca.repository.PrestamoRepository;
+import com.biblioteca.repository.SocioRepository;
+import com.biblioteca.service.CatalogoEnMemoria;
+import com.biblioteca.service.EjemplarService;
+import com.biblioteca.service.PrestamoService;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Enrutamiento de lecturas con dos bases H2 independientes: la primaria, donde
+ * Hibernate crea el esquema, y una réplica a la que el test copia esquema y
+ * datos a mano para simular la replicación (y su retraso).
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:primaria;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "app.datasource.replica.enabled=true",
+        "app.datasource.replica.url=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "app.datasource.replica.username=sa",
+        "app.datasource.replica.password=",
+        "app.datasource.replica.driver-class-name=org.h2.Driver",
+        "app.datasource.replica.consulta-retraso=SELECT RETRASO FROM ESTADO_REPLICA",
+        "app.datasource.replica.max-retraso=5s",
+        "app.datasource.replica.intervalo-comprobacion-ms=3600000",
+        "app.outbox.intervalo-ms=3600000" })
+@ActiveProfiles("test")
+@DisplayName("Read Replica Routing Integration Tests")
+class ReplicaLecturaIntegrationTest {
+
+    @Autowired
+    private EjemplarService ejemplarService;
+    @Autowired
+    private EnrutamientoDataSource enrutamiento;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private LibroRepository libroRepository;
+    @Autowired
+    private EjemplarRepository ejemplarRepository;
+    @Autowired
+    private PrestamoRepository prestamoRepository;
+    @Autowired
+    private SocioRepository socioRepository;
+    @Autowired
+    private EventoOutboxRepository eventoOutboxRepository;
+    @Autowired
+    private PrestamoService prestamoService;
+    @Autowired
+    private CatalogoEnMemoria catalogo;
+    @Autowired
+    @Qualifier("dataSourcePrimaria")
+    private HikariDataSource dataSourcePrimaria;
+    @Autowired
+    @Qualifier("dataSourceReplica")
+    private HikariDataSource dataSourceReplica;
+
+    private JdbcTemplate primaria;
+    private JdbcTemplate replica;
+    private Libro libro;
+
+    @BeforeEach
+    void setUp() {
+        primaria = new JdbcTemplate(dataSourcePrimaria);
+        replica = new JdbcTemplate(dataSourceReplica);
+
+        eventoOutboxRepository.deleteAllInBatch();
+        prestamoRepository.deleteAllInBatch();
+        socioRepository.deleteAllInBatch();
+        ejemplarRepository.deleteAllInBatch();
+        libroRepository.deleteAllInBatch();
+
+        Integer tablas = replica.queryForObject(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_NAME = 'LIBRO'", Integer.class);
+        if (tablas == null || tablas == 0) {
+            // Mismo esquema que la primaria, sin datos
+            for (String sentencia : primaria.queryForList("SCRIPT NODATA", String.class)) {
+                replica.execute(sentencia);
+            }
+            replica.execute("CREATE TABLE ESTADO_REPLICA (RETRASO NUMBER)");
+            replica.update("INSERT INTO ESTADO_REPLICA VALUES (0)");
+        }
+        replica.update("DELETE FROM EJEMPLAR");
+        replica.update("DELETE FROM LIBRO");
+        fijarRetraso(0);
+
+        libro = new Libro();
+        libro.setTitulo("Rayuela");
+        libro.setAutor("Julio Cortázar");
+        libro.setIsbn("9788437604572");
+        libro.setCategoria("Novela");
+        libro = libroRepository.save(libro);
+    }
+
+    @Test
+    @DisplayName("Should send writes to the primary and read-only transactions to the replica")
+    void listarEjemplares_LeeDeLaReplica() {
+        double lecturasReplica = contador("replica", true);
+
+        ejemplar("RAY-1");
+        assertEquals(1, primaria.queryForObject("SELECT COUNT(*) FROM EJEMPLAR", Integer.class));
+        assertEquals(0, replica.queryForObject("SELECT COUNT(*) FROM EJEMPLAR", Integer.class));
+
+        // Hasta que se replica, la lectura no ve la escritura
+        assertTrue(leerDisponibles().isEmpty());
+        replicar();
+        assertEquals(List.of("RAY-1"), codigos(leerDisponibles()));
+
+        assertTrue(contador("replica", true) - lecturasReplica >= 2);
+        assertNotNull(meterRegistry.find("hikaricp.connections.active").tag("pool", "replica").gauge());
+        assertNotNull(meterRegistry.find("hikaricp.connections.active").tag("pool", "primaria").gauge());
+    }
+
+    @Test
+    @DisplayName("Should fall back to the primary while the replica lags and return once it catches up")
+    void listarEjemplares_VuelveALaPrimariaConRetraso() {
+        ejemplar("RAY-1");
+        replicar();
+        ejemplar("RAY-2");
+        assertEquals(List.of("RAY-1"), codigos(leerDisponibles()));
+
+        fijarRetraso(120);
+        assertFalse(enrutamiento.isReplicaDisponible());
+        double desviadas = contador("primaria", true);
+        assertEquals(List.of("RAY-1", "RAY-2"), codigos(leerDisponibles()));
+        assertEquals(1, contador("primaria", true) - desviadas);
+        assertEquals(120.0, meterRegistry.get("datasource.replica.retraso").gauge().value());
+
+        replicar();
+        fijarRetraso(1);
+        assertTrue(enrutamiento.isReplicaDisponible());
+        assertEquals(List.of("RAY-1", "RAY-2"), codigos(leerDisponibles()));
+    }
+
+    @Test
+    @DisplayName("Should read what it keeps after a write from the primary, not from the lagging replica")
+    void lecturasTrasEscritura_VanALaPrimaria() {
+        Socio socio = new Socio();
+        socio.setUsuario("lector");
+        socio.setPasswordHash("$2a$10$hash");
+        socio.setRol("SOCIO");
+        socio.setNombre("Lector");
+        socio = socioRepository.save(socio);
+        Ejemplar prestado = ejemplar("RAY-1");
+        ejemplar("RAY-2");
+        // Sin el trigger de Oracle el contador se fija a mano
+        primaria.update("UPDATE LIBRO SET DISPONIBLES = 2");
+        replicar();
+        assertEquals(2, catalogo.buscarPorId(libro.getIdLibro()).orElseThrow().copiasDisponibles());
+        assertEquals(2, ejemplarService.listarEjemplares(libro.getIdLibro(), null).size());
+
+        prestamoService.crearPrestamo(socio.getIdSocio(), prestado.getIdEjemplar());
+
+        // La réplica sigue sin el préstamo, pero la instantánea y la caché ya lo reflejan
+        assertEquals(2, replica.queryForObject("SELECT DISPONIBLES FROM LIBRO", Integer.class));
+        assertEquals(1, catalogo.buscarPorId(libro.getIdLibro()).orElseThrow().copiasDisponibles());
+        assertEquals(EstadoEjemplar.PRESTADO, ejemplarService.listarEjemplares(libro.getIdLibro(), null).stream()
+                .filter(e -> e.getCodigoBarras().equals("RAY-1")).findFirst().orElseThrow().getEstado());
+    }
+
+    // El listado por estado no pasa por la caché de ejemplares: cada llamada es una lectura
+    private List<Ejemplar> leerDisponibles() {
+        return ejemplarService.listarEjemplares(null, EstadoEjemplar.DISPONIBLE.name());
+    }
+
+    private Ejemplar ejemplar(String codigo) {
+        Ejemplar ejemplar = new Ejemplar();
+        ejemplar.setLibro(libro);
+        ejemplar.setEstado(EstadoEjemplar.DISPONIBLE);
+        ejemplar.setCodigoBarras(codigo);
+        return ejemplarRepository.save(ejemplar);
+    }
+
+    /** Copia LIBRO y EJEMPLAR de la primaria a la réplica. */
+    private void replicar() {
+        replica.update("DELETE FROM EJEMPLAR");
+        replica.update("DELETE FROM LIBRO");
+        for (String tabla : new String[] { "LIBRO", "EJEMPLAR" }) {
+            SimpleJdbcInsert insercion = new SimpleJdbcInsert(replica).withTableName(tabla);
+            primaria.queryForList("SELECT * FROM " + tabla).forEach(insercion::execute);
+        }
+    }
+
+    private void fijarRetraso(int segundos) {
+        replica.update("UPDATE ESTADO_REPLICA SET RETRASO = ?", segundos);
+        enrutamiento.comprobarReplica();
+    }
+
+    private double contador(String destino, boolean soloLectura) {
+        return meterRegistry.get("datasource.enrutamiento")
+                .tag("destino", destino)
+                .tag("solo_lectura", String.valueOf(soloLectura))
+                .counter().count();
+    }
+
+    private static List<String> codigos(List<Ejemplar> ejemplares) {
+        return ejemplares.stream().map(Ejemplar::getCodigoBarras).sorted().toList();
+    }
+}
@@ -0,0 +1,289 @@
+package com.biblioteca.integration;
+
+import com.biblioteca.model.Bloqueo;
+import com.biblioteca.model.Ejemplar;
+import com.biblioteca.model.EstadoEjemplar;
+import com.biblioteca.model.Libro;
+import com.biblioteca.model.Socio;
+import com.biblioteca.repository.BloqueoRepository;
+import com.biblioteca.repository.EjemplarRepository;
+import com.biblioteca.repository.EventoOutboxRepository;
+import com.biblioteca.repository.LibroRepository;
+import com.biblioteca.repository.PrestamoRepository;
+import com.biblioteca.repository.SocioRepository;
+import com.biblioteca.service.BloqueoService;
+import com.biblioteca.service.EjemplarService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Carrera de muchos socios por los últimos ejemplares de un libro a través de
+ * la reserva de "cualquier ejemplar".
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:reservas;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.datasource.hikari.maximum-pool-size=48",
+        "app.outbox.intervalo-ms=3600000" })
+@ActiveProfiles("test")
+@DisplayName("Concurrent Reservation Integration Tests")
+class ReservaConcurrenteIntegrationTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReservaConcurrenteIntegrationTest.class);
+
+    private static final int COPIAS = 6;
+    private static final int SOCIOS = 40;
+    private static final int HILOS = 12;
+    private static final int RONDAS = 3;
+    private static final int RESERVAS_POR_HILO = 3;
+
+    @Autowired
+    private BloqueoService bloqueoService;
+    @Autowired
+    private EjemplarService ejemplarService;
+    @Autowired
+    private SocioRepository socioRepository;
+    @Autowired
+    private LibroRepository libroRepository;
+    @Autowired
+    private EjemplarRepository ejemplarRepository;
+    @Autowired
+    private BloqueoRepository bloqueoRepository;
+    @Autowired
+    private PrestamoRepository prestamoRepository;
+    @Autowired
+    private EventoOutboxRepository eventoOutboxRepository;
+    @Autowired
+    private PlatformTransactionManager gestorTransacciones;
+
+    private Libro libro;
+    private final List<String> usuarios = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        eventoOutboxRepository.deleteAllInBatch();
+        prestamoRepository.deleteAllInBatch();
+        bloqueoRepository.deleteAllInBatch();
+        ejemplarRepository.deleteAllInBatch();
+        libroRepository.deleteAllInBatch();
+        socioRepository.deleteAllInBatch();
+
+        libro = new Libro();
+        libro.setTitulo("Pedro Páramo");
+        libro.setAutor("Juan Rulfo");
+        libro.setIsbn("9788437604183");
+        libro.setCategoria("Novela");
+        libro = libroRepository.save(libro);
+
+        anadirEjemplares(0, COPIAS);
+
+        // Uno por reserva de una ronda: cada socio solo puede tener una activa
+        for (int i = 0; i < Math.max(SOCIOS, HILOS * RESERVAS_POR_HILO); i++) {
+            Socio socio = new Socio();
+            socio.setUsuario("lector" + i);
+            socio.setPasswordHash("$2a$10$hash");
+            socio.setRol("SOCIO");
+            socio.setMaxPrestamosActivos(2);
+            usuarios.add(socioRepository.save(socio).getUsuario());
+        }
+    }
+
+    @Test
+    @DisplayName("Should hand out every copy exactly once and fail the rest cleanly")
+    void crearBloqueoDeLibro_RepartoJustoBajoConcurrencia() throws InterruptedException {
+        ConcurrentLinkedQueue<Bloqueo> concedidos = new ConcurrentLinkedQueue<>();
+        ConcurrentLinkedQueue<Throwable> errores = new ConcurrentLinkedQueue<>();
+        CountDownLatch salida = new CountDownLatch(1);
+        ExecutorService hilos = Executors.newFixedThreadPool(HILOS);
+
+        for (String usuario : usuarios.subList(0, SOCIOS)) {
+            hilos.execute(() -> {
+                try {
+                    salida.await();
+                    concedidos.add(bloqueoService.crearBloqueoDeLibro(usuario, libro.getIdLibro()));
+                } catch (Throwable e) {
+                    errores.add(e);
+                }
+            });
+        }
+        long inicio = System.nanoTime();
+        salida.countDown();
+        hilos.shutdown();
+        assertTrue(hilos.awaitTermination(30, TimeUnit.SECONDS));
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        LOG.info("{} reservas concurrentes en {} s ({} peticiones/s), {} concedidas",
+                SOCIOS, String.format("%.3f", segundos), String.format("%.0f", SOCIOS / segundos), concedidos.size());
+
+        // Mientras quedan ejemplares nadie se queda sin uno, y ninguno se entrega dos veces
+        assertEquals(COPIAS, concedidos.size());
+        Set<Long> ejemplares = new HashSet<>();
+        concedidos.forEach(b -> assertTrue(ejemplares.add(b.getEjemplar().getIdEjemplar())));
+
+        // Los que llegan tarde fallan con el error de negocio, no con conflictos de datos
+        assertEquals(SOCIOS - COPIAS, errores.size());
+        for (Throwable error : errores) {
+            assertInstanceOf(IllegalStateException.class, error);
+            assertEquals("No quedan ejemplares disponibles de este libro.", error.getMessage());
+        }
+
+        assertEquals(0L, libroRepository.findById(libro.getIdLibro()).orElseThrow().getDisponibles());
+        assertEquals(COPIAS, ejemplarRepository.countByLibroIdLibroAndEstado(libro.getIdLibro(), EstadoEjemplar.BLOQUEADO));
+    }
+
+    @Test
+    @DisplayName("Should give every contender a copy while copies remain, however many race at once")
+    void crearBloqueoDeLibro_MasContendientesQueCandidatos() throws InterruptedException {
+        // Más peticiones simultáneas que candidatos leídos por las tres primeras rondas de
+        // reclamo (3 x 8): todas ven los mismos primeros ids y la mayoría pierde varias veces
+        anadirEjemplares(COPIAS, SOCIOS - COPIAS);
+        ConcurrentLinkedQueue<Bloqueo> concedidos = new ConcurrentLinkedQueue<>();
+        ConcurrentLinkedQueue<Throwable> errores = new ConcurrentLinkedQueue<>();
+        CountDownLatch salida = new CountDownLatch(1);
+        ExecutorService hilos = Executors.newFixedThreadPool(SOCIOS);
+
+        for (String usuario : usuarios.subList(0, SOCIOS)) {
+            hilos.execute(() -> {
+                try {
+                    salida.await();
+                    concedidos.add(bloqueoService.crearBloqueoDeLibro(usuario, libro.getIdLibro()));
+                } catch (Throwable e) {
+                    errores.add(e);
+                }
+            });
+        }
+        salida.countDown();
+        hilos.shutdown();
+        assertTrue(hilos.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertTrue(errores.isEmpty(), errores::toString);
+        assertEquals(SOCIOS, concedidos.size());
+        Set<Long> ejemplares = new HashSet<>();
+        concedidos.forEach(b -> assertTrue(ejemplares.add(b.getEjemplar().getIdEjemplar())));
+        assertEquals(0L, libroRepository.findById(libro.getIdLibro()).orElseThrow().getDisponibles());
+    }
+
+    @Test
+    @DisplayName("Should not make a claim wait for another reservation of the same title to commit")
+    void reclamarEjemplarDisponible_NoEsperaAOtraReservaAbierta() throws Exception {
+        CountDownLatch reclamado = new CountDownLatch(1);
+        CountDownLatch confirmar = new CountDownLatch(1);
+        ExecutorService hilos = Executors.newFixedThreadPool(2);
+        try {
+            // Una reserva que ya reclamó su ejemplar y sigue abierta (bloqueo, outbox...)
+            Future<?> abierta = hilos.submit(() -> new TransactionTemplate(gestorTransacciones).executeWithoutResult(estado -> {
+                ejemplarService.reclamarEjemplarDisponible(libro.getIdLibro(), EstadoEjemplar.BLOQUEADO).orElseThrow();
+                reclamado.countDown();
+                try {
+                    confirmar.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            assertTrue(reclamado.await(10, TimeUnit.SECONDS));
+
+            Future<Ejemplar> otra = hilos.submit(() -> new TransactionTemplate(gestorTransacciones).execute(estado ->
+                    ejemplarService.reclamarEjemplarDisponible(libro.getIdLibro(), EstadoEjemplar.BLOQUEADO).orElseThrow()));
+            assertNotNull(otra.get(5, TimeUnit.SECONDS), "La segunda reserva esperó a la primera");
+
+            confirmar.countDown();
+            abierta.get(10, TimeUnit.SECONDS);
+        } finally {
+            confirmar.countDown();
+            hilos.shutdownNow();
+        }
+        assertEquals((long) COPIAS - 2, libroRepository.findById(libro.getIdLibro()).orElseThrow().getDisponibles());
+    }
+
+    @Test
+    @DisplayName("Should not starve any thread while copies remain, round after round")
+    void crearBloqueoDeLibro_SinInanicionEnVariasRondas() throws InterruptedException {
+        int reservasPorRonda = HILOS * RESERVAS_POR_HILO;
+        // Tantos ejemplares como reservas: una que falle es una petición que se quedó sin
+        // ejemplar pese a haberlos, por agotar sus intentos de reclamo
+        anadirEjemplares(COPIAS, reservasPorRonda - COPIAS);
+        AtomicIntegerArray concedidasPorHilo = new AtomicIntegerArray(HILOS);
+
+        for (int ronda = 0; ronda < RONDAS; ronda++) {
+            ConcurrentLinkedQueue<Bloqueo> concedidos = new ConcurrentLinkedQueue<>();
+            ConcurrentLinkedQueue<Throwable> errores = new ConcurrentLinkedQueue<>();
+            CountDownLatch salida = new CountDownLatch(1);
+            ExecutorService hilos = Executors.newFixedThreadPool(HILOS);
+            for (int h = 0; h < HILOS; h++) {
+                int hilo = h;
+                hilos.execute(() -> {
+                    try {
+                        salida.await();
+                        for (int i = 0; i < RESERVAS_POR_HILO; i++) {
+                            String usuario = usuarios.get(hilo * RESERVAS_POR_HILO + i);
+                            concedidos.add(bloqueoService.crearBloqueoDeLibro(usuario, libro.getIdLibro()));
+                            concedidasPorHilo.incrementAndGet(hilo);
+                        }
+                    } catch (Throwable e) {
+                        errores.add(e);
+                    }
+                });
+            }
+            salida.countDown();
+            hilos.shutdown();
+            assertTrue(hilos.awaitTermination(30, TimeUnit.SECONDS), "Ronda " + ronda + " sin terminar");
+
+            assertTrue(errores.isEmpty(), "Ronda " + ronda + ": " + errores);
+            assertEquals(reservasPorRonda, concedidos.size());
+            Set<Long> ejemplares = new HashSet<>();
+            concedidos.forEach(b -> assertTrue(ejemplares.add(b.getEjemplar().getIdEjemplar()),
+                    "Ejemplar reclamado dos veces: " + b.getEjemplar().getIdEjemplar()));
+            assertEquals(0L, libroRepository.findById(libro.getIdLibro()).orElseThrow().getDisponibles());
+
+            liberarEjemplares();
+        }
+
+        // Todos los hilos obtienen todas sus reservas en todas las rondas
+        for (int h = 0; h < HILOS; h++) {
+            assertEquals(RONDAS * RESERVAS_POR_HILO, concedidasPorHilo.get(h), "Reservas del hilo " + h);
+        }
+    }
+
+    private void anadirEjemplares(int desde, int cuantos) {
+        for (int i = desde; i < desde + cuantos; i++) {
+            Ejemplar ejemplar = new Ejemplar();
+            ejemplar.setLibro(libro);
+            ejemplar.setEstado(EstadoEjemplar.DISPONIBLE);
+            ejemplar.setCodigoBarras("PP-" + i);
+            ejemplarRepository.save(ejemplar);
+        }
+        new TransactionTemplate(gestorTransacciones)
+                .executeWithoutResult(estado -> libroRepository.recalcularTodosLosDisponibles());
+    }
+
+    /** Vuelve a dejar todos los ejemplares libres para la siguiente ronda. */
+    private void liberarEjemplares() {
+        eventoOutboxRepository.deleteAllInBatch();
+        bloqueoRepository.deleteAllInBatch();
+        List<Ejemplar> ejemplares = ejemplarRepository.findAll();
+        ejemplares.forEach(e -> e.setEstado(EstadoEjemplar.DISPONIBLE));
+        ejemplarRepository.saveAll(ejemplares);
+        new TransactionTemplate(gestorTransacciones)
+                .executeWithoutResult(estado -> libroRepository.recalcularTodosLosDisponibles());
+    }
+}
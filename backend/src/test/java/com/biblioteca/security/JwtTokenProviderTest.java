@@ -0,0 +1,64 @@
+package com.biblioteca.security;
+
+import com.biblioteca.config.JwtProperties;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("JwtTokenProvider Unit Tests")
+class JwtTokenProviderTest {
+
+    private static final String SECRET = "testSecretKeyForTestingPurposesOnlyDoNotUseInProduction1234567890";
+
+    private JwtTokenProvider proveedor(int expirationMs) {
+        JwtProperties propiedades = new JwtProperties();
+        propiedades.setSecret(SECRET);
+        propiedades.setExpirationMs(expirationMs);
+        return new JwtTokenProvider(propiedades);
+    }
+
+    private String token(JwtTokenProvider proveedor) {
+        List<GrantedAuthority> roles = List.of(new SimpleGrantedAuthority("ROLE_SOCIO"),
+                new SimpleGrantedAuthority("ROLE_BIBLIOTECARIO"));
+        return proveedor.generateToken(
+                new UsernamePasswordAuthenticationToken(new User("lector", "", roles), null, roles));
+    }
+
+    @Test
+    @DisplayName("Should return username and roles from a single verification and reuse it")
+    void authenticate_DevuelvePrincipalYLoReutiliza() {
+        JwtTokenProvider proveedor = proveedor(60_000);
+        String jwt = token(proveedor);
+
+        AuthenticatedToken primero = proveedor.authenticate(jwt).orElseThrow();
+        assertEquals("lector", primero.username());
+        assertEquals(List.of("ROLE_SOCIO", "ROLE_BIBLIOTECARIO"),
+                primero.authorities().stream().map(GrantedAuthority::getAuthority).toList());
+
+        // Segunda petición con el mismo token: sale de caché, mismo objeto
+        assertSame(primero, proveedor.authenticate(jwt).orElseThrow());
+    }
+
+    @Test
+    @DisplayName("Should reject tampered, foreign and expired tokens")
+    void authenticate_RechazaTokensInvalidos() {
+        JwtTokenProvider proveedor = proveedor(60_000);
+        String jwt = token(proveedor);
+
+        String alterado = jwt.substring(0, jwt.length() - 2) + (jwt.endsWith("A") ? "BB" : "AA");
+        assertEquals(Optional.empty(), proveedor.authenticate(alterado));
+        assertEquals(Optional.empty(), proveedor.authenticate("no.es.jwt"));
+        assertEquals(Optional.empty(), proveedor.authenticate(""));
+
+        JwtTokenProvider caducado = proveedor(-1_000);
+        assertEquals(Optional.empty(), caducado.authenticate(token(caducado)));
+    }
+}
@@ -0,0 +1,169 @@
+package com.biblioteca.security;
+
+import com.biblioteca.config.RateLimitProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("RateLimitingFilter Unit Tests")
+class RateLimitingFilterTest {
+
+    private RateLimitProperties propiedades;
+    private LocalRateLimitStore almacen;
+    private RateLimitingFilter filtro;
+
+    @BeforeEach
+    void setUp() {
+        propiedades = new RateLimitProperties();
+        propiedades.setDefaultLimit(3);
+        propiedades.setMaxEntries(100);
+        propiedades.getRules().get(0).setLimit(1);
+        almacen = new LocalRateLimitStore(propiedades);
+        filtro = new RateLimitingFilter(propiedades, almacen);
+    }
+
+    @Test
+    @DisplayName("Should apply per-route limits and expose rate-limit headers")
+    void doFilter_LimitaPorRutaYAnadeCabeceras() throws Exception {
+        MockHttpServletResponse primera = peticion("/api/libros", "10.0.0.1");
+        assertEquals(200, primera.getStatus());
+        assertEquals("3", primera.getHeader("X-RateLimit-Limit"));
+        assertEquals("2", primera.getHeader("X-RateLimit-Remaining"));
+        assertNotNull(primera.getHeader("X-RateLimit-Reset"));
+
+        peticion("/api/libros", "10.0.0.1");
+        peticion("/api/libros", "10.0.0.1");
+        MockHttpServletResponse rechazada = peticion("/api/libros", "10.0.0.1");
+        assertEquals(429, rechazada.getStatus());
+        assertEquals("0", rechazada.getHeader("X-RateLimit-Remaining"));
+        assertTrue(Long.parseLong(rechazada.getHeader("Retry-After")) > 0);
+
+        // Otra IP y otra regla llevan contadores independientes
+        assertEquals(200, peticion("/api/libros", "10.0.0.2").getStatus());
+        assertEquals(200, peticion("/api/auth/login", "10.0.0.1").getStatus());
+        assertEquals(429, peticion("/api/auth/login", "10.0.0.1").getStatus());
+    }
+
+    @Test
+    @DisplayName("Should weight the previous window while it slides out")
+    void tryAcquire_VentanaDeslizante() {
+        long ventana = 60_000;
+        long inicio = 10 * ventana;
+        for (int i = 0; i < 4; i++) {
+            assertTrue(almacen.tryAcquire("k", 4, inicio + i).allowed());
+        }
+        assertFalse(almacen.tryAcquire("k", 4, inicio + 10).allowed());
+
+        // A un cuarto de la ventana siguiente la anterior aún pesa 3 de 4
+        RateLimitStore.Decision cuarto = almacen.tryAcquire("k", 4, inicio + ventana + ventana / 4);
+        assertTrue(cuarto.allowed());
+        assertEquals(0, cuarto.remaining());
+        RateLimitStore.Decision lleno = almacen.tryAcquire("k", 4, inicio + ventana + ventana / 4);
+        assertFalse(lleno.allowed());
+        // El peso de la ventana anterior sigue bajando: hay hueco casi enseguida
+        assertEquals(1, lleno.retryAfterMs());
+
+        // Dos ventanas después no queda rastro
+        assertEquals(3, almacen.tryAcquire("k", 4, inicio + 3 * ventana).remaining());
+    }
+
+    @Test
+    @DisplayName("Should share counts between replicas through the JDBC store")
+    void jdbcStore_CompartePorBaseDeDatos() {
+        JdbcTemplate jdbc = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:ratelimit;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbc.execute("CREATE TABLE RATE_LIMIT_CONTADOR (CLAVE VARCHAR(200) NOT NULL, VENTANA BIGINT NOT NULL,"
+                + " CUENTA INT NOT NULL, PRIMARY KEY (CLAVE, VENTANA))");
+        try {
+            // Dos réplicas del backend con su propio almacén sobre la misma tabla
+            JdbcRateLimitStore replicaA = new JdbcRateLimitStore(jdbc, propiedades);
+            JdbcRateLimitStore replicaB = new JdbcRateLimitStore(jdbc, propiedades);
+            long ventana = 60_000;
+            long inicio = 10 * ventana;
+
+            assertEquals(3, replicaA.tryAcquire("k", 4, inicio).remaining());
+            assertEquals(2, replicaB.tryAcquire("k", 4, inicio + 1).remaining());
+            assertTrue(replicaA.tryAcquire("k", 4, inicio + 2).allowed());
+            assertTrue(replicaB.tryAcquire("k", 4, inicio + 3).allowed());
+            assertFalse(replicaA.tryAcquire("k", 4, inicio + 4).allowed());
+            // El rechazo no cuenta
+            assertEquals(4, jdbc.queryForObject("SELECT CUENTA FROM RATE_LIMIT_CONTADOR", Integer.class));
+
+            // Misma estimación deslizante que el almacén local
+            RateLimitStore.Decision cuarto = replicaB.tryAcquire("k", 4, inicio + ventana + ventana / 4);
+            assertTrue(cuarto.allowed());
+            assertEquals(0, cuarto.remaining());
+            RateLimitStore.Decision lleno = replicaA.tryAcquire("k", 4, inicio + ventana + ventana / 4);
+            assertFalse(lleno.allowed());
+            assertEquals(1, lleno.retryAfterMs());
+        } finally {
+            jdbc.execute("DROP TABLE RATE_LIMIT_CONTADOR");
+        }
+    }
+
+    @Test
+    @DisplayName("Should purge only JDBC counters of windows that no longer count, in the configured window")
+    void jdbcStore_PurgaSoloVentanasCaducadas() {
+        JdbcTemplate jdbc = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:ratelimitpurga;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbc.execute("CREATE TABLE RATE_LIMIT_CONTADOR (CLAVE VARCHAR(200) NOT NULL, VENTANA BIGINT NOT NULL,"
+                + " CUENTA INT NOT NULL, PRIMARY KEY (CLAVE, VENTANA))");
+        try {
+            propiedades.setWindow(Duration.ofSeconds(10));
+            JdbcRateLimitStore store = new JdbcRateLimitStore(jdbc, propiedades);
+            long ventana = 10_000;
+            long ahora = System.currentTimeMillis();
+            store.tryAcquire("actual", 4, ahora);
+            store.tryAcquire("anterior", 4, ahora - ventana);
+            store.tryAcquire("caducada", 4, ahora - 3 * ventana);
+
+            store.purge();
+
+            assertEquals(List.of("actual", "anterior"),
+                    jdbc.queryForList("SELECT CLAVE FROM RATE_LIMIT_CONTADOR ORDER BY CLAVE", String.class));
+        } finally {
+            jdbc.execute("DROP TABLE RATE_LIMIT_CONTADOR");
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep the number of counters bounded")
+    void almacen_AcotaElNumeroDeContadores() {
+        for (int i = 0; i < 1_000; i++) {
+            almacen.tryAcquire("ip-" + i, 10, 0);
+        }
+        assertTrue(almacen.estimatedSize() <= 100);
+    }
+
+    @Test
+    @DisplayName("Should validate IP formats without regular expressions")
+    void isValidIpFormat_ValidaIpv4EIpv6() {
+        assertTrue(RateLimitingFilter.isValidIpFormat("192.168.1.254"));
+        assertTrue(RateLimitingFilter.isValidIpFormat("2001:db8::1"));
+        assertTrue(RateLimitingFilter.isValidIpFormat("localhost"));
+        assertFalse(RateLimitingFilter.isValidIpFormat("256.1.1.1"));
+        assertFalse(RateLimitingFilter.isValidIpFormat("1.2.3"));
+        assertFalse(RateLimitingFilter.isValidIpFormat("1.2.3.4.5"));
+        assertFalse(RateLimitingFilter.isValidIpFormat("1..2.3"));
+        assertFalse(RateLimitingFilter.isValidIpFormat("evil.com"));
+        assertFalse(RateLimitingFilter.isValidIpFormat("::g"));
+    }
+
+    private MockHttpServletResponse peticion(String ruta, String ip) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", ruta);
+        request.addHeader("X-Forwarded-For", ip + ", 172.18.0.1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filtro.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
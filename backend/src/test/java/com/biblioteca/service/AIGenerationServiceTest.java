@@ -0,0 +1,112 @@
+package com.biblioteca.service;
+
+import com.biblioteca.config.AiServiceProperties;
+import com.biblioteca.dto.LibroDTO;
+import com.biblioteca.dto.RecomendacionDTO;
+import com.biblioteca.model.Socio;
+import com.biblioteca.repository.PrestamoRepository;
+import com.biblioteca.repository.SocioRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("AIGenerationService Unit Tests")
+class AIGenerationServiceTest {
+
+    private final SimpleMeterRegistry registro = new SimpleMeterRegistry();
+    private final PrestamoRepository prestamoRepository = mock(PrestamoRepository.class);
+    private final SocioRepository socioRepository = mock(SocioRepository.class);
+    private final CatalogoEnMemoria catalogo = mock(CatalogoEnMemoria.class);
+    private final MotorRecomendaciones motorLocal = mock(MotorRecomendaciones.class);
+
+    private ServicioIAStub servicioIA;
+    private AiServiceProperties propiedades;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        servicioIA = new ServicioIAStub();
+        propiedades = new AiServiceProperties();
+        propiedades.setUrl(servicioIA.url());
+        propiedades.setFallosParaAbrir(2);
+        propiedades.setPausaCircuitoMs(300);
+
+        Socio socio = new Socio();
+        socio.setIdSocio(7L);
+        socio.setUsuario("lector");
+        when(socioRepository.findByUsuario("lector")).thenReturn(Optional.of(socio));
+        when(prestamoRepository.findBySocioIdSocioWithDetails(7L)).thenReturn(Collections.emptyList());
+        when(catalogo.muestraAleatoria(any(), any(), any(), anyInt())).thenReturn(List.of(
+                new LibroDTO(1L, "9788437604183", "Pedro Páramo", "Juan Rulfo", "Novela", 1955, 1, true)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        servicioIA.close();
+    }
+
+    @Test
+    @DisplayName("Should parse the AI answer and time the call")
+    void consultarIA_DevuelveRecomendaciones() throws Exception {
+        AIGenerationService servicio = crear();
+
+        List<RecomendacionDTO> recomendaciones = consultar(servicio);
+
+        assertEquals(List.of("Rayuela", "Ficciones"), recomendaciones.stream().map(RecomendacionDTO::titulo).toList());
+        assertEquals(1, servicioIA.peticiones());
+        assertEquals(1, registro.get("ia.peticiones").tag("resultado", "ok").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should open the breaker after repeated failures and close it after a successful probe")
+    void consultarIA_DisyuntorAbreYSeRecupera() throws Exception {
+        servicioIA.setModo(ServicioIAStub.Modo.ERROR);
+        AIGenerationService servicio = crear();
+
+        assertTrue(consultar(servicio).isEmpty());
+        assertTrue(consultar(servicio).isEmpty());
+        assertEquals(1.0, registro.get("ia.circuito.abierto").gauge().value());
+
+        // Abierto: no se llama al servicio
+        assertTrue(consultar(servicio).isEmpty());
+        assertEquals(2, servicioIA.peticiones());
+
+        servicioIA.setModo(ServicioIAStub.Modo.OK);
+        Thread.sleep(400);
+        assertEquals("Rayuela", consultar(servicio).get(0).titulo());
+        assertEquals(3, servicioIA.peticiones());
+        assertEquals(0.0, registro.get("ia.circuito.abierto").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Should give up when the AI exceeds the read timeout")
+    void consultarIA_TimeoutDeLectura() throws Exception {
+        servicioIA.setModo(ServicioIAStub.Modo.LENTO);
+        propiedades.setTimeoutLecturaMs(200);
+        AIGenerationService servicio = crear();
+
+        assertTrue(consultar(servicio).isEmpty());
+        assertEquals(1, registro.get("ia.peticiones").tag("resultado", "error").timer().count());
+    }
+
+    private AIGenerationService crear() {
+        return new AIGenerationService(prestamoRepository, socioRepository, catalogo, motorLocal,
+                new ObjectMapper(), propiedades, registro);
+    }
+
+    private List<RecomendacionDTO> consultar(AIGenerationService servicio) throws Exception {
+        return servicio.consultarIA("lector").get(5, TimeUnit.SECONDS);
+    }
+}
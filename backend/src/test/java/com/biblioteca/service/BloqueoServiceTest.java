@@ -9,6 +9,7 @@ import com.biblioteca.model.Ejemplar;
 import com.biblioteca.model.Libro;
 import com.biblioteca.model.Prestamo;
 import com.biblioteca.model.Socio;
+import com.biblioteca.model.TipoEventoOutbox;
 import com.biblioteca.repository.BloqueoRepository;
 import com.biblioteca.repository.PrestamoRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -44,7 +45,7 @@ class BloqueoServiceTest {
     private PrestamoRepository prestamoRepository;
 
     @Mock
-    private NotificationService notificationService;
+    private OutboxService outboxService;
 
     @Mock
     private LibraryPolicyProperties libraryPolicy;
@@ -52,6 +53,15 @@ class BloqueoServiceTest {
     @Mock
     private jakarta.persistence.EntityManager entityManager;
 
+    @Mock
+    private org.springframework.context.ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ExpiracionBloqueos expiracionBloqueos;
+
+    @Mock
+    private MetricasNegocio metricasNegocio;
+
     @InjectMocks
     private BloqueoService bloqueoService;
 
@@ -102,6 +112,8 @@ class BloqueoServiceTest {
         assertEquals(EstadoBloqueo.ACTIVO, result.getEstado());
         verify(ejemplarService).actualizarEstadoEjemplar(1L, EstadoEjemplar.BLOQUEADO);
         verify(bloqueoRepository).save(any(Bloqueo.class));
+        verify(outboxService).registrar(eq(TipoEventoOutbox.BLOQUEO_CREADO), anyMap());
+        verify(expiracionBloqueos).programar(argThat(v -> v.idBloqueo() == 1L && v.fechaFin().equals(result.getFechaFin())));
     }
 
     @Test
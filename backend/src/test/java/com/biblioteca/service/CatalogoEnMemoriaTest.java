@@ -0,0 +1,145 @@
+package com.biblioteca.service;
+
+import com.biblioteca.dto.LibroDTO;
+import com.biblioteca.events.DisponibilidadCambiadaEvent;
+import com.biblioteca.model.Libro;
+import com.biblioteca.repository.LibroRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static com.biblioteca.service.CatalogoEnMemoria.FiltroLectura.*;
+import static com.biblioteca.service.HistorialLecturas.SIN_LECTURAS;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CatalogoEnMemoria Unit Tests")
+@SuppressWarnings("null")
+class CatalogoEnMemoriaTest {
+
+    @Mock
+    private LibroRepository repositorioLibro;
+
+    @InjectMocks
+    private CatalogoEnMemoria catalogo;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(repositorioLibro.findAll()).thenReturn(List.of(
+                libro(3L, "Rayuela", "Novela", 1),
+                libro(1L, "El Quijote", "Clásicos", 2),
+                libro(2L, "Cien años de soledad", "Novela", 0)));
+    }
+
+    @Test
+    @DisplayName("Should list books ordered by title and filter by category")
+    void listar_OrdenaPorTituloYFiltraPorCategoria() {
+        List<LibroDTO> todos = catalogo.listar(null, TODOS, SIN_LECTURAS);
+        assertEquals(List.of(2L, 1L, 3L), todos.stream().map(LibroDTO::id).toList());
+
+        List<LibroDTO> novelas = catalogo.listar("Novela", TODOS, SIN_LECTURAS);
+        assertEquals(List.of(2L, 3L), novelas.stream().map(LibroDTO::id).toList());
+        assertTrue(catalogo.listar("Poesía", TODOS, SIN_LECTURAS).isEmpty());
+
+        // Una sola carga para todas las lecturas
+        verify(repositorioLibro, times(1)).findAll();
+    }
+
+    @Test
+    @DisplayName("Should page over the in-memory snapshot")
+    void paginar_DevuelvePaginaYTotal() {
+        Page<LibroDTO> pagina = catalogo.paginar(null, TODOS, SIN_LECTURAS, PageRequest.of(1, 2));
+
+        assertEquals(3, pagina.getTotalElements());
+        assertEquals(1, pagina.getContent().size());
+        assertEquals(3L, pagina.getContent().get(0).id());
+    }
+
+    @Test
+    @DisplayName("Should combine category and read-history bitmaps")
+    void filtrosLectura_OperanComoConjuntos() {
+        // El 99 ya no está en el catálogo y se ignora
+        long[] leidos = { 2L, 99L };
+
+        assertEquals(List.of(3L), catalogo.listar("Novela", EXCLUIR_LEIDOS, leidos).stream().map(LibroDTO::id).toList());
+        assertEquals(List.of(2L), catalogo.listar(null, SOLO_LEIDOS, leidos).stream().map(LibroDTO::id).toList());
+
+        Page<LibroDTO> pagina = catalogo.paginar(null, EXCLUIR_LEIDOS, leidos, PageRequest.of(0, 1));
+        assertEquals(2, pagina.getTotalElements());
+        assertEquals(1L, pagina.getContent().get(0).id());
+
+        // El bitmap compartido de la categoría no se altera
+        assertEquals(2, catalogo.listar("Novela", TODOS, SIN_LECTURAS).size());
+    }
+
+    @Test
+    @DisplayName("Should seek from an opaque cursor even if the cursor book no longer exists")
+    void paginarDesde_ContinuaTrasElCursor() {
+        CatalogoEnMemoria.Tramo primero = catalogo.paginarDesde(null, TODOS, SIN_LECTURAS, null, 2, true);
+        assertEquals(List.of(2L, 1L), primero.contenido().stream().map(LibroDTO::id).toList());
+        assertTrue(primero.hayMas());
+        assertEquals(3, primero.total());
+
+        String token = CursorCatalogo.de(primero.contenido().get(1)).codificar();
+        CatalogoEnMemoria.Tramo segundo = catalogo.paginarDesde(null, TODOS, SIN_LECTURAS,
+                CursorCatalogo.decodificar(token), 2, false);
+        assertEquals(List.of(3L), segundo.contenido().stream().map(LibroDTO::id).toList());
+        assertFalse(segundo.hayMas());
+        assertEquals(-1, segundo.total());
+
+        // Cursor de un libro borrado: se sigue por su posición en el orden de catálogo
+        CursorCatalogo borrado = new CursorCatalogo("D", 50L);
+        assertEquals(List.of(1L, 3L), catalogo.paginarDesde(null, TODOS, SIN_LECTURAS, borrado, 5, false)
+                .contenido().stream().map(LibroDTO::id).toList());
+
+        assertThrows(IllegalArgumentException.class, () -> CursorCatalogo.decodificar("no-es-un-cursor"));
+    }
+
+    @Test
+    @DisplayName("Should apply availability changes without rebuilding")
+    void alCambiarDisponibilidad_ActualizaSoloElContador() {
+        assertTrue(catalogo.buscarPorId(1L).orElseThrow().estaDisponible());
+        when(repositorioLibro.findDisponiblesByIdLibro(1L)).thenReturn(Optional.of(0L));
+
+        catalogo.alCambiarDisponibilidad(new DisponibilidadCambiadaEvent(this, 1L));
+
+        LibroDTO libro = catalogo.buscarPorId(1L).orElseThrow();
+        assertEquals(0, libro.copiasDisponibles());
+        assertFalse(libro.estaDisponible());
+        verify(repositorioLibro, times(1)).findAll();
+    }
+
+    @Test
+    @DisplayName("Should rebuild on next read after invalidation")
+    void invalidar_ReconstruyeEnLaSiguienteLectura() {
+        catalogo.listar(null, TODOS, SIN_LECTURAS);
+        when(repositorioLibro.findAll()).thenReturn(List.of(libro(4L, "Ficciones", "Cuento", 1)));
+
+        catalogo.invalidar();
+
+        assertEquals(List.of(4L), catalogo.listar(null, TODOS, SIN_LECTURAS).stream().map(LibroDTO::id).toList());
+        assertTrue(catalogo.buscarPorId(1L).isEmpty());
+    }
+
+    private Libro libro(Long id, String titulo, String categoria, long disponibles) {
+        Libro libro = new Libro();
+        libro.setIdLibro(id);
+        libro.setTitulo(titulo);
+        libro.setAutor("Autor " + id);
+        libro.setIsbn("978000000000" + id);
+        libro.setCategoria(categoria);
+        ReflectionTestUtils.setField(libro, "disponibles", disponibles);
+        return libro;
+    }
+}
@@ -0,0 +1,40 @@
+package com.biblioteca.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Disyuntor Unit Tests")
+class DisyuntorTest {
+
+    @Test
+    @DisplayName("Should hand back an unused probe without closing the breaker")
+    void liberarLlamada_DevuelveLaPruebaSinCerrar() {
+        Disyuntor disyuntor = new Disyuntor(1, 0);
+        disyuntor.registrarFallo();
+        assertTrue(disyuntor.permitirLlamada());
+        assertEquals(Disyuntor.Estado.SEMIABIERTO, disyuntor.estado());
+
+        disyuntor.liberarLlamada();
+
+        assertEquals(Disyuntor.Estado.ABIERTO, disyuntor.estado());
+        // La pausa ya pasó: la siguiente llamada vuelve a ser la prueba
+        assertTrue(disyuntor.permitirLlamada());
+        assertEquals(Disyuntor.Estado.SEMIABIERTO, disyuntor.estado());
+    }
+
+    @Test
+    @DisplayName("Should keep counting consecutive failures across an unused call")
+    void liberarLlamada_NoReiniciaLosFallosSeguidos() {
+        Disyuntor disyuntor = new Disyuntor(2, 60_000);
+        disyuntor.registrarFallo();
+        disyuntor.liberarLlamada();
+        assertEquals(Disyuntor.Estado.CERRADO, disyuntor.estado());
+
+        disyuntor.registrarFallo();
+
+        assertEquals(Disyuntor.Estado.ABIERTO, disyuntor.estado());
+        assertFalse(disyuntor.permitirLlamada());
+    }
+}
@@ -0,0 +1,68 @@
+package com.biblioteca.service;
+
+import com.biblioteca.config.CacheConfig;
+import com.biblioteca.model.Ejemplar;
+import com.biblioteca.model.EstadoEjemplar;
+import com.biblioteca.repository.EjemplarRepository;
+import com.biblioteca.repository.LibroRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DisplayName("EjemplarService Unit Tests")
+@SuppressWarnings("null")
+class EjemplarServiceTest {
+
+    private final EjemplarRepository repositorioEjemplar = mock(EjemplarRepository.class);
+
+    private EjemplarService servicio;
+
+    @BeforeEach
+    void setUp() {
+        servicio = new EjemplarService(repositorioEjemplar, mock(LibroRepository.class),
+                mock(ApplicationEventPublisher.class), new ConcurrentMapCacheManager(CacheConfig.EJEMPLARES),
+                mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    @DisplayName("Should keep claiming while copies remain, however many rounds are lost")
+    void reclamarEjemplarDisponible_NoSeRindeMientrasQuedenLibres() {
+        // Cinco rondas de ocho candidatos que otras peticiones se llevan antes, y un sexto libre
+        List<List<Long>> rondas = LongStream.range(0, 6)
+                .mapToObj(r -> LongStream.range(r * 8, r * 8 + 8).boxed().toList())
+                .toList();
+        when(repositorioEjemplar.findIdsDisponiblesByLibro(eq(1L), any(Pageable.class)))
+                .thenReturn(rondas.get(0), rondas.subList(1, 6).toArray(List[]::new));
+        when(repositorioEjemplar.reclamarDisponible(anyLong(), eq(EstadoEjemplar.BLOQUEADO)))
+                .thenAnswer(invocacion -> invocacion.<Long>getArgument(0) >= 40 ? 1 : 0);
+        Ejemplar reclamado = new Ejemplar();
+        when(repositorioEjemplar.findByIdWithLibro(anyLong())).thenReturn(Optional.of(reclamado));
+
+        assertSame(reclamado, servicio.reclamarEjemplarDisponible(1L, EstadoEjemplar.BLOQUEADO).orElseThrow());
+        verify(repositorioEjemplar, times(6)).findIdsDisponiblesByLibro(eq(1L), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Should give up only when no copy is left")
+    void reclamarEjemplarDisponible_VacioSinLibres() {
+        when(repositorioEjemplar.findIdsDisponiblesByLibro(eq(1L), any(Pageable.class)))
+                .thenReturn(List.of(1L, 2L), List.of());
+
+        assertTrue(servicio.reclamarEjemplarDisponible(1L, EstadoEjemplar.BLOQUEADO).isEmpty());
+        verify(repositorioEjemplar, times(2)).reclamarDisponible(anyLong(), eq(EstadoEjemplar.BLOQUEADO));
+    }
+}
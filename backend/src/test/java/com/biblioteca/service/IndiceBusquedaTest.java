@@ -0,0 +1,55 @@
+package com.biblioteca.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("IndiceBusqueda Unit Tests")
+class IndiceBusquedaTest {
+
+    // Posiciones en orden de catálogo (por título)
+    private final IndiceBusqueda indice = new IndiceBusqueda(
+            new String[] { "Cien años de soledad", "Don Quijote de la Mancha", "El Quijote", "La casa de los espíritus" },
+            new String[] { "Gabriel García Márquez", "Miguel de Cervantes", "Miguel de Cervantes", "Isabel Allende" },
+            new String[] { "Novela", "Clásicos", "Clásicos", "Novela" },
+            new String[] { "9788437604954", "9788437604961", "9788437604947", "9788401242267" });
+
+    @Test
+    @DisplayName("Should normalize accents and case when tokenizing")
+    void tokenizar_EliminaTildesYMayusculas() {
+        assertEquals(List.of("garcia", "marquez"), IndiceBusqueda.tokenizar("García MÁRQUEZ"));
+        assertEquals(List.of("cien", "anos"), IndiceBusqueda.tokenizar("  Cien años!"));
+        assertTrue(IndiceBusqueda.tokenizar("  ¿? ").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should match accent-insensitive prefixes")
+    void buscar_PorPrefijoSinTildes() {
+        assertArrayEquals(new int[] { 0 }, indice.buscar("marq"));
+        assertArrayEquals(new int[] { 3 }, indice.buscar("ESPIRITU"));
+        assertArrayEquals(new int[] { 2 }, indice.buscar("9788437604947"));
+    }
+
+    @Test
+    @DisplayName("Should require every query word to match")
+    void buscar_SemanticaAnd() {
+        assertArrayEquals(new int[] { 1 }, indice.buscar("quijote mancha"));
+        assertEquals(0, indice.buscar("quijote allende").length);
+        assertEquals(0, indice.buscar("").length);
+    }
+
+    @Test
+    @DisplayName("Should rank by field weight and keep catalog order on ties")
+    void buscar_OrdenaPorRelevancia() {
+        // "ma": prefijo de "mancha" en el título (pos. 1) y de "marquez" en el autor (pos. 0)
+        assertArrayEquals(new int[] { 1, 0 }, indice.buscar("ma"));
+        // "novela" solo aparece como categoría: empate resuelto por orden de catálogo
+        assertArrayEquals(new int[] { 0, 3 }, indice.buscar("novela"));
+
+        // Los dos libros de Cervantes empatan y se devuelven en orden de catálogo
+        assertArrayEquals(new int[] { 1, 2 }, indice.buscar("cervantes"));
+    }
+}
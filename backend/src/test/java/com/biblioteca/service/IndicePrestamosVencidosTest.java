@@ -0,0 +1,77 @@
+package com.biblioteca.service;
+
+import com.biblioteca.config.PrestamosVencidosProperties;
+import com.biblioteca.events.PrestamoCreadoEvent;
+import com.biblioteca.events.PrestamosDevueltosEvent;
+import com.biblioteca.model.Ejemplar;
+import com.biblioteca.model.Libro;
+import com.biblioteca.model.Prestamo;
+import com.biblioteca.model.Socio;
+import com.biblioteca.repository.PrestamoRepository;
+import com.biblioteca.repository.VencimientoPrestamo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("IndicePrestamosVencidos Unit Tests")
+class IndicePrestamosVencidosTest {
+
+    private static final LocalDate AYER = LocalDate.now().minusDays(1);
+
+    private final PrestamoRepository repositorioPrestamo = mock(PrestamoRepository.class);
+
+    private IndicePrestamosVencidos indice;
+
+    @BeforeEach
+    void setUp() {
+        indice = new IndicePrestamosVencidos(repositorioPrestamo, mock(NotificationService.class),
+                new PrestamosVencidosProperties(), new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("Should replay loans and returns committed while the index is being reloaded")
+    void cargar_AplicaLosEventosRecibidosDuranteLaCarga() {
+        Prestamo devuelto = prestamo(1L, "ana");
+        Prestamo nuevo = prestamo(2L, "luis");
+        when(repositorioPrestamo.findVencimientosActivos()).thenAnswer(invocacion -> {
+            // Se confirman mientras la consulta lee: el resultado ya no los refleja
+            indice.alDevolverPrestamos(new PrestamosDevueltosEvent(this, List.of(devuelto)));
+            indice.alCrearPrestamo(new PrestamoCreadoEvent(this, nuevo));
+            return List.of(new VencimientoPrestamo(1L, "ana", "Rayuela", AYER));
+        });
+
+        indice.cargar();
+
+        assertEquals(List.of(2L), indice.vencidos().stream().map(VencimientoPrestamo::idPrestamo).toList());
+
+        // Fuera de una carga los eventos se aplican sin guardarse
+        indice.alDevolverPrestamos(new PrestamosDevueltosEvent(this, List.of(nuevo)));
+        assertTrue(indice.vencidos().isEmpty());
+    }
+
+    private static Prestamo prestamo(Long id, String usuario) {
+        Socio socio = new Socio();
+        socio.setIdSocio(id);
+        socio.setUsuario(usuario);
+        Libro libro = new Libro();
+        libro.setIdLibro(id);
+        libro.setTitulo("Rayuela");
+        Ejemplar ejemplar = new Ejemplar();
+        ejemplar.setLibro(libro);
+        Prestamo prestamo = new Prestamo();
+        prestamo.setIdPrestamo(id);
+        prestamo.setSocio(socio);
+        prestamo.setEjemplar(ejemplar);
+        prestamo.setFechaPrevistaDevolucion(Date.from(AYER.atStartOfDay(ZoneId.systemDefault()).toInstant()));
+        return prestamo;
+    }
+}
@@ -0,0 +1,100 @@
+package com.biblioteca.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("MapaLongInt Unit Tests")
+class MapaLongIntTest {
+
+    @Test
+    @DisplayName("Should keep colliding keys apart through linear probing")
+    void poner_ClavesQueColisionan() {
+        // Tres claves con la misma casilla de partida en la tabla inicial de 4
+        long[] claves = new long[3];
+        int casilla = MapaLongInt.dispersar(1) & 3;
+        for (long clave = 1, n = 0; n < claves.length; clave++) {
+            if ((MapaLongInt.dispersar(clave) & 3) == casilla) {
+                claves[(int) n++] = clave;
+            }
+        }
+        MapaLongInt mapa = new MapaLongInt();
+
+        mapa.poner(claves[0], 5);
+        mapa.poner(claves[1], 7);
+        assertEquals(3, mapa.sumar(claves[2], 3));
+        assertEquals(8, mapa.sumar(claves[0], 3));
+        mapa.poner(claves[1], 1);
+
+        assertEquals(8, mapa.get(claves[0]));
+        assertEquals(1, mapa.get(claves[1]));
+        assertEquals(3, mapa.get(claves[2]));
+        assertEquals(3, mapa.tamanio());
+        assertEquals(4, capacidad(mapa));
+        Map<Long, Integer> recorridas = new HashMap<>();
+        mapa.recorrer(recorridas::put);
+        assertEquals(Map.of(claves[0], 8, claves[1], 1, claves[2], 3), recorridas);
+    }
+
+    @Test
+    @DisplayName("Should grow past 3/4 occupancy and keep every entry")
+    void sumar_CreceAlSuperarTresCuartos() {
+        MapaLongInt mapa = new MapaLongInt();
+        for (long clave = 1; clave <= 3; clave++) {
+            mapa.sumar(clave, 1);
+        }
+        assertEquals(4, capacidad(mapa));
+
+        mapa.sumar(4, 1);
+        assertEquals(8, capacidad(mapa));
+
+        // Claves negativas, extremas y consecutivas a lo largo de varios crecimientos
+        Map<Long, Integer> esperado = new HashMap<>(Map.of(1L, 1, 2L, 1, 3L, 1, 4L, 1));
+        long[] extra = { 0, -1, Long.MIN_VALUE, Long.MAX_VALUE };
+        for (long clave : extra) {
+            mapa.poner(clave, 9);
+            esperado.put(clave, 9);
+        }
+        for (long clave = 1_000; clave < 2_000; clave++) {
+            int valor = (int) (clave % 7) + 1;
+            mapa.sumar(clave, valor);
+            esperado.merge(clave, valor, Integer::sum);
+        }
+
+        assertEquals(esperado.size(), mapa.tamanio());
+        esperado.forEach((clave, valor) -> assertEquals(valor, mapa.get(clave), "Clave " + clave));
+        assertEquals(0, mapa.get(999));
+        assertTrue(mapa.tamanio() <= capacidad(mapa) - capacidad(mapa) / 4);
+    }
+
+    @Test
+    @DisplayName("Should reject non-positive values, which mark free slots")
+    void poner_RechazaValoresNoPositivos() {
+        MapaLongInt mapa = new MapaLongInt();
+        assertThrows(IllegalArgumentException.class, () -> mapa.poner(1, 0));
+        assertThrows(IllegalArgumentException.class, () -> mapa.sumar(1, -1));
+        assertEquals(0, mapa.tamanio());
+    }
+
+    @Test
+    @DisplayName("Should sort keys by descending value and then by key")
+    void clavesPorValorDescendente_OrdenaPorValorYClave() {
+        MapaLongInt mapa = new MapaLongInt();
+        long[][] entradas = { { 7, 2 }, { 3, 5 }, { 9, 2 }, { 1, 1 }, { 5, 5 }, { 2, 2 } };
+        for (long[] entrada : entradas) {
+            mapa.poner(entrada[0], (int) entrada[1]);
+        }
+
+        assertArrayEquals(new long[] { 3, 5, 2, 7, 9, 1 }, mapa.clavesPorValorDescendente());
+        assertArrayEquals(new long[0], new MapaLongInt().clavesPorValorDescendente());
+    }
+
+    private static int capacidad(MapaLongInt mapa) {
+        return ((long[]) ReflectionTestUtils.getField(mapa, "claves")).length;
+    }
+}
@@ -0,0 +1,163 @@
+package com.biblioteca.service;
+
+import com.biblioteca.dto.LibroDTO;
+import com.biblioteca.dto.RecomendacionDTO;
+import com.biblioteca.events.PrestamoCreadoEvent;
+import com.biblioteca.model.Ejemplar;
+import com.biblioteca.model.Libro;
+import com.biblioteca.model.Prestamo;
+import com.biblioteca.model.Socio;
+import com.biblioteca.repository.LecturaSocio;
+import com.biblioteca.repository.LibroRepository;
+import com.biblioteca.repository.PrestamoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("MotorRecomendaciones Unit Tests")
+class MotorRecomendacionesTest {
+
+    private final PrestamoRepository repositorioPrestamo = mock(PrestamoRepository.class);
+    private final LibroRepository repositorioLibro = mock(LibroRepository.class);
+    private final Map<Long, Libro> libros = Map.of(
+            1L, libro(1L, "El Quijote", "Clásicos"),
+            2L, libro(2L, "Cien años de soledad", "Novela"),
+            3L, libro(3L, "Rayuela", "Novela"),
+            4L, libro(4L, "Ficciones", "Cuento"),
+            5L, libro(5L, "Pedro Páramo", "Novela"));
+
+    private MotorRecomendaciones motor;
+
+    @BeforeEach
+    void setUp() {
+        when(repositorioLibro.findAll()).thenReturn(List.copyOf(libros.values()));
+        // El 99 se prestó pero ya no está en el catálogo
+        when(repositorioPrestamo.streamLecturas()).thenReturn(Stream.of(
+                lectura(10, 1), lectura(10, 2), lectura(10, 3),
+                lectura(11, 2), lectura(11, 3), lectura(11, 99),
+                lectura(12, 2), lectura(12, 4),
+                lectura(13, 5),
+                lectura(20, 2)));
+        motor = new MotorRecomendaciones(repositorioPrestamo, new CatalogoEnMemoria(repositorioLibro));
+        motor.reconstruir();
+    }
+
+    @Test
+    @DisplayName("Should rank unread books by co-occurrence and skip books no longer in the catalogue")
+    void recomendarParaSocio_OrdenaPorCoocurrencia() {
+        List<RecomendacionDTO> recomendaciones = motor.recomendarParaSocio(20L, 3);
+
+        // Rayuela comparte dos lectores; Quijote y Ficciones uno, y empatan también en lectores
+        assertEquals(List.of("Rayuela", "El Quijote", "Ficciones"),
+                recomendaciones.stream().map(RecomendacionDTO::titulo).toList());
+        assertTrue(recomendaciones.stream().allMatch(r -> MotorRecomendaciones.MOTIVO_COOCURRENCIA.equals(r.razon())));
+    }
+
+    @Test
+    @DisplayName("Should apply committed loans incrementally and fill with the most read books")
+    void alCrearPrestamo_ActualizaSinReconstruir() {
+        motor.alCrearPrestamo(evento(13L, 4L));
+        motor.alCrearPrestamo(evento(30L, 5L));
+        // Repetir un libro ya leído no suma otra coocurrencia
+        motor.alCrearPrestamo(evento(30L, 5L));
+
+        List<RecomendacionDTO> recomendaciones = motor.recomendarParaSocio(30L, 3);
+
+        assertEquals(List.of("Ficciones", "Cien años de soledad", "Rayuela"),
+                recomendaciones.stream().map(RecomendacionDTO::titulo).toList());
+        assertEquals(MotorRecomendaciones.MOTIVO_COOCURRENCIA, recomendaciones.get(0).razon());
+        assertEquals("Te gustó Novela, creemos que disfrutarás este título.", recomendaciones.get(1).razon());
+        verify(repositorioPrestamo, times(1)).streamLecturas();
+    }
+
+    @Test
+    @DisplayName("Should pick the most read book of each category and fill with the most read overall")
+    void recomendarPorCategorias_MasLeidoPorCategoria() {
+        List<LibroDTO> libros = motor.recomendarPorCategorias(List.of("Novela", "Poesía", "Cuento"), 3);
+
+        assertEquals(List.of(2L, 4L, 3L), libros.stream().map(LibroDTO::id).toList());
+    }
+
+    @Test
+    @DisplayName("Should fall back to random unread books for members without history")
+    void recomendarParaSocio_SinHistorial() {
+        when(repositorioPrestamo.streamLecturas()).thenReturn(Stream.empty());
+        motor.reconstruir();
+
+        List<RecomendacionDTO> recomendaciones = motor.recomendarParaSocio(null, 3);
+
+        assertEquals(3, recomendaciones.size());
+        assertEquals(3, recomendaciones.stream().map(RecomendacionDTO::titulo).distinct().count());
+        assertTrue(recomendaciones.stream().allMatch(r -> MotorRecomendaciones.MOTIVO_DESTACADO.equals(r.razon())));
+    }
+
+    @Test
+    @DisplayName("Should keep the most read ranking sorted as loans arrive after a load")
+    void registrar_MantieneElRankingOrdenado() {
+        MotorRecomendaciones.Matriz matriz = new MotorRecomendaciones.Matriz();
+        Map<Long, Set<Long>> lectoresPorLibro = new HashMap<>();
+        matriz.registrarSocio(1L, new long[] { 30, 10, 20 });
+        matriz.registrarSocio(2L, new long[] { 20 });
+        matriz.ordenarMasLeidos();
+        lectoresPorLibro.put(10L, new HashSet<>(Set.of(1L)));
+        lectoresPorLibro.put(20L, new HashSet<>(Set.of(1L, 2L)));
+        lectoresPorLibro.put(30L, new HashSet<>(Set.of(1L)));
+
+        Random azar = new Random(42);
+        for (int i = 0; i < 2_000; i++) {
+            long idSocio = azar.nextInt(60);
+            // Sesgado hacia unos pocos títulos para que haya subidas largas y empates
+            long idLibro = azar.nextBoolean() ? azar.nextInt(8) : azar.nextInt(300);
+            matriz.registrar(idSocio, idLibro);
+            lectoresPorLibro.computeIfAbsent(idLibro, id -> new HashSet<>()).add(idSocio);
+        }
+
+        List<Long> esperado = lectoresPorLibro.keySet().stream()
+                .sorted(Comparator.<Long>comparingInt(id -> -lectoresPorLibro.get(id).size())
+                        .thenComparing(Comparator.naturalOrder()))
+                .toList();
+        assertEquals(esperado.size(), matriz.numLibros());
+        assertEquals(esperado, LongStream.range(0, matriz.numLibros())
+                .mapToObj(i -> matriz.masLeido((int) i)).toList());
+    }
+
+    private static LecturaSocio lectura(long idSocio, long idLibro) {
+        return new LecturaSocio(idSocio, idLibro);
+    }
+
+    private PrestamoCreadoEvent evento(Long idSocio, Long idLibro) {
+        Socio socio = new Socio();
+        socio.setIdSocio(idSocio);
+        socio.setUsuario("socio" + idSocio);
+        Ejemplar ejemplar = new Ejemplar();
+        ejemplar.setLibro(libros.get(idLibro));
+        Prestamo prestamo = new Prestamo();
+        prestamo.setSocio(socio);
+        prestamo.setEjemplar(ejemplar);
+        return new PrestamoCreadoEvent(this, prestamo);
+    }
+
+    private static Libro libro(Long id, String titulo, String categoria) {
+        Libro libro = new Libro();
+        libro.setIdLibro(id);
+        libro.setTitulo(titulo);
+        libro.setAutor("Autor " + id);
+        libro.setCategoria(categoria);
+        ReflectionTestUtils.setField(libro, "disponibles", 1L);
+        return libro;
+    }
+}
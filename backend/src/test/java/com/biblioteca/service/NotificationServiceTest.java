@@ -0,0 +1,31 @@
+package com.biblioteca.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("NotificationService Unit Tests")
+class NotificationServiceTest {
+
+    private final TelegramNotificationService telegramService = mock(TelegramNotificationService.class);
+    private final NotificationService servicio = new NotificationService(telegramService);
+
+    @Test
+    @DisplayName("Should escape Markdown in interpolated values")
+    void escaparMarkdown_EscapaEntidades() {
+        assertEquals("El \\*gran\\* \\_libro\\_ \\[2] \\`x\\`",
+                NotificationService.escaparMarkdown("El *gran* _libro_ [2] `x`"));
+        assertEquals("Rayuela", NotificationService.escaparMarkdown("Rayuela"));
+    }
+
+    @Test
+    @DisplayName("Should escape titles and names but keep the notice's own formatting")
+    void notificarNuevoPrestamo_EscapaLosValores() {
+        servicio.notificarNuevoPrestamo("ana_gil", "El *gran* Gatsby");
+
+        verify(telegramService).enviarMensaje(
+                "📖 *Nuevo Préstamo*\n\n👤 *Usuario:* ana\\_gil\n📘 *Libro:* El \\*gran\\* Gatsby");
+    }
+}
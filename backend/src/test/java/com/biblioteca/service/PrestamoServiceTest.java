@@ -1,14 +1,17 @@
 package com.biblioteca.service;
 
 import com.biblioteca.config.LibraryPolicyProperties;
-import com.biblioteca.events.PrestamoDevueltoEvent;
+import com.biblioteca.events.PrestamoCreadoEvent;
+import com.biblioteca.events.PrestamosDevueltosEvent;
 import com.biblioteca.model.EstadoPrestamo;
 import com.biblioteca.model.EstadoEjemplar;
 import com.biblioteca.model.Ejemplar;
 import com.biblioteca.model.Libro;
 import com.biblioteca.model.Prestamo;
 import com.biblioteca.model.Socio;
+import com.biblioteca.model.TipoEventoOutbox;
 import com.biblioteca.repository.PrestamoRepository;
+import com.biblioteca.repository.ValidacionPrestamo;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -21,6 +24,8 @@ import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -29,6 +34,8 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -38,19 +45,21 @@ class PrestamoServiceTest {
     @Mock
     private PrestamoRepository prestamoRepository;
     @Mock
+    private com.biblioteca.repository.BloqueoRepository bloqueoRepository;
+    @Mock
     private SocioService socioService;
     @Mock
     private EjemplarService ejemplarService;
     @Mock
     private ApplicationEventPublisher eventPublisher;
     @Mock
-    private NotificationService notificationService;
+    private OutboxService outboxService;
     @Mock
     private LibraryPolicyProperties libraryPolicy;
     @Mock
     private jakarta.persistence.EntityManager entityManager;
     @Mock
-    private com.biblioteca.repository.BloqueoRepository bloqueoRepository;
+    private MetricasNegocio metricasNegocio;
 
     @InjectMocks
     private PrestamoService prestamoService;
@@ -92,8 +101,9 @@ class PrestamoServiceTest {
     @DisplayName("Debe crear un préstamo exitosamente (Happy Path)")
     void testCrearPrestamo_HappyPath() {
         // Arrange
-        when(socioService.buscarPorId(1L)).thenReturn(Optional.of(socio));
-        when(ejemplarService.buscarEjemplarPorId(10L)).thenReturn(ejemplar);
+        when(prestamoRepository.findValidacionPrestamo(eq(1L), eq(10L), any(Date.class)))
+                .thenReturn(Optional.of(new ValidacionPrestamo(socio, 0L, 0L, 0L)));
+        when(ejemplarService.buscarEjemplarConLibro(10L)).thenReturn(ejemplar);
 
         when(prestamoRepository.save(any(Prestamo.class))).thenAnswer(invocation -> {
             Prestamo p = invocation.getArgument(0);
@@ -109,8 +119,11 @@ class PrestamoServiceTest {
         assertEquals(100L, resultado.getIdPrestamo());
         assertEquals(EstadoPrestamo.ACTIVO, resultado.getEstado());
 
-        verify(ejemplarService).actualizarEstadoEjemplar(10L, EstadoEjemplar.PRESTADO);
+        verify(ejemplarService).cambiarEstadoEjemplar(ejemplar, EstadoEjemplar.PRESTADO);
         verify(prestamoRepository).save(any(Prestamo.class));
+        verify(eventPublisher).publishEvent(any(PrestamoCreadoEvent.class));
+        verifyNoInteractions(entityManager);
+        verify(outboxService).registrar(eq(TipoEventoOutbox.PRESTAMO_CREADO), anyMap());
     }
 
     @Test
@@ -118,17 +131,19 @@ class PrestamoServiceTest {
     void testCrearPrestamo_NoDisponible() {
         // Arrange
         ejemplar.setEstado(EstadoEjemplar.PRESTADO);
-        when(socioService.buscarPorId(1L)).thenReturn(Optional.of(socio));
-        when(ejemplarService.buscarEjemplarPorId(10L)).thenReturn(ejemplar);
+        when(prestamoRepository.findValidacionPrestamo(eq(1L), eq(10L), any(Date.class)))
+                .thenReturn(Optional.of(new ValidacionPrestamo(socio, 0L, 0L, 0L)));
+        when(ejemplarService.buscarEjemplarConLibro(10L)).thenReturn(ejemplar);
 
         // Act & Assert
         assertThrows(IllegalStateException.class, () -> {
             prestamoService.crearPrestamo(1L, 10L);
         });
+        verify(metricasNegocio).registrarRechazo(MetricasNegocio.MotivoRechazo.EJEMPLAR_NO_DISPONIBLE);
     }
 
     @Test
-    @DisplayName("Debo devolver préstamo exitosamente y disparar evento")
+    @DisplayName("Debo devolver préstamo exitosamente y registrar el evento en el outbox")
     void testDevolverPrestamo_HappyPath() {
         // Arrange
         ejemplar.setEstado(EstadoEjemplar.PRESTADO);
@@ -142,8 +157,17 @@ class PrestamoServiceTest {
         verify(ejemplarService).actualizarEstadoEjemplar(10L, EstadoEjemplar.DISPONIBLE);
         verify(prestamoRepository).save(prestamoActivo);
 
-        ArgumentCaptor<PrestamoDevueltoEvent> eventCaptor = ArgumentCaptor.forClass(PrestamoDevueltoEvent.class);
-        verify(eventPublisher).publishEvent(eventCaptor.capture());
-        assertEquals(55L, eventCaptor.getValue().getPrestamo().getIdPrestamo());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, Object>> datosCaptor = ArgumentCaptor.forClass(Map.class);
+        verify(outboxService).registrar(eq(TipoEventoOutbox.PRESTAMO_DEVUELTO), datosCaptor.capture());
+        assertEquals(55L, datosCaptor.getValue().get("id_prestamo"));
+        assertNotNull(datosCaptor.getValue().get("fecha_devolucion"));
+
+        // Solo el aviso de devolución para el índice de vencidos y las recomendaciones
+        ArgumentCaptor<PrestamosDevueltosEvent> eventoCaptor = ArgumentCaptor.forClass(PrestamosDevueltosEvent.class);
+        verify(eventPublisher).publishEvent(eventoCaptor.capture());
+        assertEquals(List.of(55L), eventoCaptor.getValue().getIdsPrestamo());
+        assertEquals(List.of("testuser"), eventoCaptor.getValue().getUsuarios());
+        verifyNoMoreInteractions(eventPublisher);
     }
 }
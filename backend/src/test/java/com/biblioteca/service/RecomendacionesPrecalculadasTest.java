@@ -0,0 +1,176 @@
+package com.biblioteca.service;
+
+import com.biblioteca.config.CacheConfig;
+import com.biblioteca.config.RecomendacionesProperties;
+import com.biblioteca.dto.RecomendacionDTO;
+import com.biblioteca.events.PrestamoCreadoEvent;
+import com.biblioteca.model.Ejemplar;
+import com.biblioteca.model.Libro;
+import com.biblioteca.model.Prestamo;
+import com.biblioteca.model.Socio;
+import com.biblioteca.repository.SocioRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("RecomendacionesPrecalculadas Unit Tests")
+class RecomendacionesPrecalculadasTest {
+
+    private static final List<RecomendacionDTO> LOCALES = List.of(
+            new RecomendacionDTO("Pedro Páramo", MotorRecomendaciones.MOTIVO_POPULAR));
+    private static final List<RecomendacionDTO> IA_V1 = List.of(new RecomendacionDTO("Rayuela", "IA"));
+    private static final List<RecomendacionDTO> IA_V2 = List.of(new RecomendacionDTO("Ficciones", "IA"));
+
+    private final SimpleMeterRegistry registro = new SimpleMeterRegistry();
+    private final AIGenerationService servicioIA = mock(AIGenerationService.class);
+    private final MotorRecomendaciones motorLocal = mock(MotorRecomendaciones.class);
+    private final SocioRepository socioRepository = mock(SocioRepository.class);
+    private final RecomendacionesProperties propiedades = new RecomendacionesProperties();
+
+    private RecomendacionesPrecalculadas precalculadas;
+
+    @BeforeEach
+    void setUp() {
+        for (long id = 1; id <= 3; id++) {
+            Socio socio = new Socio();
+            socio.setIdSocio(id);
+            socio.setUsuario("socio" + id);
+            when(socioRepository.findByUsuario("socio" + id)).thenReturn(Optional.of(socio));
+        }
+        when(motorLocal.recomendarParaSocio(anyLong(), eq(3))).thenReturn(LOCALES);
+    }
+
+    @AfterEach
+    void tearDown() {
+        precalculadas.detener();
+    }
+
+    @Test
+    @DisplayName("Should answer locally at once and serve the AI result once it is precomputed")
+    void obtener_SinEsperarALaIA() {
+        when(servicioIA.consultarIA("socio1")).thenReturn(CompletableFuture.completedFuture(IA_V1));
+        precalculadas = crear();
+
+        assertEquals(LOCALES, precalculadas.obtener("socio1"));
+
+        esperar(() -> IA_V1.equals(precalculadas.obtener("socio1")));
+        // Las visitas mientras se calcula no lanzan otra llamada
+        verify(servicioIA, times(1)).consultarIA("socio1");
+        assertTrue(registro.get("ia.recomendaciones").tag("origen", "ia").counter().count() >= 1);
+    }
+
+    @Test
+    @DisplayName("Should keep serving the stored result while a committed loan refreshes it")
+    void alCrearPrestamo_RecalculaEnSegundoPlano() {
+        CompletableFuture<List<RecomendacionDTO>> segunda = new CompletableFuture<>();
+        when(servicioIA.consultarIA("socio1"))
+                .thenReturn(CompletableFuture.completedFuture(IA_V1))
+                .thenReturn(segunda);
+        precalculadas = crear();
+        precalculadas.alCrearPrestamo(evento("socio1"));
+        esperar(() -> IA_V1.equals(precalculadas.obtener("socio1")));
+
+        precalculadas.alCrearPrestamo(evento("socio1"));
+        esperar(() -> mockingDetails(servicioIA).getInvocations().size() == 2);
+
+        // Versión anterior mientras la IA responde; después, la nueva
+        assertEquals(IA_V1, precalculadas.obtener("socio1"));
+        segunda.complete(IA_V2);
+        esperar(() -> IA_V2.equals(precalculadas.obtener("socio1")));
+    }
+
+    @Test
+    @DisplayName("Should stop tracking a member's history version once the stored result catches up")
+    void alCrearPrestamo_OlvidaLaVersionAlGuardar() {
+        CompletableFuture<List<RecomendacionDTO>> segunda = new CompletableFuture<>();
+        when(servicioIA.consultarIA("socio1"))
+                .thenReturn(CompletableFuture.completedFuture(IA_V1))
+                .thenReturn(segunda);
+        when(servicioIA.consultarIA("socio2")).thenReturn(CompletableFuture.completedFuture(List.of()));
+        precalculadas = crear();
+        Map<?, ?> versiones = (Map<?, ?>) ReflectionTestUtils.getField(precalculadas, "versiones");
+
+        precalculadas.alCrearPrestamo(evento("socio1"));
+        // Sin respuesta de la IA no hay nada guardado con que comparar la versión
+        precalculadas.alCrearPrestamo(evento("socio2"));
+        esperar(() -> IA_V1.equals(precalculadas.obtener("socio1")));
+        esperar(() -> mockingDetails(servicioIA).getInvocations().size() == 2 && versiones.isEmpty());
+
+        // Una versión pendiente se sigue hasta que lo guardado la alcanza
+        precalculadas.alCrearPrestamo(evento("socio1"));
+        esperar(() -> mockingDetails(servicioIA).getInvocations().size() == 3);
+        assertEquals(Set.of("socio1"), versiones.keySet());
+        segunda.complete(IA_V2);
+        esperar(() -> IA_V2.equals(precalculadas.obtener("socio1")));
+        esperar(versiones::isEmpty);
+        verify(servicioIA, times(2)).consultarIA("socio1");
+    }
+
+    @Test
+    @DisplayName("Should bound concurrent AI calls to the pool and drop jobs beyond the queue")
+    void precalculo_LimitadoPorElGrupoDeHilos() {
+        propiedades.setHilosIa(1);
+        propiedades.setCapacidadCola(1);
+        CompletableFuture<List<RecomendacionDTO>> enCurso = new CompletableFuture<>();
+        when(servicioIA.consultarIA(anyString())).thenReturn(enCurso);
+        precalculadas = crear();
+
+        precalculadas.alCrearPrestamo(evento("socio1"));
+        esperar(() -> mockingDetails(servicioIA).getInvocations().size() == 1);
+        precalculadas.alCrearPrestamo(evento("socio2"));
+        precalculadas.alCrearPrestamo(evento("socio3"));
+
+        assertEquals(1, registro.get("recomendaciones.precalculo.descartados").counter().count());
+        assertEquals(1.0, registro.get("recomendaciones.precalculo.pendientes").gauge().value());
+        verify(servicioIA, times(1)).consultarIA(anyString());
+
+        enCurso.complete(IA_V1);
+        esperar(() -> IA_V1.equals(precalculadas.obtener("socio2")));
+        verify(servicioIA, never()).consultarIA("socio3");
+    }
+
+    private RecomendacionesPrecalculadas crear() {
+        return new RecomendacionesPrecalculadas(servicioIA, motorLocal, socioRepository, propiedades,
+                new ConcurrentMapCacheManager(CacheConfig.RECOMENDACIONES), registro);
+    }
+
+    private PrestamoCreadoEvent evento(String usuario) {
+        Socio socio = socioRepository.findByUsuario(usuario).orElseThrow();
+        Libro libro = new Libro();
+        libro.setIdLibro(1L);
+        Ejemplar ejemplar = new Ejemplar();
+        ejemplar.setLibro(libro);
+        Prestamo prestamo = new Prestamo();
+        prestamo.setSocio(socio);
+        prestamo.setEjemplar(ejemplar);
+        return new PrestamoCreadoEvent(this, prestamo);
+    }
+
+    private static void esperar(BooleanSupplier condicion) {
+        long limite = System.currentTimeMillis() + 5000;
+        while (!condicion.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < limite, "Tiempo de espera agotado");
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.biblioteca.service;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sustituto local de ai_service: atiende POST /api/recommend en un puerto libre
+ * y cuenta las peticiones recibidas. El modo se puede cambiar entre llamadas.
+ */
+final class ServicioIAStub implements AutoCloseable {
+
+    enum Modo {
+        /** 200 con dos recomendaciones. */
+        OK,
+        /** 500 sin cuerpo útil. */
+        ERROR,
+        /** 200 tras dormir un segundo, para provocar el timeout de lectura. */
+        LENTO
+    }
+
+    static final String RESPUESTA_OK = "{\"recomendaciones\":["
+            + "{\"titulo\":\"Rayuela\",\"motivo\":\"Te gustó el realismo mágico.\"},"
+            + "{\"titulo\":\"Ficciones\",\"motivo\":\"Otro clásico latinoamericano.\"}]}";
+
+    private final HttpServer servidor;
+    private final ExecutorService hilos = Executors.newCachedThreadPool();
+    private final AtomicInteger peticiones = new AtomicInteger();
+    private volatile Modo modo = Modo.OK;
+
+    ServicioIAStub() throws IOException {
+        servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        servidor.createContext("/api/recommend", intercambio -> {
+            peticiones.incrementAndGet();
+            intercambio.getRequestBody().readAllBytes();
+            Modo actual = modo;
+            if (actual == Modo.LENTO) {
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            int codigo = actual == Modo.ERROR ? 500 : 200;
+            byte[] cuerpo = (actual == Modo.ERROR ? "{\"detail\":\"error\"}" : RESPUESTA_OK)
+                    .getBytes(StandardCharsets.UTF_8);
+            intercambio.getResponseHeaders().add("Content-Type", "application/json");
+            intercambio.sendResponseHeaders(codigo, cuerpo.length);
+            intercambio.getResponseBody().write(cuerpo);
+            intercambio.close();
+        });
+        // Un hilo por petición para que una respuesta lenta no retenga a las demás
+        servidor.setExecutor(hilos);
+        servidor.start();
+    }
+
+    String url() {
+        return "http://127.0.0.1:" + servidor.getAddress().getPort() + "/api/recommend";
+    }
+
+    void setModo(Modo modo) {
+        this.modo = modo;
+    }
+
+    int peticiones() {
+        return peticiones.get();
+    }
+
+    @Override
+    public void close() {
+        servidor.stop(0);
+        hilos.shutdownNow();
+    }
+}
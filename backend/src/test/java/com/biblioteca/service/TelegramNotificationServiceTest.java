@@ -0,0 +1,172 @@
+package com.biblioteca.service;
+
+import com.biblioteca.config.TelegramProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TelegramNotificationService Unit Tests")
+class TelegramNotificationServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry registro = new SimpleMeterRegistry();
+
+    // Servidor que hace de Bot API: registra cada POST y responde con el siguiente estado de la lista
+    private HttpServer telegram;
+    private final BlockingQueue<JsonNode> recibidos = new LinkedBlockingQueue<>();
+    private final ConcurrentLinkedQueue<Integer> respuestas = new ConcurrentLinkedQueue<>();
+
+    private TelegramProperties propiedades;
+    private TelegramNotificationService servicio;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        telegram = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        telegram.createContext("/botTOKEN/sendMessage", intercambio -> {
+            recibidos.add(objectMapper.readTree(intercambio.getRequestBody()));
+            Integer estado = respuestas.poll();
+            int codigo = estado == null ? 200 : estado;
+            byte[] cuerpo = (codigo == 429
+                    ? "{\"ok\":false,\"error_code\":429,\"parameters\":{\"retry_after\":0}}"
+                    : "{\"ok\":true}").getBytes(StandardCharsets.UTF_8);
+            intercambio.sendResponseHeaders(codigo, cuerpo.length);
+            intercambio.getResponseBody().write(cuerpo);
+            intercambio.close();
+        });
+        telegram.start();
+
+        propiedades = new TelegramProperties();
+        propiedades.setBotToken("TOKEN");
+        propiedades.setAdminChatId("-100");
+        propiedades.setApiUrl("http://127.0.0.1:" + telegram.getAddress().getPort());
+        propiedades.setAgruparMs(200);
+        propiedades.setEsperaInicialMs(10);
+        propiedades.setMaxReintentos(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (servicio != null) {
+            servicio.detener();
+        }
+        telegram.stop(0);
+    }
+
+    @Test
+    @DisplayName("Should coalesce a burst into a single POST per chat")
+    void enviarMensaje_AgrupaRafagaEnUnEnvio() throws InterruptedException {
+        servicio = iniciar();
+
+        servicio.enviarMensaje("uno");
+        servicio.enviarMensaje("dos");
+        servicio.enviarMensaje("tres");
+
+        JsonNode envio = recibidos.poll(5, TimeUnit.SECONDS);
+        assertNotNull(envio);
+        assertEquals("-100", envio.get("chat_id").asText());
+        assertEquals("Markdown", envio.get("parse_mode").asText());
+        assertEquals(String.join(TelegramNotificationService.SEPARADOR, "uno", "dos", "tres"),
+                envio.get("text").asText());
+
+        esperarContador("telegram.mensajes.enviados", 3);
+        assertNull(recibidos.poll(300, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    @DisplayName("Should retry on 429 and drop once retries are exhausted")
+    void enviarMensaje_ReintentaTras429() throws InterruptedException {
+        respuestas.addAll(List.of(429, 429, 200));
+        servicio = iniciar();
+
+        servicio.enviarMensaje("préstamo");
+        esperarContador("telegram.mensajes.enviados", 1);
+        assertEquals(3, recibidos.size());
+
+        // Tres 429 seguidos agotan los dos reintentos
+        recibidos.clear();
+        respuestas.addAll(List.of(429, 429, 429));
+        servicio.enviarMensaje("reserva");
+        esperarContador("telegram.mensajes.descartados", 1);
+        assertEquals(3, recibidos.size());
+    }
+
+    @Test
+    @DisplayName("Should resend a rejected batch one by one and fall back to plain text")
+    void enviarMensaje_ReenviaPorSeparadoTras400() throws InterruptedException {
+        // Lote rechazado, "uno" bien, "*dos" rechazado en Markdown y bien en texto plano, "tres" bien
+        respuestas.addAll(List.of(400, 200, 400, 200, 200));
+        servicio = iniciar();
+
+        servicio.enviarMensaje("uno");
+        servicio.enviarMensaje("*dos");
+        servicio.enviarMensaje("tres");
+
+        esperarContador("telegram.mensajes.enviados", 3);
+        assertEquals(5, recibidos.size());
+        List<JsonNode> envios = List.copyOf(recibidos);
+        assertEquals("uno", envios.get(1).get("text").asText());
+        assertEquals("*dos", envios.get(3).get("text").asText());
+        assertFalse(envios.get(3).has("parse_mode"));
+        assertEquals("Markdown", envios.get(4).get("parse_mode").asText());
+        assertEquals(0, registro.get("telegram.mensajes.descartados").tag("motivo", "rechazado").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should drop and count messages when the queue is full")
+    void enviarMensaje_DescartaConColaLlena() {
+        propiedades.setCapacidadCola(2);
+        // Sin iniciar el emisor la cola no se vacía
+        servicio = new TelegramNotificationService(propiedades, objectMapper, registro);
+
+        for (int i = 0; i < 5; i++) {
+            servicio.enviarMensaje("mensaje " + i);
+        }
+
+        assertEquals(3, registro.get("telegram.mensajes.descartados").tag("motivo", "cola_llena").counter().count());
+        assertEquals(2, registro.get("telegram.cola.pendientes").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Should split coalesced text at Telegram's message length limit")
+    void agrupar_RespetaLongitudMaxima() {
+        String largo = "x".repeat(3000);
+
+        List<TelegramNotificationService.Bloque> bloques = TelegramNotificationService
+                .agrupar(List.of(largo, largo, "corto"));
+
+        assertEquals(2, bloques.size());
+        assertEquals(1, bloques.get(0).mensajes());
+        assertEquals(2, bloques.get(1).mensajes());
+        assertTrue(bloques.stream().allMatch(b -> b.texto().length() <= TelegramNotificationService.MAX_LONGITUD_MENSAJE));
+    }
+
+    private TelegramNotificationService iniciar() {
+        TelegramNotificationService nuevo = new TelegramNotificationService(propiedades, objectMapper, registro);
+        nuevo.iniciar();
+        return nuevo;
+    }
+
+    private void esperarContador(String nombre, double esperado) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 5_000;
+        while (registro.find(nombre).counters().stream().mapToDouble(c -> c.count()).sum() < esperado) {
+            assertTrue(System.currentTimeMillis() < limite, "Timeout esperando " + nombre);
+            Thread.sleep(20);
+        }
+    }
+}
@@ -26,6 +26,7 @@ CREATE SEQUENCE biblioteca.SEQ_LIBRO START WITH 100 INCREMENT BY 1 NOCACHE;
 CREATE SEQUENCE biblioteca.SEQ_EJEMPLAR START WITH 100 INCREMENT BY 1 NOCACHE;
 CREATE SEQUENCE biblioteca.SEQ_PRESTAMO START WITH 100 INCREMENT BY 1 NOCACHE;
 CREATE SEQUENCE biblioteca.SEQ_BLOQUEO START WITH 100 INCREMENT BY 1 NOCACHE;
+CREATE SEQUENCE biblioteca.SEQ_EVENTO_OUTBOX START WITH 1 INCREMENT BY 1 CACHE 100;
 
 CREATE TABLE biblioteca.SOCIO (
     ID_SOCIO NUMBER DEFAULT biblioteca.SEQ_SOCIO.NEXTVAL PRIMARY KEY,
@@ -44,7 +45,8 @@ CREATE TABLE biblioteca.LIBRO (
     TITULO VARCHAR2(200) NOT NULL,
     AUTOR VARCHAR2(100) NOT NULL,
     CATEGORIA VARCHAR2(50),
-    ANIO NUMBER(4)
+    ANIO NUMBER(4),
+    DISPONIBLES NUMBER DEFAULT 0 NOT NULL
 );
 
 CREATE TABLE biblioteca.EJEMPLAR (
@@ -82,15 +84,41 @@ CREATE TABLE biblioteca.PRESTAMO (
     CONSTRAINT FK_PRESTAMO_BLOQUEO FOREIGN KEY (ID_BLOQUEO) REFERENCES biblioteca.BLOQUEO(ID_BLOQUEO)
 );
 
+-- Outbox transaccional: eventos escritos junto a PRESTAMO/BLOQUEO y entregados por la aplicación
+CREATE TABLE biblioteca.EVENTO_OUTBOX (
+    ID_EVENTO NUMBER DEFAULT biblioteca.SEQ_EVENTO_OUTBOX.NEXTVAL PRIMARY KEY,
+    TIPO VARCHAR2(40) NOT NULL,
+    PAYLOAD VARCHAR2(4000) NOT NULL,
+    ESTADO VARCHAR2(20) CHECK (ESTADO IN ('PENDIENTE', 'PROCESADO', 'FALLIDO')) NOT NULL,
+    FECHA_CREACION TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    FECHA_PROCESADO TIMESTAMP,
+    INTENTOS NUMBER DEFAULT 0 NOT NULL,
+    ULTIMO_ERROR VARCHAR2(500)
+);
+
+-- Contadores de rate limiting compartidos entre réplicas del backend (app.rate-limit.store=jdbc)
+CREATE TABLE biblioteca.RATE_LIMIT_CONTADOR (
+    CLAVE VARCHAR2(200) NOT NULL,
+    VENTANA NUMBER(19) NOT NULL,
+    CUENTA NUMBER(10) NOT NULL,
+    CONSTRAINT PK_RATE_LIMIT_CONTADOR PRIMARY KEY (CLAVE, VENTANA)
+);
+
+CREATE INDEX biblioteca.IDX_OUTBOX_ESTADO ON biblioteca.EVENTO_OUTBOX (ESTADO, ID_EVENTO);
+CREATE INDEX biblioteca.IDX_EJEMPLAR_LIBRO_ESTADO ON biblioteca.EJEMPLAR (ID_LIBRO, ESTADO);
+CREATE INDEX biblioteca.IDX_PRESTAMO_ESTADO_VENCIMIENTO ON biblioteca.PRESTAMO (ESTADO, FECHA_PREVISTA_DEVOLUCION);
 CREATE UNIQUE INDEX biblioteca.IDX_UN_BLOQUEO_ACTIVO ON biblioteca.BLOQUEO (CASE WHEN ESTADO = 'ACTIVO' THEN ID_SOCIO ELSE NULL END);
 
 -- 3. PROCEDURES
+-- Respaldo nocturno: la aplicación ya expira las reservas al vencer (ExpiracionBloqueos).
+-- Dos sentencias sobre conjuntos con la misma marca de tiempo en lugar de un bucle por fila.
 CREATE OR REPLACE PROCEDURE biblioteca.SP_LIMPIEZA_DIARIA IS
+    v_ahora DATE := SYSDATE;
 BEGIN
-    FOR r IN (SELECT b.ID_BLOQUEO, b.ID_EJEMPLAR FROM biblioteca.BLOQUEO b WHERE b.ESTADO = 'ACTIVO' AND b.FECHA_FIN < SYSDATE) LOOP
-        UPDATE biblioteca.BLOQUEO SET ESTADO = 'EXPIRADO' WHERE ID_BLOQUEO = r.ID_BLOQUEO;
-        UPDATE biblioteca.EJEMPLAR SET ESTADO = 'DISPONIBLE' WHERE ID_EJEMPLAR = r.ID_EJEMPLAR;
-    END LOOP;
+    UPDATE biblioteca.EJEMPLAR SET ESTADO = 'DISPONIBLE'
+     WHERE ESTADO = 'BLOQUEADO'
+       AND ID_EJEMPLAR IN (SELECT ID_EJEMPLAR FROM biblioteca.BLOQUEO WHERE ESTADO = 'ACTIVO' AND FECHA_FIN < v_ahora);
+    UPDATE biblioteca.BLOQUEO SET ESTADO = 'EXPIRADO' WHERE ESTADO = 'ACTIVO' AND FECHA_FIN < v_ahora;
     COMMIT;
 END;
 /
@@ -106,7 +134,11 @@ BEGIN
     SELECT COUNT(*) INTO v_bloqueos_activos FROM biblioteca.BLOQUEO WHERE ID_SOCIO = :NEW.ID_SOCIO AND ESTADO = 'ACTIVO';
     IF v_bloqueos_activos > 0 THEN RAISE_APPLICATION_ERROR(-20101, 'El socio ya tiene un bloqueo activo.'); END IF;
     SELECT ESTADO INTO v_estado_ejemplar FROM biblioteca.EJEMPLAR WHERE ID_EJEMPLAR = :NEW.ID_EJEMPLAR;
-    IF v_estado_ejemplar != 'DISPONIBLE' THEN RAISE_APPLICATION_ERROR(-20102, 'El ejemplar no esta disponible'); END IF;
+    -- BLOQUEADO sin reserva activa: la aplicación lo acaba de reclamar con un UPDATE condicional
+    IF v_estado_ejemplar = 'BLOQUEADO' THEN
+        SELECT COUNT(*) INTO v_bloqueos_activos FROM biblioteca.BLOQUEO WHERE ID_EJEMPLAR = :NEW.ID_EJEMPLAR AND ESTADO = 'ACTIVO';
+        IF v_bloqueos_activos > 0 THEN RAISE_APPLICATION_ERROR(-20102, 'El ejemplar no esta disponible'); END IF;
+    ELSIF v_estado_ejemplar != 'DISPONIBLE' THEN RAISE_APPLICATION_ERROR(-20102, 'El ejemplar no esta disponible'); END IF;
 END;
 /
 CREATE OR REPLACE TRIGGER biblioteca.TRG_ACTUALIZAR_ESTADO_BLOQUEO AFTER INSERT ON biblioteca.BLOQUEO FOR EACH ROW BEGIN UPDATE biblioteca.EJEMPLAR SET ESTADO = 'BLOQUEADO' WHERE ID_EJEMPLAR = :NEW.ID_EJEMPLAR; END;
@@ -132,6 +164,21 @@ BEGIN
     END IF;
 END;
 /
+-- Mantiene LIBRO.DISPONIBLES ante cualquier cambio de EJEMPLAR (incluidos los
+-- triggers anteriores y SP_LIMPIEZA_DIARIA). Es un delta por fila, compatible con
+-- el recálculo idempotente que hace la aplicación en la misma transacción.
+CREATE OR REPLACE TRIGGER biblioteca.TRG_EJEMPLAR_DISPONIBLES
+AFTER INSERT OR DELETE OR UPDATE OF ESTADO, ID_LIBRO ON biblioteca.EJEMPLAR
+FOR EACH ROW
+BEGIN
+    IF (INSERTING OR UPDATING) AND :NEW.ESTADO = 'DISPONIBLE' THEN
+        UPDATE biblioteca.LIBRO SET DISPONIBLES = DISPONIBLES + 1 WHERE ID_LIBRO = :NEW.ID_LIBRO;
+    END IF;
+    IF (DELETING OR UPDATING) AND :OLD.ESTADO = 'DISPONIBLE' THEN
+        UPDATE biblioteca.LIBRO SET DISPONIBLES = DISPONIBLES - 1 WHERE ID_LIBRO = :OLD.ID_LIBRO;
+    END IF;
+END;
+/
 CREATE OR REPLACE TRIGGER biblioteca.TRG_PRESTAMO_POST_INSERT AFTER INSERT ON biblioteca.PRESTAMO FOR EACH ROW BEGIN UPDATE biblioteca.EJEMPLAR SET ESTADO = 'PRESTADO' WHERE ID_EJEMPLAR = :NEW.ID_EJEMPLAR; IF :NEW.ID_BLOQUEO IS NOT NULL THEN UPDATE biblioteca.BLOQUEO SET ESTADO = 'CONVERTIDO' WHERE ID_BLOQUEO = :NEW.ID_BLOQUEO; END IF; END;
 /
 
@@ -7,7 +7,7 @@
  * - Sistema de reservas (bloqueos de 24 horas)
  * 
  * **Optimizaciones:**
- * - Paginación server-side (12 libros por página)
+ * - Paginación server-side por cursor (12 libros por página, coste constante)
  * - Lazy loading de portadas
  * - Cache de disponibilidad en lote
  * 
@@ -25,11 +25,8 @@ import { BOOK_STATUS, CATEGORY_EMOJIS } from './constants.js';
 // ESTADO DE PAGINACIÓN
 // ============================================
 
-/** @type {number} Página actual del catálogo (0-indexed) */
-let currentPage = 0;
-
-/** @type {number} Total de páginas disponibles */
-let totalPages = 1;
+/** @type {string|null} Cursor de la siguiente página ('' = primera, null = no hay más) */
+let nextCursor = '';
 
 /** @type {boolean} Flag para evitar cargas simultáneas */
 let isLoading = false;
@@ -49,8 +46,7 @@ let currentQueryParams = '';
  * @returns {void}
  */
 export function resetCatalogState() {
-    currentPage = 0;
-    totalPages = 1;
+    nextCursor = '';
     currentQueryParams = '';
     const container = document.getElementById('catalog-list');
     if (container) container.innerHTML = '';
@@ -61,7 +57,7 @@ export async function loadCatalog(append = false) {
     if (!append) resetCatalogState();
 
     // Safety check for end of list
-    if (append && currentPage >= totalPages) return;
+    if (append && nextCursor === null) return;
 
     isLoading = true;
     const container = document.getElementById('catalog-list');
@@ -85,23 +81,22 @@ export async function loadCatalog(append = false) {
     const searchInput = document.getElementById('search-input');
     const searchTerm = searchInput ? searchInput.value.toLowerCase().trim() : '';
 
-    let queryParams = [`page=${currentPage}`, `size=12`]; // 12 fits nicely in 2, 3, 4 columns
+    // 12 fits nicely in 2, 3, 4 columns. El total solo se pide en la primera página.
+    let queryParams = [`cursor=${encodeURIComponent(nextCursor)}`, `tamanio=12`, `contarTotal=${!append}`];
 
     if (category !== 'Todas') {
-        // Note: The backend filter 'Leídos' is now handled via excludeRead=false + onlyRead=true ? 
-        // Actually the backend has `onlyRead`. The dropdown logic in original code was complex.
-        // Simplified:
-        if (category === 'Leídos') queryParams.push('onlyRead=true');
+        // 'Leídos' no es una categoría real: se traduce al filtro soloLeidos del backend
+        if (category === 'Leídos') queryParams.push('soloLeidos=true');
         else queryParams.push(`categoria=${encodeURIComponent(category)}`);
     }
 
     if (currentUser) {
-        queryParams.push(`username=${encodeURIComponent(currentUser.username)}`);
-        if (excludeRead) queryParams.push(`excludeRead=true`);
+        queryParams.push(`usuario=${encodeURIComponent(currentUser.username)}`);
+        if (excludeRead) queryParams.push(`excluirLeidos=true`);
     }
 
     if (searchTerm) {
-        queryParams.push(`search=${encodeURIComponent(searchTerm)}`);
+        queryParams.push(`busqueda=${encodeURIComponent(searchTerm)}`);
     }
 
     const endpoint = `/libros/paginated?${queryParams.join('&')}`;
@@ -109,11 +104,11 @@ export async function loadCatalog(append = false) {
     try {
         const data = await fetchWithAuth(endpoint);
         const libros = data.content;
-        totalPages = data.totalPages;
+        nextCursor = data.nextCursor;
 
-        // Update Counter
+        // Update Counter (solo viene en la primera página)
         const counterEl = document.getElementById('book-counter');
-        if (counterEl) {
+        if (counterEl && data.totalElements >= 0) {
             counterEl.innerHTML = `<i class="fa-solid fa-book"></i> Mostrando <strong>${data.totalElements}</strong> libros`;
         }
 
@@ -136,7 +131,7 @@ export async function loadCatalog(append = false) {
         container.appendChild(fragment);
 
         // "Load More" Button
-        if (currentPage < totalPages - 1) {
+        if (nextCursor) {
             const btnContainer = document.createElement('div');
             btnContainer.id = loadMoreBtnId;
             btnContainer.className = "load-more-container";
@@ -145,10 +140,7 @@ export async function loadCatalog(append = false) {
             btn.className = "load-more-btn";
             btn.innerHTML = 'Cargar más libros <i class="fa-solid fa-chevron-down"></i>';
 
-            btn.addEventListener('click', () => {
-                currentPage++;
-                loadCatalog(true);
-            });
+            btn.addEventListener('click', () => loadCatalog(true));
 
             btnContainer.appendChild(btn);
             container.appendChild(btnContainer);
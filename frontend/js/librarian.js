@@ -1,6 +1,9 @@
 import { fetchWithAuth } from './api.js';
 import { showToast } from './utils.js';
-import { LOAN_STATUS } from './constants.js';
+
+// Tamaño de página de los listados del panel; el servidor admite hasta 100
+const PAGE_SIZE = 20;
+let soloVencidos = false;
 
 export async function loadLibrarianView() {
     const section = document.getElementById('librarian-section');
@@ -83,7 +86,10 @@ export async function loadLibrarianView() {
                  <h3 style="border-bottom:2px solid var(--success); padding-bottom:0.5rem; margin-bottom:1rem; font-weight:700; display:flex; align-items:center; gap:0.5rem;">
                     <i class="fa-solid fa-book-open" style="color:var(--success);"></i> 
                     Préstamos activos
-                    <span class="badge badge-success" id="loan-count" style="margin-left:auto;">0</span>
+                    <label style="margin-left:auto; font-size:0.8rem; font-weight:500; display:flex; align-items:center; gap:0.35rem; cursor:pointer;">
+                        <input type="checkbox" id="loans-overdue-toggle" ${soloVencidos ? 'checked' : ''}> Solo vencidos
+                    </label>
+                    <span class="badge badge-success" id="loan-count">0</span>
                 </h3>
                  <div id="all-loans-list" class="card-grid" style="grid-template-columns: 1fr; max-height: 400px; overflow-y: auto;">
                     <i class="fa-solid fa-circle-notch fa-spin"></i> Cargando...
@@ -98,6 +104,11 @@ export async function loadLibrarianView() {
     loadActivityChart();
     loadReservationsList();
     loadAllLoansList();
+
+    document.getElementById('loans-overdue-toggle').addEventListener('change', (e) => {
+        soloVencidos = e.target.checked;
+        loadAllLoansList();
+    });
 }
 
 async function loadStats() {
@@ -107,14 +118,12 @@ async function loadStats() {
         const books = await fetchWithAuth('/libros');
         animateValue('stat-books-value', 0, books.length, 1000);
 
-        // Fetch loans
-        const loans = await fetchWithAuth('/prestamos');
-        const activeLoans = loans.filter(l => l.estado === LOAN_STATUS.ACTIVO);
-        animateValue('stat-loans-value', 0, activeLoans.length, 1000);
+        // Solo interesan los totales: se pide una página de un elemento
+        const loans = await fetchWithAuth('/prestamos/paginated?estado=ACTIVO&tamanio=1');
+        animateValue('stat-loans-value', 0, loans.totalElements, 1000);
 
-        // Fetch reservations
-        const reservations = await fetchWithAuth('/bloqueos/activos');
-        animateValue('stat-reservations-value', 0, reservations.length, 1000);
+        const reservations = await fetchWithAuth('/bloqueos/paginated?tamanio=1');
+        animateValue('stat-reservations-value', 0, reservations.totalElements, 1000);
 
         // Fetch users (usando fetch directo ya que es endpoint público)
         const usersRes = await fetch('/api/socios/public');
@@ -214,12 +223,20 @@ async function loadActivityChart() {
     if (!container) return;
 
     try {
-        const loans = await fetchWithAuth('/prestamos');
-
-        // Last 7 days activity
+        // Last 7 days activity: el servidor filtra por fecha de préstamo
         const days = ['Dom', 'Lun', 'Mar', 'Mié', 'Jue', 'Vie', 'Sáb'];
         const activityData = new Array(7).fill(0);
         const today = new Date();
+        const since = new Date(today);
+        since.setDate(since.getDate() - 6);
+        const desde = `${since.getFullYear()}-${String(since.getMonth() + 1).padStart(2, '0')}-${String(since.getDate()).padStart(2, '0')}`;
+
+        const loans = [];
+        for (let pagina = 0; ; pagina++) {
+            const page = await fetchWithAuth(`/prestamos/paginated?desde=${desde}&tamanio=100&pagina=${pagina}`);
+            loans.push(...page.content);
+            if (page.last) break;
+        }
 
         loans.forEach(loan => {
             const loanDate = new Date(loan.fechaPrestamo);
@@ -263,18 +280,20 @@ async function loadActivityChart() {
     }
 }
 
-async function loadReservationsList() {
+async function loadReservationsList(pagina = 0) {
     const container = document.getElementById('pending-reservations-list');
     const countBadge = document.getElementById('reservation-count');
     if (!container) return;
 
     try {
-        const reservas = await fetchWithAuth(`/bloqueos/activos`);
+        const page = await fetchWithAuth(`/bloqueos/paginated?orden=fechaFin,asc&tamanio=${PAGE_SIZE}&pagina=${pagina}`);
+        const reservas = page.content;
 
-        if (countBadge) countBadge.textContent = reservas.length;
+        if (countBadge) countBadge.textContent = page.totalElements;
 
-        container.innerHTML = '';
-        if (reservas.length === 0) {
+        if (pagina === 0) container.innerHTML = '';
+        container.querySelector('.btn-load-more')?.remove();
+        if (page.totalElements === 0) {
             container.innerHTML = `
                 <div style="text-align:center; padding:2rem; color:var(--text-muted);">
                     <i class="fa-solid fa-check-circle" style="font-size:3rem; margin-bottom:1rem; color:var(--success); opacity:0.5;"></i>
@@ -322,6 +341,7 @@ async function loadReservationsList() {
             btnLoan.addEventListener('click', (e) => prestarLibro(r.idBloqueo, e.currentTarget));
             fragment.appendChild(div);
         });
+        if (!page.last) fragment.appendChild(loadMoreButton(() => loadReservationsList(pagina + 1)));
         container.appendChild(fragment);
 
     } catch (e) {
@@ -330,24 +350,27 @@ async function loadReservationsList() {
     }
 }
 
-async function loadAllLoansList() {
+async function loadAllLoansList(pagina = 0) {
     const container = document.getElementById('all-loans-list');
     const countBadge = document.getElementById('loan-count');
     if (!container) return;
 
     try {
-        const loans = await fetchWithAuth(`/prestamos`);
+        // Los más próximos a vencer primero; el filtro de vencidos lo aplica el servidor
+        const page = await fetchWithAuth(`/prestamos/paginated?estado=ACTIVO&orden=fechaPrevistaDevolucion,asc`
+            + `&soloVencidos=${soloVencidos}&tamanio=${PAGE_SIZE}&pagina=${pagina}`);
+        const activeLoans = page.content;
 
-        container.innerHTML = '';
-        const activeLoans = loans.filter(l => l.estado === LOAN_STATUS.ACTIVO);
+        if (pagina === 0) container.innerHTML = '';
+        container.querySelector('.btn-load-more')?.remove();
 
-        if (countBadge) countBadge.textContent = activeLoans.length;
+        if (countBadge) countBadge.textContent = page.totalElements;
 
-        if (activeLoans.length === 0) {
+        if (page.totalElements === 0) {
             container.innerHTML = `
                 <div style="text-align:center; padding:2rem; color:var(--text-muted);">
                     <i class="fa-solid fa-box-open" style="font-size:3rem; margin-bottom:1rem; opacity:0.5;"></i>
-                    <div style="font-weight:600; color:var(--text-primary);">Sin préstamos activos</div>
+                    <div style="font-weight:600; color:var(--text-primary);">${soloVencidos ? 'Sin préstamos vencidos' : 'Sin préstamos activos'}</div>
                     <div style="font-size:0.9rem;">Los libros devueltos aparecerán aquí.</div>
                 </div>
             `;
@@ -359,7 +382,7 @@ async function loadAllLoansList() {
         activeLoans.forEach((l, index) => {
             const div = document.createElement('div');
             div.className = 'book-card elastic-enter';
-            div.style.animationDelay = (index * 100) + 'ms';
+            div.style.animationDelay = (index * 50) + 'ms';
             div.style.display = 'flex';
             div.style.alignItems = 'center';
             div.style.justifyContent = 'space-between';
@@ -384,6 +407,7 @@ async function loadAllLoansList() {
             btnReturn.addEventListener('click', (e) => devolverPrestamo(l.idPrestamo, e.currentTarget));
             fragment.appendChild(div);
         });
+        if (!page.last) fragment.appendChild(loadMoreButton(() => loadAllLoansList(pagina + 1)));
         container.appendChild(fragment);
     } catch (e) {
         console.error(e);
@@ -391,6 +415,19 @@ async function loadAllLoansList() {
     }
 }
 
+function loadMoreButton(onClick) {
+    const btn = document.createElement('button');
+    btn.className = 'btn btn-load-more';
+    btn.style.cssText = 'width:100%; padding:0.6rem; font-size:0.85rem; background:var(--bg-secondary); border:1px solid var(--border); color:var(--text-primary);';
+    btn.innerHTML = '<i class="fa-solid fa-chevron-down"></i> Cargar más';
+    btn.addEventListener('click', () => {
+        btn.disabled = true;
+        btn.innerHTML = '<i class="fa-solid fa-circle-notch fa-spin"></i> Cargando...';
+        onClick();
+    });
+    return btn;
+}
+
 async function prestarLibro(idBloqueo, btn) {
     if (!confirm('¿Formalizar préstamo para este usuario?')) return;
 